@@ -2,6 +2,7 @@ package org.bitcoinj.core;
 
 
 import org.bitcoinj.manager.ManagerFiles;
+import org.bitcoinj.manager.ManagerJournal;
 import org.bitcoinj.store.FlatDB;
 import org.bitcoinj.utils.Threading;
 import org.slf4j.Logger;
@@ -249,15 +250,17 @@ public abstract class AbstractManager extends Message {
      * </p>
      */
     public void shutdownAutosaveAndWait() {
+        ManagerFiles files;
         fileManagerLock.lock();
         try {
-            ManagerFiles files = vFileManager;
+            files = vFileManager;
             vFileManager = null;
             checkState(files != null, "Auto saving manager not enabled.");
-            files.shutdownAndWait();
         } finally {
             fileManagerLock.unlock();
         }
+        // wait without holding the lock, a save in progress on the autosave thread needs it to finish
+        files.shutdownAndWait();
     }
 
     /**
@@ -287,6 +290,45 @@ public abstract class AbstractManager extends Message {
         }
     }
 
+    /**
+     * Returns true if the changes to this manager are saved to a {@link ManagerJournal} between full snapshots. Managers
+     * that return true call {@link #appendToJournal(int, byte[])} as they change and implement
+     * {@link #applyJournalRecord(int, byte[])}.
+     */
+    public boolean isJournalEnabled() {
+        return false;
+    }
+
+    /**
+     * Records a change to this manager in its journal, which is written on a background thread. Does nothing if the
+     * manager is not being saved to a file.
+     */
+    protected void appendToJournal(int type, byte[] data) {
+        ManagerFiles files = vFileManager;
+        if (files != null) {
+            Context.propagate(context);
+            files.appendToJournal(type, data);
+        }
+    }
+
+    /**
+     * Applies a record written by {@link #appendToJournal(int, byte[])} to the state loaded from a snapshot. Records
+     * written while a snapshot was being saved may already be part of that snapshot, so applying a record twice must
+     * have no further effect. Managers that don't keep a journal never have records to apply, so by default this does
+     * nothing.
+     */
+    protected void applyJournalRecord(int type, byte[] data) {
+    }
+
+    /**
+     * Applies the journal of the given snapshot file, if there is one, to the state loaded from that snapshot.
+     *
+     * @return the number of records applied, or -1 if there is no journal for this snapshot
+     */
+    public int replayJournal(File snapshot) throws IOException {
+        return new ManagerJournal(ManagerJournal.forSnapshot(snapshot)).replay(snapshot, this::applyJournalRecord);
+    }
+
     /**
      * Uses manager serialization to save the manager to the given file. To learn more about this file format, see
      * {@link #bitcoinSerializeToStream(OutputStream)}. Writes out first to a temporary file in the same directory and then renames
@@ -119,6 +119,112 @@ public class BitcoinSerializer extends MessageSerializer {
         names.put(CoinJoinStatusUpdate.class, "dssu");
     }
 
+    /** Creates a message of one command from its payload. */
+    private interface MessageFactory {
+        Message make(BitcoinSerializer serializer, byte[] payload, int length, byte[] hash) throws ProtocolException;
+    }
+
+    // The commands we can deserialize in an open addressing table keyed on the raw, zero padded command field of the
+    // header, so that the factory and the name of a known command are found without decoding the command. We use
+    // factories rather than reflection because reflection is very slow on Android.
+    private static final int COMMAND_TABLE_SIZE = 128;
+    private static final long[] commandKeys = new long[COMMAND_TABLE_SIZE];
+    private static final int[] commandKeyTails = new int[COMMAND_TABLE_SIZE];
+    private static final String[] commandNames = new String[COMMAND_TABLE_SIZE];
+    private static final MessageFactory[] commandFactories = new MessageFactory[COMMAND_TABLE_SIZE];
+    // for commands that are not padded with zeros
+    private static final Map<String, Integer> commandsByName = new HashMap<>();
+
+    static {
+        addCommand("version", (s, payload, length, hash) -> new VersionMessage(s.params, payload));
+        addCommand("inv", (s, payload, length, hash) -> s.makeInventoryMessage(payload, length));
+        addCommand("block", (s, payload, length, hash) -> s.makeBlock(payload, length));
+        addCommand("merkleblock", (s, payload, length, hash) -> s.makeFilteredBlock(payload));
+        addCommand("getdata", (s, payload, length, hash) -> new GetDataMessage(s.params, payload, s, length));
+        addCommand("getblocks", (s, payload, length, hash) -> new GetBlocksMessage(s.params, payload));
+        addCommand("getheaders", (s, payload, length, hash) -> new GetHeadersMessage(s.params, payload));
+        addCommand("tx", (s, payload, length, hash) -> s.makeTransaction(payload, 0, length, hash));
+        addCommand("addr", (s, payload, length, hash) -> s.makeAddressMessage(payload, length));
+        addCommand("ping", (s, payload, length, hash) -> new Ping(s.params, payload));
+        addCommand("pong", (s, payload, length, hash) -> new Pong(s.params, payload));
+        addCommand("verack", (s, payload, length, hash) -> new VersionAck(s.params, payload));
+        addCommand("headers", (s, payload, length, hash) -> new HeadersMessage(s.params, payload));
+        addCommand("headers2", (s, payload, length, hash) -> new Headers2Message(s.params, payload));
+        addCommand("getheaders2", (s, payload, length, hash) -> new GetHeaders2Message(s.params, payload));
+        addCommand("sendheaders2", (s, payload, length, hash) -> new SendHeaders2Message(s.params, payload));
+        addCommand("alert", (s, payload, length, hash) -> s.makeAlertMessage(payload));
+        addCommand("filterload", (s, payload, length, hash) -> s.makeBloomFilter(payload));
+        addCommand("notfound", (s, payload, length, hash) -> new NotFoundMessage(s.params, payload));
+        addCommand("mempool", (s, payload, length, hash) -> new MemoryPoolMessage());
+        addCommand("reject", (s, payload, length, hash) -> new RejectMessage(s.params, payload));
+        addCommand("utxos", (s, payload, length, hash) -> new UTXOsMessage(s.params, payload));
+        addCommand("getutxos", (s, payload, length, hash) -> new GetUTXOsMessage(s.params, payload));
+        // keep ix for backward compatibility
+        addCommand("ix", (s, payload, length, hash) -> new Transaction(s.params, payload));
+        addCommand("spork", (s, payload, length, hash) -> new SporkMessage(s.params, payload, 0));
+        addCommand("ssc", (s, payload, length, hash) -> new SyncStatusCount(s.params, payload));
+        addCommand("sendaddrv2", (s, payload, length, hash) -> new SendAddressMessageV2(s.params, payload));
+        addCommand("sendheaders", (s, payload, length, hash) -> new SendHeadersMessage(s.params, payload));
+        addCommand("sendcmpct", (s, payload, length, hash) -> new SendCompactBlocksMessage(s.params));
+        addCommand("getsporks", (s, payload, length, hash) -> new GetSporksMessage(s.params));
+        addCommand("govsync", (s, payload, length, hash) -> new GovernanceSyncMessage(s.params));
+        addCommand("govobj", (s, payload, length, hash) -> new GovernanceObject(s.params, payload));
+        addCommand("govobjvote", (s, payload, length, hash) -> new GovernanceVote(s.params, payload, 0));
+        addCommand("getmnlistd", (s, payload, length, hash) -> new GetSimplifiedMasternodeListDiff(s.params, payload));
+        addCommand("mnlistdiff", (s, payload, length, hash) ->
+                new SimplifiedMasternodeListDiff(s.params, payload, s.protocolVersion));
+        addCommand("senddsq", (s, payload, length, hash) -> new SendCoinJoinQueue(s.params, payload));
+        addCommand("qsendrecsigs", (s, payload, length, hash) -> new QuorumSendRecoveredSignatures(s.params));
+        addCommand("islock", (s, payload, length, hash) ->
+                new InstantSendLock(s.params, payload, InstantSendLock.ISLOCK_VERSION));
+        addCommand("isdlock", (s, payload, length, hash) ->
+                new InstantSendLock(s.params, payload, InstantSendLock.ISDLOCK_VERSION));
+        addCommand("clsig", (s, payload, length, hash) ->
+                new ChainLockSignature(s.params, payload, BLSScheme.isLegacyDefault()));
+        addCommand("qrinfo", (s, payload, length, hash) -> new QuorumRotationInfo(s.params, payload, s.protocolVersion));
+        addCommand("dssu", (s, payload, length, hash) -> new CoinJoinStatusUpdate(s.params, payload, s.protocolVersion));
+        addCommand("dsq", (s, payload, length, hash) -> new CoinJoinQueue(s.params, payload, s.protocolVersion));
+        addCommand("dsf", (s, payload, length, hash) -> new CoinJoinFinalTransaction(s.params, payload));
+        addCommand("dsc", (s, payload, length, hash) -> new CoinJoinComplete(s.params, payload));
+        addCommand("dstx", (s, payload, length, hash) -> new CoinJoinBroadcastTx(s.params, payload, s.protocolVersion));
+        addCommand("dsa", (s, payload, length, hash) -> new CoinJoinAccept(s.params, payload));
+        addCommand("dsi", (s, payload, length, hash) -> new CoinJoinEntry(s.params, payload));
+        addCommand("dss", (s, payload, length, hash) -> new CoinJoinSignedInputs(s.params, payload));
+    }
+
+    private static void addCommand(String name, MessageFactory factory) {
+        byte[] command = new byte[COMMAND_LEN];
+        byte[] nameBytes = name.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(nameBytes, 0, command, 0, nameBytes.length);
+        long key = readInt64(command, 0);
+        int keyTail = (int) readUint32(command, 8);
+        int slot = commandSlot(key, keyTail);
+        while (commandNames[slot] != null)
+            slot = (slot + 1) & (COMMAND_TABLE_SIZE - 1);
+        commandKeys[slot] = key;
+        commandKeyTails[slot] = keyTail;
+        commandNames[slot] = name;
+        commandFactories[slot] = factory;
+        commandsByName.put(name, slot);
+    }
+
+    private static int commandSlot(long key, int keyTail) {
+        long h = (key ^ keyTail) * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (COMMAND_TABLE_SIZE - 1);
+    }
+
+    /** Returns the slot of the command in the raw command field at the start of header, or -1 if it is unknown. */
+    private static int findCommand(byte[] header) {
+        long key = readInt64(header, 0);
+        int keyTail = (int) readUint32(header, 8);
+        for (int slot = commandSlot(key, keyTail); commandNames[slot] != null;
+             slot = (slot + 1) & (COMMAND_TABLE_SIZE - 1)) {
+            if (commandKeys[slot] == key && commandKeyTails[slot] == keyTail)
+                return slot;
+        }
+        return -1;
+    }
+
     /**
      * Constructs a BitcoinSerializer with the given behavior.
      *
@@ -208,12 +314,22 @@ public class BitcoinSerializer extends MessageSerializer {
 
     /**
      * Deserialize payload only.  You must provide a header, typically obtained by calling
-     * {@link BitcoinSerializer#deserializeHeader}.
+     * {@link BitcoinSerializer#deserializeHeader}. If the buffer wraps an array that holds just the payload, the
+     * message is parsed from that array without copying it, so it must not be reused.
      */
     @Override
     public Message deserializePayload(BitcoinPacketHeader header, ByteBuffer in) throws ProtocolException, BufferUnderflowException {
-        byte[] payloadBytes = new byte[header.size];
-        in.get(payloadBytes, 0, header.size);
+        byte[] payloadBytes;
+        if (in.hasArray() && in.arrayOffset() + in.position() == 0 && in.array().length == header.size &&
+                in.remaining() == header.size) {
+            // The buffer wraps an array of just the payload, like the one PeerSocketHandler reads a large message into,
+            // so the message is parsed from it rather than from a copy. The caller must not reuse the array.
+            payloadBytes = in.array();
+            in.position(in.limit());
+        } else {
+            payloadBytes = new byte[header.size];
+            in.get(payloadBytes, 0, header.size);
+        }
 
         // Verify the checksum.
         byte[] hash;
@@ -231,119 +347,19 @@ public class BitcoinSerializer extends MessageSerializer {
         }
 
         try {
-            return makeMessage(header.command, header.size, payloadBytes, hash, header.checksum);
+            return makeMessage(header, payloadBytes, hash);
         } catch (Exception e) {
             throw new ProtocolException("Error deserializing message using protocol version " + protocolVersion +" "
                     + HEX.encode(payloadBytes) + "\n", e);
         }
     }
 
-    private Message makeMessage(String command, int length, byte[] payloadBytes, byte[] hash, byte[] checksum) throws ProtocolException {
-        // We use an if ladder rather than reflection because reflection is very slow on Android.
-        Message message;
-        if (command.equals("version")) {
-            return new VersionMessage(params, payloadBytes);
-        } else if (command.equals("inv")) {
-            message = makeInventoryMessage(payloadBytes, length);
-        } else if (command.equals("block")) {
-            message = makeBlock(payloadBytes, length);
-        } else if (command.equals("merkleblock")) {
-            message = makeFilteredBlock(payloadBytes);
-        } else if (command.equals("getdata")) {
-            message = new GetDataMessage(params, payloadBytes, this, length);
-        } else if (command.equals("getblocks")) {
-            message = new GetBlocksMessage(params, payloadBytes);
-        } else if (command.equals("getheaders")) {
-            message = new GetHeadersMessage(params, payloadBytes);
-        } else if (command.equals("tx")) {
-            message = makeTransaction(payloadBytes, 0, length, hash);
-        } else if (command.equals("addr")) {
-            message = makeAddressMessage(payloadBytes, length);
-        } else if (command.equals("ping")) {
-            message = new Ping(params, payloadBytes);
-        } else if (command.equals("pong")) {
-            message = new Pong(params, payloadBytes);
-        } else if (command.equals("verack")) {
-            return new VersionAck(params, payloadBytes);
-        } else if (command.equals("headers")) {
-            return new HeadersMessage(params, payloadBytes);
-        } else if (command.equals("headers2")) {
-            return new Headers2Message(params, payloadBytes);
-        } else if (command.equals("getheaders2")) {
-            return new GetHeaders2Message(params, payloadBytes);
-        } else if (command.equals("sendheaders2")) {
-            return new SendHeaders2Message(params, payloadBytes);
-        } else if (command.equals("alert")) {
-            return makeAlertMessage(payloadBytes);
-        } else if (command.equals("filterload")) {
-            return makeBloomFilter(payloadBytes);
-        } else if (command.equals("notfound")) {
-            return new NotFoundMessage(params, payloadBytes);
-        } else if (command.equals("mempool")) {
-            return new MemoryPoolMessage();
-        } else if (command.equals("reject")) {
-            return new RejectMessage(params, payloadBytes);
-        } else if (command.equals("utxos")) {
-            return new UTXOsMessage(params, payloadBytes);
-        } else if (command.equals("getutxos")) {
-            return new GetUTXOsMessage(params, payloadBytes);
-        } else if (command.equals("ix")) {
-            return new Transaction(params, payloadBytes); // keep ix for backward compatibility
-        } else if (command.equals("spork")) {
-            return new SporkMessage(params, payloadBytes, 0);
-        } else if(command.equals("ssc")) {
-            return new SyncStatusCount(params, payloadBytes);
-        } else if(command.equals("sendaddrv2")) {
-            return new SendAddressMessageV2(params, payloadBytes);
-        } else if(command.equals("sendheaders")) {
-            return new SendHeadersMessage(params, payloadBytes);
-        } else if(command.equals("sendcmpct")) {
-            return new SendCompactBlocksMessage(params);
-        } else if(command.equals("getsporks")) {
-            return new GetSporksMessage(params);
-        } else if(command.equals("govsync")) {
-            return new GovernanceSyncMessage(params);
-        } else if(command.equals("govobj")) {
-            return new GovernanceObject(params, payloadBytes);
-        } else if(command.equals("govobjvote")) {
-            return new GovernanceVote(params, payloadBytes, 0);
-        } else if(command.equals("getmnlistd")) {
-            return new GetSimplifiedMasternodeListDiff(params, payloadBytes);
-        } else if(command.equals("mnlistdiff")) {
-            return new SimplifiedMasternodeListDiff(params, payloadBytes, protocolVersion);
-        } else if(command.equals("senddsq")) {
-            return new SendCoinJoinQueue(params, payloadBytes);
-        } else if(command.equals("qsendrecsigs")) {
-            return new QuorumSendRecoveredSignatures(params);
-        } else if(command.equals("islock")) {
-            return new InstantSendLock(params, payloadBytes, InstantSendLock.ISLOCK_VERSION);
-        } else if(command.equals("isdlock")) {
-            return new InstantSendLock(params, payloadBytes, InstantSendLock.ISDLOCK_VERSION);
-        } else if(command.equals("clsig")) {
-            return new ChainLockSignature(params, payloadBytes, BLSScheme.isLegacyDefault());
-        } else if(command.equals("qrinfo")) {
-            return new QuorumRotationInfo(params, payloadBytes, protocolVersion);
-        } else if(command.equals("dssu")) {
-            return new CoinJoinStatusUpdate(params, payloadBytes, protocolVersion);
-        } else if (command.equals("dsq")) {
-            return new CoinJoinQueue(params, payloadBytes, protocolVersion);
-        } else if (command.equals("dsf")) {
-            return new CoinJoinFinalTransaction(params, payloadBytes);
-        } else if (command.equals("dsc")) {
-            return new CoinJoinComplete(params, payloadBytes);
-        } else if (command.equals("dstx")) {
-            return new CoinJoinBroadcastTx(params, payloadBytes, protocolVersion);
-        } else if(command.equals("dsa")) {
-            return new CoinJoinAccept(params, payloadBytes);
-        } else if(command.equals("dsi")) {
-            return new CoinJoinEntry(params, payloadBytes);
-        } else if(command.equals("dss")) {
-            return new CoinJoinSignedInputs(params, payloadBytes);
-        } else {
-            log.warn("No support for deserializing message with name {}", command);
-            return new UnknownMessage(params, command, payloadBytes);
+    private Message makeMessage(BitcoinPacketHeader header, byte[] payloadBytes, byte[] hash) throws ProtocolException {
+        if (header.factory == null) {
+            log.warn("No support for deserializing message with name {}", header.command);
+            return new UnknownMessage(params, header.command, payloadBytes);
         }
-        return message;
+        return header.factory.make(this, payloadBytes, header.size, hash);
     }
 
     /**
@@ -456,6 +472,8 @@ public class BitcoinSerializer extends MessageSerializer {
         public final String command;
         public final int size;
         public final byte[] checksum;
+        // creates the message, or null if the command is unknown
+        private final MessageFactory factory;
 
         public BitcoinPacketHeader(ByteBuffer in) throws ProtocolException, BufferUnderflowException {
             header = new byte[HEADER_LENGTH];
@@ -463,12 +481,20 @@ public class BitcoinSerializer extends MessageSerializer {
 
             int cursor = 0;
 
-            // The command is a NULL terminated string, unless the command fills all twelve bytes
-            // in which case the termination is implicit.
-            for (; header[cursor] != 0 && cursor < COMMAND_LEN; cursor++) ;
-            byte[] commandBytes = new byte[cursor];
-            System.arraycopy(header, 0, commandBytes, 0, cursor);
-            command = new String(commandBytes, StandardCharsets.US_ASCII);
+            int slot = findCommand(header);
+            if (slot < 0) {
+                // The command is a NULL terminated string, unless the command fills all twelve bytes
+                // in which case the termination is implicit.
+                for (; cursor < COMMAND_LEN && header[cursor] != 0; cursor++) ;
+                command = new String(header, 0, cursor, StandardCharsets.US_ASCII);
+                // a known command may be followed by garbage instead of zeros
+                Integer named = commandsByName.get(command);
+                if (named != null)
+                    slot = named;
+            } else {
+                command = commandNames[slot];
+            }
+            factory = slot >= 0 ? commandFactories[slot] : null;
             cursor = COMMAND_LEN;
 
             size = (int) readUint32(header, cursor);
@@ -324,12 +324,16 @@ public class Block extends Message {
         time = readUint32();
         difficultyTarget = readUint32();
         nonce = readUint32();
-        hash = Sha256Hash.wrapReversed(X11.x11Digest(payload, offset, cursor - offset));
         headerBytesValid = serializer.isParseRetainMode();
 
         // transactions
         parseTransactions(offset + HEADER_SIZE);
         length = cursor - offset;
+
+        // Headers without transactions, such as those of a headers message, are hashed on first use so that a whole
+        // batch can be hashed in parallel, see HeadersMessage#hashHeaders.
+        if (hasTransactions())
+            hash = Sha256Hash.wrapReversed(X11.x11Digest(payload, offset, HEADER_SIZE));
     }
     
     public int getOptimalEncodingMessageSize() {
@@ -31,6 +31,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.function.Predicate;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.Math.*;
@@ -45,7 +46,8 @@ import static java.lang.Math.*;
  * a useful privacy feature - if you have spare bandwidth the false positive rate can be increased so the remote peer
  * gets a noisy picture of what transactions are relevant to your wallet.</p>
  * 
- * <p>Instances of this class are not safe for use by multiple threads.</p>
+ * <p>Instances of this class are not safe for use by multiple threads. To check a filter from several threads at
+ * once, use a {@link ConcurrentBloomFilter}.</p>
  */
 public class BloomFilter extends Message {
     /** The BLOOM_UPDATE_* constants control when the bloom filter is auto-updated by the peer using
@@ -61,12 +63,14 @@ public class BloomFilter extends Message {
     private long hashFuncs;
     private long nTweak;
     private byte nFlags;
+    // the hash values of the object being looked up or inserted, guarded by this
+    private final int[] hashes = new int[MAX_HASH_FUNCS];
 
     // Same value as Dash Core
     // A filter of 20,000 items and a false positive rate of 0.1% or one of 10,000 items and 0.0001% is just under 36,000 bytes
     private static final long MAX_FILTER_SIZE = 36000;
     // There is little reason to ever have more hash functions than 50 given a limit of 36,000 bytes
-    private static final int MAX_HASH_FUNCS = 50;
+    static final int MAX_HASH_FUNCS = 50;
 
     /**
      * Construct a BloomFilter by deserializing payloadBytes
@@ -124,6 +128,14 @@ public class BloomFilter extends Message {
         this.nFlags = (byte)(0xff & updateFlag.ordinal());
     }
     
+    /** Creates a filter with the given contents, see {@link ConcurrentBloomFilter#toBloomFilter()}. */
+    BloomFilter(byte[] data, long hashFuncs, long nTweak, byte nFlags) {
+        this.data = data;
+        this.hashFuncs = hashFuncs;
+        this.nTweak = nTweak;
+        this.nFlags = nFlags;
+    }
+
     /**
      * Returns the theoretical false positive rate of this filter if were to contain the given number of elements.
      */
@@ -169,6 +181,90 @@ public class BloomFilter extends Message {
         return (x << r) | (x >>> (32 - r));
     }
 
+    private static final int C1 = 0xcc9e2d51;
+    private static final int C2 = 0x1b873593;
+
+    /**
+     * Computes the MurmurHash3 of the given part of the object for the first hashFuncs hash functions of a filter in
+     * one pass over the object, and stores the bit indexes in a filter of the given number of bits in hashes. Mixing
+     * a block of the object does not depend on the seed, so each block is read and mixed once for all functions.
+     */
+    static void murmurHash3(long nTweak, int hashFuncs, int bits, byte[] object, int offset, int length, int[] hashes) {
+        seed(nTweak, hashFuncs, hashes);
+        int end = offset + (length & ~3);
+        for (int i = offset; i < end; i += 4) {
+            mixBlock((object[i] & 0xFF) |
+                    ((object[i + 1] & 0xFF) << 8) |
+                    ((object[i + 2] & 0xFF) << 16) |
+                    ((object[i + 3] & 0xFF) << 24), hashFuncs, hashes);
+        }
+        int k1 = 0;
+        switch (length & 3) {
+            case 3:
+                k1 ^= (object[end + 2] & 0xff) << 16;
+                // Fall through.
+            case 2:
+                k1 ^= (object[end + 1] & 0xff) << 8;
+                // Fall through.
+            case 1:
+                k1 ^= (object[end] & 0xff);
+                k1 *= C1; k1 = rotateLeft32(k1, 15); k1 *= C2;
+                for (int j = 0; j < hashFuncs; j++)
+                    hashes[j] ^= k1;
+                // Fall through.
+            default:
+                // Do nothing.
+                break;
+        }
+        finish(length, hashFuncs, bits, hashes);
+    }
+
+    /**
+     * Like {@link #murmurHash3(long, int, int, byte[], int, int, int[])} for the serialized form of an outpoint, the
+     * reversed hash followed by the index, without serializing it.
+     */
+    static void murmurHash3(long nTweak, int hashFuncs, int bits, Sha256Hash hash, long index, int[] hashes) {
+        seed(nTweak, hashFuncs, hashes);
+        byte[] bytes = hash.getBytes();
+        for (int i = 31; i > 0; i -= 4) {
+            mixBlock((bytes[i] & 0xFF) |
+                    ((bytes[i - 1] & 0xFF) << 8) |
+                    ((bytes[i - 2] & 0xFF) << 16) |
+                    ((bytes[i - 3] & 0xFF) << 24), hashFuncs, hashes);
+        }
+        mixBlock((int) index, hashFuncs, hashes);
+        finish(36, hashFuncs, bits, hashes);
+    }
+
+    private static void seed(long nTweak, int hashFuncs, int[] hashes) {
+        for (int j = 0; j < hashFuncs; j++)
+            hashes[j] = (int) (j * 0xFBA4C795L + nTweak);
+    }
+
+    private static void mixBlock(int k1, int hashFuncs, int[] hashes) {
+        k1 *= C1;
+        k1 = rotateLeft32(k1, 15);
+        k1 *= C2;
+        for (int j = 0; j < hashFuncs; j++) {
+            int h1 = hashes[j] ^ k1;
+            h1 = rotateLeft32(h1, 13);
+            hashes[j] = h1 * 5 + 0xe6546b64;
+        }
+    }
+
+    private static void finish(int length, int hashFuncs, int bits, int[] hashes) {
+        for (int j = 0; j < hashFuncs; j++) {
+            int h1 = hashes[j];
+            h1 ^= length;
+            h1 ^= h1 >>> 16;
+            h1 *= 0x85ebca6b;
+            h1 ^= h1 >>> 13;
+            h1 *= 0xc2b2ae35;
+            h1 ^= h1 >>> 16;
+            hashes[j] = (int) ((h1 & 0xFFFFFFFFL) % bits);
+        }
+    }
+
     /**
      * Applies the MurmurHash3 (x86_32) algorithm to the given data.
      * See this <a href="https://github.com/aappleby/smhasher/blob/master/src/MurmurHash3.cpp">C++ code for the original.</a>
@@ -229,17 +325,32 @@ public class BloomFilter extends Message {
      * false-positive.
      */
     public synchronized boolean contains(byte[] object) {
+        murmurHash3(nTweak, (int) hashFuncs, data.length * 8, object, 0, object.length, hashes);
+        return containsHashes();
+    }
+
+    private boolean containsHashes() {
         for (int i = 0; i < hashFuncs; i++) {
-            if (!Utils.checkBitLE(data, murmurHash3(data, nTweak, i, object)))
+            if (!Utils.checkBitLE(data, hashes[i]))
                 return false;
         }
         return true;
     }
-    
+
+    private boolean contains(TransactionOutPoint outpoint) {
+        murmurHash3(nTweak, (int) hashFuncs, data.length * 8, outpoint.getHash(), outpoint.getIndex(), hashes);
+        return containsHashes();
+    }
+
     /** Insert the given arbitrary data into the filter */
     public synchronized void insert(byte[] object) {
+        murmurHash3(nTweak, (int) hashFuncs, data.length * 8, object, 0, object.length, hashes);
+        insertHashes();
+    }
+
+    private void insertHashes() {
         for (int i = 0; i < hashFuncs; i++)
-            Utils.setBitLE(data, murmurHash3(data, nTweak, i, object));
+            Utils.setBitLE(data, hashes[i]);
     }
 
     /** Inserts the given key and equivalent hashed form (for the address). */
@@ -250,7 +361,8 @@ public class BloomFilter extends Message {
 
     /** Inserts the given transaction outpoint. */
     public synchronized void insert(TransactionOutPoint outpoint) {
-        insert(outpoint.unsafeBitcoinSerialize());
+        murmurHash3(nTweak, (int) hashFuncs, data.length * 8, outpoint.getHash(), outpoint.getIndex(), hashes);
+        insertHashes();
     }
 
     /**
@@ -313,6 +425,11 @@ public class BloomFilter extends Message {
      * filtered block already has the matched transactions associated with it.
      */
     public synchronized FilteredBlock applyAndUpdate(Block block) {
+        return filterBlock(block, this::applyAndUpdate);
+    }
+
+    /** Creates a FilteredBlock with the transactions of the block that match. */
+    static FilteredBlock filterBlock(Block block, Predicate<Transaction> matcher) {
         List<Transaction> txns = block.getTransactions();
         List<Sha256Hash> txHashes = new ArrayList<>(txns.size());
         List<Transaction> matched = Lists.newArrayList();
@@ -320,7 +437,7 @@ public class BloomFilter extends Message {
         for (int i = 0; i < txns.size(); i++) {
             Transaction tx = txns.get(i);
             txHashes.add(tx.getTxId());
-            if (applyAndUpdate(tx)) {
+            if (matcher.test(tx)) {
                 Utils.setBitLE(bits, i);
                 matched.add(tx);
             }
@@ -352,7 +469,7 @@ public class BloomFilter extends Message {
         }
         if (found) return true;
         for (TransactionInput input : tx.getInputs()) {
-            if (contains(input.getOutpoint().unsafeBitcoinSerialize())) {
+            if (contains(input.getOutpoint())) {
                 return true;
             }
             for (ScriptChunk chunk : input.getScriptSig().getChunks()) {
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.core;
+
+import org.bitcoinj.crypto.IKey;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.script.ScriptChunk;
+import org.bitcoinj.script.ScriptPattern;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * <p>A {@link BloomFilter} that can be checked and updated from many threads at once without locking. The bits are
+ * kept in an {@link AtomicLongArray} and set with compare and swap, so lookups never wait for each other and an
+ * insert is visible to the lookups that start after it returned.</p>
+ *
+ * <p>The k hash values of an object are computed in one pass over it, and outpoints are hashed from their hash and
+ * index without serializing them, so checking a transaction does not allocate. The filter matches the same objects
+ * as a BloomFilter with the same contents; use {@link #toBloomFilter()} to send it to a peer.</p>
+ */
+public class ConcurrentBloomFilter {
+    // the hash values of the object being looked up or inserted by this thread
+    private static final ThreadLocal<int[]> hashes = ThreadLocal.withInitial(() -> new int[BloomFilter.MAX_HASH_FUNCS]);
+
+    // bit i of the filter is bit i % 64 of word i / 64, which is the little endian bit order of BloomFilter's bytes
+    private final AtomicLongArray words;
+    private final int dataLength;
+    private final int hashFuncs;
+    private final long nTweak;
+    private final byte nFlags;
+    private volatile boolean matchAll;
+
+    /** See {@link BloomFilter#BloomFilter(int, double, long, BloomFilter.BloomUpdate)}. */
+    public ConcurrentBloomFilter(int elements, double falsePositiveRate, long randomNonce,
+                                 BloomFilter.BloomUpdate updateFlag) {
+        this(new BloomFilter(elements, falsePositiveRate, randomNonce, updateFlag));
+    }
+
+    /** Creates a filter with a copy of the contents of the given filter. */
+    public ConcurrentBloomFilter(BloomFilter filter) {
+        byte[] data;
+        synchronized (filter) {
+            data = filter.getData().clone();
+        }
+        this.dataLength = data.length;
+        this.hashFuncs = (int) filter.getHashFuncs();
+        this.nTweak = filter.getTweak();
+        this.nFlags = filter.getFlags();
+        this.words = new AtomicLongArray((data.length + 7) / 8);
+        for (int i = 0; i < data.length; i++)
+            words.set(i >>> 3, words.get(i >>> 3) | (data[i] & 0xFFL) << ((i & 7) * 8));
+    }
+
+    /** Returns a BloomFilter with the contents of this filter, which may be sent to a peer. */
+    public BloomFilter toBloomFilter() {
+        byte[] data;
+        if (matchAll) {
+            data = new byte[] {(byte) 0xff};
+        } else {
+            data = new byte[dataLength];
+            for (int i = 0; i < dataLength; i++)
+                data[i] = (byte) (words.get(i >>> 3) >>> ((i & 7) * 8));
+        }
+        return new BloomFilter(data, hashFuncs, nTweak, nFlags);
+    }
+
+    private boolean checkBit(int index) {
+        return (words.get(index >>> 6) & (1L << index)) != 0;
+    }
+
+    private void setBit(int index) {
+        int word = index >>> 6;
+        long mask = 1L << index;
+        long bits;
+        do {
+            bits = words.get(word);
+            if ((bits & mask) != 0)
+                return;
+        } while (!words.compareAndSet(word, bits, bits | mask));
+    }
+
+    private boolean containsHashes(int[] hashes) {
+        if (matchAll)
+            return true;
+        for (int i = 0; i < hashFuncs; i++) {
+            if (!checkBit(hashes[i]))
+                return false;
+        }
+        return true;
+    }
+
+    private void insertHashes(int[] hashes) {
+        for (int i = 0; i < hashFuncs; i++)
+            setBit(hashes[i]);
+    }
+
+    /**
+     * Returns true if the given object matches the filter either because it was inserted, or because we have a
+     * false-positive.
+     */
+    public boolean contains(byte[] object) {
+        return contains(object, 0, object.length);
+    }
+
+    /** Like {@link #contains(byte[])} for the given part of the array. */
+    public boolean contains(byte[] object, int offset, int length) {
+        checkArgument(offset >= 0 && length >= 0 && offset + length <= object.length);
+        int[] hashes = ConcurrentBloomFilter.hashes.get();
+        BloomFilter.murmurHash3(nTweak, hashFuncs, dataLength * 8, object, offset, length, hashes);
+        return containsHashes(hashes);
+    }
+
+    /** Returns true if the given outpoint matches the filter. */
+    public boolean contains(TransactionOutPoint outpoint) {
+        int[] hashes = ConcurrentBloomFilter.hashes.get();
+        BloomFilter.murmurHash3(nTweak, hashFuncs, dataLength * 8, outpoint.getHash(), outpoint.getIndex(), hashes);
+        return containsHashes(hashes);
+    }
+
+    /** Insert the given arbitrary data into the filter */
+    public void insert(byte[] object) {
+        int[] hashes = ConcurrentBloomFilter.hashes.get();
+        BloomFilter.murmurHash3(nTweak, hashFuncs, dataLength * 8, object, 0, object.length, hashes);
+        insertHashes(hashes);
+    }
+
+    /** Inserts the given key and equivalent hashed form (for the address). */
+    public void insert(IKey key) {
+        insert(key.getPubKey());
+        insert(key.getPubKeyHash());
+    }
+
+    /** Inserts the given transaction outpoint. */
+    public void insert(TransactionOutPoint outpoint) {
+        int[] hashes = ConcurrentBloomFilter.hashes.get();
+        BloomFilter.murmurHash3(nTweak, hashFuncs, dataLength * 8, outpoint.getHash(), outpoint.getIndex(), hashes);
+        insertHashes(hashes);
+    }
+
+    /** See {@link BloomFilter#setMatchAll()}. */
+    public void setMatchAll() {
+        matchAll = true;
+    }
+
+    /** Returns true if this filter will match anything. */
+    public boolean matchesAll() {
+        if (matchAll)
+            return true;
+        for (int i = 0; i < dataLength; i++) {
+            if ((byte) (words.get(i >>> 3) >>> ((i & 7) * 8)) != (byte) 0xff)
+                return false;
+        }
+        return true;
+    }
+
+    /** See {@link BloomFilter#getUpdateFlag()}. */
+    public BloomFilter.BloomUpdate getUpdateFlag() {
+        if (nFlags == 0)
+            return BloomFilter.BloomUpdate.UPDATE_NONE;
+        else if (nFlags == 1)
+            return BloomFilter.BloomUpdate.UPDATE_ALL;
+        else if (nFlags == 2)
+            return BloomFilter.BloomUpdate.UPDATE_P2PUBKEY_ONLY;
+        else
+            throw new IllegalStateException("Unknown flag combination");
+    }
+
+    /** See {@link BloomFilter#applyAndUpdate(Block)}. Several blocks may be filtered at the same time. */
+    public FilteredBlock applyAndUpdate(Block block) {
+        return BloomFilter.filterBlock(block, this::applyAndUpdate);
+    }
+
+    /**
+     * Returns true if the transaction matches the filter, checking its id, the data pushed by its output scripts and
+     * the outpoints and data pushed by its inputs. Matching outputs are inserted into the filter as the update flag
+     * says, see {@link BloomFilter#applyAndUpdate(Transaction)}.
+     */
+    public boolean applyAndUpdate(Transaction tx) {
+        if (contains(tx.getTxId().getBytes()))
+            return true;
+        boolean found = false;
+        BloomFilter.BloomUpdate flag = getUpdateFlag();
+        for (TransactionOutput output : tx.getOutputs()) {
+            Script script = output.getScriptPubKey();
+            for (ScriptChunk chunk : script.getChunks()) {
+                if (!chunk.isPushData())
+                    continue;
+                if (contains(chunk.data)) {
+                    boolean isSendingToPubKeys = ScriptPattern.isP2PK(script) || ScriptPattern.isSentToMultisig(script);
+                    if (flag == BloomFilter.BloomUpdate.UPDATE_ALL ||
+                            (flag == BloomFilter.BloomUpdate.UPDATE_P2PUBKEY_ONLY && isSendingToPubKeys))
+                        insert(output.getOutPointFor());
+                    found = true;
+                }
+            }
+        }
+        if (found) return true;
+        for (TransactionInput input : tx.getInputs()) {
+            if (contains(input.getOutpoint()))
+                return true;
+            for (ScriptChunk chunk : input.getScriptSig().getChunks()) {
+                if (chunk.isPushData() && contains(chunk.data))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    public long getHashFuncs() {
+        return hashFuncs;
+    }
+
+    public long getTweak() {
+        return nTweak;
+    }
+
+    public byte getFlags() {
+        return nFlags;
+    }
+
+    @Override
+    public String toString() {
+        final MoreObjects.ToStringHelper helper = MoreObjects.toStringHelper(this).omitNullValues();
+        helper.add("data length", matchAll ? 1 : dataLength);
+        helper.add("hashFuncs", hashFuncs);
+        helper.add("nFlags", getUpdateFlag());
+        return helper.toString();
+    }
+}
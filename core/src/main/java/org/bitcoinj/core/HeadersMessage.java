@@ -17,6 +17,7 @@
 
 package org.bitcoinj.core;
 
+import org.bitcoinj.utils.ContextPropagatingThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -25,6 +26,11 @@ import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * <p>A protocol message that contains a repeated series of block headers, sent in response to the "getheaders" command.
@@ -39,6 +45,11 @@ public class HeadersMessage extends Message {
     // The main client will never send us more than this number of headers.
     public static final int MAX_HEADERS = 2000;
 
+    // The number of headers hashed by each task of hashHeaders.
+    private static final int HASHING_BATCH_SIZE = 250;
+
+    private static volatile ExecutorService hashingExecutor;
+
     private List<Block> blockHeaders;
 
     public HeadersMessage(NetworkParameters params, byte[] payload) throws ProtocolException {
@@ -97,4 +108,50 @@ public class HeadersMessage extends Message {
     public List<Block> getBlockHeaders() {
         return blockHeaders;
     }
+
+    /**
+     * Returns the shared thread pool used to hash headers in parallel, with one thread per available processor, or
+     * null if there is only one processor.
+     */
+    public static ExecutorService getHashingExecutor() {
+        if (hashingExecutor == null && Runtime.getRuntime().availableProcessors() > 1) {
+            synchronized (HeadersMessage.class) {
+                if (hashingExecutor == null)
+                    hashingExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+                            new ContextPropagatingThreadFactory("header hashing"));
+            }
+        }
+        return hashingExecutor;
+    }
+
+    /**
+     * Calculates the X11 hashes of all headers in this message, in batches that run on the given executor, and waits
+     * for them to finish. The headers keep their order. Hashing the headers up front means the X11 work is done in
+     * parallel rather than one header at a time while they are added to the chain. If the executor is null or the
+     * thread is interrupted, the remaining headers are hashed on first use as usual.
+     */
+    public void hashHeaders(ExecutorService executor) {
+        final List<Block> headers = blockHeaders;
+        if (executor == null || headers.size() <= HASHING_BATCH_SIZE)
+            return;
+        List<Callable<Void>> tasks = new ArrayList<>(headers.size() / HASHING_BATCH_SIZE + 1);
+        for (int start = 0; start < headers.size(); start += HASHING_BATCH_SIZE) {
+            final List<Block> batch = headers.subList(start, Math.min(start + HASHING_BATCH_SIZE, headers.size()));
+            tasks.add(() -> {
+                for (Block header : batch)
+                    header.getHash();
+                return null;
+            });
+        }
+        try {
+            for (Future<Void> future : executor.invokeAll(tasks))
+                future.get();
+        } catch (InterruptedException x) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException x) {
+            if (x.getCause() instanceof RuntimeException)
+                throw (RuntimeException) x.getCause();
+            throw new RuntimeException(x.getCause());
+        }
+    }
 }
@@ -142,6 +142,8 @@ public class Peer extends PeerSocketHandler {
     private volatile BloomFilter vBloomFilter;
     // Whether to use compressed headers (DIP-0025) when downloading headers from this peer.
     private volatile boolean useCompressedHeaders = false;
+    // Whether the headers of a headers message are hashed in parallel before they are added to the chain.
+    private volatile boolean parallelHeaderHashing = true;
     // The last filtered block we received, we're waiting to fill it out with transactions.
     private FilteredBlock currentFilteredBlock = null;
     // If non-null, we should discard incoming filtered blocks because we ran out of keys and are awaiting a new filter
@@ -751,6 +753,10 @@ public class Peer extends PeerSocketHandler {
             lock.unlock();
         }
 
+        // Hash the whole batch on the worker pool, the chains below then only check the precomputed hashes.
+        if (parallelHeaderHashing)
+            m.hashHeaders(HeadersMessage.getHashingExecutor());
+
         if (vDownloadHeaders && headerChain != null) {
             try {
                 for (int i = 0; i < m.getBlockHeaders().size(); i++) {
@@ -2065,6 +2071,19 @@ public class Peer extends PeerSocketHandler {
         return useCompressedHeaders;
     }
 
+    /**
+     * Sets whether the headers received from this peer are hashed in parallel, on the pool returned by
+     * {@link HeadersMessage#getHashingExecutor()}, before they are added to the chain. Defaults to true.
+     */
+    public void setParallelHeaderHashing(boolean parallelHeaderHashing) {
+        this.parallelHeaderHashing = parallelHeaderHashing;
+    }
+
+    /** Returns whether the headers received from this peer are hashed in parallel. */
+    public boolean isParallelHeaderHashing() {
+        return parallelHeaderHashing;
+    }
+
     /**
      * <p>Sets a Bloom filter on this connection. This will cause the given {@link BloomFilter} object to be sent to the
      * remote peer and if either a memory pool has been set using the constructor or the
@@ -16,6 +16,8 @@
 
 package org.bitcoinj.core;
 
+import javax.annotation.Nullable;
+import java.util.List;
 
 /**
  * An interface which provides the information required to properly filter data downloaded from Peers.
@@ -55,5 +57,26 @@ public interface PeerFilterProvider {
     /** Whether this filter provider depends on the server updating the filter on all matches */
     boolean isRequiringUpdateAllBloomFilter();
 
+    /**
+     * Remembers the elements that a filter calculated now would contain, so that the elements added later can be
+     * listed by {@link #getBloomFilterElementsSince(long)}, and returns a token for them. Called between
+     * beginBloomFilterCalculation and endBloomFilterCalculation, before the filter is calculated. The default
+     * implementation does not keep track of its elements.
+     */
+    default long getBloomFilterSequence() {
+        return 0;
+    }
+
+    /**
+     * Returns the elements that were added since {@link #getBloomFilterSequence()} returned the given token, so that
+     * they can be inserted into the existing filter instead of calculating a new one, or null if they can't be listed,
+     * for example because elements were removed, in which case a new filter is calculated. Called between
+     * beginBloomFilterCalculation and endBloomFilterCalculation.
+     */
+    @Nullable
+    default List<byte[]> getBloomFilterElementsSince(long sequence) {
+        return null;
+    }
+
     void endBloomFilterCalculation();
 }
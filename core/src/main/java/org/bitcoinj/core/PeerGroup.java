@@ -357,6 +357,9 @@ public class PeerGroup implements TransactionBroadcaster, GovernanceVoteBroadcas
     /** Whether to use compressed headers (DIP-0025) for header downloads */
     private volatile boolean vUseCompressedHeaders = false;
 
+    /** Whether peers hash received headers in parallel */
+    private volatile boolean vParallelHeaderHashing = true;
+
     /** See {@link #PeerGroup(Context)} */
     public PeerGroup(NetworkParameters params) {
         this(params, null);
@@ -1597,8 +1600,12 @@ public class PeerGroup implements TransactionBroadcaster, GovernanceVoteBroadcas
                     return;
                 // We only ever call bloomFilterMerger.calculate on jobQueue, so we cannot be calculating two filters at once.
                 Stopwatch watch = Stopwatch.createStarted();
-                FilterMerger.Result result = bloomFilterMerger.calculate(ImmutableList.copyOf(peerFilterProviders /* COW */));
-                log.info("merge bloom filters: {}", watch);
+                // A refresh is asked for to lower the false positive rate, which only a new filter does.
+                FilterMerger.Result result = bloomFilterMerger.calculate(ImmutableList.copyOf(peerFilterProviders /* COW */),
+                        mode == FilterRecalculateMode.FORCE_SEND_FOR_REFRESH);
+                log.info("merge bloom filters: {} ({}, {} rebuilds, {} incremental updates)", watch,
+                        result.incremental ? "incremental" : "rebuild", bloomFilterMerger.getRebuildCount(),
+                        bloomFilterMerger.getIncrementalCount());
                 boolean send;
                 switch (mode) {
                     case SEND_IF_CHANGED:
@@ -1910,6 +1917,7 @@ public class PeerGroup implements TransactionBroadcaster, GovernanceVoteBroadcas
                 peer.sendMessage(new SendCoinJoinQueue(params, true));
             }
             peer.setUseCompressedHeaders(isUseCompressedHeaders());
+            peer.setParallelHeaderHashing(isParallelHeaderHashing());
         } finally {
             lock.unlock();
         }
@@ -3056,6 +3064,19 @@ public class PeerGroup implements TransactionBroadcaster, GovernanceVoteBroadcas
         return vUseCompressedHeaders;
     }
 
+    /**
+     * Sets whether the headers received during chain download are hashed in parallel before they are added to the
+     * chain. Applies to peers that connect afterwards. Defaults to true.
+     */
+    public void setParallelHeaderHashing(boolean parallelHeaderHashing) {
+        this.vParallelHeaderHashing = parallelHeaderHashing;
+    }
+
+    /** Returns whether the headers received during chain download are hashed in parallel. */
+    public boolean isParallelHeaderHashing() {
+        return vParallelHeaderHashing;
+    }
+
     public void setMinRequiredProtocolVersionAndDisconnect(int protocolVersion) {
         setMinRequiredProtocolVersion(protocolVersion);
         lock.lock();
@@ -24,6 +24,7 @@ import org.bitcoinj.net.AbstractTimeoutHandler;
 import org.bitcoinj.net.MessageWriteTarget;
 import org.bitcoinj.net.NioClient;
 import org.bitcoinj.net.NioClientManager;
+import org.bitcoinj.net.PooledOutputStream;
 import org.bitcoinj.net.StreamConnection;
 import org.bitcoinj.utils.ListenerRegistration;
 import org.bitcoinj.utils.Threading;
@@ -31,7 +32,6 @@ import com.google.common.annotations.VisibleForTesting;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.ConnectException;
 import java.net.InetSocketAddress;
@@ -94,11 +94,16 @@ public abstract class PeerSocketHandler extends AbstractTimeoutHandler implement
         } finally {
             lock.unlock();
         }
-        // TODO: Some round-tripping could be avoided here
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // The message is serialized straight into pooled buffers, which the write target releases
+        PooledOutputStream out = new PooledOutputStream();
         try {
-            serializer.serialize(message, out);
-            return writeTarget.writeBytes(out.toByteArray());
+            try {
+                serializer.serialize(message, out);
+            } catch (IOException | RuntimeException e) {
+                out.release();
+                throw e;
+            }
+            return writeTarget.writeBuffers(out);
         } catch (IOException e) {
             exceptionCaught(e);
             return Futures.immediateFailedFuture(e);
@@ -212,7 +217,8 @@ public abstract class PeerSocketHandler extends AbstractTimeoutHandler implement
                     largeReadBufferPos += bytesToGet;
                     // Check the largeReadBuffer's status
                     if (largeReadBufferPos == largeReadBuffer.length) {
-                        // ...processing a message if one is available
+                        // ...processing a message if one is available. The message is parsed from largeReadBuffer
+                        // itself, without a copy, so the buffer is not reused.
                         processMessage(serializer.deserializePayload(header, ByteBuffer.wrap(largeReadBuffer)));
                         largeReadBuffer = null;
                         header = null;
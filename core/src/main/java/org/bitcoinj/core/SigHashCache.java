@@ -0,0 +1,90 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.core;
+
+import org.bitcoinj.crypto.TransactionSignature;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.script.ScriptOpCodes;
+
+import java.security.MessageDigest;
+
+import static com.google.common.base.Preconditions.checkElementIndex;
+
+/**
+ * <p>Calculates the signature hashes of all inputs of a transaction from one serialization of it.</p>
+ *
+ * <p>{@link Transaction#hashForSignature(int, byte[], Transaction.SigHash, boolean)} copies and reserializes the whole
+ * transaction for every input, so signing a transaction with n inputs serializes it n times. For
+ * {@link Transaction.SigHash#ALL} the transaction that is hashed only differs between inputs in the script of the
+ * input being signed, as the scripts of all other inputs are cleared. This class serializes the transaction once
+ * with all scripts cleared, and hashes that serialization with the connected script spliced in at the input.</p>
+ *
+ * <p>The cache reflects the transaction as it was when the cache was created. Setting input scripts doesn't change
+ * the signature hashes and is fine, but any other change to the transaction requires a new cache. Other signature
+ * hash types are passed on to the transaction. Instances of this class are immutable and may be used by multiple
+ * threads at once.</p>
+ */
+public class SigHashCache {
+    // outpoint (36 bytes), empty script (1 byte) and sequence number (4 bytes)
+    private static final int CLEARED_INPUT_LENGTH = 41;
+    private static final int OUTPOINT_LENGTH = 36;
+
+    private final Transaction tx;
+    private final byte[] cleared;
+    private final int inputsOffset;
+    private final int numInputs;
+
+    public SigHashCache(Transaction tx) {
+        this.tx = tx;
+        Transaction copy = tx.getParams().getDefaultSerializer().makeTransaction(tx.bitcoinSerialize());
+        for (TransactionInput input : copy.getInputs())
+            input.clearScriptBytes();
+        this.cleared = copy.bitcoinSerialize();
+        this.numInputs = copy.getInputs().size();
+        this.inputsOffset = 4 + VarInt.sizeOf(numInputs);
+    }
+
+    /** Returns the transaction this cache was created for. */
+    public Transaction getTransaction() {
+        return tx;
+    }
+
+    /**
+     * Calculates the same signature hash as {@link Transaction#hashForSignature(int, byte[], Transaction.SigHash,
+     * boolean)}.
+     */
+    public Sha256Hash hashForSignature(int inputIndex, byte[] redeemScript, Transaction.SigHash type,
+                                       boolean anyoneCanPay) {
+        if (type != Transaction.SigHash.ALL || anyoneCanPay)
+            return tx.hashForSignature(inputIndex, redeemScript, type, anyoneCanPay);
+        checkElementIndex(inputIndex, numInputs);
+        byte[] connectedScript = Script.removeAllInstancesOfOp(redeemScript, ScriptOpCodes.OP_CODESEPARATOR);
+
+        int inputOffset = inputsOffset + inputIndex * CLEARED_INPUT_LENGTH;
+        int scriptOffset = inputOffset + OUTPOINT_LENGTH;
+        MessageDigest digest = Sha256Hash.newDigest();
+        digest.update(cleared, 0, scriptOffset);
+        digest.update(new VarInt(connectedScript.length).encode());
+        digest.update(connectedScript);
+        // skip the empty script of the input
+        digest.update(cleared, scriptOffset + 1, cleared.length - scriptOffset - 1);
+        byte[] sigHashType = new byte[4];
+        Utils.uint32ToByteArrayLE(TransactionSignature.calcSigHashValue(type, false), sigHashType, 0);
+        digest.update(sigHashType);
+        return Sha256Hash.wrap(digest.digest(digest.digest()));
+    }
+}
@@ -148,11 +148,11 @@ public class StoredBlock {
                 getHeader().getHashAsString(), getHeight(), getHeader().toString());
     }
 
+    /**
+     * Returns the ancestor of this block at the given height, or null if it is not in the store.
+     * See {@link BlockStore#getAncestor(StoredBlock, int)}.
+     */
     public StoredBlock getAncestor(BlockStore blockStore, int height) throws BlockStoreException {
-        StoredBlock cursor = this;
-        while (cursor != null && height != cursor.getHeight()) {
-            cursor = cursor.getPrev(blockStore);
-        }
-        return cursor;
+        return blockStore.getAncestor(this, height);
     }
 }
@@ -33,8 +33,6 @@ import java.util.concurrent.*;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
-// TODO: Modify the getDepthInBlocks method to require the chain height to be specified, in preparation for ceasing to touch every tx on every block.
-
 /**
  * <p>A TransactionConfidence object tracks data you can use to make a confidence decision about a transaction.
  * It also contains some pre-canned rules for common scenarios: if you aren't really sure what level of confidence
@@ -59,8 +57,10 @@ import static com.google.common.base.Preconditions.checkState;
  * <p>Alternatively, you may know that the transaction is "dead", that is, one or more of its inputs have
  * been double spent and will never confirm unless there is another re-org.</p>
  *
- * <p>TransactionConfidence is updated via the {@link TransactionConfidence#incrementDepthInBlocks()}
- * method to ensure the block depth is up to date.</p>
+ * <p>Once a {@link DepthTracker}, like the {@link Wallet} that holds the transaction, has been added with
+ * {@link #addDepthTracker(DepthTracker)}, the block depth of a BUILDING transaction is derived from the height of the
+ * best chain, so it is up to date without touching the object on every block. Without a tracker it has to be kept up
+ * to date via the {@link TransactionConfidence#incrementDepthInBlocks()} method.</p>
  * To make a copy that won't be changed, use {@link TransactionConfidence#duplicate()}.
  */
 public class TransactionConfidence {
@@ -93,6 +93,37 @@ public class TransactionConfidence {
 
     // The depth of the transaction on the best chain in blocks. An unconfirmed block has depth 0.
     private int depth;
+    // The best chain height at which depth was valid, or -1 if depth is not derived from the height of the best chain.
+    private int depthHeight = -1;
+    // Know the height of the best chain, one for each wallet that holds the transaction, null if the depth is only
+    // updated explicitly.
+    @Nullable private List<DepthTracker> depthTrackers;
+    // Depths waited for, which are handed to the trackers that are added later.
+    @Nullable private TreeSet<Integer> watchedDepths;
+
+    /**
+     * <p>Knows the height of the best chain, from which the depth of BUILDING transactions is derived, and informs
+     * confidence objects when they reach the depths waited for. A {@link Wallet} is a tracker of the confidence of its
+     * transactions, so that it doesn't need to touch all of them whenever a block arrives.</p>
+     *
+     * <p>Confidence objects are shared by the wallets of a {@link Context}, so a confidence object may have several
+     * trackers. They all have to know the same best chain, like the one of the context, and each of them is told about
+     * the depths waited for.</p>
+     */
+    public interface DepthTracker {
+        /**
+         * Returns the height of the best chain, or -1 if it is not known. This must not take any locks, as it is called
+         * with the confidence object locked.
+         */
+        int getBestChainHeight();
+
+        /**
+         * Called when somebody waits for the transaction to reach the given depth. The tracker should queue
+         * {@link Listener.ChangeReason#DEPTH} listeners once the depth is reached. This must not take any locks that
+         * are held while the confidence object is locked.
+         */
+        void watchDepth(TransactionConfidence confidence, int depth);
+    }
 
     /** Describes the state of the transaction in general terms. Properties can be read to learn specifics. */
     public enum ConfidenceType {
@@ -292,6 +323,7 @@ public class TransactionConfidence {
             throw new IllegalArgumentException("appearedAtChainHeight out of range");
         this.appearedAtChainHeight = appearedAtChainHeight;
         this.depth = 1;
+        this.depthHeight = appearedAtChainHeight;
             setConfidenceType(ConfidenceType.BUILDING);
     }
 
@@ -309,7 +341,14 @@ public class TransactionConfidence {
     public synchronized void setConfidenceType(ConfidenceType confidenceType) {
         if (confidenceType == this.confidenceType)
             return;
+        if (this.confidenceType == ConfidenceType.BUILDING) {
+            // Freeze the depth reached, it's not derived from the best chain height outside of BUILDING.
+            depth = getDepthInBlocks();
+            depthHeight = -1;
+        }
         this.confidenceType = confidenceType;
+        if (confidenceType == ConfidenceType.BUILDING && depthHeight < 0)
+            depthHeight = anchorHeight(depth);
         if (confidenceType != ConfidenceType.DEAD) {
             overridingTransaction = null;
         }
@@ -449,13 +488,33 @@ public class TransactionConfidence {
     }
 
     /**
-     * Called by the wallet when the tx appears on the best chain and a new block is added to the top. Updates the
-     * internal counter that tracks how deeply buried the block is.
+     * Called when the tx appears on the best chain and a new block is added to the top. Updates the internal counter
+     * that tracks how deeply buried the block is.
+     *
+     * <p>While the depth of a BUILDING transaction is derived from the best chain height known to a
+     * {@link DepthTracker}, the new block is counted as soon as the tracker knows about it, so the depth is not changed
+     * here.</p>
      *
      * @return the new depth
      */
     public synchronized int incrementDepthInBlocks() {
-        return ++this.depth;
+        if (!isDepthDerived())
+            ++this.depth;
+        return getDepthInBlocks();
+    }
+
+    // Whether the depth follows the best chain height known to the trackers, rather than the depth field alone
+    private boolean isDepthDerived() {
+        return confidenceType == ConfidenceType.BUILDING && depthHeight >= 0 && bestChainHeight() >= 0;
+    }
+
+    // Returns the height of the best chain known to the trackers, or -1 if it isn't known
+    private int bestChainHeight() {
+        int bestChainHeight = -1;
+        if (depthTrackers != null)
+            for (DepthTracker tracker : depthTrackers)
+                bestChainHeight = Math.max(bestChainHeight, tracker.getBestChainHeight());
+        return bestChainHeight;
     }
 
     /**
@@ -467,9 +526,17 @@ public class TransactionConfidence {
      *     
      * <p>If the transaction appears in the top block, the depth is one. If it's anything else (pending, dead, unknown)
      * the depth is zero.</p>
+     *
+     * <p>If a {@link DepthTracker} is set, the depth of a BUILDING transaction follows the height of the best chain it
+     * knows about.</p>
      */
     public synchronized int getDepthInBlocks() {
-        return depth;
+        if (confidenceType != ConfidenceType.BUILDING || depthHeight < 0)
+            return depth;
+        int bestChainHeight = bestChainHeight();
+        if (bestChainHeight < 0)
+            return depth;
+        return Math.max(1, depth + bestChainHeight - depthHeight);
     }
 
     /*
@@ -477,6 +544,69 @@ public class TransactionConfidence {
      */
     public synchronized void setDepthInBlocks(int depth) {
         this.depth = depth;
+        this.depthHeight = anchorHeight(depth);
+    }
+
+    /**
+     * Sets the depth in blocks that the transaction had when the best chain had the given height, like a depth that was
+     * saved together with the last block height a wallet had seen. If the height is -1, this is the same as
+     * {@link #setDepthInBlocks(int)}.
+     */
+    public synchronized void setDepthInBlocks(int depth, int bestChainHeight) {
+        this.depth = depth;
+        this.depthHeight = bestChainHeight >= 0 ? bestChainHeight : anchorHeight(depth);
+    }
+
+    // Returns the best chain height at which the given depth is valid, or -1 if it isn't known
+    private int anchorHeight(int depth) {
+        int bestChainHeight = bestChainHeight();
+        if (bestChainHeight >= 0)
+            return bestChainHeight;
+        if (appearedAtChainHeight >= 0 && depth > 0)
+            return appearedAtChainHeight + depth - 1;
+        return -1;
+    }
+
+    /**
+     * Adds a tracker that knows the height of the best chain, from which the depth is derived from now on, and that
+     * is told about the depths waited for by {@link #getDepthFuture(int, Executor)}. Adding a tracker twice does
+     * nothing.
+     */
+    public synchronized void addDepthTracker(DepthTracker depthTracker) {
+        checkNotNull(depthTracker);
+        if (depthTrackers == null)
+            depthTrackers = new ArrayList<>(1);
+        else if (depthTrackers.contains(depthTracker))
+            return;
+        depthTrackers.add(depthTracker);
+        if (confidenceType == ConfidenceType.BUILDING && depthHeight < 0)
+            depthHeight = anchorHeight(depth);
+        if (watchedDepths != null) {
+            watchedDepths.headSet(getDepthInBlocks(), true).clear();
+            for (int watched : watchedDepths)
+                depthTracker.watchDepth(this, watched);
+        }
+    }
+
+    /**
+     * Removes the given tracker. Once there is none left, the depth reached is frozen and only changed explicitly again.
+     */
+    public synchronized void removeDepthTracker(DepthTracker depthTracker) {
+        if (depthTrackers == null || !depthTrackers.contains(depthTracker))
+            return;
+        if (depthTrackers.size() == 1) {
+            // Freeze the depth known to the last tracker.
+            depth = getDepthInBlocks();
+            depthHeight = -1;
+            depthTrackers = null;
+        } else {
+            depthTrackers.remove(depthTracker);
+        }
+    }
+
+    /** Returns the trackers that the depth is derived from, which is empty if there are none. */
+    public synchronized List<DepthTracker> getDepthTrackers() {
+        return depthTrackers != null ? new ArrayList<>(depthTrackers) : Collections.<DepthTracker>emptyList();
     }
 
     /**
@@ -574,6 +704,14 @@ public class TransactionConfidence {
         final SettableFuture<TransactionConfidence> result = SettableFuture.create();
         if (getDepthInBlocks() >= depth) {
             result.set(this);
+        } else {
+            if (depthTrackers != null)
+                for (DepthTracker tracker : depthTrackers)
+                    tracker.watchDepth(this, depth);
+            // Handed to the trackers that are added later.
+            if (watchedDepths == null)
+                watchedDepths = new TreeSet<>();
+            watchedDepths.add(depth);
         }
         addEventListener(executor, new Listener() {
             @Override public void onConfidenceChanged(TransactionConfidence confidence, ChangeReason reason) {
@@ -26,7 +26,6 @@ import javax.annotation.*;
 import java.io.*;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Objects;
 
 import static com.google.common.base.Preconditions.*;
 
@@ -441,7 +440,10 @@ public class TransactionOutput extends ChildMessage {
 
     @Override
     public int hashCode() {
-        return Objects.hash(value, parent, Arrays.hashCode(scriptBytes));
+        // same as Objects.hash(value, parent, Arrays.hashCode(scriptBytes)), without boxing the value and the array
+        int result = 31 + Long.hashCode(value);
+        result = 31 * result + (parent != null ? parent.hashCode() : 0);
+        return 31 * result + Arrays.hashCode(scriptBytes);
     }
 
     public boolean equalsWithoutParent(TransactionOutput output) {
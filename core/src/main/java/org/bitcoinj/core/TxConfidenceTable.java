@@ -56,6 +56,8 @@ public class TxConfidenceTable {
     // transactions you actually care to track the confidence of. We can still end up with lots of hashes being stored
     // if our peers flood us with invs but the MAX_SIZE param caps this.
     private ReferenceQueue<TransactionConfidence> referenceQueue;
+    // The height of the best chain the wallets using this table were told about, -1 until there was a block
+    private volatile int bestChainHeight = -1;
 
     /** The max size of a table created with the no-args constructor. */
     public static final int MAX_SIZE = 1000;
@@ -90,6 +92,20 @@ public class TxConfidenceTable {
         this(MAX_SIZE);
     }
 
+    /**
+     * Returns the height of the best chain that the wallets using this table were told about by the block chain, or -1
+     * if there was no block yet. Wallets derive the depth of the BUILDING transactions they share from it, see
+     * {@link TransactionConfidence.DepthTracker}.
+     */
+    public int getBestChainHeight() {
+        return bestChainHeight;
+    }
+
+    /** Called by a wallet when it is told about a new best block, or moved back to the split point of a re-org. */
+    public void setBestChainHeight(int bestChainHeight) {
+        this.bestChainHeight = bestChainHeight;
+    }
+
     /**
      * If any transactions have expired due to being only weakly reachable through us, go ahead and delete their
      * table entries - it means we downloaded the transaction and sent it to various event listeners, none of
@@ -22,9 +22,13 @@ import com.google.common.collect.Maps;
 import org.bitcoinj.crypto.bls.BLSDeterministicKey;
 import org.bitcoinj.crypto.bls.BLSHDKeyDerivation;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
@@ -44,6 +48,10 @@ import static com.google.common.base.Preconditions.checkArgument;
  * is a list of {@link ChildNumber}s.</p>
  */
 public class AnyDeterministicHierarchy {
+    // fewer children are derived on the calling thread
+    private static final int PARALLEL_DERIVATION_THRESHOLD = 16;
+    private static final int DERIVATION_TASK_SIZE = 8;
+
     private final Map<ImmutableList<ChildNumber>, IDeterministicKey> keys = Maps.newHashMap();
     private final ImmutableList<ChildNumber> rootPath;
     // Keep track of how many child keys each node has. This is kind of weak.
@@ -156,6 +164,91 @@ public class AnyDeterministicHierarchy {
         return childKey;
     }
 
+    /**
+     * <p>Extends the tree by calculating a range of children of the given parent, starting at the given child number.
+     * Like {@link IDeterministicKey#deriveThisOrNextChildKey(int)}, a child number for which derivation fails is
+     * skipped, so the range is only contiguous if none fails.</p>
+     *
+     * <p>BLS and Ed25519 derivation is much slower than secp256k1 derivation, so many children are derived in parallel
+     * on the given pool, after which they are inserted in order. The parent key must not be changed meanwhile.</p>
+     *
+     * @param parent the parent, which must be in this hierarchy
+     * @param firstChild the "extended" number of the first child, ie. with the 0x80000000 bit specifying whether to
+     *                   use hardened derivation or not
+     * @param count the number of children to derive
+     * @param dropPrivateBytes whether to only keep the public keys of the children
+     * @param pool the pool to derive the children on, or null to derive them on the calling thread
+     * @return the new children, in order
+     */
+    public List<IDeterministicKey> deriveChildren(IDeterministicKey parent, int firstChild, int count,
+                                                  boolean dropPrivateBytes, @Nullable ForkJoinPool pool) {
+        checkArgument(count >= 0, "count must not be negative");
+        List<IDeterministicKey> children = new ArrayList<>(count);
+        int nextChild = firstChild;
+        if (pool != null && count >= PARALLEL_DERIVATION_THRESHOLD) {
+            // the public key of the parent is calculated lazily, do so before sharing the parent between threads
+            parent.getPubKey();
+            IDeterministicKey[] derived = new IDeterministicKey[count];
+            List<DerivationTask> tasks = new ArrayList<>();
+            for (int start = 0; start < count; start += DERIVATION_TASK_SIZE)
+                tasks.add(new DerivationTask(parent, firstChild, dropPrivateBytes, derived, start,
+                        Math.min(start + DERIVATION_TASK_SIZE, count)));
+            for (DerivationTask task : tasks)
+                pool.execute(task);
+            for (DerivationTask task : tasks)
+                task.join();
+            // Children for which derivation failed are null, the children after them are derived again below as
+            // they are numbered differently.
+            for (IDeterministicKey child : derived) {
+                if (child == null)
+                    break;
+                putKey(child);
+                children.add(child);
+                nextChild++;
+            }
+        }
+        while (children.size() < count) {
+            IDeterministicKey child = parent.deriveThisOrNextChildKey(nextChild);
+            if (dropPrivateBytes)
+                child = child.dropPrivateBytes();
+            putKey(child);
+            children.add(child);
+            nextChild = child.getChildNumber().i() + 1;
+        }
+        return children;
+    }
+
+    /** Derives some of the children for {@link #deriveChildren(IDeterministicKey, int, int, boolean, ForkJoinPool)}. */
+    private static class DerivationTask extends RecursiveAction {
+        private final IDeterministicKey parent;
+        private final int firstChild;
+        private final boolean dropPrivateBytes;
+        private final IDeterministicKey[] derived;
+        private final int start, end;
+
+        DerivationTask(IDeterministicKey parent, int firstChild, boolean dropPrivateBytes, IDeterministicKey[] derived,
+                       int start, int end) {
+            this.parent = parent;
+            this.firstChild = firstChild;
+            this.dropPrivateBytes = dropPrivateBytes;
+            this.derived = derived;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            for (int i = start; i < end; i++) {
+                try {
+                    IDeterministicKey child = parent.deriveChildKey(new ChildNumber(firstChild + i));
+                    derived[i] = dropPrivateBytes ? child.dropPrivateBytes() : child;
+                } catch (HDDerivationException x) {
+                    // left for the calling thread to skip
+                }
+            }
+        }
+    }
+
     /**
      * Returns the root key that the {@link AnyDeterministicHierarchy} was created with.
      */
@@ -20,7 +20,10 @@ package org.bitcoinj.crypto;
 import org.bitcoinj.core.Sha256Hash;
 import org.bitcoinj.utils.Pair;
 
+import javax.annotation.Nullable;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
@@ -51,6 +54,10 @@ public class BLSBatchVerifier<SourceId, MessageId>
     HashSet<SourceId> badSources;
     HashSet<MessageId> badMessages;
 
+    // when set, verify() splits the batch into sub-batches that are verified on this pool
+    @Nullable ForkJoinPool verificationPool;
+    int parallelSubBatchSize;
+
     public BLSBatchVerifier(boolean _secureVerification, boolean _perMessageFallback, int _subBatchSize) {
         this.secureVerification = (_secureVerification);
         perMessageFallback = (_perMessageFallback);
@@ -65,6 +72,22 @@ public class BLSBatchVerifier<SourceId, MessageId>
         this(secureVerification, perMessageFallback, 0);
     }
 
+    /**
+     * Enables parallel verification.  When {@link #verify()} is called with more than
+     * {@code parallelSubBatchSize} messages, the messages are split into sub-batches of about that size
+     * (messages with the same hash are kept together) which are verified on {@code pool}.  A failing
+     * sub-batch is bisected until the invalid messages are found, instead of falling back to per-source
+     * verification of the whole batch.
+     *
+     * @param pool the pool used to verify sub-batches or null to disable parallel verification
+     * @param parallelSubBatchSize the number of messages per sub-batch
+     */
+    public void setParallelVerification(@Nullable ForkJoinPool pool, int parallelSubBatchSize) {
+        checkArgument(pool == null || parallelSubBatchSize > 0);
+        this.verificationPool = pool;
+        this.parallelSubBatchSize = parallelSubBatchSize;
+    }
+
     public HashSet<SourceId> getBadSources() {
         return badSources;
     }
@@ -100,6 +123,11 @@ public class BLSBatchVerifier<SourceId, MessageId>
 
     public void verify()
     {
+        if (verificationPool != null && messages.size() > parallelSubBatchSize) {
+            verifyParallel();
+            return;
+        }
+
         HashMap<Sha256Hash, Vector<Pair<MessageId, Message>>> byMessageHash = new HashMap<>();
 
         for (Map.Entry<MessageId, Message> entry : messages.entrySet()) {
@@ -162,6 +190,105 @@ public class BLSBatchVerifier<SourceId, MessageId>
         }
     }
 
+    private void verifyParallel()
+    {
+        // group by message hash, then cut the groups into sub-batches of about parallelSubBatchSize messages
+        HashMap<Sha256Hash, Vector<Pair<MessageId, Message>>> byMessageHash = new HashMap<>();
+        for (Message msg : messages.values()) {
+            Vector<Pair<MessageId, Message>> vector = byMessageHash.get(msg.msgHash);
+            if (vector == null) {
+                vector = new Vector<>();
+                byMessageHash.put(msg.msgHash, vector);
+            }
+            vector.add(new Pair<>(msg.msgId, msg));
+        }
+
+        ArrayList<SubBatchTask> tasks = new ArrayList<>();
+        ArrayList<Vector<Pair<MessageId, Message>>> groups = new ArrayList<>();
+        int count = 0;
+        for (Vector<Pair<MessageId, Message>> group : byMessageHash.values()) {
+            groups.add(group);
+            count += group.size();
+            if (count >= parallelSubBatchSize) {
+                tasks.add(new SubBatchTask(groups));
+                groups = new ArrayList<>();
+                count = 0;
+            }
+        }
+        if (!groups.isEmpty()) {
+            tasks.add(new SubBatchTask(groups));
+        }
+
+        HashSet<MessageId> invalid = new HashSet<>();
+        for (SubBatchTask task : tasks) {
+            verificationPool.execute(task);
+        }
+        for (SubBatchTask task : tasks) {
+            invalid.addAll(task.join());
+        }
+
+        if (invalid.isEmpty()) {
+            return;
+        }
+
+        // a message might have been pushed by several sources, all of them are bad
+        for (Map.Entry<SourceId, Vector<Pair<MessageId, Message>>> p : messagesBySource.entrySet()) {
+            for (Pair<MessageId, Message> it : p.getValue()) {
+                if (invalid.contains(it.getFirst())) {
+                    badSources.add(p.getKey());
+                    break;
+                }
+            }
+        }
+        if (perMessageFallback) {
+            badMessages.addAll(invalid);
+        }
+    }
+
+    /**
+     * Verifies a sub-batch of message hash groups and returns the ids of the invalid messages.  If the
+     * aggregated verification fails, the sub-batch is split in half and each half is verified again.
+     * A single failing group is resolved with per-message verification.
+     */
+    private class SubBatchTask extends RecursiveTask<Set<MessageId>> {
+        private final List<Vector<Pair<MessageId, Message>>> groups;
+
+        SubBatchTask(List<Vector<Pair<MessageId, Message>>> groups) {
+            this.groups = groups;
+        }
+
+        @Override
+        protected Set<MessageId> compute() {
+            // verifyBatch takes ownership of the map, so give it copies of the groups
+            HashMap<Sha256Hash, Vector<Pair<MessageId, Message>>> byMessageHash = new HashMap<>();
+            for (Vector<Pair<MessageId, Message>> group : groups) {
+                byMessageHash.put(group.firstElement().getSecond().msgHash, new Vector<>(group));
+            }
+            if (verifyBatch(byMessageHash)) {
+                return Collections.emptySet();
+            }
+
+            if (groups.size() == 1) {
+                HashSet<MessageId> invalid = new HashSet<>();
+                for (Pair<MessageId, Message> msgIt : groups.get(0)) {
+                    Message msg = msgIt.getSecond();
+                    if (!msg.sig.verifyInsecure(msg.pubKey, msg.msgHash)) {
+                        invalid.add(msg.msgId);
+                    }
+                }
+                return invalid;
+            }
+
+            int half = groups.size() / 2;
+            SubBatchTask left = new SubBatchTask(groups.subList(0, half));
+            SubBatchTask right = new SubBatchTask(groups.subList(half, groups.size()));
+            left.fork();
+            HashSet<MessageId> invalid = new HashSet<>(right.compute());
+            invalid.addAll(left.join());
+            return invalid;
+        }
+    }
+
     // All Verify methods take ownership of the passed byMessageHash map and thus might modify the map. This is to avoid
     // unnecessary copies
 
@@ -41,7 +41,6 @@ import javax.annotation.concurrent.GuardedBy;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -696,40 +695,25 @@ public class QuorumRotationState extends AbstractQuorumState<GetQuorumRotationIn
 
         SimplifiedMasternodeList MnsUsedAtH = new SimplifiedMasternodeList(params);
         SimplifiedMasternodeList MnsNotUsedAtH = new SimplifiedMasternodeList(params);
-        ArrayList<SimplifiedMasternodeList> MnsUsedAtHIndex = Lists.newArrayListWithCapacity(llmqParameters.getSigningActiveQuorumCount());
+        // membership of the used masternodes, overall and per quorum index, is tracked by proTxHash
+        // so that each lookup is constant time rather than a scan of a masternode list
+        HashSet<Sha256Hash> usedAtH = new HashSet<>();
+        ArrayList<HashSet<Sha256Hash>> usedAtHIndex = Lists.newArrayListWithCapacity(llmqParameters.getSigningActiveQuorumCount());
 
         boolean skipRemovedMNs = params.isV19Active(cycleQuorumBaseBlock) || params.getId().equals(NetworkParameters.ID_TESTNET);
 
         for (int i = 0; i < llmqParameters.getSigningActiveQuorumCount(); ++i) {
-            MnsUsedAtHIndex.add(new SimplifiedMasternodeList(params));
+            usedAtHIndex.add(new HashSet<>());
         }
 
         for (int i = 0; i < llmqParameters.getSigningActiveQuorumCount(); ++i) {
-            for (SimplifiedMasternodeListEntry mn : previousQuarters.quarterHMinusC.get(i)) {
-                boolean skip = skipRemovedMNs && !allMns.containsMN(mn.proRegTxHash);
-                if (!skip && allMns.isValid(mn.proRegTxHash)) {
-                    MnsUsedAtH.addMN(mn);
-                    MnsUsedAtHIndex.get(i).addMN(mn);
-                }
-            }
-            for (SimplifiedMasternodeListEntry mn : previousQuarters.quarterHMinus2C.get(i)) {
-                boolean skip = skipRemovedMNs && !allMns.containsMN(mn.proRegTxHash);
-                if (!skip && allMns.isValid(mn.proRegTxHash)) {
-                    MnsUsedAtH.addMN(mn);
-                    MnsUsedAtHIndex.get(i).addMN(mn);
-                }
-            }
-            for (SimplifiedMasternodeListEntry mn : previousQuarters.quarterHMinus3C.get(i)) {
-                boolean skip = skipRemovedMNs && !allMns.containsMN(mn.proRegTxHash);
-                if (!skip && allMns.isValid(mn.proRegTxHash)) {
-                    MnsUsedAtH.addMN(mn);
-                    MnsUsedAtHIndex.get(i).addMN(mn);
-                }
-            }
+            addUsedMembers(allMns, previousQuarters.quarterHMinusC.get(i), skipRemovedMNs, MnsUsedAtH, usedAtH, usedAtHIndex.get(i));
+            addUsedMembers(allMns, previousQuarters.quarterHMinus2C.get(i), skipRemovedMNs, MnsUsedAtH, usedAtH, usedAtHIndex.get(i));
+            addUsedMembers(allMns, previousQuarters.quarterHMinus3C.get(i), skipRemovedMNs, MnsUsedAtH, usedAtH, usedAtHIndex.get(i));
         }
 
         allMns.forEachMN(true, mn -> {
-            if (mn.isValid() && !MnsUsedAtH.containsMN(mn.getProTxHash())) {
+            if (mn.isValid() && !usedAtH.contains(mn.getProTxHash())) {
                 MnsNotUsedAtH.addMN(mn);
             }
         });
@@ -760,14 +744,13 @@ public class QuorumRotationState extends AbstractQuorumState<GetQuorumRotationIn
         int firstSkippedIndex = 0;
         int idx = 0;
         for (int i = 0; i < llmqParameters.getSigningActiveQuorumCount(); ++i) {
-            int usedMNsCount = MnsUsedAtHIndex.get(i).getAllMNsCount();
+            HashSet<Sha256Hash> usedByQuorum = usedAtHIndex.get(i);
             boolean updated = false;
             int initialLoopIndex = idx;
             while (quarterQuorumMembers.get(i).size() < quarterSize) {
                 boolean skip = true;
                 Masternode mn = sortedCombinedMnsList.get(idx);
-                if (!MnsUsedAtHIndex.get(i).containsMN(mn.getProTxHash())) {
-                    MnsUsedAtHIndex.get(i).addMN((SimplifiedMasternodeListEntry) sortedCombinedMnsList.get(idx));
+                if (usedByQuorum.add(mn.getProTxHash())) {
                     quarterQuorumMembers.get(i).add((SimplifiedMasternodeListEntry) mn);
                     updated = true;
                     skip = false;
@@ -799,6 +782,19 @@ public class QuorumRotationState extends AbstractQuorumState<GetQuorumRotationIn
         return quarterQuorumMembers;
     }
 
+    private static void addUsedMembers(SimplifiedMasternodeList allMns, List<SimplifiedMasternodeListEntry> previousQuarter,
+                                       boolean skipRemovedMNs, SimplifiedMasternodeList mnsUsedAtH,
+                                       Set<Sha256Hash> usedAtH, Set<Sha256Hash> usedByQuorum) {
+        for (SimplifiedMasternodeListEntry mn : previousQuarter) {
+            boolean skip = skipRemovedMNs && !allMns.containsMN(mn.proRegTxHash);
+            if (!skip && allMns.isValid(mn.proRegTxHash)) {
+                mnsUsedAtH.addMN(mn);
+                usedAtH.add(mn.proRegTxHash);
+                usedByQuorum.add(mn.proRegTxHash);
+            }
+        }
+    }
+
     PreviousQuorumQuarters getPreviousQuorumQuarterMembers(LLMQParameters llmqParameters, StoredBlock blockHMinusC, StoredBlock blockHMinus2C, StoredBlock blockHMinus3C,
                                                            int height) {
         PreviousQuorumQuarters quarters = new PreviousQuorumQuarters();
@@ -846,41 +842,42 @@ public class QuorumRotationState extends AbstractQuorumState<GetQuorumRotationIn
         SimplifiedMasternodeList mnsNotUsedAtH = result.getSecond();
         ArrayList<Masternode> sortedMnsUsedAtH = mnsUsedAtH.calculateQuorum(mnsUsedAtH.getAllMNsCount(), modifier);
         ArrayList<Masternode> sortedMnsNotUsedAtH = mnsNotUsedAtH.calculateQuorum(mnsNotUsedAtH.getAllMNsCount(), modifier);
-        ArrayList<Masternode> sortedCombinedMnsList = new ArrayList<>(sortedMnsNotUsedAtH);
+        ArrayList<Masternode> sortedCombinedMnsList = new ArrayList<>(sortedMnsNotUsedAtH.size() + sortedMnsUsedAtH.size());
+        sortedCombinedMnsList.addAll(sortedMnsNotUsedAtH);
 
-        for (Masternode m1 : sortedMnsUsedAtH) {
-            for (Masternode m2 : sortedMnsNotUsedAtH) {
-                if (m1.equals(m2)) {
-                    log.info("{} is in both lists", m1);
-                }
+        HashSet<Masternode> notUsed = new HashSet<>(sortedMnsNotUsedAtH);
+        for (Masternode m : sortedMnsUsedAtH) {
+            if (notUsed.contains(m)) {
+                log.info("{} is in both lists", m);
             }
         }
         sortedCombinedMnsList.addAll(sortedMnsUsedAtH);
 
         //Mode 0: No skipping
         if (snapshot.getSkipListMode() == SnapshotSkipMode.MODE_NO_SKIPPING.getValue()) {
-            Iterator<Masternode> itm = sortedCombinedMnsList.iterator();
+            int idx = 0;
             for (int i = 0; i < llmqParameters.getSigningActiveQuorumCount(); ++i) {
                 //Iterate over the first quarterSize elements
                 while (quarterQuorumMembers.get(i).size() < quarterSize) {
-                    Masternode m = itm.next();
-                    quarterQuorumMembers.get(i).add((SimplifiedMasternodeListEntry) m);
-                    if (!itm.hasNext()) {
-                        itm = sortedCombinedMnsList.iterator();
-                    }
+                    quarterQuorumMembers.get(i).add((SimplifiedMasternodeListEntry) sortedCombinedMnsList.get(idx));
+                    idx++;
+                    if (idx == sortedCombinedMnsList.size())
+                        idx = 0;
                 }
             }
         }
         //Mode 1: List holds entries to be skipped
         else if (snapshot.getSkipListMode() == SnapshotSkipMode.MODE_SKIPPING_ENTRIES.getValue()) {
             int firstEntryIndex = 0;
-            ArrayList<Integer> processedSkipList = Lists.newArrayList();
-            for (int s : snapshot.getSkipList()) {
+            List<Integer> skipList = snapshot.getSkipList();
+            int[] processedSkipList = new int[skipList.size()];
+            for (int k = 0; k < processedSkipList.length; ++k) {
+                int s = skipList.get(k);
                 if (firstEntryIndex == 0) {
                     firstEntryIndex = s;
-                    processedSkipList.add(s);
+                    processedSkipList[k] = s;
                 } else {
-                    processedSkipList.add(firstEntryIndex + s);
+                    processedSkipList[k] = firstEntryIndex + s;
                 }
             }
 
@@ -889,7 +886,7 @@ public class QuorumRotationState extends AbstractQuorumState<GetQuorumRotationIn
             for (int i = 0; i < llmqParameters.getSigningActiveQuorumCount(); ++i) {
                 //Iterate over the first quarterSize elements
                 while (quarterQuorumMembers.get(i).size() < quarterSize) {
-                    if (idxk != processedSkipList.size() && idx == processedSkipList.get(idxk))
+                    if (idxk != processedSkipList.length && idx == processedSkipList[idxk])
                         idxk++;
                     else
                         quarterQuorumMembers.get(i).add((SimplifiedMasternodeListEntry) sortedCombinedMnsList.get(idx));
@@ -925,15 +922,15 @@ public class QuorumRotationState extends AbstractQuorumState<GetQuorumRotationIn
             }
 
             ArrayList<Masternode> list = allMns.calculateQuorum(allMns.getValidMNsCount(), modifier);
-            AtomicInteger i = new AtomicInteger();
+            ArrayList<Boolean> activeQuorumMembers = snapshot.getActiveQuorumMembers();
 
-            for (Masternode mn : list) {
-                if (snapshot.getActiveQuorumMembers().get(i.get())) {
-                    usedMNs.addMN((SimplifiedMasternodeListEntry) mn);
+            for (int i = 0; i < list.size(); ++i) {
+                SimplifiedMasternodeListEntry mn = (SimplifiedMasternodeListEntry) list.get(i);
+                if (activeQuorumMembers.get(i)) {
+                    usedMNs.addMN(mn);
                 } else {
-                    nonUsedMNs.addMN((SimplifiedMasternodeListEntry) mn);
+                    nonUsedMNs.addMN(mn);
                 }
-                i.getAndIncrement();
             }
             return new Pair<>(usedMNs, nonUsedMNs);
     }
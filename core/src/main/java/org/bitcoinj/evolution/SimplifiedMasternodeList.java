@@ -23,6 +23,7 @@ import org.bitcoinj.manager.DashSystem;
 import org.bitcoinj.quorums.LLMQUtils;
 import org.bitcoinj.utils.MerkleRoot;
 import org.bitcoinj.utils.Pair;
+import org.bitcoinj.utils.PersistentHashMap;
 import org.bitcoinj.utils.Threading;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -50,15 +51,26 @@ public class SimplifiedMasternodeList extends Message {
     private long height;
     private StoredBlock storedBlock;
     private boolean storedBlockMatchesRequest;
-    HashMap<Sha256Hash, SimplifiedMasternodeListEntry> mnMap;
+    // persistent so that lists created by applyDiff share the unchanged entries with their parent
+    PersistentHashMap<Sha256Hash, SimplifiedMasternodeListEntry> mnMap;
 
     private CoinbaseTx coinbaseTxPayload;
 
+    // masternode scores of recently used list versions and modifiers, see getScores
+    private static final int SCORE_CACHE_SIZE = 16;
+    private static final LinkedHashMap<ScoreCacheKey, Scores> scoreCache =
+            new LinkedHashMap<ScoreCacheKey, Scores>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<ScoreCacheKey, Scores> entry) {
+                    return size() > SCORE_CACHE_SIZE;
+                }
+            };
+
     public SimplifiedMasternodeList(NetworkParameters params) {
         super(params);
         blockHash = params.getGenesisBlock().getHash();
         height = -1;
-        mnMap = new HashMap<>(5000);
+        mnMap = PersistentHashMap.empty();
         storedBlock = new StoredBlock(params.getGenesisBlock(), BigInteger.ZERO, 0);
         initProtocolVersion();
     }
@@ -76,7 +88,7 @@ public class SimplifiedMasternodeList extends Message {
         this.version = version;
         this.blockHash = other.blockHash;
         this.height = other.height;
-        mnMap = new HashMap<>(other.mnMap);
+        mnMap = other.mnMap;
         this.storedBlock = other.storedBlock;
         initProtocolVersion();
     }
@@ -87,7 +99,7 @@ public class SimplifiedMasternodeList extends Message {
         this.version = CURRENT_VERSION;
         this.blockHash = params.getGenesisBlock().getHash();
         this.height = -1;
-        mnMap = new HashMap<>(entries.size());
+        mnMap = PersistentHashMap.empty();
         for(SimplifiedMasternodeListEntry entry : entries)
             addMN(entry);
         storedBlock = new StoredBlock(params.getGenesisBlock(), BigInteger.ZERO, 0);
@@ -104,13 +116,13 @@ public class SimplifiedMasternodeList extends Message {
         blockHash = readHash();
         height = (int)readUint32();
         int size = (int)readVarInt();
-        mnMap = new HashMap<>(size);
+        mnMap = PersistentHashMap.empty();
         for(int i = 0; i < size; ++i)
         {
             Sha256Hash hash = readHash();
             SimplifiedMasternodeListEntry mn = new SimplifiedMasternodeListEntry(params, payload, cursor, protocolVersion);
             cursor += mn.getMessageSize();
-            mnMap.put(hash, mn);
+            mnMap = mnMap.plus(hash, mn);
         }
 
         // read the number of properties, which should be zero
@@ -199,7 +211,7 @@ public class SimplifiedMasternodeList extends Message {
     {
         lock.lock();
         try {
-            mnMap.put(dmn.proRegTxHash, dmn);
+            mnMap = mnMap.plus(dmn.proRegTxHash, dmn);
         } finally {
             lock.unlock();
         }
@@ -208,10 +220,7 @@ public class SimplifiedMasternodeList extends Message {
     void removeMN(Sha256Hash proTxHash) {
         lock.lock();
         try {
-            SimplifiedMasternodeListEntry dmn = getMN(proTxHash);
-            if (dmn != null) {
-                mnMap.remove(proTxHash);
-            }
+            mnMap = mnMap.minus(proTxHash);
         } finally {
             lock.unlock();
         }
@@ -289,12 +298,8 @@ public class SimplifiedMasternodeList extends Message {
     }
 
     public boolean containsMN(Sha256Hash proTxHash) {
-        for (Map.Entry<Sha256Hash, SimplifiedMasternodeListEntry> entry : mnMap.entrySet()) {
-            if (entry.getValue().getProTxHash().equals(proTxHash)) {
-                return true;
-            }
-        }
-        return false;
+        // entries are keyed by their proTxHash
+        return mnMap.containsKey(proTxHash);
     }
 
     public boolean isValid(Sha256Hash proRegTxHash) {
@@ -408,16 +413,25 @@ public class SimplifiedMasternodeList extends Message {
 
     ArrayList<Pair<Sha256Hash, Masternode>> calculateScores(final Sha256Hash modifier, boolean hpmnOnly)
     {
-        final ArrayList<Pair<Sha256Hash, Masternode>> scores = new ArrayList<>(getAllMNsCount());
+        return calculateScores(mnMap, modifier, hpmnOnly);
+    }
+
+    private static ArrayList<Pair<Sha256Hash, Masternode>> calculateScores(Map<Sha256Hash, SimplifiedMasternodeListEntry> mnMap,
+                                                                          final Sha256Hash modifier, boolean hpmnOnly)
+    {
+        final ArrayList<Pair<Sha256Hash, Masternode>> scores = new ArrayList<>(mnMap.size());
 
-        forEachMN(true, mn -> {
+        for (SimplifiedMasternodeListEntry mn : mnMap.values()) {
+            if (!mn.isValid) {
+                continue;
+            }
             if(mn.getConfirmedHash().isZero()) {
                 // we only take confirmed MNs into account to avoid hash grinding on the ProRegTxHash to sneak MNs into a
                 // future quorums
-                return;
+                continue;
             }
             if (hpmnOnly && mn.type != MasternodeType.HIGHPERFORMANCE.index)
-                return;
+                continue;
 
 
             // calculate sha256(sha256(proTxHash, confirmedHash), modifier) per MN
@@ -432,11 +446,118 @@ public class SimplifiedMasternodeList extends Message {
             } catch (IOException x) {
                 throw new RuntimeException(x);
             }
-        });
+        }
+
+        return scores;
+    }
 
+    /**
+     * Returns the scores of the valid masternodes for a modifier.  Scores are cached by list version (the mnMap
+     * instance, which is shared by lists that have the same masternodes), modifier and hpmnOnly, so the
+     * repeated calculateQuorum and getMasternodeRank calls made while processing quorums only hash the list once.
+     */
+    private Scores getScores(Sha256Hash modifier, boolean hpmnOnly) {
+        PersistentHashMap<Sha256Hash, SimplifiedMasternodeListEntry> map = mnMap;
+        ScoreCacheKey key = new ScoreCacheKey(map, modifier, hpmnOnly);
+        synchronized (scoreCache) {
+            Scores scores = scoreCache.get(key);
+            if (scores != null) {
+                return scores;
+            }
+        }
+        Scores scores = new Scores(calculateScores(map, modifier, hpmnOnly));
+        synchronized (scoreCache) {
+            scoreCache.put(key, scores);
+        }
         return scores;
     }
 
+    private static final class ScoreCacheKey {
+        private final Map<Sha256Hash, SimplifiedMasternodeListEntry> mnMap;
+        private final Sha256Hash modifier;
+        private final boolean hpmnOnly;
+
+        ScoreCacheKey(Map<Sha256Hash, SimplifiedMasternodeListEntry> mnMap, Sha256Hash modifier, boolean hpmnOnly) {
+            this.mnMap = mnMap;
+            this.modifier = modifier;
+            this.hpmnOnly = hpmnOnly;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof ScoreCacheKey)) return false;
+            ScoreCacheKey other = (ScoreCacheKey) o;
+            // lists are compared by identity, each change to a list creates a new mnMap
+            return mnMap == other.mnMap && hpmnOnly == other.hpmnOnly && modifier.equals(other.modifier);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * System.identityHashCode(mnMap) + modifier.hashCode()) + (hpmnOnly ? 1 : 0);
+        }
+    }
+
+    /**
+     * Masternode scores that are sorted on demand.  Only as many of the highest scores as have been asked
+     * for are put in order, using a partial selection when that is a small part of the list.
+     */
+    static final class Scores {
+        private ArrayList<Pair<Sha256Hash, Masternode>> scores;
+        // the first sortedCount entries of scores are the highest scores in descending order
+        private int sortedCount;
+
+        Scores(ArrayList<Pair<Sha256Hash, Masternode>> scores) {
+            this.scores = scores;
+        }
+
+        int size() {
+            return scores.size();
+        }
+
+        /** Returns the count highest scores in descending order. */
+        synchronized List<Pair<Sha256Hash, Masternode>> getTop(int count) {
+            count = min(count, scores.size());
+            if (count > sortedCount) {
+                if (count * 4 < scores.size()) {
+                    selectTop(count);
+                } else {
+                    scores.sort(Collections.reverseOrder(new CompareScoreMN()));
+                    sortedCount = scores.size();
+                }
+            }
+            return new ArrayList<>(scores.subList(0, count));
+        }
+
+        private void selectTop(int count) {
+            // keep the count highest scores in a min-heap, O(n log count)
+            PriorityQueue<Pair<Sha256Hash, Masternode>> heap = new PriorityQueue<>(count + 1, new CompareScoreMN());
+            for (Pair<Sha256Hash, Masternode> score : scores) {
+                heap.add(score);
+                if (heap.size() > count) {
+                    heap.poll();
+                }
+            }
+            ArrayList<Pair<Sha256Hash, Masternode>> reordered = new ArrayList<>(scores.size());
+            Set<Pair<Sha256Hash, Masternode>> top = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (int i = 0; i < count; i++) {
+                reordered.add(null);
+            }
+            for (int i = count - 1; i >= 0; i--) {
+                Pair<Sha256Hash, Masternode> score = heap.poll();
+                reordered.set(i, score);
+                top.add(score);
+            }
+            for (Pair<Sha256Hash, Masternode> score : scores) {
+                if (!top.contains(score)) {
+                    reordered.add(score);
+                }
+            }
+            scores = reordered;
+            sortedCount = count;
+        }
+    }
+
     static class CompareScoreMN implements Comparator<Pair<Sha256Hash, Masternode>>
     {
         public int compare(Pair<Sha256Hash, Masternode> a, Pair<Sha256Hash, Masternode> b) {
@@ -460,12 +581,11 @@ public class SimplifiedMasternodeList extends Message {
         lock.lock();
         try {
 
-            ArrayList<Pair<Sha256Hash, Masternode>> vecMasternodeScores = calculateScores(quorumModifierHash, hpmnOnly);
-            if (vecMasternodeScores.isEmpty())
+            Scores scores = getScores(quorumModifierHash, hpmnOnly);
+            if (scores.size() == 0)
                 return -1;
 
-            Collections.sort(vecMasternodeScores, Collections.reverseOrder(new CompareScoreMN()));
-
+            List<Pair<Sha256Hash, Masternode>> vecMasternodeScores = scores.getTop(scores.size());
 
             rank = 0;
             for (Pair<Sha256Hash, Masternode> scorePair : vecMasternodeScores) {
@@ -498,18 +618,12 @@ public class SimplifiedMasternodeList extends Message {
 
     ArrayList<Masternode> calculateQuorum(int maxSize, Sha256Hash modifier, boolean hpmnOnly)
     {
-        ArrayList<Pair<Sha256Hash, Masternode>> scores = calculateScores(modifier, hpmnOnly);
-
-        // sort is descending order
-        scores.sort(Collections.reverseOrder(new CompareScoreMN()));
+        // the highest maxSize scores in descending order
+        List<Pair<Sha256Hash, Masternode>> scores = getScores(modifier, hpmnOnly).getTop(maxSize);
 
-        // take top maxSize entries and return it
-        int size = min(scores.size(), maxSize);
-        ArrayList<Masternode> result = new ArrayList<>(size);
-        if (!scores.isEmpty()) {
-            for (int i = 0; i < size; i++) {
-                result.add(scores.get(i).getSecond());
-            }
+        ArrayList<Masternode> result = new ArrayList<>(scores.size());
+        for (Pair<Sha256Hash, Masternode> score : scores) {
+            result.add(score.getSecond());
         }
         return result;
     }
@@ -18,6 +18,7 @@ import java.io.OutputStream;
 import java.math.BigInteger;
 import java.net.InetAddress;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 import java.util.concurrent.locks.ReentrantLock;
@@ -34,8 +35,14 @@ import static org.bitcoinj.utils.Threading.SAME_THREAD;
 public class GovernanceManager extends AbstractManager {
     private static final Logger log = LoggerFactory.getLogger(GovernanceManager.class);
     private static final Random random = new Random();
-    // critical section to protect the inner data structures
+    // critical section to protect the inner data structures. Votes for known objects only take the lock of the
+    // object (GovernanceObject.lock) and the vote index shard, so votes from different peers are processed in parallel.
     ReentrantLock lock = Threading.lock("GovernanceManager");
+    private final ReentrantLock invalidVotesLock = Threading.lock("GovernanceManager-invalidVotes");
+    private final LockStats managerLockStats = new LockStats("governance manager");
+    private final LockStats objectLockStats = new LockStats("governance objects");
+    // processes every vote under the manager lock, like before votes were processed in parallel, to compare the two
+    private boolean votesUnderManagerLock;
 
     public static final int MAX_GOVERNANCE_OBJECT_DATA_SIZE = 16 * 1024;
     public static final int MIN_GOVERNANCE_PEER_PROTO_VERSION = 70208;
@@ -50,13 +57,25 @@ public class GovernanceManager extends AbstractManager {
 
     private static final int MAX_CACHE_SIZE = 1000000;
 
+    // memory budgets of the vote caches, in bytes
+    static final long VOTE_INDEX_MAX_WEIGHT = 32 * 1024 * 1024;
+    static final long INVALID_VOTES_MAX_WEIGHT = 4 * 1024 * 1024;
+    static final long ORPHAN_VOTES_MAX_WEIGHT = 8 * 1024 * 1024;
+    // estimate of the memory taken by a vote with its outpoint, hashes and signature
+    static final int VOTE_WEIGHT = 512;
+
+    // journal record types, see appendToJournal
+    static final int JOURNAL_OBJECT = 1;
+    static final int JOURNAL_VOTE = 2;
+    static final int JOURNAL_ERASE = 3;
+
     private long nTimeLastDiff;
 
     // keep track of current block height
     private int nCachedBlockHeight;
 
-    // keep track of the scanning errors
-    private HashMap<Sha256Hash, GovernanceObject> mapObjects;
+    // keep track of the scanning errors, modified with lock held
+    private ConcurrentHashMap<Sha256Hash, GovernanceObject> mapObjects;
 
     // mapErasedGovernanceObjects contains key-value pairs, where
     //   key   - governance object's hash
@@ -75,19 +94,22 @@ public class GovernanceManager extends AbstractManager {
 
     private long nTimeWatchdogCurrent;
 
-    private CacheMap<Sha256Hash, GovernanceObject> mapVoteToObject;
+    private GovernanceVoteIndex mapVoteToObject;
 
-    private CacheMap<Sha256Hash, GovernanceVote> mapInvalidVotes;
+    // guarded by invalidVotesLock
+    private WeightedCache<Sha256Hash, GovernanceVote> mapInvalidVotes;
 
-    private CacheMultiMap<Sha256Hash, Pair<GovernanceVote, Long>> mapOrphanVotes;
+    // votes for objects that are not known yet, with the time they expire
+    private WeightedMultiCache<Sha256Hash, Pair<GovernanceVote, Long>> mapOrphanVotes;
 
     private HashMap<TransactionOutPoint, LastObjectRecord> mapLastMasternodeObject;
 
-    private HashSet<Sha256Hash> setRequestedObjects;
+    private Set<Sha256Hash> setRequestedObjects;
 
-    private HashSet<Sha256Hash> setRequestedVotes;
+    private Set<Sha256Hash> setRequestedVotes;
 
-    private boolean fRateChecksEnabled;
+    // only ever disabled by the thread holding lock, see areRateChecksEnabled
+    private volatile boolean fRateChecksEnabled;
     private MasternodeSync masternodeSync;
     private PeerGroup peerGroup;
     private SimplifiedMasternodeListManager masternodeListManager;
@@ -99,18 +121,18 @@ public class GovernanceManager extends AbstractManager {
         super(context);
         this.nTimeLastDiff = 0;
         this.nCachedBlockHeight = 0;
-        this.mapObjects = new HashMap<Sha256Hash, GovernanceObject>();
+        this.mapObjects = new ConcurrentHashMap<Sha256Hash, GovernanceObject>();
         this.mapErasedGovernanceObjects = new HashMap<Sha256Hash, Long>();
         this.mapMasternodeOrphanObjects = new HashMap<Sha256Hash, Pair<GovernanceObject, ExpirationInfo>>();
         this.mapWatchdogObjects = new HashMap<Sha256Hash, Long>();
         this.nHashWatchdogCurrent = Sha256Hash.ZERO_HASH;
         this.nTimeWatchdogCurrent = 0;
-        this.mapVoteToObject = new CacheMap<Sha256Hash, GovernanceObject>(MAX_CACHE_SIZE);
-        this.mapInvalidVotes = new CacheMap<Sha256Hash, GovernanceVote>(MAX_CACHE_SIZE);
-        this.mapOrphanVotes = new CacheMultiMap<Sha256Hash, Pair<GovernanceVote, Long>>(MAX_CACHE_SIZE);
+        this.mapVoteToObject = new GovernanceVoteIndex(VOTE_INDEX_MAX_WEIGHT);
+        this.mapInvalidVotes = newInvalidVotesCache();
+        this.mapOrphanVotes = newOrphanVotesCache();
         this.mapLastMasternodeObject = new HashMap<TransactionOutPoint, LastObjectRecord>();
-        this.setRequestedObjects = new HashSet<Sha256Hash>();
-        this.setRequestedVotes = new HashSet<Sha256Hash>();
+        this.setRequestedObjects = Collections.newSetFromMap(new ConcurrentHashMap<Sha256Hash, Boolean>());
+        this.setRequestedVotes = Collections.newSetFromMap(new ConcurrentHashMap<Sha256Hash, Boolean>());
         this.fRateChecksEnabled = true;
 
         this.mapPostponedObjects = new HashMap<Sha256Hash, GovernanceObject>();
@@ -123,6 +145,22 @@ public class GovernanceManager extends AbstractManager {
         super(params, payload, cursor);
     }
 
+    private static WeightedCache<Sha256Hash, GovernanceVote> newInvalidVotesCache() {
+        return WeightedCache.builder()
+                .maximumWeight(INVALID_VOTES_MAX_WEIGHT)
+                .maximumSize(MAX_CACHE_SIZE)
+                .weigher((hash, vote) -> VOTE_WEIGHT)
+                .build();
+    }
+
+    private static WeightedMultiCache<Sha256Hash, Pair<GovernanceVote, Long>> newOrphanVotesCache() {
+        return WeightedMultiCache.builder()
+                .maximumWeight(ORPHAN_VOTES_MAX_WEIGHT)
+                .maximumSize(MAX_CACHE_SIZE)
+                .weigher((hash, pair) -> VOTE_WEIGHT)
+                .build();
+    }
+
     public int calculateMessageSizeInBytes() {
         int size = 0;
         lock.lock();
@@ -151,15 +189,34 @@ public class GovernanceManager extends AbstractManager {
             mapErasedGovernanceObjects.put(hash, time);
         }
 
+        // the vote caches keep the format of Dash Core's CacheMap and CacheMultiMap: the maximum size, the size and
+        // the items, oldest first, each a key followed by its value
         //READWRITE(mapInvalidVotes);
-        mapInvalidVotes = new CacheMap<Sha256Hash, GovernanceVote>(params, payload, cursor);
-        cursor += mapInvalidVotes.getMessageSize();
+        mapInvalidVotes = newInvalidVotesCache();
+        readInt64();
+        readInt64();
+        size = (int)readVarInt();
+        for(int i = 0; i < size; ++i) {
+            Sha256Hash hash = readHash();
+            GovernanceVote vote = new GovernanceVote(params, payload, cursor);
+            cursor += vote.getMessageSize();
+            mapInvalidVotes.put(hash, vote);
+        }
         //READWRITE(mapOrphanVotes);
-        mapOrphanVotes = new CacheMultiMap<Sha256Hash, Pair<GovernanceVote, Long>>(params, payload, cursor);
-        cursor += mapOrphanVotes.getMessageSize();
+        mapOrphanVotes = newOrphanVotesCache();
+        readInt64();
+        readInt64();
+        size = (int)readVarInt();
+        for(int i = 0; i < size; ++i) {
+            Sha256Hash hash = readHash();
+            GovernanceVote vote = new GovernanceVote(params, payload, cursor);
+            cursor += vote.getMessageSize();
+            long expiration = readInt64();
+            mapOrphanVotes.put(hash, new Pair<GovernanceVote, Long>(vote, expiration));
+        }
         //READWRITE(mapObjects);
         size = (int)readVarInt();
-        mapObjects = new HashMap<Sha256Hash, GovernanceObject>(size);
+        mapObjects = new ConcurrentHashMap<Sha256Hash, GovernanceObject>(size);
         for(int i = 0; i < size; ++i) {
             Sha256Hash hash = readHash();
             GovernanceObjectFromFile govobj = new GovernanceObjectFromFile(params, payload, cursor);
@@ -210,9 +267,29 @@ public class GovernanceManager extends AbstractManager {
                 Utils.int64ToByteStreamLE(entry.getValue(), stream);
             }
             //READWRITE(mapInvalidVotes);
-            mapInvalidVotes.bitcoinSerialize(stream);
+            invalidVotesLock.lock();
+            try {
+                Utils.int64ToByteStreamLE(MAX_CACHE_SIZE, stream);
+                Utils.int64ToByteStreamLE(mapInvalidVotes.size(), stream);
+                stream.write(new VarInt(mapInvalidVotes.size()).encode());
+                for (Sha256Hash hash : mapInvalidVotes.keys()) {
+                    stream.write(hash.getReversedBytes());
+                    mapInvalidVotes.peek(hash).bitcoinSerialize(stream);
+                }
+            } finally {
+                invalidVotesLock.unlock();
+            }
             //READWRITE(mapOrphanVotes);
-            mapOrphanVotes.bitcoinSerialize(stream);
+            final List<Pair<Sha256Hash, Pair<GovernanceVote, Long>>> orphanVotes = new ArrayList<>(mapOrphanVotes.size());
+            mapOrphanVotes.forEach((hash, pairVote) -> orphanVotes.add(new Pair<>(hash, pairVote)));
+            Utils.int64ToByteStreamLE(MAX_CACHE_SIZE, stream);
+            Utils.int64ToByteStreamLE(orphanVotes.size(), stream);
+            stream.write(new VarInt(orphanVotes.size()).encode());
+            for (Pair<Sha256Hash, Pair<GovernanceVote, Long>> orphanVote : orphanVotes) {
+                stream.write(orphanVote.getFirst().getReversedBytes());
+                orphanVote.getSecond().getFirst().bitcoinSerialize(stream);
+                Utils.int64ToByteStreamLE(orphanVote.getSecond().getSecond(), stream);
+            }
             //READWRITE(mapObjects);
             stream.write(new VarInt(mapObjects.size()).encode());
             for(Map.Entry<Sha256Hash, GovernanceObject> entry : mapObjects.entrySet()) {
@@ -252,7 +329,12 @@ public class GovernanceManager extends AbstractManager {
             nHashWatchdogCurrent = Sha256Hash.ZERO_HASH;
             nTimeWatchdogCurrent = 0;
             mapVoteToObject.clear();
-            mapInvalidVotes.clear();
+            invalidVotesLock.lock();
+            try {
+                mapInvalidVotes.clear();
+            } finally {
+                invalidVotesLock.unlock();
+            }
             mapOrphanVotes.clear();
             mapLastMasternodeObject.clear();
 
@@ -266,6 +348,66 @@ public class GovernanceManager extends AbstractManager {
         return new GovernanceManager(Context.get());
     }
 
+    /**
+     * Votes arrive continuously and the snapshot holds every vote of every object, so new objects, votes and erasures
+     * are saved to a journal instead of rewriting the snapshot each time.
+     */
+    @Override
+    public boolean isJournalEnabled() {
+        return true;
+    }
+
+    private void journalVote(GovernanceVote vote) {
+        // only serialize the vote if the manager is being saved
+        if (vFileManager != null)
+            appendToJournal(JOURNAL_VOTE, vote.bitcoinSerialize());
+    }
+
+    private static byte[] serializeErasure(Sha256Hash hash, long expirationTime) {
+        byte[] data = new byte[40];
+        System.arraycopy(hash.getReversedBytes(), 0, data, 0, 32);
+        Utils.int64ToByteArrayLE(expirationTime, data, 32);
+        return data;
+    }
+
+    @Override
+    protected void applyJournalRecord(int type, byte[] data) {
+        lock.lock();
+        try {
+            switch (type) {
+                case JOURNAL_OBJECT: {
+                    GovernanceObject govobj = new GovernanceObject(params, data);
+                    Sha256Hash nHash = govobj.getHash();
+                    if (mapObjects.containsKey(nHash) || mapErasedGovernanceObjects.containsKey(nHash))
+                        break;
+                    govobj.setObjects(masternodeListManager, masternodeMetaDataManager, this, masternodeSync);
+                    mapObjects.put(nHash, govobj);
+                    if (govobj.getObjectType() == GOVERNANCE_OBJECT_WATCHDOG)
+                        mapWatchdogObjects.put(nHash, govobj.getCreationTime() + GOVERNANCE_WATCHDOG_EXPIRATION_TIME);
+                    break;
+                }
+                case JOURNAL_VOTE: {
+                    GovernanceVote vote = new GovernanceVote(params, data, 0);
+                    GovernanceObject govobj = mapObjects.get(vote.getParentHash());
+                    if (govobj != null && govobj.addVoteFromJournal(vote))
+                        mapVoteToObject.insert(vote.getHash(), govobj);
+                    break;
+                }
+                case JOURNAL_ERASE: {
+                    Sha256Hash nHash = Sha256Hash.wrapReversed(Arrays.copyOf(data, 32));
+                    mapObjects.remove(nHash);
+                    mapWatchdogObjects.remove(nHash);
+                    mapErasedGovernanceObjects.put(nHash, Utils.readInt64(data, 32));
+                    break;
+                }
+                default:
+                    log.warn("unknown governance journal record type {}", type);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     public void setBlockChain(PeerGroup peerGroup, MasternodeSync masternodeSync, SimplifiedMasternodeListManager masternodeListManager, MasternodeMetaDataManager masternodeMetaDataManager, NetFullfilledRequestManager netFullfilledRequestManager, GovernanceTriggerManager triggerManager) {
         this.peerGroup = peerGroup;
         this.masternodeSync = masternodeSync;
@@ -462,41 +604,66 @@ public class GovernanceManager extends AbstractManager {
     }
 
     public boolean processVote(Peer pfrom, GovernanceVote vote, GovernanceException exception) {
-        lock.lock();
+        if (!votesUnderManagerLock)
+            return processVoteInParallel(pfrom, vote, exception);
+        managerLockStats.lock(lock);
         try {
-            Sha256Hash nHashVote = vote.getHash();
-            if (mapInvalidVotes.hasKey(nHashVote)) {
-                String message = "CGovernanceManager::ProcessVote -- Old invalid vote, MN outpoint = " + vote.getMasternodeOutpoint().toStringShort() +
-                        ", governance object hash = " + vote.getParentHash().toString();
-                log.info(message);
-                exception.setException(message, GOVERNANCE_EXCEPTION_PERMANENT_ERROR, 20);
-                return false;
-            }
+            return processVoteInParallel(pfrom, vote, exception);
+        } finally {
+            lock.unlock();
+        }
+    }
 
-            Sha256Hash nHashGovobj = vote.getParentHash();
-            GovernanceObject govobj = mapObjects.get(nHashGovobj);
-            if (govobj == null) {
-                String message = "CGovernanceManager::ProcessVote -- Unknown parent object, MN outpoint = " + vote.getMasternodeOutpoint().toStringShort() +
-                        ", governance object hash = " + vote.getParentHash().toString();
-                exception.setException(message, GOVERNANCE_EXCEPTION_WARNING);
-                if (mapOrphanVotes.insert(nHashGovobj, new Pair<GovernanceVote, Long>(vote, Utils.currentTimeSeconds() + GOVERNANCE_ORPHAN_EXPIRATION_TIME))) {
-                    requestGovernanceObject(pfrom, nHashGovobj, false);
-                    log.info(message);
+    void setVotesUnderManagerLock(boolean votesUnderManagerLock) {
+        this.votesUnderManagerLock = votesUnderManagerLock;
+    }
+
+    private boolean processVoteInParallel(Peer pfrom, GovernanceVote vote, GovernanceException exception) {
+        Sha256Hash nHashVote = vote.getHash();
+        if (isInvalidVote(nHashVote)) {
+            String message = "CGovernanceManager::ProcessVote -- Old invalid vote, MN outpoint = " + vote.getMasternodeOutpoint().toStringShort() +
+                    ", governance object hash = " + vote.getParentHash().toString();
+            log.info(message);
+            exception.setException(message, GOVERNANCE_EXCEPTION_PERMANENT_ERROR, 20);
+            return false;
+        }
+
+        Sha256Hash nHashGovobj = vote.getParentHash();
+        GovernanceObject govobj = mapObjects.get(nHashGovobj);
+        if (govobj == null) {
+            managerLockStats.lock(lock);
+            try {
+                // the object may have been added since it was looked up, after which orphan votes are not checked again
+                govobj = mapObjects.get(nHashGovobj);
+                if (govobj == null) {
+                    String message = "CGovernanceManager::ProcessVote -- Unknown parent object, MN outpoint = " + vote.getMasternodeOutpoint().toStringShort() +
+                            ", governance object hash = " + vote.getParentHash().toString();
+                    exception.setException(message, GOVERNANCE_EXCEPTION_WARNING);
+                    if (mapOrphanVotes.put(nHashGovobj, new Pair<GovernanceVote, Long>(vote, Utils.currentTimeSeconds() + GOVERNANCE_ORPHAN_EXPIRATION_TIME))) {
+                        requestGovernanceObject(pfrom, nHashGovobj, false);
+                        log.info(message);
+                        return false;
+                    }
+
+                    log.info("gobject--{}", message);
                     return false;
                 }
-
-                log.info("gobject--{}", message);
-                return false;
+            } finally {
+                lock.unlock();
             }
+        }
 
-            if (govobj.isSetCachedDelete() || govobj.isSetExpired()) {
-                log.info("gobject--CGovernanceObject::ProcessVote -- ignoring vote for expired or deleted object, hash = {}", nHashGovobj.toString());
-                return false;
-            }
+        if (govobj.isSetCachedDelete() || govobj.isSetExpired()) {
+            log.info("gobject--CGovernanceObject::ProcessVote -- ignoring vote for expired or deleted object, hash = {}", nHashGovobj.toString());
+            return false;
+        }
 
+        objectLockStats.lock(govobj.lock);
+        try {
             boolean fOk = govobj.processVote(pfrom, vote, exception);
             if (fOk) {
                 mapVoteToObject.insert(nHashVote, govobj);
+                journalVote(vote);
 
                 /* TODO:  Fix Governance Objects
                 if (govobj.getObjectType() == GOVERNANCE_OBJECT_WATCHDOG) {
@@ -506,35 +673,28 @@ public class GovernanceManager extends AbstractManager {
             }
             return fOk;
         } finally {
-            lock.unlock();
+            govobj.lock.unlock();
         }
     }
 
-
-    public boolean acceptObjectMessage(Sha256Hash nHash) {
-        lock.lock();
+    boolean isInvalidVote(Sha256Hash nHashVote) {
+        invalidVotesLock.lock();
         try {
-            return acceptMessage(nHash, setRequestedObjects);
+            return mapInvalidVotes.containsKey(nHashVote);
         } finally {
-            lock.unlock();
+            invalidVotesLock.unlock();
         }
     }
+
+    public boolean acceptObjectMessage(Sha256Hash nHash) {
+        return acceptMessage(nHash, setRequestedObjects);
+    }
     public boolean acceptVoteMessage(Sha256Hash nHash) {
-        lock.lock();
-        try {
-            return acceptMessage(nHash, setRequestedVotes);
-        } finally {
-            lock.unlock();
-        }
+        return acceptMessage(nHash, setRequestedVotes);
     }
-    public boolean acceptMessage(Sha256Hash nHash, HashSet<Sha256Hash> setHash) {
-        if(!setHash.contains(nHash)) {
-            // We never requested this
-            return false;
-        }
-        // Only accept one response
-        setHash.remove(nHash);
-        return true;
+    public boolean acceptMessage(Sha256Hash nHash, Set<Sha256Hash> setHash) {
+        // Only accept one response, returns false if we never requested this
+        return setHash.remove(nHash);
     }
 
     public void masternodeRateUpdate(GovernanceObject govobj) {
@@ -691,32 +851,39 @@ public class GovernanceManager extends AbstractManager {
 
     public void addInvalidVote(final GovernanceVote vote)
     {
-        mapInvalidVotes.insert(vote.getHash(), vote);
+        invalidVotesLock.lock();
+        try {
+            mapInvalidVotes.put(vote.getHash(), vote);
+        } finally {
+            invalidVotesLock.unlock();
+        }
     }
 
     void addOrphanVote(final GovernanceVote vote)
     {
-        mapOrphanVotes.insert(vote.getHash(), new Pair<GovernanceVote, Long>(vote, Utils.currentTimeSeconds() + GOVERNANCE_ORPHAN_EXPIRATION_TIME));
-    }
-
-    public boolean areRateChecksEnabled() {
         lock.lock();
         try {
-            return fRateChecksEnabled;
+            mapOrphanVotes.put(vote.getHash(), new Pair<GovernanceVote, Long>(vote, Utils.currentTimeSeconds() + GOVERNANCE_ORPHAN_EXPIRATION_TIME));
         } finally {
             lock.unlock();
         }
     }
 
+    /**
+     * Returns false while the thread holding the manager lock reprocesses orphan votes or cleans up, which disables the
+     * rate checks for that thread only. Votes processed by other threads at that time are still rate checked.
+     */
+    public boolean areRateChecksEnabled() {
+        return fRateChecksEnabled || !lock.isHeldByCurrentThread();
+    }
+
     public void checkOrphanVotes(GovernanceObject govobj, GovernanceException exception) {
         Sha256Hash nHash = govobj.getHash();
-        ArrayList<Pair<GovernanceVote, Long>> vecVotePairs = new ArrayList<Pair<GovernanceVote, Long>>();
-        mapOrphanVotes.getAll(nHash, vecVotePairs);
-
         lock.lock();
         boolean _fRateChecksEnabled = fRateChecksEnabled;
         fRateChecksEnabled = false;
         try {
+            List<Pair<GovernanceVote, Long>> vecVotePairs = mapOrphanVotes.get(nHash);
 
             long nNow = Utils.currentTimeSeconds();
             for (int i = 0; i < vecVotePairs.size(); ++i) {
@@ -727,11 +894,12 @@ public class GovernanceManager extends AbstractManager {
                 if (pairVote.getSecond() < nNow) {
                     fRemove = true;
                 } else if (govobj.processVote(null, vote, exception)) {
+                    journalVote(vote);
                     vote.relay();
                     fRemove = true;
                 }
                 if (fRemove) {
-                    mapOrphanVotes.erase(nHash, pairVote);
+                    mapOrphanVotes.remove(nHash, pairVote);
                 }
             }
         } finally {
@@ -795,6 +963,8 @@ public class GovernanceManager extends AbstractManager {
 
             // INSERT INTO OUR GOVERNANCE OBJECT MEMORY
             mapObjects.put(nHash, govobj);
+            if (vFileManager != null)
+                appendToJournal(JOURNAL_OBJECT, govobj.bitcoinSerialize());
             queueOnGovernanceObjectAdded(nHash, govobj);
             unCache();
 
@@ -912,7 +1082,7 @@ public class GovernanceManager extends AbstractManager {
                     }
                     break;
                 case GovernanceObjectVote:
-                    if (mapVoteToObject.hasKey(inv.hash)) {
+                    if (mapVoteToObject.contains(inv.hash)) {
                         log.info("gobject--CGovernanceManager::ConfirmInventoryRequest already have governance vote, returning false, vote = {}", inv);
                         return false;
                     }
@@ -923,7 +1093,7 @@ public class GovernanceManager extends AbstractManager {
             }
 
 
-            HashSet<Sha256Hash> setHash = null;
+            Set<Sha256Hash> setHash = null;
             switch (inv.type) {
                 case GovernanceObject:
                     setHash = setRequestedObjects;
@@ -1042,16 +1212,7 @@ public class GovernanceManager extends AbstractManager {
                         masternodeMetaDataManager.removeGovernanceObject(pObj.getHash());
 
                         // Remove vote references
-                        final LinkedList<CacheItem<Sha256Hash, GovernanceObject>> listItems = mapVoteToObject.getItemList();
-                        Iterator<CacheItem<Sha256Hash, GovernanceObject>> lit = listItems.iterator();
-                        while (lit.hasNext()) {
-                            CacheItem<Sha256Hash, GovernanceObject> item = lit.next();
-                            if (item.value == pObj) {
-                                Sha256Hash nKey = item.key;
-                                //mapVoteToObject.erase(nKey);//TODO: crash here?
-                                lit.remove();
-                            }
-                        }
+                        mapVoteToObject.removeObject(pObj);
 
                         long nSuperblockCycleSeconds = (long)params.getSuperblockCycle() * params.TARGET_SPACING;
                         long nTimeExpired = pObj.getCreationTime() + 2 * nSuperblockCycleSeconds + GOVERNANCE_DELETION_DELAY;
@@ -1065,6 +1226,7 @@ public class GovernanceManager extends AbstractManager {
 
                         mapErasedGovernanceObjects.put(nHash, nTimeExpired);
                         it.remove();
+                        appendToJournal(JOURNAL_ERASE, serializeErasure(nHash, nTimeExpired));
                     }
                 }
 
@@ -1116,7 +1278,7 @@ public class GovernanceManager extends AbstractManager {
 
             return String.format("Governance Objects: %d (Proposals: %d, Triggers: %d, Watchdogs: %d/%d, Other: %d; Erased: %d), Votes: %d",
                     mapObjects.size(), nProposalCount, nTriggerCount, nWatchdogCount, mapWatchdogObjects.size(), nOtherCount,
-                    mapErasedGovernanceObjects.size(), (int) mapVoteToObject.getSize());
+                    mapErasedGovernanceObjects.size(), (int) mapVoteToObject.size());
         } finally {
             lock.unlock();
         }
@@ -1141,10 +1303,9 @@ public class GovernanceManager extends AbstractManager {
 
 
         ArrayList<Sha256Hash> vecHashesFiltered = new ArrayList<Sha256Hash>();
-        ArrayList<Sha256Hash> vecHashes = new ArrayList<Sha256Hash>();
         lock.lock();
         try {
-            mapOrphanVotes.getKeys(vecHashes);
+            List<Sha256Hash> vecHashes = mapOrphanVotes.keys();
             for (int i = 0; i < vecHashes.size(); ++i) {
                 final Sha256Hash nHash = vecHashes.get(i);
                 if (!mapObjects.containsKey(nHash)) {
@@ -1176,19 +1337,8 @@ public class GovernanceManager extends AbstractManager {
 
         lock.lock();
         try {
-            final LinkedList<CacheItem<Sha256Hash, Pair<GovernanceVote, Long>>> items = mapOrphanVotes.getItemList();
-
-            long nNow = Utils.currentTimeSeconds();
-
-            Iterator<CacheItem<Sha256Hash, Pair<GovernanceVote, Long>>> it = items.iterator();
-            while (it.hasNext()) {
-                CacheItem<Sha256Hash, Pair<GovernanceVote, Long>> item = it.next();
-
-                final Pair<GovernanceVote, Long> pairVote = item.value;
-                if (pairVote.getSecond() < nNow) {
-                    mapOrphanVotes.erase(item.key, item.value);
-                }
-            }
+            final long nNow = Utils.currentTimeSeconds();
+            mapOrphanVotes.removeIf((hash, pairVote) -> pairVote.getSecond() < nNow);
         } finally {
             lock.unlock();
         }
@@ -1572,15 +1722,30 @@ public class GovernanceManager extends AbstractManager {
         }
     }
 
+    /** Returns how often votes had to wait for the manager lock, which they only take for unknown objects. */
+    public LockStats getManagerLockStats() {
+        return managerLockStats;
+    }
+
+    /** Returns how often votes had to wait for another vote for the same object. */
+    public LockStats getObjectLockStats() {
+        return objectLockStats;
+    }
+
+    /** Returns how often votes had to wait for the shards of the vote index. */
+    public LockStats getVoteIndexLockStats() {
+        return mapVoteToObject.getLockStats();
+    }
+
     public boolean haveVoteForHash(Sha256Hash voteHash)
     {
         lock.lock();
         try {
 
-            CacheItem<Sha256Hash, GovernanceObject> item = mapVoteToObject.get(voteHash);
-            if(item == null)
+            GovernanceObject govobj = mapVoteToObject.get(voteHash);
+            if(govobj == null)
                 return false;
-            return item.value.getVoteFile().hasVote(voteHash);
+            return govobj.getVoteFile().hasVote(voteHash);
         } finally {
             lock.unlock();
         }
@@ -1591,10 +1756,10 @@ public class GovernanceManager extends AbstractManager {
         lock.lock();
         try {
 
-            CacheItem<Sha256Hash, GovernanceObject> item = mapVoteToObject.get(voteHash);
-            if(item == null)
+            GovernanceObject govobj = mapVoteToObject.get(voteHash);
+            if(govobj == null)
                 return null;
-            return item.value.getVoteFile().getVote(voteHash);
+            return govobj.getVoteFile().getVote(voteHash);
         } finally {
             lock.unlock();
         }
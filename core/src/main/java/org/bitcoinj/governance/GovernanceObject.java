@@ -49,8 +49,8 @@ public class GovernanceObject extends Message implements Serializable {
 
     private static final Logger log = LoggerFactory.getLogger(GovernanceObject.class);
 
-    // critical section to protect the inner data structures
-    ReentrantLock lock = Threading.lock("MasternodeManager");
+    // critical section to protect the inner data structures, including the votes
+    ReentrantLock lock = Threading.lock("GovernanceObject");
 
     public static final int MAX_GOVERNANCE_OBJECT_DATA_SIZE = 16 * 1024;
     public static final int MIN_GOVERNANCE_PEER_PROTO_VERSION = 70206;
@@ -291,6 +291,15 @@ public class GovernanceObject extends Message implements Serializable {
     }
 
     public void serializeToDisk(OutputStream stream) throws IOException {
+        lock.lock();
+        try {
+            serializeToDiskLocked(stream);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void serializeToDiskLocked(OutputStream stream) throws IOException {
         log.info("gobject--CGovernanceObject::SerializationOp writing votes to disk");
         Utils.int64ToByteStreamLE(nDeletionTime, stream);
         stream.write((byte)(fExpired ? 0 : 1));
@@ -585,6 +594,15 @@ public class GovernanceObject extends Message implements Serializable {
     }
 
     public void updateSentinelVariables() {
+        lock.lock();
+        try {
+            updateSentinelVariablesLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void updateSentinelVariablesLocked() {
         // CALCULATE MINIMUM SUPPORT LEVELS REQUIRED
         if(masternodeListManager.getLock().isHeldByCurrentThread()) {
 
@@ -631,6 +649,15 @@ public class GovernanceObject extends Message implements Serializable {
     }
 
     public int countMatchingVotes(VoteSignal eVoteSignalIn, VoteOutcome eVoteOutcomeIn) {
+        lock.lock();
+        try {
+            return countMatchingVotesLocked(eVoteSignalIn, eVoteOutcomeIn);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int countMatchingVotesLocked(VoteSignal eVoteSignalIn, VoteOutcome eVoteOutcomeIn) {
         int nCount = 0;
         for (Map.Entry<TransactionOutPoint, VoteRecord> it : mapCurrentMNVotes.entrySet()) {
             final VoteRecord recVote = it.getValue();
@@ -664,6 +691,15 @@ public class GovernanceObject extends Message implements Serializable {
     }
 
     public Pair<Boolean, VoteRecord> getCurrentMNVotes(TransactionOutPoint mnCollateralOutpoint) {
+        lock.lock();
+        try {
+            return getCurrentMNVotesLocked(mnCollateralOutpoint);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Pair<Boolean, VoteRecord> getCurrentMNVotesLocked(TransactionOutPoint mnCollateralOutpoint) {
         Pair<Boolean, VoteRecord> result = new Pair<>(false, null); //default to failure
         VoteRecord it = mapCurrentMNVotes.get(mnCollateralOutpoint);
         if (it == null) {
@@ -679,6 +715,15 @@ public class GovernanceObject extends Message implements Serializable {
     }
 
     public boolean processVote(Peer pfrom, GovernanceVote vote, GovernanceException exception) {
+        lock.lock();
+        try {
+            return processVoteLocked(pfrom, vote, exception);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean processVoteLocked(Peer pfrom, GovernanceVote vote, GovernanceException exception) {
         if (masternodeSync.syncFlags.contains(MasternodeSync.SYNC_FLAGS.SYNC_MASTERNODE_LIST) &&
                 masternodeListManager.getListAtChainTip().getMNByCollateral(vote.getMasternodeOutpoint()) == null) {
             String message = "CGovernanceObject::ProcessVote -- Masternode index not found";
@@ -756,6 +801,7 @@ public class GovernanceObject extends Message implements Serializable {
             return false;
         }
         voteInstance = new VoteInstance(params, vote.getOutcome(), nVoteTimeUpdate, vote.getTimestamp());
+        recVote.mapInstances.put(eSignal.getValue(), voteInstance);
         if (!fileVotes.hasVote(vote.getHash())) {
             fileVotes.addVote(vote);
         }
@@ -763,6 +809,39 @@ public class GovernanceObject extends Message implements Serializable {
         return true;
     }
 
+    /**
+     * Adds a vote that was accepted by {@link #processVote(Peer, GovernanceVote, GovernanceException)} before the
+     * governance manager was last saved. The vote was validated then and is not checked again.
+     *
+     * @return true if the vote was not already known
+     */
+    boolean addVoteFromJournal(GovernanceVote vote) {
+        lock.lock();
+        try {
+            return addVoteFromJournalLocked(vote);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean addVoteFromJournalLocked(GovernanceVote vote) {
+        VoteRecord recVote = mapCurrentMNVotes.get(vote.getMasternodeOutpoint());
+        if (recVote == null) {
+            recVote = new VoteRecord(params);
+            mapCurrentMNVotes.put(vote.getMasternodeOutpoint(), recVote);
+        }
+        if (fileVotes.hasVote(vote.getHash()))
+            return false;
+        // the latest vote of the masternode for the signal counts, as in processVote
+        VoteInstance voteInstance = recVote.mapInstances.get(vote.getSignal().getValue());
+        if (voteInstance == null || voteInstance.nCreationTime <= vote.getTimestamp())
+            recVote.mapInstances.put(vote.getSignal().getValue(),
+                    new VoteInstance(params, vote.getOutcome(), vote.getTimestamp(), vote.getTimestamp()));
+        fileVotes.addVote(vote);
+        fDirtyCache = true;
+        return true;
+    }
+
     public JSONObject getJSONObject() {
         JSONTokener parser = new JSONTokener(getDataAsPlainString());
         JSONObject jsonObject = new JSONObject(parser);
@@ -770,6 +849,15 @@ public class GovernanceObject extends Message implements Serializable {
     }
 
     public void clearMasternodeVotes() {
+        lock.lock();
+        try {
+            clearMasternodeVotesLocked();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void clearMasternodeVotesLocked() {
         Iterator<Map.Entry<TransactionOutPoint, VoteRecord>> it = mapCurrentMNVotes.entrySet().iterator();
         while (it.hasNext()) {
             Map.Entry<TransactionOutPoint, VoteRecord> entry = it.next();
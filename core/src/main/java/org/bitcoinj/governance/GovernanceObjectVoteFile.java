@@ -45,7 +45,7 @@ public class GovernanceObjectVoteFile extends Message {
 	/**
 	 * Add a vote to the file
 	 */
-	public void addVote(GovernanceVote vote) {
+	public synchronized void addVote(GovernanceVote vote) {
 		listVotes.addFirst(vote);
 		mapVoteIndex.put(vote.getHash(), vote);
 		++nMemoryVotes;
@@ -56,7 +56,7 @@ public class GovernanceObjectVoteFile extends Message {
 	 */
 //C++ TO JAVA CONVERTER WARNING: 'const' methods are not available in Java:
 //ORIGINAL LINE: boolean HasVote(const Sha256Hash& nHash) const;
-	public boolean hasVote(Sha256Hash nHash) {
+	public synchronized boolean hasVote(Sha256Hash nHash) {
 		GovernanceVote it = mapVoteIndex.get(nHash);
 		if (it == null) {
 			return false;
@@ -67,7 +67,7 @@ public class GovernanceObjectVoteFile extends Message {
 	/**
 	 * Retrieve a vote cached in memory
 	 */
-	public GovernanceVote getVote(Sha256Hash nHash) {
+	public synchronized GovernanceVote getVote(Sha256Hash nHash) {
 		GovernanceVote it = mapVoteIndex.get(nHash);
 		if (it == null) {
 			return null;
@@ -75,11 +75,11 @@ public class GovernanceObjectVoteFile extends Message {
 		return it;  //TODO:  This may return a bad result or next will advance the iterator to something else.
 	}
 
-	public final int getVoteCount() {
+	public synchronized final int getVoteCount() {
 		return nMemoryVotes;
 	}
 
-	public ArrayList<GovernanceVote> getVotes() {
+	public synchronized ArrayList<GovernanceVote> getVotes() {
 		ArrayList<GovernanceVote> vecResult = new ArrayList<GovernanceVote>();
 		for (GovernanceVote vote : listVotes) {
 			vecResult.add(vote);
@@ -87,7 +87,7 @@ public class GovernanceObjectVoteFile extends Message {
 		return vecResult;
 	}
 
-	public void removeVotesFromMasternode(TransactionOutPoint outpointMasternode) {
+	public synchronized void removeVotesFromMasternode(TransactionOutPoint outpointMasternode) {
 		Iterator<GovernanceVote> it = listVotes.iterator();
 		while (it.hasNext()) {
 			GovernanceVote vote = it.next();
@@ -99,7 +99,7 @@ public class GovernanceObjectVoteFile extends Message {
 		}
 	}
 
-	public void rebuildIndex() {
+	public synchronized void rebuildIndex() {
 		mapVoteIndex.clear();
 		nMemoryVotes = 0;
 		ListIterator<GovernanceVote> it = listVotes.listIterator();
@@ -131,7 +131,7 @@ public class GovernanceObjectVoteFile extends Message {
 	}
 
 	@Override
-	protected void bitcoinSerializeToStream(OutputStream stream) throws IOException {
+	protected synchronized void bitcoinSerializeToStream(OutputStream stream) throws IOException {
 		Utils.uint32ToByteStreamLE(nMemoryVotes, stream);
 		stream.write(new VarInt(listVotes.size()).encode());
 		for(GovernanceVote vote: listVotes) {
@@ -334,8 +334,9 @@ public class GovernanceVote extends ChildMessage implements Serializable {
     protected void bitcoinSerializeToStream(OutputStream stream) throws IOException {
         masternodeOutpoint.bitcoinSerialize(stream);
         stream.write(nParentHash.getReversedBytes());
-        Utils.uint32ToByteStreamLE(nVoteSignal, stream);
+        // same order as parse and Dash Core, the outcome comes first
         Utils.uint32ToByteStreamLE(nVoteOutcome, stream);
+        Utils.uint32ToByteStreamLE(nVoteSignal, stream);
         Utils.int64ToByteStreamLE(nTime, stream);
         vchSig.bitcoinSerialize(stream);
     }
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.governance;
+
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.utils.LockStats;
+import org.bitcoinj.utils.Threading;
+import org.bitcoinj.utils.WeightedCache;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maps the hashes of accepted votes to the objects they were cast for. The index is split into shards by vote hash,
+ * each a {@link WeightedCache} with its own lock, so votes arriving from several peers do not wait for each other.
+ * The least recently used votes are dropped when the index goes over its memory budget.
+ */
+class GovernanceVoteIndex {
+    static final int SHARD_COUNT = 16;
+    // estimate of the memory taken by an entry: the vote hash and the map node, the object is kept alive elsewhere
+    static final int ENTRY_WEIGHT = 128;
+
+    private final WeightedCache<Sha256Hash, GovernanceObject>[] shards;
+    private final ReentrantLock[] locks;
+    private final LockStats lockStats = new LockStats("governance vote index");
+
+    @SuppressWarnings("unchecked")
+    GovernanceVoteIndex(long maxWeight) {
+        shards = new WeightedCache[SHARD_COUNT];
+        locks = new ReentrantLock[SHARD_COUNT];
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = WeightedCache.builder()
+                    .maximumWeight(Math.max(ENTRY_WEIGHT, maxWeight / SHARD_COUNT))
+                    .weigher((hash, govobj) -> ENTRY_WEIGHT)
+                    .build();
+            locks[i] = Threading.lock("GovernanceVoteIndex-" + i);
+        }
+    }
+
+    private static int shard(Sha256Hash voteHash) {
+        // the hash is uniformly distributed, its low bits are as good as any
+        return (voteHash.hashCode() & 0x7fffffff) % SHARD_COUNT;
+    }
+
+    void insert(Sha256Hash voteHash, GovernanceObject govobj) {
+        int shard = shard(voteHash);
+        lockStats.lock(locks[shard]);
+        try {
+            shards[shard].put(voteHash, govobj);
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    @Nullable
+    GovernanceObject get(Sha256Hash voteHash) {
+        int shard = shard(voteHash);
+        lockStats.lock(locks[shard]);
+        try {
+            return shards[shard].get(voteHash);
+        } finally {
+            locks[shard].unlock();
+        }
+    }
+
+    boolean contains(Sha256Hash voteHash) {
+        return get(voteHash) != null;
+    }
+
+    /** Removes the votes of an object that is being erased. */
+    void removeObject(GovernanceObject govobj) {
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            lockStats.lock(locks[i]);
+            try {
+                shards[i].removeIf((voteHash, value) -> value == govobj);
+            } finally {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    long size() {
+        long size = 0;
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            lockStats.lock(locks[i]);
+            try {
+                size += shards[i].size();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return size;
+    }
+
+    void clear() {
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            lockStats.lock(locks[i]);
+            try {
+                shards[i].clear();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+    }
+
+    /** Returns the total weight of the entries, an estimate of the memory they take. */
+    long getWeight() {
+        long weight = 0;
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            lockStats.lock(locks[i]);
+            try {
+                weight += shards[i].getWeight();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return weight;
+    }
+
+    /** Returns the number of votes that were dropped to stay within the memory budget. */
+    long getEvictionCount() {
+        long evictions = 0;
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            lockStats.lock(locks[i]);
+            try {
+                evictions += shards[i].getEvictionCount();
+            } finally {
+                locks[i].unlock();
+            }
+        }
+        return evictions;
+    }
+
+    LockStats getLockStats() {
+        return lockStats;
+    }
+}
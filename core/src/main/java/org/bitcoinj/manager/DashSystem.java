@@ -2,6 +2,7 @@ package org.bitcoinj.manager;
 
 import org.bitcoinj.coinjoin.utils.CoinJoinManager;
 import org.bitcoinj.core.AbstractBlockChain;
+import org.bitcoinj.core.AbstractManager;
 import org.bitcoinj.core.Coin;
 import org.bitcoinj.core.Context;
 import org.bitcoinj.core.DualBlockChain;
@@ -44,11 +45,16 @@ import java.io.File;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 
+import static com.google.common.base.Throwables.throwIfUnchecked;
+
 public class DashSystem {
     private static final Logger log = LoggerFactory.getLogger(DashSystem.class);
 
@@ -189,46 +195,43 @@ public class DashSystem {
                     log.info("removed obsolete mncache.dat");
             }
 
-            // load governance data
-            if (getSyncFlags().contains(MasternodeSync.SYNC_FLAGS.SYNC_GOVERNANCE)) {
-                FlatDB<GovernanceManager> gmdb;
-                if (filePrefix != null) {
-                    gmdb = new FlatDB<>(context, directory + File.separator + filePrefix + ".gobjects", true);
-                } else {
-                    gmdb = new FlatDB<>(context, directory, false);
+            // the files are independent, except that governance objects are checked against the masternode list
+            // and metadata once they are loaded, so the others are loaded at the same time
+            ExecutorService loader = Executors.newFixedThreadPool(3, new ContextPropagatingThreadFactory("file-loader"));
+            try {
+                // load masternode data
+                Future<?> masternodeList = loader.submit(() -> {
+                    FlatDB<SimplifiedMasternodeListManager> smnl = createFlatDB(directory, filePrefix, ".mnlist");
+                    smnl.load(masternodeListManager);
+                    masternodeListManager.setLoadedFromFile(true);
+                    masternodeListManager.onFirstSaveComplete();
+                });
+
+                // Load chainlocks
+                Future<?> chainLocks = loader.submit(() -> {
+                    FlatDB<ChainLocksHandler> clh = createFlatDB(directory, filePrefix, ".chainlocks");
+                    clh.load(chainLockHandler);
+                });
+
+                // Load Masternode Metadata
+                Future<?> metaData = loader.submit(() -> {
+                    FlatDB<MasternodeMetaDataManager> mmdm = createFlatDB(directory, filePrefix, ".mnmetadata");
+                    mmdm.load(masternodeMetaDataManager);
+                });
+
+                // load governance data
+                if (getSyncFlags().contains(MasternodeSync.SYNC_FLAGS.SYNC_GOVERNANCE)) {
+                    waitForLoad(masternodeList);
+                    waitForLoad(metaData);
+                    FlatDB<GovernanceManager> gmdb = createFlatDB(directory, filePrefix, ".gobjects");
+                    gmdb.load(governanceManager);
                 }
-                gmdb.load(governanceManager);
-            }
-
-            // load masternode data
-            FlatDB<SimplifiedMasternodeListManager> smnl;
-            if (filePrefix != null) {
-                smnl = new FlatDB<>(context, directory + File.separator + filePrefix + ".mnlist", true);
-            } else {
-                smnl = new FlatDB<>(context, directory, false);
-            }
-            smnl.load(masternodeListManager);
-            masternodeListManager.setLoadedFromFile(true);
-            masternodeListManager.onFirstSaveComplete();
-
-
-            // Load chainlocks
-            FlatDB<ChainLocksHandler> clh;
-            if (filePrefix != null) {
-                clh = new FlatDB<>(context, directory + File.separator + filePrefix + ".chainlocks", true);
-            } else {
-                clh = new FlatDB<>(context, directory, false);
+                waitForLoad(masternodeList);
+                waitForLoad(chainLocks);
+                waitForLoad(metaData);
+            } finally {
+                loader.shutdown();
             }
-            clh.load(chainLockHandler);
-
-            // Load Masternode Metadata
-            FlatDB<MasternodeMetaDataManager> mmdm;
-            if (filePrefix != null) {
-                mmdm = new FlatDB<>(context, directory + File.separator + filePrefix + ".mnmetadata", true);
-            } else {
-                mmdm = new FlatDB<>(context, directory, false);
-            }
-            mmdm.load(masternodeMetaDataManager);
 
             signingManager.initializeSignatureLog(directory);
             initializedFiles = true;
@@ -237,6 +240,26 @@ public class DashSystem {
         return false;
     }
 
+    private <T extends AbstractManager> FlatDB<T> createFlatDB(String directory, @Nullable String filePrefix,
+                                                               String extension) {
+        if (filePrefix != null)
+            return new FlatDB<>(context, directory + File.separator + filePrefix + extension, true);
+        else
+            return new FlatDB<>(context, directory, false);
+    }
+
+    private static void waitForLoad(Future<?> load) {
+        try {
+            load.get();
+        } catch (InterruptedException x) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(x);
+        } catch (ExecutionException x) {
+            throwIfUnchecked(x.getCause());
+            throw new RuntimeException(x.getCause());
+        }
+    }
+
     private void startLLMQThread() {
         if (llmqBackgroundThread == null || !llmqBackgroundThread.isAlive()) {
             llmqBackgroundThread = new LLMQBackgroundThread(context, instantSendManager, chainLockHandler, signingManager, masternodeListManager);
@@ -25,6 +25,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.File;
 import java.io.IOException;
 import java.util.concurrent.Callable;
@@ -43,10 +44,16 @@ import static com.google.common.base.Preconditions.checkNotNull;
 public class ManagerFiles {
     private static final Logger log = LoggerFactory.getLogger(ManagerFiles.class);
 
+    /** The smallest size in bytes of the journal for which a full snapshot is written, unless set otherwise. */
+    public static final long MIN_COMPACTION_THRESHOLD = 64 * 1024;
+
     private final AbstractManager manager;
     private final ScheduledThreadPoolExecutor executor;
     private final File file;
     private final AtomicBoolean savePending;
+    private final AtomicBoolean snapshotPending;
+    @Nullable private final ManagerJournal journal;
+    private volatile long compactionThreshold = -1;
     private final long delay;
     private final TimeUnit delayTimeUnit;
     private final Callable<Void> saver;
@@ -84,6 +91,8 @@ public class ManagerFiles {
         // File must only be accessed from the auto-save executor from now on, to avoid simultaneous access.
         this.file = checkNotNull(file);
         this.savePending = new AtomicBoolean();
+        this.snapshotPending = new AtomicBoolean();
+        this.journal = manager.isJournalEnabled() ? new ManagerJournal(ManagerJournal.forSnapshot(file)) : null;
         this.delay = delay;
         this.delayTimeUnit = checkNotNull(delayTimeUnit);
 
@@ -94,8 +103,10 @@ public class ManagerFiles {
                     // Some other scheduled request already beat us to it.
                     return null;
                 }
+                if (!snapshotPending.getAndSet(false) && flushJournal())
+                    return null;
                 log.info("Background saving manager");
-                saveNowInternal();
+                compact();
                 return null;
             }
         };
@@ -120,7 +131,26 @@ public class ManagerFiles {
         if (executor.isShutdown())
             return;
         log.info("Saving manager file: {}", file.getAbsolutePath());
+        compact();
+    }
+
+    /** Writes a full snapshot and, if the manager keeps a journal, starts a new journal on top of it. */
+    private void compact() throws IOException {
+        if (journal != null)
+            journal.beginCompaction();
         saveNowInternal();
+        if (journal != null)
+            journal.reset(file);
+    }
+
+    /**
+     * Writes the pending journal records. Returns false if a full snapshot should be written instead, because there
+     * is no journal, it does not belong to the current snapshot or it has grown past the compaction threshold.
+     */
+    private boolean flushJournal() throws IOException {
+        if (journal == null || journal.getSize() >= getCompactionThreshold())
+            return false;
+        return journal.flush(file);
     }
 
     private void saveNowInternal() throws IOException {
@@ -139,12 +169,46 @@ public class ManagerFiles {
 
     /** Queues up a save in the background. Useful for not very important manager changes. */
     public void saveLater() {
+        snapshotPending.set(true);
+        scheduleSave();
+    }
+
+    /**
+     * Adds a record to the journal of the manager and queues up writing it in the background. A full snapshot is
+     * written instead once the journal has grown past the compaction threshold.
+     */
+    public void appendToJournal(int type, byte[] data) {
+        checkNotNull(journal, "The manager does not keep a journal");
+        journal.append(type, data);
+        scheduleSave();
+    }
+
+    private void scheduleSave() {
         if (executor.isShutdown() || savePending.getAndSet(true))
             return;   // Already pending.
         executor.schedule(saver, delay, delayTimeUnit);
     }
 
-    /** Shut down auto-saving. */
+    /** Returns the journal of the manager, or null if it is saved only as full snapshots. */
+    @Nullable
+    public ManagerJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Returns the size in bytes the journal may grow to before a full snapshot is written. Unless set, this is the
+     * size of the snapshot, but at least {@link #MIN_COMPACTION_THRESHOLD}.
+     */
+    public long getCompactionThreshold() {
+        long threshold = compactionThreshold;
+        return threshold >= 0 ? threshold : Math.max(file.length(), MIN_COMPACTION_THRESHOLD);
+    }
+
+    public void setCompactionThreshold(long compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /** Shut down auto-saving. Journal records that were not written yet are written before returning. */
     public void shutdownAndWait() {
         executor.shutdown();
         try {
@@ -152,5 +216,13 @@ public class ManagerFiles {
         } catch (InterruptedException x) {
             throw new RuntimeException(x);
         }
+        if (journal != null && journal.hasPendingRecords()) {
+            try {
+                if (!journal.flush(file))
+                    compact();
+            } catch (IOException x) {
+                log.error("Failed to save the journal of the manager", x);
+            }
+        }
     }
 }
@@ -0,0 +1,287 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.manager;
+
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Utils;
+import org.bitcoinj.utils.Threading;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>An append only journal of the changes made to a manager since its last full snapshot was written by
+ * {@link org.bitcoinj.store.FlatDB}. Saving a record is much cheaper than rewriting the snapshot, so managers with
+ * large state and frequent small changes, such as governance votes, record the changes here and the snapshot is only
+ * rewritten when the journal has grown too large. Writing a snapshot is called compaction and starts a new journal.</p>
+ *
+ * <p>File format:</p>
+ * <pre>
+ *   4 bytes  "DJNL"
+ *   32 bytes the checksum at the end of the snapshot file that this journal extends
+ *   records, each of
+ *     4 bytes  length of the data
+ *     1 byte   record type
+ *     data
+ *     4 bytes  first bytes of the double SHA-256 of the type and data
+ * </pre>
+ *
+ * <p>A journal whose checksum does not match the snapshot belongs to an older snapshot and is ignored. This happens
+ * when the process died after a compaction renamed the new snapshot into place but before the journal was reset. As
+ * records written around a compaction can end up both in the snapshot and in the journal, applying a record must be
+ * idempotent. A record that was only partly written when the process died fails its checksum; it and anything after
+ * it are dropped.</p>
+ */
+public class ManagerJournal {
+    private static final Logger log = LoggerFactory.getLogger(ManagerJournal.class);
+
+    public static final String FILE_EXTENSION = ".journal";
+    private static final byte[] MAGIC = "DJNL".getBytes(StandardCharsets.US_ASCII);
+    private static final int HEADER_SIZE = MAGIC.length + 32;
+    private static final int MAX_RECORD_SIZE = 32 * 1024 * 1024;
+
+    /** Applies records to a manager when the journal is replayed. */
+    public interface RecordHandler {
+        void apply(int type, byte[] data) throws Exception;
+    }
+
+    private final File file;
+    private final ReentrantLock lock = Threading.lock("ManagerJournal");
+
+    // records that have not been written to the file yet
+    @GuardedBy("lock") private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    // the length of the valid part of the file, or -1 if the file has not been checked against the snapshot
+    @GuardedBy("lock") private long validLength = -1;
+
+    public ManagerJournal(File file) {
+        this.file = file;
+    }
+
+    /** Returns the journal file that goes with the given snapshot file. */
+    public static File forSnapshot(File snapshot) {
+        return new File(snapshot.getPath() + FILE_EXTENSION);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Returns the checksum that {@link org.bitcoinj.store.FlatDB} writes at the end of the snapshot file, or null if
+     * there is no snapshot.
+     */
+    @Nullable
+    public static byte[] readSnapshotChecksum(File snapshot) throws IOException {
+        if (!snapshot.exists() || snapshot.length() < 32)
+            return null;
+        try (RandomAccessFile raf = new RandomAccessFile(snapshot, "r")) {
+            byte[] checksum = new byte[32];
+            raf.seek(raf.length() - 32);
+            raf.readFully(checksum);
+            return checksum;
+        }
+    }
+
+    /** Adds a record. It is written to the file by the next {@link #flush(File)} or {@link #reset(File)}. */
+    public void append(int type, byte[] data) {
+        lock.lock();
+        try {
+            Utils.uint32ToByteStreamLE(data.length, pending);
+            pending.write(type);
+            pending.write(data);
+            pending.write(checksum(type, data, 0, data.length), 0, 4);
+        } catch (IOException x) {
+            throw new RuntimeException(x); // Cannot happen.
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns the size in bytes of the journal, including the records that have not been written yet. */
+    public long getSize() {
+        lock.lock();
+        try {
+            return Math.max(validLength, 0) + pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean hasPendingRecords() {
+        lock.lock();
+        try {
+            return pending.size() > 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Appends the pending records to the file. Returns false, without writing anything, if the file does not extend
+     * the given snapshot, in which case a compaction is needed.
+     */
+    public boolean flush(File snapshot) throws IOException {
+        lock.lock();
+        try {
+            if (validLength < 0) {
+                byte[] snapshotChecksum = readSnapshotChecksum(snapshot);
+                if (snapshotChecksum == null)
+                    return false;
+                long length = scan(snapshotChecksum, null);
+                if (length < 0)
+                    return false;
+                if (length < file.length()) {
+                    try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                        raf.setLength(length);
+                    }
+                }
+                validLength = length;
+            }
+            if (pending.size() == 0)
+                return true;
+            try (FileOutputStream stream = new FileOutputStream(file, true)) {
+                pending.writeTo(stream);
+                stream.getFD().sync();
+            }
+            validLength += pending.size();
+            pending = new ByteArrayOutputStream();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drops the pending records. Called just before a snapshot is written, as the snapshot will contain the changes
+     * they describe.
+     */
+    public void beginCompaction() {
+        lock.lock();
+        try {
+            pending = new ByteArrayOutputStream();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts a new journal for the snapshot that was just written, holding the records appended since
+     * {@link #beginCompaction()}.
+     */
+    public void reset(File snapshot) throws IOException {
+        lock.lock();
+        try {
+            byte[] snapshotChecksum = readSnapshotChecksum(snapshot);
+            if (snapshotChecksum == null)
+                throw new IOException("Missing snapshot " + snapshot);
+            File temp = File.createTempFile("journal", null, file.getAbsoluteFile().getParentFile());
+            try (FileOutputStream stream = new FileOutputStream(temp)) {
+                stream.write(MAGIC);
+                stream.write(snapshotChecksum);
+                pending.writeTo(stream);
+                stream.getFD().sync();
+            }
+            if (Utils.isWindows() && file.exists() && !file.delete())
+                throw new IOException("Failed to delete " + file);
+            if (!temp.renameTo(file))
+                throw new IOException("Failed to rename " + temp + " to " + file);
+            validLength = HEADER_SIZE + pending.size();
+            pending = new ByteArrayOutputStream();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies the records of the journal, in the order they were written, if the journal extends the given snapshot.
+     * Returns the number of records applied, or -1 if there is no journal for this snapshot.
+     */
+    public int replay(File snapshot, RecordHandler handler) throws IOException {
+        lock.lock();
+        try {
+            byte[] snapshotChecksum = readSnapshotChecksum(snapshot);
+            if (snapshotChecksum == null)
+                return -1;
+            int[] count = new int[1];
+            long length = scan(snapshotChecksum, (type, data) -> {
+                handler.apply(type, data);
+                count[0]++;
+            });
+            if (length < 0)
+                return -1;
+            return count[0];
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Reads the records of the file, passing them to the handler if there is one. Returns the length of the valid part
+     * of the file or -1 if the file is missing or belongs to another snapshot.
+     */
+    private long scan(byte[] snapshotChecksum, @Nullable RecordHandler handler) throws IOException {
+        if (!file.exists() || file.length() < HEADER_SIZE)
+            return -1;
+        byte[] bytes = Files.readAllBytes(file.toPath());
+        if (!Arrays.equals(MAGIC, Arrays.copyOfRange(bytes, 0, MAGIC.length))
+                || !Arrays.equals(snapshotChecksum, Arrays.copyOfRange(bytes, MAGIC.length, HEADER_SIZE))) {
+            log.info("ignoring journal {} that does not belong to the current snapshot", file);
+            return -1;
+        }
+        int cursor = HEADER_SIZE;
+        while (cursor + 9 <= bytes.length) {
+            long size = Utils.readUint32(bytes, cursor);
+            if (size > MAX_RECORD_SIZE || cursor + 9 + size > bytes.length)
+                break;
+            int type = bytes[cursor + 4] & 0xff;
+            int dataOffset = cursor + 5;
+            int end = dataOffset + (int) size;
+            byte[] expected = checksum(type, bytes, dataOffset, (int) size);
+            if (!Arrays.equals(Arrays.copyOf(expected, 4), Arrays.copyOfRange(bytes, end, end + 4)))
+                break;
+            if (handler != null) {
+                try {
+                    handler.apply(type, Arrays.copyOfRange(bytes, dataOffset, end));
+                } catch (Exception x) {
+                    log.warn("failed to apply journal record of type " + type, x);
+                }
+            }
+            cursor = end + 4;
+        }
+        if (cursor != bytes.length)
+            log.warn("dropping {} bytes of incomplete records at the end of {}", bytes.length - cursor, file);
+        return cursor;
+    }
+
+    private static byte[] checksum(int type, byte[] data, int offset, int length) {
+        byte[] input = new byte[length + 1];
+        input[0] = (byte) type;
+        System.arraycopy(data, offset, input, 1, length);
+        return Sha256Hash.hashTwice(input);
+    }
+}
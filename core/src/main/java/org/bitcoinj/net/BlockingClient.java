@@ -18,6 +18,7 @@ package org.bitcoinj.net;
 
 import com.google.common.util.concurrent.*;
 import org.bitcoinj.core.*;
+import org.bitcoinj.utils.Threading;
 import org.slf4j.*;
 
 import javax.annotation.*;
@@ -26,6 +27,8 @@ import java.io.*;
 import java.net.*;
 import java.nio.*;
 import java.util.*;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static com.google.common.base.Preconditions.*;
 
@@ -42,7 +45,15 @@ public class BlockingClient implements MessageWriteTarget {
     private static final int BUFFER_SIZE_LOWER_BOUND = 4096;
     private static final int BUFFER_SIZE_UPPER_BOUND = 65536;
 
+    // Creates the daemon platform threads the connections run on by default
+    static final ThreadFactory PLATFORM_THREADS = runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        return thread;
+    };
+
     private Socket socket;
+    private final ReentrantLock writeLock = Threading.lock("blockingClientWrite");
     private volatile boolean vCloseRequested = false;
     private SettableFuture<SocketAddress> connectFuture;
 
@@ -61,13 +72,23 @@ public class BlockingClient implements MessageWriteTarget {
     public BlockingClient(final SocketAddress serverAddress, final StreamConnection connection,
                           final int connectTimeoutMillis, final SocketFactory socketFactory,
                           @Nullable final Set<BlockingClient> clientSet) throws IOException {
+        this(serverAddress, connection, connectTimeoutMillis, socketFactory, clientSet, PLATFORM_THREADS);
+    }
+
+    /**
+     * Like {@link #BlockingClient(SocketAddress, StreamConnection, int, SocketFactory, Set)}, but the connection is
+     * opened and read on a thread created by the given factory, which may create virtual threads.
+     */
+    public BlockingClient(final SocketAddress serverAddress, final StreamConnection connection,
+                          final int connectTimeoutMillis, final SocketFactory socketFactory,
+                          @Nullable final Set<BlockingClient> clientSet, ThreadFactory threadFactory) throws IOException {
         connectFuture = SettableFuture.create();
         // Try to fit at least one message in the network buffer, but place an upper and lower limit on its size to make
         // sure it doesn't get too large or have to call read too often.
         connection.setWriteTarget(this);
         socket = socketFactory.createSocket();
         final Context context = Context.get();
-        Thread t = new Thread() {
+        Thread t = threadFactory.newThread(new Runnable() {
             @Override
             public void run() {
                 Context.propagate(context);
@@ -95,9 +116,8 @@ public class BlockingClient implements MessageWriteTarget {
                     connection.connectionClosed();
                 }
             }
-        };
+        });
         t.setName("BlockingClient network thread for " + serverAddress);
-        t.setDaemon(true);
         t.start();
     }
 
@@ -106,15 +126,15 @@ public class BlockingClient implements MessageWriteTarget {
      * and feeds them to the provided {@link StreamConnection}, for example, a {@link Peer}.
      */
     public static void runReadLoop(InputStream stream, StreamConnection connection) throws Exception {
-        ByteBuffer dbuf = ByteBuffer.allocateDirect(Math.min(Math.max(connection.getMaxMessageSize(), BUFFER_SIZE_LOWER_BOUND), BUFFER_SIZE_UPPER_BOUND));
-        byte[] readBuff = new byte[dbuf.capacity()];
+        // The stream reads straight into the array of the buffer
+        ByteBuffer dbuf = ByteBuffer.allocate(Math.min(Math.max(connection.getMaxMessageSize(), BUFFER_SIZE_LOWER_BOUND), BUFFER_SIZE_UPPER_BOUND));
+        byte[] readBuff = dbuf.array();
         while (true) {
-            // TODO Kill the message duplication here
-            checkState(dbuf.remaining() > 0 && dbuf.remaining() <= readBuff.length);
-            int read = stream.read(readBuff, 0, Math.max(1, Math.min(dbuf.remaining(), stream.available())));
+            checkState(dbuf.remaining() > 0);
+            int read = stream.read(readBuff, dbuf.position(), Math.max(1, Math.min(dbuf.remaining(), stream.available())));
             if (read == -1)
                 return;
-            dbuf.put(readBuff, 0, read);
+            dbuf.position(dbuf.position() + read);
             // "flip" the buffer - setting the limit to the current position and setting position to 0
             dbuf.flip();
             // Use connection.receiveBytes's return value as a double-check that it stopped reading at the right
@@ -143,7 +163,9 @@ public class BlockingClient implements MessageWriteTarget {
     }
 
     @Override
-    public synchronized ListenableFuture writeBytes(byte[] message) throws IOException {
+    public ListenableFuture writeBytes(byte[] message) throws IOException {
+        // A lock rather than synchronized, which would pin a virtual thread to its carrier while the socket blocks
+        writeLock.lock();
         try {
             OutputStream stream = socket.getOutputStream();
             stream.write(message);
@@ -153,6 +175,8 @@ public class BlockingClient implements MessageWriteTarget {
             log.error("Error writing message to connection, closing connection", e);
             closeConnection();
             throw e;
+        } finally {
+            writeLock.unlock();
         }
     }
 
@@ -26,6 +26,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
+import java.util.concurrent.ThreadFactory;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -38,12 +39,13 @@ import static com.google.common.base.Preconditions.checkNotNull;
  */
 public class BlockingClientManager extends AbstractIdleService implements ClientConnectionManager {
     private final SocketFactory socketFactory;
+    private final ThreadFactory threadFactory;
     private final Set<BlockingClient> clients = Collections.synchronizedSet(new HashSet<BlockingClient>());
 
     private int connectTimeoutMillis = 1000;
 
     public BlockingClientManager() {
-        socketFactory = SocketFactory.getDefault();
+        this(SocketFactory.getDefault());
     }
 
     /**
@@ -51,7 +53,13 @@ public class BlockingClientManager extends AbstractIdleService implements Client
      * bitcoinj connects to the P2P network.
      */
     public BlockingClientManager(SocketFactory socketFactory) {
+        this(socketFactory, BlockingClient.PLATFORM_THREADS);
+    }
+
+    /** Creates a blocking client manager whose connections run on threads created by the given factory. */
+    protected BlockingClientManager(SocketFactory socketFactory, ThreadFactory threadFactory) {
         this.socketFactory = checkNotNull(socketFactory);
+        this.threadFactory = checkNotNull(threadFactory);
     }
 
     @Override
@@ -59,7 +67,8 @@ public class BlockingClientManager extends AbstractIdleService implements Client
         try {
             if (!isRunning())
                 throw new IllegalStateException();
-            return new BlockingClient(serverAddress, connection, connectTimeoutMillis, socketFactory, clients).getConnectFuture();
+            return new BlockingClient(serverAddress, connection, connectTimeoutMillis, socketFactory, clients,
+                    threadFactory).getConnectFuture();
         } catch (IOException e) {
             throw new RuntimeException(e); // This should only happen if we are, eg, out of system resources
         }
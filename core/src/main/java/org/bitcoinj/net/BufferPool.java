@@ -0,0 +1,171 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.net;
+
+import com.google.common.base.MoreObjects;
+import org.bitcoinj.utils.Threading;
+
+import javax.annotation.concurrent.GuardedBy;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * <p>A pool of direct {@link ByteBuffer}s of one size, shared by the connections of the NIO layer so that their read
+ * buffers and the buffers messages are serialized into are reused instead of allocated for every connection and
+ * message. Direct buffers are written to and read from sockets without the copy the JDK makes of heap buffers.</p>
+ *
+ * <p>A buffer that is acquired should be released once it is no longer used; a buffer that is not released is left to
+ * the garbage collector like any other. At most a given number of idle buffers are kept.</p>
+ */
+public class BufferPool {
+    /** The pool of the read buffers of {@link ConnectionHandler}s, which are as large as the largest read buffer. */
+    public static final BufferPool READ_BUFFERS = new BufferPool(64 * 1024, 64);
+    /** The pool of the buffers messages are serialized into, see {@link PooledOutputStream}. */
+    public static final BufferPool WRITE_BUFFERS = new BufferPool(8 * 1024, 512);
+
+    private final int bufferSize;
+    private final int maxIdle;
+
+    private final ReentrantLock lock = Threading.lock("bufferPool");
+    @GuardedBy("lock") private final ArrayDeque<ByteBuffer> idle = new ArrayDeque<>();
+    @GuardedBy("lock") private long acquireCount;
+    @GuardedBy("lock") private long allocationCount;
+    @GuardedBy("lock") private long releaseCount;
+    @GuardedBy("lock") private long discardCount;
+
+    /**
+     * @param bufferSize the capacity of the buffers
+     * @param maxIdle how many released buffers are kept for reuse
+     */
+    public BufferPool(int bufferSize, int maxIdle) {
+        checkArgument(bufferSize > 0 && maxIdle >= 0);
+        this.bufferSize = bufferSize;
+        this.maxIdle = maxIdle;
+    }
+
+    /** Returns a cleared buffer of {@link #getBufferSize()} bytes, reusing an idle one if there is one. */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer;
+        lock.lock();
+        try {
+            acquireCount++;
+            buffer = idle.pollLast();
+            if (buffer == null)
+                allocationCount++;
+        } finally {
+            lock.unlock();
+        }
+        if (buffer == null)
+            return ByteBuffer.allocateDirect(bufferSize);
+        buffer.clear();
+        return buffer;
+    }
+
+    /** Returns a buffer that was acquired from this pool and is no longer used by anything. */
+    public void release(ByteBuffer buffer) {
+        checkArgument(buffer.isDirect() && buffer.capacity() == bufferSize, "Not a buffer of this pool");
+        lock.lock();
+        try {
+            releaseCount++;
+            if (idle.size() < maxIdle)
+                idle.addLast(buffer);
+            else
+                discardCount++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /** Returns how many buffers were acquired. */
+    public long getAcquireCount() {
+        lock.lock();
+        try {
+            return acquireCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns how many buffers were allocated because there was no idle one to reuse. */
+    public long getAllocationCount() {
+        lock.lock();
+        try {
+            return allocationCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns how many bytes of buffers were allocated. */
+    public long getAllocatedBytes() {
+        return getAllocationCount() * bufferSize;
+    }
+
+    /** Returns how many released buffers were dropped because enough buffers were idle already. */
+    public long getDiscardCount() {
+        lock.lock();
+        try {
+            return discardCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns how many buffers are waiting to be reused. */
+    public int getIdleCount() {
+        lock.lock();
+        try {
+            return idle.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns how many buffers were acquired and not released yet. */
+    public long getInUseCount() {
+        lock.lock();
+        try {
+            return acquireCount - releaseCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return MoreObjects.toStringHelper(this)
+                    .add("bufferSize", bufferSize)
+                    .add("acquired", acquireCount)
+                    .add("allocated", allocationCount)
+                    .add("inUse", acquireCount - releaseCount)
+                    .add("idle", idle.size())
+                    .add("discarded", discardCount)
+                    .toString();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
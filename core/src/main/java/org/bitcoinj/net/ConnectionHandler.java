@@ -30,7 +30,6 @@ import java.nio.ByteBuffer;
 import java.nio.channels.CancelledKeyException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.SocketChannel;
-import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Set;
@@ -44,6 +43,9 @@ import static com.google.common.base.Preconditions.checkState;
 /**
  * A simple NIO MessageWriteTarget which handles all the business logic of a connection (reading+writing bytes).
  * Used only by the NioClient and NioServer classes
+ *
+ * The read buffer is taken from {@link BufferPool#READ_BUFFERS} and outbound messages are queued in buffers of
+ * {@link BufferPool#WRITE_BUFFERS}, which are written to the socket with one gathering write and then released.
  */
 class ConnectionHandler implements MessageWriteTarget {
     private static final org.slf4j.Logger log = LoggerFactory.getLogger(ConnectionHandler.class);
@@ -52,11 +54,16 @@ class ConnectionHandler implements MessageWriteTarget {
     private static final int BUFFER_SIZE_UPPER_BOUND = 65536;
 
     private static final int OUTBOUND_BUFFER_BYTE_COUNT = Message.MAX_SIZE + 24; // 24 byte message header
+    // The most buffers handed to the socket in one gathering write
+    private static final int MAX_GATHERED_BUFFERS = 256;
 
     // We lock when touching local flags and when writing data, but NEVER when calling any methods which leave this
     // class into non-Java classes.
     private final ReentrantLock lock = Threading.lock("nioConnectionHandler");
     @GuardedBy("lock") private final ByteBuffer readBuff;
+    // The pooled buffer readBuff is a part of, released when the connection closes and nothing reads into it
+    @GuardedBy("lock") @Nullable private ByteBuffer pooledReadBuff;
+    @GuardedBy("lock") private boolean reading = false;
     @GuardedBy("lock") private final SocketChannel channel;
     @GuardedBy("lock") private final SelectionKey key;
     @GuardedBy("lock") StreamConnection connection;
@@ -66,12 +73,22 @@ class ConnectionHandler implements MessageWriteTarget {
     @GuardedBy("lock") private final LinkedList<BytesAndFuture> bytesToWrite = new LinkedList<>();
 
     private static class BytesAndFuture {
-        public final ByteBuffer bytes;
+        public final ByteBuffer[] bytes;
         public final SettableFuture future;
+        private final PooledOutputStream pooled;
 
-        public BytesAndFuture(ByteBuffer bytes, SettableFuture future) {
-            this.bytes = bytes;
+        public BytesAndFuture(PooledOutputStream pooled, SettableFuture future) {
+            this.bytes = pooled.getBuffers();
             this.future = future;
+            this.pooled = pooled;
+        }
+
+        public boolean hasRemaining() {
+            return bytes.length > 0 && bytes[bytes.length - 1].hasRemaining();
+        }
+
+        public void release() {
+            pooled.release();
         }
     }
 
@@ -91,7 +108,15 @@ class ConnectionHandler implements MessageWriteTarget {
             return;
         }
         this.connection = connection;
-        readBuff = ByteBuffer.allocateDirect(Math.min(Math.max(connection.getMaxMessageSize(), BUFFER_SIZE_LOWER_BOUND), BUFFER_SIZE_UPPER_BOUND));
+        int readBuffSize = Math.min(Math.max(connection.getMaxMessageSize(), BUFFER_SIZE_LOWER_BOUND), BUFFER_SIZE_UPPER_BOUND);
+        if (readBuffSize <= BufferPool.READ_BUFFERS.getBufferSize()) {
+            // receivers tell a full buffer by its limit being its capacity, so a smaller buffer is a slice of one
+            pooledReadBuff = BufferPool.READ_BUFFERS.acquire();
+            pooledReadBuff.limit(readBuffSize);
+            readBuff = pooledReadBuff.slice();
+        } else {
+            readBuff = ByteBuffer.allocateDirect(readBuffSize);
+        }
         connection.setWriteTarget(this); // May callback into us (eg closeConnection() now)
         connectedHandlers = null;
     }
@@ -124,17 +149,31 @@ class ConnectionHandler implements MessageWriteTarget {
     private void tryWriteBytes() throws IOException {
         lock.lock();
         try {
-            // Iterate through the outbound ByteBuff queue, pushing as much as possible into the OS' network buffer.
-            Iterator<BytesAndFuture> iterator = bytesToWrite.iterator();
-            while (iterator.hasNext()) {
-                BytesAndFuture bytesAndFuture = iterator.next();
-                bytesToWriteRemaining -= channel.write(bytesAndFuture.bytes);
-                if (!bytesAndFuture.bytes.hasRemaining()) {
-                    iterator.remove();
-                    bytesAndFuture.future.set(null);
-                } else {
-                    setWriteOps();
-                    break;
+            // Gather the buffers of the outbound queue, pushing as much as possible into the OS' network buffer with
+            // one write, and then complete the messages that were written entirely.
+            if (!bytesToWrite.isEmpty()) {
+                ByteBuffer[] buffers = new ByteBuffer[MAX_GATHERED_BUFFERS];
+                int count = 0;
+                for (BytesAndFuture bytesAndFuture : bytesToWrite) {
+                    for (ByteBuffer buffer : bytesAndFuture.bytes) {
+                        if (buffer.hasRemaining() && count < buffers.length)
+                            buffers[count++] = buffer;
+                    }
+                    if (count == buffers.length)
+                        break;
+                }
+                bytesToWriteRemaining -= channel.write(buffers, 0, count);
+                Iterator<BytesAndFuture> iterator = bytesToWrite.iterator();
+                while (iterator.hasNext()) {
+                    BytesAndFuture bytesAndFuture = iterator.next();
+                    if (!bytesAndFuture.hasRemaining()) {
+                        iterator.remove();
+                        bytesAndFuture.release();
+                        bytesAndFuture.future.set(null);
+                    } else {
+                        setWriteOps();
+                        break;
+                    }
                 }
             }
             // If we are done writing, clear the OP_WRITE interestOps
@@ -148,7 +187,16 @@ class ConnectionHandler implements MessageWriteTarget {
 
     @Override
     public ListenableFuture writeBytes(byte[] message) throws IOException {
+        // The caller may reuse the array, so the message is copied into pooled buffers
+        PooledOutputStream bytes = new PooledOutputStream(BufferPool.WRITE_BUFFERS);
+        bytes.write(message, 0, message.length);
+        return writeBuffers(bytes);
+    }
+
+    @Override
+    public ListenableFuture writeBuffers(PooledOutputStream message) throws IOException {
         boolean andUnlock = true;
+        boolean queued = false;
         lock.lock();
         try {
             // Network buffers are not unlimited (and are often smaller than some messages we may wish to send), and
@@ -156,24 +204,28 @@ class ConnectionHandler implements MessageWriteTarget {
             // append to it when we want to send a message. We then let tryWriteBytes() either send the message or
             // register our SelectionKey to wakeup when we have free outbound buffer space available.
 
-            if (bytesToWriteRemaining + message.length > OUTBOUND_BUFFER_BYTE_COUNT)
+            if (bytesToWriteRemaining + message.size() > OUTBOUND_BUFFER_BYTE_COUNT)
                 throw new IOException("Outbound buffer overflowed");
             // Just dump the message onto the write buffer and call tryWriteBytes
-            // TODO: Kill the needless message duplication when the write completes right away
             final SettableFuture<Object> future = SettableFuture.create();
-            bytesToWrite.offer(new BytesAndFuture(ByteBuffer.wrap(Arrays.copyOf(message, message.length)), future));
-            bytesToWriteRemaining += message.length;
+            bytesToWrite.offer(new BytesAndFuture(message, future));
+            queued = true;
+            bytesToWriteRemaining += message.size();
             setWriteOps();
             return future;
         } catch (IOException e) {
             lock.unlock();
             andUnlock = false;
+            if (!queued)
+                message.release();
             log.warn("Error writing message to connection, closing connection", e);
             closeConnection();
             throw e;
         } catch (CancelledKeyException e) {
             lock.unlock();
             andUnlock = false;
+            if (!queued)
+                message.release();
             log.warn("Error writing message to connection, closing connection", e);
             closeConnection();
             throw new IOException(e);
@@ -201,6 +253,13 @@ class ConnectionHandler implements MessageWriteTarget {
         try {
             callClosed = !closeCalled;
             closeCalled = true;
+            // Nothing more will be written, and the read buffer is released once the selector thread is done with it
+            for (BytesAndFuture bytesAndFuture : bytesToWrite)
+                bytesAndFuture.release();
+            bytesToWrite.clear();
+            bytesToWriteRemaining = 0;
+            if (!reading)
+                releaseReadBuff();
         } finally {
             lock.unlock();
         }
@@ -210,6 +269,38 @@ class ConnectionHandler implements MessageWriteTarget {
         }
     }
 
+    @GuardedBy("lock")
+    private void releaseReadBuff() {
+        if (pooledReadBuff != null) {
+            BufferPool.READ_BUFFERS.release(pooledReadBuff);
+            pooledReadBuff = null;
+        }
+    }
+
+    // Returns false if the connection is closed, so that the read buffer may have been released
+    private boolean beginRead() {
+        lock.lock();
+        try {
+            if (closeCalled)
+                return false;
+            reading = true;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void endRead() {
+        lock.lock();
+        try {
+            reading = false;
+            if (closeCalled)
+                releaseReadBuff();
+        } finally {
+            lock.unlock();
+        }
+    }
+
     // Handle a SelectionKey which was selected
     // Runs unlocked as the caller is single-threaded (or if not, should enforce that handleKey is only called
     // atomically for a given ConnectionHandler)
@@ -223,23 +314,29 @@ class ConnectionHandler implements MessageWriteTarget {
                 return;
             }
             if (key.isReadable()) {
-                // Do a socket read and invoke the connection's receiveBytes message
-                int read = handler.channel.read(handler.readBuff);
-                if (read == 0)
-                    return; // Was probably waiting on a write
-                else if (read == -1) { // Socket was closed
-                    key.cancel();
-                    handler.closeConnection();
+                if (!handler.beginRead())
                     return;
+                try {
+                    // Do a socket read and invoke the connection's receiveBytes message
+                    int read = handler.channel.read(handler.readBuff);
+                    if (read == 0)
+                        return; // Was probably waiting on a write
+                    else if (read == -1) { // Socket was closed
+                        key.cancel();
+                        handler.closeConnection();
+                        return;
+                    }
+                    // "flip" the buffer - setting the limit to the current position and setting position to 0
+                    handler.readBuff.flip();
+                    // Use connection.receiveBytes's return value as a check that it stopped reading at the right location
+                    int bytesConsumed = checkNotNull(handler.connection).receiveBytes(handler.readBuff);
+                    checkState(handler.readBuff.position() == bytesConsumed);
+                    // Now drop the bytes which were read by compacting readBuff (resetting limit and keeping relative
+                    // position)
+                    handler.readBuff.compact();
+                } finally {
+                    handler.endRead();
                 }
-                // "flip" the buffer - setting the limit to the current position and setting position to 0
-                handler.readBuff.flip();
-                // Use connection.receiveBytes's return value as a check that it stopped reading at the right location
-                int bytesConsumed = checkNotNull(handler.connection).receiveBytes(handler.readBuff);
-                checkState(handler.readBuff.position() == bytesConsumed);
-                // Now drop the bytes which were read by compacting readBuff (resetting limit and keeping relative
-                // position)
-                handler.readBuff.compact();
             }
             if (key.isWritable())
                 handler.tryWriteBytes();
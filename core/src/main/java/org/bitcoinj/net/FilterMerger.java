@@ -20,7 +20,9 @@ import org.bitcoinj.core.PeerFilterProvider;
 import com.google.common.collect.ImmutableList;
 import org.bitcoinj.core.PeerGroup;
 
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
+import java.util.List;
 
 // This code is unit tested by the PeerGroup tests.
 
@@ -35,14 +37,31 @@ import java.util.LinkedList;
  * not hold any locks whilst this object is used, relying on the single thread to prevent multiple filters being
  * calculated in parallel, thus a filter provider can do things like make blocking calls into PeerGroup from a separate
  * thread. However the bloomFilterFPRate property IS thread safe, for convenience.</p>
+ *
+ * <p>When the providers can list the elements they gained since the last filter, see
+ * {@link PeerFilterProvider#getBloomFilterElementsSince(long)}, they are inserted into a copy of the last filter
+ * instead of calculating a new one. A new filter is calculated when a provider can't list its changes, when the
+ * providers or the filter parameters change, and when the filter holds so many elements that its false positive rate
+ * goes over {@link #MAX_FP_RATE_INCREASE} times the configured rate.</p>
  */
 public class FilterMerger {
+    /** How much the false positive rate of a filter that is updated may grow before a new filter is calculated. */
+    public static final double MAX_FP_RATE_INCREASE = 2.0;
+
     // We use a constant tweak to avoid giving up privacy when we regenerate our filter with new keys
     private final long bloomFilterTweak = (long) (Math.random() * Long.MAX_VALUE);
 
     private volatile double vBloomFilterFPRate;
     private int lastBloomFilterElementCount;
     private BloomFilter lastFilter;
+    private double lastFPRate;
+    private BloomFilter.BloomUpdate lastBloomFlags;
+    // the tokens of the providers for the elements in the last filter
+    private final IdentityHashMap<PeerFilterProvider, Long> lastSequences = new IdentityHashMap<>();
+
+    private volatile long rebuildCount;
+    private volatile long incrementalCount;
+    private volatile long incrementalElementCount;
 
     public FilterMerger(double bloomFilterFPRate) {
         this.vBloomFilterFPRate = bloomFilterFPRate;
@@ -52,9 +71,19 @@ public class FilterMerger {
         public BloomFilter filter;
         public long earliestKeyTimeSecs;
         public boolean changed;
+        /** Whether the last filter was updated with the new elements of the providers, instead of recalculated. */
+        public boolean incremental;
     }
 
     public Result calculate(ImmutableList<PeerFilterProvider> providers) {
+        return calculate(providers, false);
+    }
+
+    /**
+     * Calculates the merged filter of the providers, from scratch if rebuild is true or the last filter can't be
+     * updated.
+     */
+    public Result calculate(ImmutableList<PeerFilterProvider> providers, boolean rebuild) {
         LinkedList<PeerFilterProvider> begunProviders = Lists.newLinkedList();
         try {
             // All providers must be in a consistent, unchanging state because the filter is a merged one that's
@@ -80,13 +109,29 @@ public class FilterMerger {
                 // as much as possible as that results in a loss of privacy.
                 // The constant 100 here is somewhat arbitrary, but makes sense for small to medium wallets -
                 // it will likely mean we never need to create a filter with different parameters.
-                lastBloomFilterElementCount = elements > lastBloomFilterElementCount ? elements + 100 : lastBloomFilterElementCount;
                 BloomFilter.BloomUpdate bloomFlags =
                         requiresUpdateAll ? BloomFilter.BloomUpdate.UPDATE_ALL : BloomFilter.BloomUpdate.UPDATE_P2PUBKEY_ONLY;
                 double fpRate = vBloomFilterFPRate;
-                BloomFilter filter = new BloomFilter(lastBloomFilterElementCount, fpRate, bloomFilterTweak, bloomFlags);
-                for (PeerFilterProvider p : providers)
-                    filter.merge(p.getBloomFilter(lastBloomFilterElementCount, fpRate, bloomFilterTweak));
+                BloomFilter filter = null;
+                if (!rebuild && canUpdate(providers, elements, fpRate, bloomFlags))
+                    filter = update(providers, bloomFlags);
+                if (filter == null) {
+                    // remember the elements of the providers before they are added to the filter, so that those added
+                    // in the meantime are not lost
+                    lastSequences.clear();
+                    for (PeerFilterProvider p : providers)
+                        lastSequences.put(p, p.getBloomFilterSequence());
+                    lastBloomFilterElementCount = elements > lastBloomFilterElementCount ? elements + 100 : lastBloomFilterElementCount;
+                    filter = new BloomFilter(lastBloomFilterElementCount, fpRate, bloomFilterTweak, bloomFlags);
+                    for (PeerFilterProvider p : providers)
+                        filter.merge(p.getBloomFilter(lastBloomFilterElementCount, fpRate, bloomFilterTweak));
+                    lastFPRate = fpRate;
+                    lastBloomFlags = bloomFlags;
+                    rebuildCount++;
+                } else {
+                    result.incremental = true;
+                    incrementalCount++;
+                }
 
                 result.changed = !filter.equals(lastFilter);
                 result.filter = lastFilter = filter;
@@ -103,6 +148,57 @@ public class FilterMerger {
         }
     }
 
+    private boolean canUpdate(List<PeerFilterProvider> providers, int elements, double fpRate,
+                              BloomFilter.BloomUpdate bloomFlags) {
+        if (lastFilter == null || fpRate != lastFPRate || bloomFlags != lastBloomFlags)
+            return false;
+        if (providers.size() != lastSequences.size())
+            return false;
+        for (PeerFilterProvider p : providers) {
+            if (!lastSequences.containsKey(p))
+                return false;
+        }
+        return lastFilter.getFalsePositiveRate(elements) <= fpRate * MAX_FP_RATE_INCREASE;
+    }
+
+    /** Returns a copy of the last filter with the new elements of the providers, or null if one can't list them. */
+    private BloomFilter update(List<PeerFilterProvider> providers, BloomFilter.BloomUpdate bloomFlags) {
+        IdentityHashMap<PeerFilterProvider, Long> sequences = new IdentityHashMap<>();
+        List<List<byte[]>> additions = Lists.newArrayListWithCapacity(providers.size());
+        for (PeerFilterProvider p : providers) {
+            long sequence = p.getBloomFilterSequence();
+            List<byte[]> added = p.getBloomFilterElementsSince(lastSequences.get(p));
+            if (added == null)
+                return null;
+            sequences.put(p, sequence);
+            additions.add(added);
+        }
+        BloomFilter filter = new BloomFilter(lastBloomFilterElementCount, lastFPRate, bloomFilterTweak, bloomFlags);
+        filter.merge(lastFilter);
+        for (List<byte[]> added : additions) {
+            for (byte[] element : added)
+                filter.insert(element);
+            incrementalElementCount += added.size();
+        }
+        lastSequences.putAll(sequences);
+        return filter;
+    }
+
+    /** Returns how many times the filter was calculated from scratch. */
+    public long getRebuildCount() {
+        return rebuildCount;
+    }
+
+    /** Returns how many times the last filter was updated with the new elements of the providers. */
+    public long getIncrementalCount() {
+        return incrementalCount;
+    }
+
+    /** Returns how many elements were inserted into updated filters. */
+    public long getIncrementalElementCount() {
+        return incrementalElementCount;
+    }
+
     public void setBloomFilterFPRate(double bloomFilterFPRate) {
         this.vBloomFilterFPRate = bloomFilterFPRate;
     }
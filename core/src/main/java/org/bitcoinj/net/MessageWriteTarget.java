@@ -29,6 +29,18 @@ public interface MessageWriteTarget {
      * have been written to the OS network buffer.
      */
     ListenableFuture writeBytes(byte[] message) throws IOException;
+    /**
+     * Writes the bytes in the buffers of the given stream to the remote server and releases the buffers, once they
+     * are written or if writing fails. The returned future will complete when all bytes have been written to the OS
+     * network buffer. By default the bytes are copied and written with {@link #writeBytes(byte[])}.
+     */
+    default ListenableFuture writeBuffers(PooledOutputStream bytes) throws IOException {
+        try {
+            return writeBytes(bytes.toByteArray());
+        } finally {
+            bytes.release();
+        }
+    }
     /**
      * Closes the connection to the server, triggering the {@link StreamConnection#connectionClosed()}
      * event on the network-handling thread where all callbacks occur.
@@ -123,4 +123,9 @@ public class NioClient implements MessageWriteTarget {
     public synchronized ListenableFuture writeBytes(byte[] message) throws IOException {
         return handler.writeTarget.writeBytes(message);
     }
+
+    @Override
+    public synchronized ListenableFuture writeBuffers(PooledOutputStream bytes) throws IOException {
+        return handler.writeTarget.writeBuffers(bytes);
+    }
 }
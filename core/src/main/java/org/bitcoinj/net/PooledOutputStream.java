@@ -0,0 +1,123 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.net;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * <p>An output stream that writes into buffers acquired from a {@link BufferPool}, so that a message can be serialized
+ * straight into the buffers a connection writes to its socket. The buffers are handed to a connection with
+ * {@link MessageWriteTarget#writeBuffers(PooledOutputStream)}, which releases them once they were written.</p>
+ *
+ * <p>Instances of this class are not safe for use by multiple threads.</p>
+ */
+public class PooledOutputStream extends OutputStream {
+    private final BufferPool pool;
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+    private ByteBuffer current;
+    private int size;
+    private boolean released;
+
+    public PooledOutputStream(BufferPool pool) {
+        this.pool = pool;
+    }
+
+    /** Creates a stream that writes into buffers of {@link BufferPool#WRITE_BUFFERS}. */
+    public PooledOutputStream() {
+        this(BufferPool.WRITE_BUFFERS);
+    }
+
+    private ByteBuffer buffer() {
+        checkState(!released, "Buffers were released");
+        if (current == null || !current.hasRemaining()) {
+            current = pool.acquire();
+            buffers.add(current);
+        }
+        return current;
+    }
+
+    @Override
+    public void write(int b) {
+        buffer().put((byte) b);
+        size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        while (len > 0) {
+            ByteBuffer buffer = buffer();
+            int n = Math.min(len, buffer.remaining());
+            buffer.put(b, off, n);
+            off += n;
+            len -= n;
+            size += n;
+        }
+    }
+
+    /** Returns the number of bytes written. */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the written bytes as buffers to be read from. The buffers still belong to this stream, and are returned
+     * to the pool by {@link #release()}.
+     */
+    public ByteBuffer[] getBuffers() {
+        checkState(!released, "Buffers were released");
+        ByteBuffer[] result = new ByteBuffer[buffers.size()];
+        for (int i = 0; i < result.length; i++) {
+            ByteBuffer buffer = buffers.get(i).duplicate();
+            buffer.flip();
+            result[i] = buffer;
+        }
+        return result;
+    }
+
+    /** Returns a copy of the written bytes. */
+    public byte[] toByteArray() {
+        byte[] bytes = new byte[size];
+        int offset = 0;
+        for (ByteBuffer buffer : getBuffers()) {
+            int n = buffer.remaining();
+            buffer.get(bytes, offset, n);
+            offset += n;
+        }
+        return bytes;
+    }
+
+    /** Returns the buffers to the pool. Nothing may be written to or read from the stream afterwards. */
+    public void release() {
+        if (released)
+            return;
+        released = true;
+        for (ByteBuffer buffer : buffers)
+            pool.release(buffer);
+        buffers.clear();
+        current = null;
+    }
+
+    @Override
+    public void close() {
+        // the buffers are released by whoever writes them
+    }
+}
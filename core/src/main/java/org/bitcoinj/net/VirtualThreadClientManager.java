@@ -0,0 +1,85 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.net;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.net.SocketFactory;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * <p>A {@link BlockingClientManager} whose connections are read on virtual threads, so that a blocking connection
+ * costs a small heap allocated stack rather than a platform thread. Like a {@link BlockingClient}, each connection
+ * may use a custom {@link SocketFactory}, for example to connect over a proxy.</p>
+ *
+ * <p>Virtual threads need Java 21 or later. On older runtimes, and on runtimes where they are a preview feature that
+ * is not enabled, the connections run on daemon platform threads like those of a BlockingClientManager; see
+ * {@link #isUsingVirtualThreads()}.</p>
+ */
+public class VirtualThreadClientManager extends BlockingClientManager {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadClientManager.class);
+
+    @Nullable private static final ThreadFactory VIRTUAL_THREADS = createVirtualThreadFactory();
+
+    private final boolean usingVirtualThreads;
+
+    public VirtualThreadClientManager() {
+        this(SocketFactory.getDefault());
+    }
+
+    /**
+     * Creates a client manager that will obtain sockets from the given factory. Useful for customising how bitcoinj
+     * connects to the P2P network.
+     */
+    public VirtualThreadClientManager(SocketFactory socketFactory) {
+        super(socketFactory, VIRTUAL_THREADS != null ? VIRTUAL_THREADS : BlockingClient.PLATFORM_THREADS);
+        this.usingVirtualThreads = VIRTUAL_THREADS != null;
+        if (!usingVirtualThreads)
+            log.info("Virtual threads are not available, connections will use platform threads");
+    }
+
+    /** Returns true if the connections are read on virtual threads, or false if they fell back to platform threads. */
+    public boolean isUsingVirtualThreads() {
+        return usingVirtualThreads;
+    }
+
+    /** Returns true if the runtime can create virtual threads. */
+    public static boolean isVirtualThreadSupported() {
+        return VIRTUAL_THREADS != null;
+    }
+
+    // Calls Thread.ofVirtual().factory(), which we can't link against while we build for Java 8
+    @Nullable
+    private static ThreadFactory createVirtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            ThreadFactory factory = (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                    .getMethod("factory").invoke(builder);
+            // a preview runtime fails here rather than above if preview features are not enabled
+            factory.newThread(() -> { });
+            return factory;
+        } catch (NoSuchMethodException | ClassNotFoundException | IllegalAccessException x) {
+            return null;
+        } catch (InvocationTargetException | UnsupportedOperationException x) {
+            log.info("Virtual threads are not enabled: {}", x.getCause() != null ? x.getCause() : x);
+            return null;
+        }
+    }
+}
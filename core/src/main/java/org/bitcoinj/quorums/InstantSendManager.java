@@ -35,6 +35,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
@@ -57,8 +58,12 @@ public class InstantSendManager implements RecoveredSignatureListener {
     private final boolean runWithoutThread;
     private ScheduledExecutorService scheduledExecutorService;
     private AbstractBlockChain blockChain;
+    // optional pool on which islock signatures are batch verified in parallel, see setVerificationPool
+    @Nullable private volatile ForkJoinPool verificationPool;
     private final CopyOnWriteArrayList<Wallet> wallets = new CopyOnWriteArrayList<>();
 
+    static final int VERIFY_SUB_BATCH_SIZE = 8;
+
     //Keep track of when the ISLOCK arrived
     HashMap<InstantSendLock, Long> invalidInstantSendLocks;
 
@@ -115,6 +120,17 @@ public class InstantSendManager implements RecoveredSignatureListener {
         setBlockChain(blockChain, peerGroup, chainLocksHandler, masternodeSync, sporkManager, masternodeListManager);
     }
 
+    /**
+     * Sets the pool used to verify islock signatures.  With a pool, each batch of pending islocks is split
+     * into sub-batches of {@link #VERIFY_SUB_BATCH_SIZE} which are verified in parallel, rather than
+     * being verified one sub-batch at a time on the calling thread.  The caller owns the pool.
+     *
+     * @param verificationPool the pool to use or null to verify on the calling thread
+     */
+    public void setVerificationPool(@Nullable ForkJoinPool verificationPool) {
+        this.verificationPool = verificationPool;
+    }
+
     private ScheduledExecutorService createScheduledExecutorService() {
         return Executors.newScheduledThreadPool(2, new ContextPropagatingThreadFactory("instantsend"));
     }
@@ -577,7 +593,15 @@ public class InstantSendManager implements RecoveredSignatureListener {
         tipHeight = blockChain.getBestChainHeight();
         HashSet<Sha256Hash> badISLocks = new HashSet<>(pend.size());
 
-        BLSBatchVerifier<Long, Sha256Hash> batchVerifier = new BLSBatchVerifier<>(false, true, 8);
+        BLSBatchVerifier<Long, Sha256Hash> batchVerifier;
+        ForkJoinPool pool = verificationPool;
+        if (pool != null) {
+            // collect every islock and verify the sub-batches in parallel in one verify() call
+            batchVerifier = new BLSBatchVerifier<>(false, true);
+            batchVerifier.setParallelVerification(pool, VERIFY_SUB_BATCH_SIZE);
+        } else {
+            batchVerifier = new BLSBatchVerifier<>(false, true, VERIFY_SUB_BATCH_SIZE);
+        }
         HashMap<Sha256Hash, Pair<Quorum, RecoveredSignature>> recSigs = new HashMap<>();
 
         int verifyCount = 0;
@@ -21,6 +21,8 @@ package org.bitcoinj.signers;
 import org.bitcoinj.coinjoin.utils.CoinJoinManager;
 import org.bitcoinj.core.Context;
 import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.SigHashCache;
 import org.bitcoinj.core.Transaction;
 import org.bitcoinj.core.TransactionInput;
 import org.bitcoinj.core.TransactionOutput;
@@ -76,6 +78,7 @@ public class CoinJoinTransactionSigner implements TransactionSigner {
     public boolean signInputs(ProposedTransaction propTx, KeyBag keyBag) {
         Transaction tx = propTx.partialTx;
         int numInputs = tx.getInputs().size();
+        SigHashCache sigHashCache = new SigHashCache(tx);
         for (int i = 0; i < numInputs; i++) {
             TransactionInput txIn = tx.getInput(i);
             final TransactionOutput connectedOutput = txIn.getConnectedOutput();
@@ -125,7 +128,8 @@ public class CoinJoinTransactionSigner implements TransactionSigner {
                     if (key.isEncrypted()) {
                         key = coinJoinManager.requestDecryptKey(key);
                     }
-                    TransactionSignature signature = tx.calculateSignature(i, key, script, Transaction.SigHash.ALL, anyoneCanPay);
+                    Sha256Hash hash = sigHashCache.hashForSignature(i, script, Transaction.SigHash.ALL, anyoneCanPay);
+                    TransactionSignature signature = new TransactionSignature(key.sign(hash), Transaction.SigHash.ALL, anyoneCanPay);
 
                     // at this point we have incomplete inputScript with OP_0 in place of one or more signatures. We
                     // already have calculated the signature using the local key and now need to insert it in the
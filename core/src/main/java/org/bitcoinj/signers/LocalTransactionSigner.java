@@ -17,11 +17,19 @@
 
 package org.bitcoinj.signers;
 
+import java.util.ArrayList;
 import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import javax.annotation.Nullable;
 
 import org.bitcoinj.core.Coin;
 import org.bitcoinj.core.ECKey;
 import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.SigHashCache;
 import org.bitcoinj.core.Transaction;
 import org.bitcoinj.core.TransactionInput;
 import org.bitcoinj.core.TransactionOutput;
@@ -47,7 +55,9 @@ import org.slf4j.LoggerFactory;
  * {@link TransactionSigner.ProposedTransaction} object that will be also passed then to the next signer in chain. This allows other
  * signers to use correct signing key for P2SH inputs, because all the keys involved in a single P2SH address have
  * the same derivation path.</p>
- * <p>This signer always uses {@link Transaction.SigHash#ALL} signing mode.</p>
+ * <p>This signer always uses {@link Transaction.SigHash#ALL} signing mode. The signature hashes are calculated with a
+ * {@link SigHashCache}, and the inputs of transactions with many inputs, like CoinJoin denomination and consolidation
+ * transactions, are signed in parallel.</p>
  */
 public class LocalTransactionSigner implements TransactionSigner {
     private static final Logger log = LoggerFactory.getLogger(LocalTransactionSigner.class);
@@ -59,6 +69,26 @@ public class LocalTransactionSigner implements TransactionSigner {
     private static final EnumSet<VerifyFlag> MINIMUM_VERIFY_FLAGS = EnumSet.of(VerifyFlag.P2SH,
         VerifyFlag.NULLDUMMY);
 
+    // transactions with fewer inputs to sign are signed on the calling thread
+    private static final int PARALLEL_SIGNING_THRESHOLD = 16;
+    private static final int SIGNING_TASK_SIZE = 8;
+
+    @Nullable private final ForkJoinPool signingPool;
+
+    /** Creates a signer that signs the inputs of large transactions on the common fork join pool. */
+    public LocalTransactionSigner() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates a signer that signs the inputs of large transactions on the given pool.
+     *
+     * @param signingPool the pool the signatures are calculated on, or null to calculate them on the calling thread
+     */
+    public LocalTransactionSigner(@Nullable ForkJoinPool signingPool) {
+        this.signingPool = signingPool;
+    }
+
     @Override
     public boolean isReady() {
         return true;
@@ -68,6 +98,7 @@ public class LocalTransactionSigner implements TransactionSigner {
     public boolean signInputs(ProposedTransaction propTx, KeyBag keyBag) {
         Transaction tx = propTx.partialTx;
         int numInputs = tx.getInputs().size();
+        List<InputSigning> signings = new ArrayList<>();
         for (int i = 0; i < numInputs; i++) {
             TransactionInput txIn = tx.getInput(i);
             final TransactionOutput connectedOutput = txIn.getConnectedOutput();
@@ -107,38 +138,98 @@ public class LocalTransactionSigner implements TransactionSigner {
                 continue;
             }
 
-            Script inputScript = txIn.getScriptSig();
             // script here would be either a standard CHECKSIG program for P2PKH or P2PK inputs or
             // a CHECKMULTISIG program for P2SH inputs
             byte[] script = redeemData.redeemScript.getProgram();
+            if (ScriptPattern.isP2PK(scriptPubKey) || ScriptPattern.isP2PKH(scriptPubKey)
+                    || ScriptPattern.isP2SH(scriptPubKey)) {
+                signings.add(new InputSigning(i, key, script));
+            } else {
+                throw new IllegalStateException(script.toString());
+            }
+        }
+
+        if (signings.isEmpty())
+            return true;
+
+        // The signature hashes are calculated from one serialization of the transaction, and the signatures of large
+        // transactions are calculated in parallel. The input scripts are only changed afterwards.
+        SigHashCache sigHashCache = new SigHashCache(tx);
+        if (signingPool != null && signings.size() >= PARALLEL_SIGNING_THRESHOLD) {
+            List<SigningTask> tasks = new ArrayList<>();
+            for (int start = 0; start < signings.size(); start += SIGNING_TASK_SIZE)
+                tasks.add(new SigningTask(sigHashCache, signings.subList(start,
+                        Math.min(start + SIGNING_TASK_SIZE, signings.size()))));
+            for (SigningTask task : tasks)
+                signingPool.execute(task);
+            for (SigningTask task : tasks)
+                task.join();
+        } else {
+            for (InputSigning signing : signings)
+                signing.sign(sigHashCache);
+        }
+
+        for (InputSigning signing : signings) {
+            if (signing.signature == null) {
+                log.warn("No private key in keypair for input {}", signing.index);
+                continue;
+            }
+            TransactionInput txIn = tx.getInput(signing.index);
+            Script scriptPubKey = txIn.getConnectedOutput().getScriptPubKey();
+            // at this point we have incomplete inputScript with OP_0 in place of one or more signatures. We
+            // already have calculated the signature using the local key and now need to insert it in the
+            // correct place within inputScript. For P2PKH and P2PK script there is only one signature and it
+            // always goes first in an inputScript (sigIndex = 0). In P2SH input scripts we need to figure out
+            // our relative position relative to other signers. Since we don't have that information at this
+            // point, and since we always run first, we have to depend on the other signers rearranging the
+            // signatures as needed. Therefore, always place as first signature.
+            int sigIndex = 0;
+            Script inputScript = scriptPubKey.getScriptSigWithSignature(txIn.getScriptSig(),
+                    signing.signature.encodeToBitcoin(), sigIndex);
+            txIn.setScriptSig(inputScript);
+        }
+        return true;
+    }
+
+    /** The signing of one input, which may run on any thread. */
+    private static class InputSigning {
+        final int index;
+        final ECKey key;
+        final byte[] script;
+        // null if the key has no private key
+        @Nullable TransactionSignature signature;
+
+        InputSigning(int index, ECKey key, byte[] script) {
+            this.index = index;
+            this.key = key;
+            this.script = script;
+        }
+
+        void sign(SigHashCache sigHashCache) {
+            Sha256Hash hash = sigHashCache.hashForSignature(index, script, Transaction.SigHash.ALL, false);
             try {
-                if (ScriptPattern.isP2PK(scriptPubKey) || ScriptPattern.isP2PKH(scriptPubKey)
-                        || ScriptPattern.isP2SH(scriptPubKey)) {
-                    TransactionSignature signature = tx.calculateSignature(i, key, script, Transaction.SigHash.ALL,
-                            false);
-
-                    // at this point we have incomplete inputScript with OP_0 in place of one or more signatures. We
-                    // already have calculated the signature using the local key and now need to insert it in the
-                    // correct place within inputScript. For P2PKH and P2PK script there is only one signature and it
-                    // always goes first in an inputScript (sigIndex = 0). In P2SH input scripts we need to figure out
-                    // our relative position relative to other signers. Since we don't have that information at this
-                    // point, and since we always run first, we have to depend on the other signers rearranging the
-                    // signatures as needed. Therefore, always place as first signature.
-                    int sigIndex = 0;
-                    inputScript = scriptPubKey.getScriptSigWithSignature(inputScript, signature.encodeToBitcoin(),
-                            sigIndex);
-                    txIn.setScriptSig(inputScript);
-                } else {
-                    throw new IllegalStateException(script.toString());
-                }
+                signature = new TransactionSignature(key.sign(hash), Transaction.SigHash.ALL, false);
             } catch (ECKey.KeyIsEncryptedException e) {
                 throw e;
             } catch (ECKey.MissingPrivateKeyException e) {
-                log.warn("No private key in keypair for input {}", i);
+                signature = null;
             }
-
         }
-        return true;
     }
 
+    private static class SigningTask extends RecursiveAction {
+        private final SigHashCache sigHashCache;
+        private final List<InputSigning> signings;
+
+        SigningTask(SigHashCache sigHashCache, List<InputSigning> signings) {
+            this.sigHashCache = sigHashCache;
+            this.signings = signings;
+        }
+
+        @Override
+        protected void compute() {
+            for (InputSigning signing : signings)
+                signing.sign(sigHashCache);
+        }
+    }
 }
@@ -0,0 +1,213 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.store;
+
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.StoredBlock;
+import org.bitcoinj.utils.Threading;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>Finds the ancestors of blocks in O(log n) steps, like the skip pointers (pskip) of Dash Core's block index. Each
+ * block that is indexed remembers the hash of its parent and of one older ancestor, the skip block, whose height is
+ * chosen so that any ancestor can be reached by following a logarithmic number of skip and parent links. The walk
+ * happens in memory and only the ancestor that is found is read from the block store.</p>
+ *
+ * <p>Block stores add the blocks they are given to their index, see {@link BlockStore#getAncestor(StoredBlock, int)}.
+ * Only the most recently added blocks are kept, which covers the lookups of quorums and chain locks near the tip.
+ * When a walk leaves the index, because the blocks are older or were stored before the store was opened, it carries
+ * on through the block store one block at a time and indexes the blocks on its way, so that the next lookup is
+ * fast.</p>
+ */
+public class AncestorIndex {
+    /** About 4 MB of heap, well over the depth of quorum rotation lookups. */
+    public static final int DEFAULT_CAPACITY = 20000;
+
+    private static class Node {
+        final Sha256Hash prev;
+        @Nullable Sha256Hash skip;
+
+        Node(Sha256Hash prev) {
+            this.prev = prev;
+        }
+    }
+
+    private final ReentrantLock lock = Threading.lock("AncestorIndex");
+    @GuardedBy("lock") private final LinkedHashMap<Sha256Hash, Node> nodes;
+
+    public AncestorIndex() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public AncestorIndex(final int capacity) {
+        nodes = new LinkedHashMap<Sha256Hash, Node>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Sha256Hash, Node> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /** Turns off the lowest set bit of n. */
+    private static int invertLowestOne(int n) {
+        return n & (n - 1);
+    }
+
+    /** Returns the height of the skip block of a block at the given height, as in Dash Core. */
+    static int getSkipHeight(int height) {
+        if (height < 2)
+            return 0;
+        // Determine which height to jump back to. Any number strictly lower than height is acceptable,
+        // but the following expression seems to perform well in simulations (max 110 steps to go back
+        // up to 2**18 blocks).
+        return (height & 1) != 0 ? invertLowestOne(invertLowestOne(height - 1)) + 1 : invertLowestOne(height);
+    }
+
+    /** Adds a block to the index. Its skip block is linked if it is in the index already. */
+    public void add(StoredBlock block) {
+        lock.lock();
+        try {
+            addLocked(block);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @GuardedBy("lock")
+    private void addLocked(StoredBlock block) {
+        Sha256Hash hash = block.getHeader().getHash();
+        Node node = nodes.get(hash);
+        if (node == null) {
+            node = new Node(block.getHeader().getPrevBlockHash());
+            nodes.put(hash, node);
+        }
+        if (node.skip == null && block.getHeight() > 0) {
+            int skipHeight = getSkipHeight(block.getHeight());
+            Walk walk = walk(node.prev, block.getHeight() - 1, skipHeight);
+            if (walk.height == skipHeight)
+                node.skip = walk.hash;
+        }
+    }
+
+    /** Where a walk through the index ended. */
+    private static class Walk {
+        final Sha256Hash hash;
+        final int height;
+
+        Walk(Sha256Hash hash, int height) {
+            this.hash = hash;
+            this.height = height;
+        }
+    }
+
+    /**
+     * Walks from the block with the given hash and height towards the ancestor at the given height. The walk ends at
+     * the ancestor, or above it at the first block that is not in the index.
+     */
+    @GuardedBy("lock")
+    private Walk walk(Sha256Hash hash, int heightWalk, int height) {
+        while (heightWalk > height) {
+            Node node = nodes.get(hash);
+            if (node == null)
+                break;
+            int heightSkip = getSkipHeight(heightWalk);
+            int heightSkipPrev = getSkipHeight(heightWalk - 1);
+            if (node.skip != null && (heightSkip == height || (heightSkip > height
+                    && !(heightSkipPrev < heightSkip - 2 && heightSkipPrev >= height)))) {
+                // Only follow the skip link if the skip link of the parent isn't better than the parent of the
+                // skip block.
+                hash = node.skip;
+                heightWalk = heightSkip;
+            } else {
+                hash = node.prev;
+                heightWalk--;
+            }
+        }
+        return new Walk(hash, heightWalk);
+    }
+
+    /**
+     * Returns the ancestor at the given height of the given block, the block itself if it is at that height, or null
+     * if the height is above the block or the ancestor is not in the store.
+     */
+    @Nullable
+    public StoredBlock getAncestor(BlockStore store, StoredBlock block, int height) throws BlockStoreException {
+        if (height > block.getHeight() || height < 0)
+            return null;
+        if (height == block.getHeight())
+            return block;
+        Walk walk;
+        lock.lock();
+        try {
+            addLocked(block);
+            walk = walk(block.getHeader().getHash(), block.getHeight(), height);
+        } finally {
+            lock.unlock();
+        }
+        StoredBlock cursor = store.get(walk.hash);
+        if (cursor != null && walk.height == height)
+            return cursor;
+
+        // the walk left the index, carry on through the store from where it ended; if the store does not have that
+        // block any more start again from the given block
+        if (cursor == null || cursor.getHeight() != walk.height)
+            cursor = block;
+        List<StoredBlock> visited = new ArrayList<>();
+        while (cursor != null && cursor.getHeight() > height) {
+            visited.add(cursor);
+            cursor = cursor.getPrev(store);
+        }
+        if (cursor != null) {
+            lock.lock();
+            try {
+                // oldest first, so that the skip blocks are in the index when they are needed
+                addLocked(cursor);
+                for (int i = visited.size() - 1; i >= 0; i--)
+                    addLocked(visited.get(i));
+            } finally {
+                lock.unlock();
+            }
+        }
+        return cursor;
+    }
+
+    /** Returns the number of blocks in the index. */
+    public int size() {
+        lock.lock();
+        try {
+            return nodes.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            nodes.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
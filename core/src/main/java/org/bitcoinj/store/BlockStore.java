@@ -77,4 +77,16 @@ public interface BlockStore {
      * If no such block is found, returns null.
      */
     StoredBlock getChainHeadFromHash(Sha256Hash hash) throws BlockStoreException;
+
+    /**
+     * Returns the ancestor of the given block at the given height, the block itself if it is at that height, or null
+     * if there is no such block in the store. The default implementation walks back one block at a time, stores that
+     * keep an {@link AncestorIndex} find the ancestor in a logarithmic number of steps.
+     */
+    default StoredBlock getAncestor(StoredBlock block, int height) throws BlockStoreException {
+        StoredBlock cursor = block;
+        while (cursor != null && height < cursor.getHeight())
+            cursor = cursor.getPrev(this);
+        return cursor != null && cursor.getHeight() == height ? cursor : null;
+    }
 }
@@ -5,12 +5,15 @@ import org.bitcoinj.core.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
 import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
@@ -214,19 +217,15 @@ public class FlatDB<Type extends AbstractManager> {
 
             byte [] hashIn = new byte[32];
             byte [] vchData = new byte[(int)dataSize];
-            
-            int bufferSize = calculateOptimalBufferSize(fileSize);
-
-            try (FileInputStream fileStream = new FileInputStream(file);
-                 BufferedInputStream bufferedStream = new BufferedInputStream(fileStream, bufferSize)) {
-                bufferedStream.read(vchData);
-                bufferedStream.read(hashIn);
+            Sha256Hash hashTmp;
+            try {
+                hashTmp = readAndHash(file, vchData, hashIn, calculateOptimalBufferSize(fileSize));
             } catch (IOException x) {
                 return ReadResult.HashReadError;
             }
+            long readTime = watch.elapsed(TimeUnit.MILLISECONDS);
 
             // verify stored checksum matches input data
-            Sha256Hash hashTmp = Sha256Hash.twiceOf(vchData);
             if (!Arrays.equals(hashIn, hashTmp.getReversedBytes())) {
                 log.error("Checksum mismatch, data corrupted");
                 return ReadResult.IncorrectHash;
@@ -293,7 +292,8 @@ public class FlatDB<Type extends AbstractManager> {
                 return  ReadResult.IncorrectFormat;
             }
 
-            log.info("Loaded info from {} {}ms", file.getCanonicalFile(), watch.elapsed(TimeUnit.MILLISECONDS));
+            log.info("Loaded info from {} {}ms ({}ms reading)", file.getCanonicalFile(),
+                    watch.elapsed(TimeUnit.MILLISECONDS), readTime);
             log.info("  {}", object);
             if (!fDryRun) {
                 log.info("manager - cleaning....");
@@ -308,6 +308,36 @@ public class FlatDB<Type extends AbstractManager> {
         }
     }
 
+    /**
+     * Reads the data and the checksum that follows it straight into the given arrays, hashing each chunk of data as
+     * soon as it has been read, so that the data is only read from the file and from memory once.
+     *
+     * @return the double SHA-256 of the data
+     */
+    private static Sha256Hash readAndHash(File file, byte[] data, byte[] checksum, int chunkSize) throws IOException {
+        MessageDigest digest = Sha256Hash.newDigest();
+        try (FileInputStream fileStream = new FileInputStream(file)) {
+            FileChannel channel = fileStream.getChannel();
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                int start = buffer.position();
+                buffer.limit(Math.min(start + chunkSize, data.length));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0)
+                        throw new EOFException("Unexpected end of " + file);
+                }
+                digest.update(data, start, buffer.position() - start);
+                buffer.limit(data.length);
+            }
+            ByteBuffer checksumBuffer = ByteBuffer.wrap(checksum);
+            while (checksumBuffer.hasRemaining()) {
+                if (channel.read(checksumBuffer) < 0)
+                    throw new EOFException("Unexpected end of " + file);
+            }
+        }
+        return Sha256Hash.wrap(digest.digest(digest.digest()));
+    }
+
     ReadResult read(Type object) {
         lastReadResult = read(object, false);
         return lastReadResult;
@@ -330,6 +360,15 @@ public class FlatDB<Type extends AbstractManager> {
                 return false;
             }
         }
+        if (readResult == ReadResult.Ok && objToLoad.isJournalEnabled()) {
+            try {
+                int records = objToLoad.replayJournal(new File(pathDB));
+                if (records >= 0)
+                    log.info("Applied {} journal records to {}", records, fileName);
+            } catch (IOException x) {
+                log.error("Error reading the journal of {}: {}", fileName, x.getMessage());
+            }
+        }
         objToLoad.setFilename(pathDB);
         return true;
     }
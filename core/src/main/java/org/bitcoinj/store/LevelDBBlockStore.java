@@ -17,24 +17,40 @@ package org.bitcoinj.store;
 import org.bitcoinj.core.*;
 import org.fusesource.leveldbjni.*;
 import org.iq80.leveldb.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.*;
 import java.io.*;
 import java.nio.*;
+import java.util.Arrays;
 
 /**
  * An SPV block store that writes every header it sees to a <a href="https://github.com/fusesource/leveldbjni">LevelDB</a>.
  * This allows for fast lookup of block headers by block hash at the expense of more costly inserts and higher disk
  * usage than the {@link SPVBlockStore}. If all you want is a regular wallet you don't need this class: it exists for
  * specialised applications where you need to quickly verify a standalone SPV proof.
+ *
+ * The store also keeps an index of the hashes of the blocks of the best chain by height, so {@link #get(int)} is a
+ * single lookup. Stores written before the index existed are indexed when they are opened.
  */
 public class LevelDBBlockStore implements BlockStore {
+    private static final Logger log = LoggerFactory.getLogger(LevelDBBlockStore.class);
+
     private static final byte[] CHAIN_HEAD_KEY = "chainhead".getBytes();
+    // Present once every block of the best chain is in the height index, see migrateHeightIndex()
+    private static final byte[] HEIGHT_INDEX_KEY = "heightindex".getBytes();
+    // The height index maps the heights of the best chain to block hashes, its keys are this prefix and the height
+    private static final byte HEIGHT_KEY_PREFIX = 'h';
+    // How many entries of the height index are written at once while walking down a chain
+    private static final int HEIGHT_INDEX_BATCH_SIZE = 10000;
 
     private final Context context;
     private DB db;
     private final ByteBuffer buffer = ByteBuffer.allocate(StoredBlock.COMPACT_SERIALIZED_SIZE);
     private final File path;
+    private final AncestorIndex ancestorIndex = new AncestorIndex();
+    private int chainHeadHeight;
 
     /** Creates a LevelDB SPV block store using the JNI/C++ version of LevelDB. */
     public LevelDBBlockStore(Context context, File directory) throws BlockStoreException {
@@ -66,19 +82,41 @@ public class LevelDBBlockStore implements BlockStore {
     }
 
     private synchronized void initStoreIfNeeded() throws BlockStoreException {
-        if (db.get(CHAIN_HEAD_KEY) != null)
-            return;   // Already initialised.
+        if (db.get(CHAIN_HEAD_KEY) != null) {
+            // Already initialised.
+            chainHeadHeight = getChainHead().getHeight();
+            if (db.get(HEIGHT_INDEX_KEY) == null)
+                migrateHeightIndex();
+            return;
+        }
         Block genesis = context.getParams().getGenesisBlock().cloneAsHeader();
         StoredBlock storedGenesis = new StoredBlock(genesis, genesis.getWork(), 0);
         put(storedGenesis);
+        db.put(HEIGHT_INDEX_KEY, new byte[0]);
+        chainHeadHeight = 0;
         setChainHead(storedGenesis);
     }
 
+    /** Indexes the best chain of a store that was written before the store had a height index. */
+    private void migrateHeightIndex() throws BlockStoreException {
+        StoredBlock chainHead = getChainHead();
+        log.info("Indexing the heights of the chain up to {}", chainHead.getHeight());
+        // An interrupted migration leaves entries at the top of the chain only, so the whole chain is walked.
+        indexChain(chainHead, true);
+        db.put(HEIGHT_INDEX_KEY, new byte[0]);
+    }
+
     @Override
     public synchronized void put(StoredBlock block) throws BlockStoreException {
         buffer.clear();
         block.serializeCompact(buffer);
         db.put(block.getHeader().getHash().getBytes(), buffer.array());
+        ancestorIndex.add(block);
+    }
+
+    @Override
+    public StoredBlock getAncestor(StoredBlock block, int height) throws BlockStoreException {
+        return ancestorIndex.getAncestor(this, block, height);
     }
 
     @Override @Nullable
@@ -94,9 +132,57 @@ public class LevelDBBlockStore implements BlockStore {
         return get(Sha256Hash.wrap(db.get(CHAIN_HEAD_KEY)));
     }
 
+    /**
+     * Sets the chain head and points the height index at its chain. Entries are rewritten from the new head back to
+     * the fork point with the previous best chain, and the entries above the new head are removed, so extending the
+     * chain by one block writes one entry together with the chain head.
+     */
     @Override
     public synchronized void setChainHead(StoredBlock chainHead) throws BlockStoreException {
-        db.put(CHAIN_HEAD_KEY, chainHead.getHeader().getHash().getBytes());
+        indexChain(chainHead, false);
+        chainHeadHeight = chainHead.getHeight();
+    }
+
+    private static byte[] heightKey(int height) {
+        return ByteBuffer.allocate(5).put(HEIGHT_KEY_PREFIX).putInt(height).array();
+    }
+
+    // Writes the height index of the chain ending in the given block, and the block as the chain head. Unless the
+    // whole chain is asked for, the walk stops at the first height that is indexed already.
+    private void indexChain(StoredBlock chainHead, boolean wholeChain) throws BlockStoreException {
+        try {
+            WriteBatch batch = db.createWriteBatch();
+            try {
+                // after a reorg to a shorter chain
+                for (int height = chainHeadHeight; height > chainHead.getHeight(); height--)
+                    batch.delete(heightKey(height));
+                int entries = 0;
+                StoredBlock cursor = chainHead;
+                while (cursor != null) {
+                    byte[] key = heightKey(cursor.getHeight());
+                    byte[] hash = cursor.getHeader().getHash().getBytes();
+                    if (Arrays.equals(db.get(key), hash)) {
+                        if (!wholeChain)
+                            break;   // The rest of the chain is indexed already.
+                    } else {
+                        batch.put(key, hash);
+                    }
+                    if (++entries % HEIGHT_INDEX_BATCH_SIZE == 0) {
+                        db.write(batch);
+                        batch.close();
+                        batch = db.createWriteBatch();
+                    }
+                    // The store may start at a checkpoint.
+                    cursor = cursor.getHeight() > 0 ? get(cursor.getHeader().getPrevBlockHash()) : null;
+                }
+                batch.put(CHAIN_HEAD_KEY, chainHead.getHeader().getHash().getBytes());
+                db.write(batch);
+            } finally {
+                batch.close();
+            }
+        } catch (IOException e) {
+            throw new BlockStoreException(e);
+        }
     }
 
     @Override
@@ -125,6 +211,7 @@ public class LevelDBBlockStore implements BlockStore {
             } finally {
                 batch.close();
             }
+            ancestorIndex.clear();
             initStoreIfNeeded();
         } catch (IOException e) {
             throw new BlockStoreException(e);
@@ -140,23 +227,13 @@ public class LevelDBBlockStore implements BlockStore {
         return context.getParams();
     }
 
-    @Nullable
+    /** Returns the block of the best chain at the given height, with a lookup in the height index. */
+    @Override @Nullable
     public synchronized StoredBlock get(int blockHeight) throws BlockStoreException {
-
-        StoredBlock cursor = getChainHead();
-
-        if(cursor.getHeight() < blockHeight)
+        if (blockHeight < 0 || blockHeight > chainHeadHeight)
             return null;
-
-
-        while (cursor != null) {
-            if(cursor.getHeight() == blockHeight)
-                return cursor;
-
-            cursor = get(cursor.getHeader().getPrevBlockHash());
-        }
-
-        return null;
+        byte[] hash = db.get(heightKey(blockHeight));
+        return hash != null ? get(Sha256Hash.wrap(hash)) : null;
     }
 
     /**
@@ -16,7 +16,9 @@
 
 package org.bitcoinj.store;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
@@ -24,7 +26,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.io.*;
 import java.nio.ByteBuffer;
 
@@ -51,6 +55,7 @@ import static org.fusesource.leveldbjni.JniDBFactory.*;
 
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.Lists;
+import com.google.common.primitives.UnsignedBytes;
 
 import javax.annotation.Nullable;
 
@@ -424,61 +429,81 @@ public class LevelDBFullPrunedBlockStore implements FullPrunedBlockStore {
 
     @Override
     public List<UTXO> getOpenTransactionOutputs(List<ECKey> keys) throws UTXOProviderException {
-        // Run this on a snapshot of database so internally consistent result
-        // This is critical or if one address paid another could get incorrect
-        // results
-
-        List<UTXO> results = new LinkedList<>();
-        for (ECKey key : keys) {
-            ByteBuffer bb = ByteBuffer.allocate(21);
-            bb.put((byte) KeyType.ADDRESS_HASHINDEX.ordinal());
-            bb.put(key.getPubKeyHash());
-
-            ReadOptions ro = new ReadOptions();
-            Snapshot sn = db.getSnapshot();
-            ro.snapshot(sn);
-
-            // Scanning over iterator very fast
+        List<UTXO> results = new ArrayList<>();
+        getOpenTransactionOutputs(keys, results::add);
+        return results;
+    }
 
-            DBIterator iterator = db.iterator(ro);
-            for (iterator.seek(bb.array()); iterator.hasNext(); iterator.next()) {
-                ByteBuffer bbKey = ByteBuffer.wrap(iterator.peekNext().getKey());
-                bbKey.get(); // remove the address_hashindex byte.
-                byte[] addressKey = new byte[20];
-                bbKey.get(addressKey);
-                if (!Arrays.equals(addressKey, key.getPubKeyHash())) {
-                    break;
-                }
-                byte[] hashBytes = new byte[32];
-                bbKey.get(hashBytes);
-                int index = bbKey.getInt();
-                Sha256Hash hash = Sha256Hash.wrap(hashBytes);
-                UTXO txout;
-                try {
-                    // TODO this should be on the SNAPSHOT too......
-                    // this is really a BUG.
-                    txout = getTransactionOutput(hash, index);
-                } catch (BlockStoreException e) {
-                    throw new UTXOProviderException("block store execption", e);
+    /**
+     * <p>Passes the unspent outputs to the public key hashes of the given keys to the consumer, ordered by public key
+     * hash rather than by the order of the keys.</p>
+     *
+     * <p>The outputs are read from a single snapshot of the database, so the result is internally consistent even
+     * while blocks are being connected: otherwise an output spent from one of the keys to another could be reported
+     * twice or not at all. The hashes are sorted and looked up in one pass of one iterator over the address index,
+     * which only seeks when the next hash isn't the next entry anyway.</p>
+     */
+    public void getOpenTransactionOutputs(List<? extends ECKey> keys, Consumer<UTXO> consumer)
+            throws UTXOProviderException {
+        Comparator<byte[]> comparator = UnsignedBytes.lexicographicalComparator();
+        TreeSet<byte[]> sortedHashes = new TreeSet<>(comparator);
+        for (ECKey key : keys)
+            sortedHashes.add(key.getPubKeyHash());
+        byte[][] hashes = sortedHashes.toArray(new byte[0][]);
+
+        Snapshot snapshot = db.getSnapshot();
+        ReadOptions options = new ReadOptions().snapshot(snapshot);
+        DBIterator iterator = db.iterator(options);
+        try {
+            byte[] seekKey = new byte[21];
+            seekKey[0] = (byte) KeyType.ADDRESS_HASHINDEX.ordinal();
+            byte[] addressHash = new byte[20];
+            byte[] txHash = new byte[32];
+            int next = 0;
+            boolean positioned = false;
+            while (next < hashes.length) {
+                if (!positioned) {
+                    System.arraycopy(hashes[next], 0, seekKey, 1, 20);
+                    iterator.seek(seekKey);
+                    positioned = true;
                 }
-                if (txout != null) {
-                    Script sc = txout.getScript();
-                    Address address = sc.getToAddress(params, true);
-                    UTXO output = new UTXO(txout.getHash(), txout.getIndex(), txout.getValue(), txout.getHeight(),
-                            txout.isCoinbase(), txout.getScript(), address.toString());
-                    results.add(output);
+                if (!iterator.hasNext())
+                    break;
+                ByteBuffer key = ByteBuffer.wrap(iterator.peekNext().getKey());
+                if (key.get() != KeyType.ADDRESS_HASHINDEX.ordinal())
+                    break;   // past the address index
+                key.get(addressHash);
+                int order = comparator.compare(addressHash, hashes[next]);
+                if (order < 0) {
+                    // Entries of hashes that weren't asked for, skip them.
+                    positioned = false;
+                } else if (order > 0) {
+                    // No more outputs to this hash. Carry on from here if the next hash is the next entry.
+                    next++;
+                    positioned = next < hashes.length && comparator.compare(addressHash, hashes[next]) <= 0;
+                } else {
+                    key.get(txHash);
+                    int index = key.getInt();
+                    iterator.next();
+                    byte[] value = db.get(getTxKey(KeyType.OPENOUT_ALL, Sha256Hash.wrap(txHash), index), options);
+                    if (value == null)
+                        continue;
+                    UTXO txout = new UTXO(new ByteArrayInputStream(value));
+                    Address address = txout.getScript().getToAddress(params, true);
+                    consumer.accept(new UTXO(txout.getHash(), txout.getIndex(), txout.getValue(), txout.getHeight(),
+                            txout.isCoinbase(), txout.getScript(), address.toString()));
                 }
             }
+        } catch (DBException | IOException e) {
+            throw new UTXOProviderException("block store exception", e);
+        } finally {
             try {
                 iterator.close();
-                ro = null;
-                sn.close();
-                sn = null;
+                snapshot.close();
             } catch (IOException e) {
                 log.error("Error closing snapshot/iterator?", e);
             }
         }
-        return results;
     }
 
     @Override
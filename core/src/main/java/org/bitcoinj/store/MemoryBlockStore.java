@@ -34,6 +34,7 @@ public class MemoryBlockStore implements BlockStore {
     };
     private StoredBlock chainHead;
     private NetworkParameters params;
+    private final AncestorIndex ancestorIndex = new AncestorIndex();
 
     public MemoryBlockStore(NetworkParameters params) {
         // Insert the genesis block.
@@ -55,6 +56,12 @@ public class MemoryBlockStore implements BlockStore {
         if (blockMap == null) throw new BlockStoreException("MemoryBlockStore is closed");
         Sha256Hash hash = block.getHeader().getHash();
         blockMap.put(hash, block);
+        ancestorIndex.add(block);
+    }
+
+    @Override
+    public StoredBlock getAncestor(StoredBlock block, int height) throws BlockStoreException {
+        return ancestorIndex.getAncestor(this, block, height);
     }
 
     @Override
@@ -49,6 +49,9 @@ public class SPVBlockStore implements BlockStore {
 
     protected ReentrantLock lock = Threading.lock("SPVBlockStore");
 
+    // Skip pointers for getAncestor, the ring buffer only links blocks to their parents.
+    private final AncestorIndex ancestorIndex = new AncestorIndex();
+
     // The entire ring-buffer is mmapped and accessing it should be as fast as accessing regular memory once it's
     // faulted in. Unfortunately, in theory practice and theory are the same. In practice they aren't.
     //
@@ -56,6 +59,7 @@ public class SPVBlockStore implements BlockStore {
     // the OpenJDK/Oracle JVM calls into the get() methods are compiled down to inlined native code on Android each
     // get() call is actually a full-blown JNI method under the hood, meaning it's unbelievably slow. The caches
     // below let us stay in the JIT-compiled Java world without expensive JNI transitions and make a 10x difference!
+
     protected LinkedHashMap<Sha256Hash, StoredBlock> blockCache = new LinkedHashMap<Sha256Hash, StoredBlock>() {
         @Override
         protected boolean removeEldestEntry(Map.Entry<Sha256Hash, StoredBlock> entry) {
@@ -199,6 +203,7 @@ public class SPVBlockStore implements BlockStore {
             block.serializeCompact(buffer);
             setRingCursor(buffer, buffer.position());
             blockCache.put(hash, block);
+            ancestorIndex.add(block);
         } finally { lock.unlock(); }
     }
 
@@ -327,6 +332,11 @@ public class SPVBlockStore implements BlockStore {
         buffer.putInt(4, newCursor);
     }
 
+    @Override
+    public StoredBlock getAncestor(StoredBlock block, int height) throws BlockStoreException {
+        return ancestorIndex.getAncestor(this, block, height);
+    }
+
     @Nullable
     public StoredBlock get(int blockHeight) throws BlockStoreException {
 
@@ -378,6 +388,7 @@ public class SPVBlockStore implements BlockStore {
             // Clear caches
             blockCache.clear();
             notFoundCache.clear();
+            ancestorIndex.clear();
             // Clear file content
             buffer.position(0);
             long fileLength = randomAccessFile.length();
@@ -39,6 +39,11 @@ public class SPVDirectIOBlockStore implements BlockStore {
     protected RandomAccessFile randomAccessFile;
     private final int fileLength;
 
+    // Skip pointers for getAncestor, the ring buffer only links blocks to their parents.
+    private final AncestorIndex ancestorIndex = new AncestorIndex();
+    // The blocks of the best chain in the ring buffer, by height modulo the capacity of the ring buffer
+    private final StoredBlock[] heightIndex;
+
     protected LinkedHashMap<Sha256Hash, StoredBlock> blockCache = new LinkedHashMap<Sha256Hash, StoredBlock>() {
         @Override
         protected boolean removeEldestEntry(Map.Entry<Sha256Hash, StoredBlock> entry) {
@@ -80,6 +85,7 @@ public class SPVDirectIOBlockStore implements BlockStore {
             // Set up the backing file.
             randomAccessFile = new RandomAccessFile(file, "rw");
             fileLength = getFileSize(capacity);
+            heightIndex = new StoredBlock[(fileLength - FILE_PROLOGUE_BYTES) / RECORD_SIZE];
 
             if (!exists) {
                 log.info("Creating new SPV block chain file " + file);
@@ -123,6 +129,7 @@ public class SPVDirectIOBlockStore implements BlockStore {
                 if (!new String(header, StandardCharsets.US_ASCII).equals(HEADER_MAGIC)) {
                     throw new BlockStoreException("Invalid file header");
                 }
+                loadHeightIndex();
             }
         } catch (Exception e) {
             try {
@@ -174,6 +181,7 @@ public class SPVDirectIOBlockStore implements BlockStore {
             block.serializeCompact(buffer);
             setRingCursor(buffer, buffer.position());
             blockCache.put(hash, block);
+            ancestorIndex.add(block);
             flushBuffer();
         } catch (IOException e) {
             throw new BlockStoreException(e);
@@ -256,6 +264,7 @@ public class SPVDirectIOBlockStore implements BlockStore {
 
         lock.lock();
         try {
+            updateHeightIndex(chainHead, null);
             lastChainHead = chainHead;
             byte[] headHash = chainHead.getHeader().getHash().getBytes();
             buffer.position(8);
@@ -322,6 +331,76 @@ public class SPVDirectIOBlockStore implements BlockStore {
         }
     }
 
+    @Override
+    public StoredBlock getAncestor(StoredBlock block, int height) throws BlockStoreException {
+        return ancestorIndex.getAncestor(this, block, height);
+    }
+
+    /**
+     * Points the height index at the chain ending in the given block. Entries are rewritten from the new head back to
+     * the fork point with the previous best chain, so extending the chain by one block touches one entry.
+     *
+     * @param blocks the blocks of the ring buffer by hash, or null to look the parents up with {@link #get(Sha256Hash)}
+     */
+    private void updateHeightIndex(StoredBlock chainHead, @Nullable Map<Sha256Hash, StoredBlock> blocks)
+            throws BlockStoreException {
+        // drop the entries above the new head after a reorg to a shorter chain
+        if (lastChainHead != null) {
+            for (int height = chainHead.getHeight() + 1; height <= lastChainHead.getHeight()
+                    && height - chainHead.getHeight() <= heightIndex.length; height++)
+                heightIndex[height % heightIndex.length] = null;
+        }
+        StoredBlock cursor = chainHead;
+        for (int i = 0; i < heightIndex.length && cursor != null; i++) {
+            int height = cursor.getHeight();
+            heightIndex[height % heightIndex.length] = cursor;
+            if (height == 0)
+                break;
+            Sha256Hash prevHash = cursor.getHeader().getPrevBlockHash();
+            StoredBlock prev = heightIndex[(height - 1) % heightIndex.length];
+            if (prev != null && prev.getHeight() == height - 1 && prev.getHeader().getHash().equals(prevHash))
+                break;   // The rest of the chain is indexed already.
+            cursor = blocks != null ? blocks.get(prevHash) : get(prevHash);
+        }
+    }
+
+    // Indexes the best chain of an existing store with a single pass over the ring buffer
+    private void loadHeightIndex() throws BlockStoreException {
+        Map<Sha256Hash, StoredBlock> blocks = new HashMap<>();
+        byte[] scratch = new byte[32];
+        for (int cursor = FILE_PROLOGUE_BYTES; cursor + RECORD_SIZE <= buffer.limit(); cursor += RECORD_SIZE) {
+            buffer.position(cursor);
+            buffer.get(scratch);
+            if (isZero(scratch))
+                continue;   // Not written yet.
+            try {
+                blocks.put(Sha256Hash.wrap(scratch.clone()), StoredBlock.deserializeCompact(params, buffer));
+            } catch (ProtocolException e) {
+                throw new BlockStoreException(e);
+            }
+        }
+        buffer.position(8);
+        buffer.get(scratch);
+        StoredBlock chainHead = blocks.get(Sha256Hash.wrap(scratch));
+        if (chainHead == null)
+            return;   // getChainHead() reports the corruption.
+        lock.lock();
+        try {
+            updateHeightIndex(chainHead, blocks);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static boolean isZero(byte[] bytes) {
+        for (byte b : bytes)
+            if (b != 0)
+                return false;
+        return true;
+    }
+
+    /** Returns the block of the best chain at the given height, if it is still in the ring buffer. */
+    @Override
     @Nullable
     public StoredBlock get(int blockHeight) throws BlockStoreException {
 
@@ -329,10 +408,14 @@ public class SPVDirectIOBlockStore implements BlockStore {
         try {
             StoredBlock cursor = getChainHead();
 
-            if(cursor.getHeight() < blockHeight)
+            if(cursor.getHeight() < blockHeight || blockHeight < 0)
                 return null;
 
+            StoredBlock indexed = heightIndex[blockHeight % heightIndex.length];
+            if (indexed != null && indexed.getHeight() == blockHeight)
+                return indexed;
 
+            // older than the ring buffer, or the ring buffer was overwritten by forks
             while (cursor != null) {
                 if(cursor.getHeight() == blockHeight)
                     return cursor;
@@ -373,6 +456,9 @@ public class SPVDirectIOBlockStore implements BlockStore {
             // Clear caches
             blockCache.clear();
             notFoundCache.clear();
+            ancestorIndex.clear();
+            Arrays.fill(heightIndex, null);
+            lastChainHead = null;
             // Clear file content
             buffer.position(0);
             long fileLength = randomAccessFile.length();
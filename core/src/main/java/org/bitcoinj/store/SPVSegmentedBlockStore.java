@@ -0,0 +1,537 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.store;
+
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.ProtocolException;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.StoredBlock;
+import org.bitcoinj.utils.Threading;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>An SPVSegmentedBlockStore keeps every block header it is given, without the capacity limit of
+ * {@link SPVBlockStore}. Headers are appended to a single file that is memory mapped in fixed size segments, and
+ * the file grows by one segment at a time as the chain grows.</p>
+ *
+ * <p>Two indexes are rebuilt in memory when the store is opened: an open addressed table from block hash to record
+ * and a dense array from height to the record of the best chain at that height. Both {@link #get(Sha256Hash)} and
+ * {@link #get(int)} are therefore constant time and read the header directly from the mapping. The indexes cost
+ * about 12 bytes of heap per header, so all of mainnet's headers need well under 100 MB of heap. The mapped file
+ * itself uses 128 bytes per header, the same record format as {@link SPVBlockStore}.</p>
+ *
+ * <p>Blocks on side chains are kept too. When the chain head moves to another branch the height index is rewound
+ * to the fork point and rebuilt along the new branch.</p>
+ */
+public class SPVSegmentedBlockStore implements BlockStore {
+    private static final Logger log = LoggerFactory.getLogger(SPVSegmentedBlockStore.class);
+
+    /** The default number of headers in each mapped segment, 8 MB per segment. */
+    public static final int DEFAULT_SEGMENT_CAPACITY = 1 << 16;
+    public static final String HEADER_MAGIC = "SPVS";
+
+    protected static final int RECORD_SIZE = 32 /* hash */ + StoredBlock.COMPACT_SERIALIZED_SIZE;
+
+    // File format:
+    //   4 header bytes = "SPVS"
+    //   4 bytes with the number of records in the file
+    //   32 bytes for the hash of the chain head
+    //   padding up to FILE_PROLOGUE_BYTES
+    //
+    // Followed by the records, one segment after the other. For each header (128 bytes)
+    //   32 bytes hash of the header
+    //   12 bytes of chain work
+    //    4 bytes of height
+    //   80 bytes of block header data
+    protected static final int FILE_PROLOGUE_BYTES = 1024;
+
+    private static final int COUNT_OFFSET = 4;
+    private static final int CHAIN_HEAD_OFFSET = 8;
+    private static final int HEIGHT_OFFSET = 32 + StoredBlock.CHAIN_WORK_BYTES;
+    private static final int PREV_HASH_OFFSET = HEIGHT_OFFSET + 4 + 4 /* version */;
+
+    private static final int NOT_FOUND = -1;
+
+    protected final NetworkParameters params;
+    protected ReentrantLock lock = Threading.lock("SPVSegmentedBlockStore");
+
+    private final int segmentCapacity;
+    private final long segmentBytes;
+
+    // Used to stop other applications/processes from opening the store.
+    protected FileLock fileLock = null;
+    protected RandomAccessFile randomAccessFile = null;
+    private FileChannel channel;
+
+    private volatile MappedByteBuffer prologue;
+    private final ArrayList<MappedByteBuffer> segments = new ArrayList<>();
+    private int recordCount;
+
+    // Open addressed table of record index + 1, probed linearly. Zero marks an empty slot. The keys are read from
+    // the mapped records, so the table holds no hashes itself.
+    private int[] hashTable;
+    // Record index of the best chain block at each height, or NOT_FOUND if that block is not in the store.
+    private int[] heightIndex;
+    private int chainHeight = NOT_FOUND;
+    // Skip pointers for the ancestors of blocks that are not on the best chain.
+    private final AncestorIndex ancestorIndex = new AncestorIndex();
+
+    protected StoredBlock lastChainHead = null;
+
+    /**
+     * Creates and initializes a segmented SPV block store, using segments of {@link #DEFAULT_SEGMENT_CAPACITY}
+     * headers. Will create the given file if it's missing. This operation will block on disk.
+     * @param file file to use for the block store
+     * @throws BlockStoreException if something goes wrong
+     */
+    public SPVSegmentedBlockStore(NetworkParameters params, File file) throws BlockStoreException {
+        this(params, file, DEFAULT_SEGMENT_CAPACITY);
+    }
+
+    /**
+     * Creates and initializes a segmented SPV block store. Will create the given file if it's missing. This operation
+     * will block on disk. The segment capacity only determines how the file is mapped and grown, so an existing file
+     * can be opened with any segment capacity.
+     * @param file file to use for the block store
+     * @param segmentCapacity number of block headers in each mapped segment
+     * @throws BlockStoreException if something goes wrong
+     */
+    public SPVSegmentedBlockStore(NetworkParameters params, File file, int segmentCapacity) throws BlockStoreException {
+        checkNotNull(file);
+        this.params = checkNotNull(params);
+        checkArgument(segmentCapacity > 0 && (long) segmentCapacity * RECORD_SIZE <= Integer.MAX_VALUE);
+        this.segmentCapacity = segmentCapacity;
+        this.segmentBytes = (long) segmentCapacity * RECORD_SIZE;
+        try {
+            boolean exists = file.exists();
+            randomAccessFile = new RandomAccessFile(file, "rw");
+            if (exists) {
+                long currentLength = randomAccessFile.length();
+                if (currentLength < FILE_PROLOGUE_BYTES || (currentLength - FILE_PROLOGUE_BYTES) % RECORD_SIZE != 0)
+                    throw new BlockStoreException("File size on disk indicates this is not a block store: " + currentLength);
+            } else {
+                log.info("Creating new segmented SPV block chain file " + file);
+                randomAccessFile.setLength(FILE_PROLOGUE_BYTES);
+            }
+
+            channel = randomAccessFile.getChannel();
+            fileLock = channel.tryLock();
+            if (fileLock == null)
+                throw new ChainFileLockedException("Store file is already locked by another process");
+
+            prologue = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_PROLOGUE_BYTES);
+
+            lock.lock();
+            try {
+                if (exists) {
+                    byte[] header = new byte[4];
+                    prologue.position(0);
+                    prologue.get(header);
+                    if (!new String(header, StandardCharsets.US_ASCII).equals(HEADER_MAGIC))
+                        throw new BlockStoreException("Header bytes do not equal " + HEADER_MAGIC);
+                    loadIndexes();
+                } else {
+                    prologue.position(0);
+                    prologue.put(HEADER_MAGIC.getBytes(StandardCharsets.US_ASCII));
+                    initNewStore();
+                }
+            } finally {
+                lock.unlock();
+            }
+        } catch (Exception e) {
+            try {
+                if (randomAccessFile != null) randomAccessFile.close();
+            } catch (IOException e2) {
+                throw new BlockStoreException(e2);
+            }
+            throw new BlockStoreException(e);
+        }
+    }
+
+    private void initNewStore() throws BlockStoreException {
+        recordCount = 0;
+        prologue.putInt(COUNT_OFFSET, 0);
+        hashTable = new int[1024];
+        heightIndex = new int[1024];
+        Arrays.fill(heightIndex, NOT_FOUND);
+        chainHeight = NOT_FOUND;
+        lastChainHead = null;
+        // Insert the genesis block.
+        Block genesis = params.getGenesisBlock().cloneAsHeader();
+        StoredBlock storedGenesis = new StoredBlock(genesis, genesis.getWork(), 0);
+        put(storedGenesis);
+        setChainHead(storedGenesis);
+    }
+
+    private void loadIndexes() throws BlockStoreException, IOException {
+        int count = prologue.getInt(COUNT_OFFSET);
+        if (count < 0 || FILE_PROLOGUE_BYTES + (long) count * RECORD_SIZE > randomAccessFile.length())
+            throw new BlockStoreException("Corrupted block store: record count " + count + " exceeds the file size");
+        recordCount = count;
+        while ((long) segments.size() * segmentCapacity < count)
+            mapSegment(segments.size());
+
+        hashTable = new int[tableSizeFor(count)];
+        for (int i = 0; i < count; i++)
+            insertIntoTable(hashTable, i);
+
+        byte[] headHash = new byte[32];
+        prologue.position(CHAIN_HEAD_OFFSET);
+        prologue.get(headHash);
+        int head = findRecord(headHash);
+        if (head == NOT_FOUND)
+            throw new BlockStoreException("Corrupted block store: could not find chain head: " + Sha256Hash.wrap(headHash));
+        heightIndex = new int[Math.max(1024, readHeight(head) + 1)];
+        Arrays.fill(heightIndex, NOT_FOUND);
+        updateHeightIndex(head);
+        log.info("Loaded {} block headers, chain height {}", count, chainHeight);
+    }
+
+    /** Returns the size in bytes of the file after the given number of segments has been mapped. */
+    public static long getFileSize(int segmentCapacity, int segmentCount) {
+        return FILE_PROLOGUE_BYTES + (long) segmentCapacity * RECORD_SIZE * segmentCount;
+    }
+
+    private void mapSegment(int segment) throws IOException {
+        long start = FILE_PROLOGUE_BYTES + segment * segmentBytes;
+        if (randomAccessFile.length() < start + segmentBytes)
+            randomAccessFile.setLength(start + segmentBytes);
+        segments.add(channel.map(FileChannel.MapMode.READ_WRITE, start, segmentBytes));
+    }
+
+    private MappedByteBuffer segmentOf(int record) {
+        return segments.get(record / segmentCapacity);
+    }
+
+    private int offsetOf(int record) {
+        return (record % segmentCapacity) * RECORD_SIZE;
+    }
+
+    private int readHeight(int record) {
+        return segmentOf(record).getInt(offsetOf(record) + HEIGHT_OFFSET);
+    }
+
+    private StoredBlock readRecord(int record) {
+        MappedByteBuffer segment = segmentOf(record);
+        segment.position(offsetOf(record) + 32);
+        try {
+            return StoredBlock.deserializeCompact(params, segment);
+        } catch (ProtocolException e) {
+            throw new RuntimeException(e);  // Cannot happen.
+        }
+    }
+
+    private static int tableSizeFor(int count) {
+        // keep the load factor at or below 3/4
+        int size = 1024;
+        while (size - (size >> 2) <= count)
+            size <<= 1;
+        return size;
+    }
+
+    /** The same bytes {@link Sha256Hash#hashCode()} uses, read from the record. */
+    private int recordHashCode(int record) {
+        return segmentOf(record).getInt(offsetOf(record) + 28);
+    }
+
+    private static int hashCode(byte[] hash, int offset) {
+        return (hash[offset + 28] & 0xff) << 24 | (hash[offset + 29] & 0xff) << 16
+                | (hash[offset + 30] & 0xff) << 8 | (hash[offset + 31] & 0xff);
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private boolean recordHashEquals(int record, byte[] hash) {
+        MappedByteBuffer segment = segmentOf(record);
+        int offset = offsetOf(record);
+        for (int i = 31; i >= 0; i--) {
+            if (segment.get(offset + i) != hash[i])
+                return false;
+        }
+        return true;
+    }
+
+    private void insertIntoTable(int[] table, int record) {
+        int mask = table.length - 1;
+        int slot = spread(recordHashCode(record)) & mask;
+        while (table[slot] != 0)
+            slot = (slot + 1) & mask;
+        table[slot] = record + 1;
+    }
+
+    private int findRecord(byte[] hash) {
+        int mask = hashTable.length - 1;
+        int slot = spread(hashCode(hash, 0)) & mask;
+        int entry;
+        while ((entry = hashTable[slot]) != 0) {
+            if (recordHashEquals(entry - 1, hash))
+                return entry - 1;
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    private int findPrevRecord(int record, byte[] scratch) {
+        MappedByteBuffer segment = segmentOf(record);
+        int offset = offsetOf(record) + PREV_HASH_OFFSET;
+        // the header holds the hash in little endian byte order
+        for (int i = 0; i < 32; i++)
+            scratch[31 - i] = segment.get(offset + i);
+        return findRecord(scratch);
+    }
+
+    /**
+     * Points the height index at the chain ending in the given record. Entries are rewritten from the new head back
+     * to the fork point with the previous best chain, so extending the chain by one block touches one entry.
+     */
+    private void updateHeightIndex(int head) {
+        int height = readHeight(head);
+        if (height >= heightIndex.length)
+            heightIndex = Arrays.copyOf(heightIndex, Math.max(height + 1, heightIndex.length + (heightIndex.length >> 1)));
+        // drop the entries above the new head after a reorg to a shorter chain
+        if (chainHeight > height)
+            Arrays.fill(heightIndex, height + 1, chainHeight + 1, NOT_FOUND);
+        chainHeight = height;
+
+        byte[] scratch = new byte[32];
+        int record = head;
+        while (height >= 0 && heightIndex[height] != record) {
+            heightIndex[height] = record;
+            record = findPrevRecord(record, scratch);
+            height--;
+            if (record == NOT_FOUND) {
+                // the store starts at a checkpoint, nothing below it is on the chain
+                Arrays.fill(heightIndex, 0, height + 1, NOT_FOUND);
+                break;
+            }
+        }
+    }
+
+    @Override
+    public void put(StoredBlock block) throws BlockStoreException {
+        if (prologue == null) throw new BlockStoreException("Store closed");
+
+        lock.lock();
+        try {
+            byte[] hash = block.getHeader().getHash().getBytes();
+            int record = findRecord(hash);
+            boolean append = record == NOT_FOUND;
+            if (append) {
+                record = recordCount;
+                if (record == segments.size() * segmentCapacity)
+                    mapSegment(segments.size());
+            }
+            MappedByteBuffer segment = segmentOf(record);
+            segment.position(offsetOf(record));
+            segment.put(hash);
+            block.serializeCompact(segment);
+            if (append) {
+                // the count is only advanced once the record is complete
+                recordCount++;
+                prologue.putInt(COUNT_OFFSET, recordCount);
+                if (recordCount > hashTable.length - (hashTable.length >> 2)) {
+                    int[] table = new int[hashTable.length << 1];
+                    for (int i = 0; i < record; i++)
+                        insertIntoTable(table, i);
+                    hashTable = table;
+                }
+                insertIntoTable(hashTable, record);
+            }
+            ancestorIndex.add(block);
+        } catch (IOException e) {
+            throw new BlockStoreException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    @Nullable
+    public StoredBlock get(Sha256Hash hash) throws BlockStoreException {
+        if (prologue == null) throw new BlockStoreException("Store closed");
+
+        lock.lock();
+        try {
+            int record = findRecord(hash.getBytes());
+            return record != NOT_FOUND ? readRecord(record) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    @Nullable
+    public StoredBlock get(int height) throws BlockStoreException {
+        if (prologue == null) throw new BlockStoreException("Store closed");
+
+        lock.lock();
+        try {
+            if (height < 0 || height > chainHeight)
+                return null;
+            int record = heightIndex[height];
+            return record != NOT_FOUND ? readRecord(record) : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    @Nullable
+    public StoredBlock getAncestor(StoredBlock block, int height) throws BlockStoreException {
+        if (prologue == null) throw new BlockStoreException("Store closed");
+        if (height < 0 || height > block.getHeight())
+            return null;
+
+        lock.lock();
+        try {
+            // the ancestors of a block on the best chain are in the height index
+            int record = findRecord(block.getHeader().getHash().getBytes());
+            if (record != NOT_FOUND && block.getHeight() <= chainHeight && heightIndex[block.getHeight()] == record) {
+                int ancestor = heightIndex[height];
+                return ancestor != NOT_FOUND ? readRecord(ancestor) : null;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return ancestorIndex.getAncestor(this, block, height);
+    }
+
+    @Override
+    public StoredBlock getChainHead() throws BlockStoreException {
+        if (prologue == null) throw new BlockStoreException("Store closed");
+
+        lock.lock();
+        try {
+            if (lastChainHead == null)
+                lastChainHead = readRecord(heightIndex[chainHeight]);
+            return lastChainHead;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void setChainHead(StoredBlock chainHead) throws BlockStoreException {
+        final MappedByteBuffer prologue = this.prologue;
+        if (prologue == null) throw new BlockStoreException("Store closed");
+
+        lock.lock();
+        try {
+            byte[] headHash = chainHead.getHeader().getHash().getBytes();
+            int record = findRecord(headHash);
+            if (record == NOT_FOUND)
+                throw new BlockStoreException("Chain head is not in the store: " + chainHead.getHeader().getHash());
+            updateHeightIndex(record);
+            lastChainHead = chainHead;
+            prologue.position(CHAIN_HEAD_OFFSET);
+            prologue.put(headHash);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    @Nullable
+    public StoredBlock getChainHeadFromHash(Sha256Hash hash) throws BlockStoreException {
+        if (prologue == null) throw new BlockStoreException("Store closed");
+
+        lock.lock();
+        try {
+            int record = findRecord(hash.getBytes());
+            if (record == NOT_FOUND)
+                return null;
+            if (heightIndex[readHeight(record)] == record)
+                return getChainHead();
+            // a side chain, follow the children that were stored after the block
+            byte[] scratch = new byte[32];
+            int current = record;
+            for (int next = current + 1; next < recordCount; next++) {
+                if (findPrevRecord(next, scratch) == current)
+                    current = next;
+            }
+            return readRecord(current);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws BlockStoreException {
+        lock.lock();
+        try {
+            prologue.force();
+            for (MappedByteBuffer segment : segments)
+                segment.force();
+            // Allow the buffers to be GCd and the underlying file mappings to go away.
+            prologue = null;
+            segments.clear();
+            hashTable = null;
+            heightIndex = null;
+            fileLock.release();
+            randomAccessFile.close();
+        } catch (IOException e) {
+            throw new BlockStoreException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public NetworkParameters getParams() {
+        return params;
+    }
+
+    /** Returns the number of block headers in the store, including those on side chains. */
+    public int size() {
+        lock.lock();
+        try {
+            return recordCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() throws Exception {
+        lock.lock();
+        try {
+            // The records are left in place, they are ignored beyond the record count and overwritten later.
+            ancestorIndex.clear();
+            initNewStore();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -8,7 +8,10 @@ import java.util.*;
 
 /**
  * Map like container that keeps the N most recently added items
+ *
+ * @deprecated use {@link WeightedCache}, which is bounded by memory rather than by count
  */
+@Deprecated
 public class CacheMap<K, V> extends ChildMessage {
 
     private long nMaxSize;
@@ -8,8 +8,10 @@ import java.util.*;
 
 /**
  * Map like container that keeps the N most recently added items
+ *
+ * @deprecated use {@link WeightedMultiCache}, which is bounded by memory rather than by count
  */
-
+@Deprecated
 public class CacheMultiMap<K, V> extends Message {
 
     protected long nMaxSize;
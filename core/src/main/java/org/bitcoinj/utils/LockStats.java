@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Counts how often a group of locks is taken, how often a thread had to wait for one and for how long. Take the locks
+ * with {@link #lock(Lock)} instead of {@link Lock#lock()}; releasing them is unchanged.
+ */
+public class LockStats {
+    private final String name;
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contentions = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+
+    public LockStats(String name) {
+        this.name = name;
+    }
+
+    /** Takes the lock, waiting for it if another thread holds it. */
+    public void lock(Lock lock) {
+        acquisitions.increment();
+        if (lock.tryLock())
+            return;
+        contentions.increment();
+        long start = System.nanoTime();
+        lock.lock();
+        waitNanos.add(System.nanoTime() - start);
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    /** Returns the number of times the lock was held by another thread when it was taken. */
+    public long getContentions() {
+        return contentions.sum();
+    }
+
+    /** Returns the total time spent waiting for the lock. */
+    public long getWaitTime(TimeUnit unit) {
+        return unit.convert(waitNanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    public void reset() {
+        acquisitions.reset();
+        contentions.reset();
+        waitNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d acquisitions, %d contended, %d ms waiting", name, getAcquisitions(),
+                getContentions(), getWaitTime(TimeUnit.MILLISECONDS));
+    }
+}
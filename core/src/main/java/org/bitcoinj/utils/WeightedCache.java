@@ -0,0 +1,386 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.utils;
+
+import org.bitcoinj.core.Utils;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>A map that keeps the most recently used entries within a memory budget. Every entry has a weight, usually an
+ * estimate of the bytes it keeps alive, and when the total weight or the number of entries goes over its limit the
+ * least recently used entries are evicted. Entries can also expire a fixed time after they were written or last
+ * read.</p>
+ *
+ * <p>Reading an entry with {@link #get(Object)} marks it as used and is counted as a hit or a miss, the other lookups
+ * leave the order and the counters alone. Expired entries are dropped when they are looked up and when entries are
+ * added; {@link #cleanUp()} drops all of them.</p>
+ *
+ * <p>Instances are not thread safe, callers must hold a lock of their own.</p>
+ */
+public class WeightedCache<K, V> {
+    /** Returns the weight of an entry, which must not change while it is in the cache. */
+    public interface Weigher<K, V> {
+        int weigh(K key, V value);
+    }
+
+    /** Is told about entries that were evicted or expired, but not about those that were removed or replaced. */
+    public interface EvictionListener<K, V> {
+        void onEviction(K key, V value);
+    }
+
+    private static final class Node<V> {
+        final V value;
+        final int weight;
+        long time;
+
+        Node(V value, int weight, long time) {
+            this.value = value;
+            this.weight = weight;
+            this.time = time;
+        }
+    }
+
+    // least recently used first
+    private final LinkedHashMap<K, Node<V>> map;
+    private final Weigher<? super K, ? super V> weigher;
+    @Nullable private final EvictionListener<K, V> evictionListener;
+    private final long expireAfterWriteMillis;
+    private final long expireAfterAccessMillis;
+    private long maximumWeight;
+    private long maximumSize;
+    private long weight;
+
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+    private long expirationCount;
+
+    private WeightedCache(Builder<K, V> builder) {
+        this.map = new LinkedHashMap<>();
+        this.weigher = builder.weigher;
+        this.evictionListener = builder.evictionListener;
+        this.expireAfterWriteMillis = builder.expireAfterWriteMillis;
+        this.expireAfterAccessMillis = builder.expireAfterAccessMillis;
+        this.maximumWeight = builder.maximumWeight;
+        this.maximumSize = builder.maximumSize;
+    }
+
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>();
+    }
+
+    public static class Builder<K, V> {
+        private Weigher<? super K, ? super V> weigher = (key, value) -> 1;
+        @Nullable private EvictionListener<K, V> evictionListener;
+        private long maximumWeight = Long.MAX_VALUE;
+        private long maximumSize = Long.MAX_VALUE;
+        private long expireAfterWriteMillis;
+        private long expireAfterAccessMillis;
+
+        private Builder() {
+        }
+
+        /** The total weight of the entries, by default each entry weighs 1. */
+        public Builder<K, V> maximumWeight(long maximumWeight) {
+            checkArgument(maximumWeight >= 0);
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        /** The number of entries, regardless of their weight. */
+        public Builder<K, V> maximumSize(long maximumSize) {
+            checkArgument(maximumSize >= 0);
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder<K, V> weigher(Weigher<? super K, ? super V> weigher) {
+            this.weigher = checkNotNull(weigher);
+            return this;
+        }
+
+        /** Expires entries the given time after they were added or replaced. */
+        public Builder<K, V> expireAfterWrite(long duration, TimeUnit unit) {
+            checkArgument(duration > 0);
+            this.expireAfterWriteMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        /** Expires entries the given time after they were last read with {@link #get(Object)} or written. */
+        public Builder<K, V> expireAfterAccess(long duration, TimeUnit unit) {
+            checkArgument(duration > 0);
+            this.expireAfterAccessMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        public Builder<K, V> evictionListener(EvictionListener<K, V> evictionListener) {
+            this.evictionListener = checkNotNull(evictionListener);
+            return this;
+        }
+
+        public <K1 extends K, V1 extends V> WeightedCache<K1, V1> build() {
+            @SuppressWarnings("unchecked")
+            Builder<K1, V1> self = (Builder<K1, V1>) this;
+            return new WeightedCache<>(self);
+        }
+    }
+
+    /** Returns the value for the key, marking it as used, or null if there is none. */
+    @Nullable
+    public V get(K key) {
+        Node<V> node = map.get(key);
+        if (node != null && isExpired(node, Utils.currentTimeMillis())) {
+            expire(key, node);
+            node = null;
+        }
+        if (node == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        if (expireAfterAccessMillis > 0)
+            node.time = Utils.currentTimeMillis();
+        // the map is in insertion order, adding the entry again makes it the most recently used
+        map.remove(key);
+        map.put(key, node);
+        return node.value;
+    }
+
+    /** Returns the value for the key without marking it as used or counting the lookup. */
+    @Nullable
+    public V peek(K key) {
+        Node<V> node = peekNode(key);
+        return node != null ? node.value : null;
+    }
+
+    public boolean containsKey(K key) {
+        return peekNode(key) != null;
+    }
+
+    @Nullable
+    private Node<V> peekNode(K key) {
+        Node<V> node = map.get(key);
+        if (node != null && isExpired(node, Utils.currentTimeMillis())) {
+            expire(key, node);
+            return null;
+        }
+        return node;
+    }
+
+    /**
+     * Adds or replaces the value for the key, which becomes the most recently used entry, and evicts entries if the
+     * cache went over its limits. Returns the previous value. An entry that is heavier than the whole cache is not
+     * kept.
+     */
+    @Nullable
+    public V put(K key, V value) {
+        checkNotNull(key);
+        checkNotNull(value);
+        long now = Utils.currentTimeMillis();
+        Node<V> node = new Node<>(value, weigher.weigh(key, value), now);
+        checkArgument(node.weight >= 0, "negative weight");
+        Node<V> previous = map.remove(key);
+        map.put(key, node);
+        weight += node.weight;
+        if (previous != null)
+            weight -= previous.weight;
+        evict(now);
+        return previous != null && !isExpired(previous, now) ? previous.value : null;
+    }
+
+    /** Removes the entry for the key and returns its value, or null if there was none. */
+    @Nullable
+    public V remove(K key) {
+        Node<V> node = map.remove(key);
+        if (node == null)
+            return null;
+        weight -= node.weight;
+        return node.value;
+    }
+
+    /** Removes the entries that match the predicate and returns how many were removed. */
+    public int removeIf(BiPredicate<? super K, ? super V> predicate) {
+        int removed = 0;
+        for (Iterator<Map.Entry<K, Node<V>>> it = map.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<K, Node<V>> entry = it.next();
+            if (predicate.test(entry.getKey(), entry.getValue().value)) {
+                it.remove();
+                weight -= entry.getValue().weight;
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /** Visits the entries from the least to the most recently used, without changing their order. */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        long now = Utils.currentTimeMillis();
+        for (Map.Entry<K, Node<V>> entry : map.entrySet()) {
+            if (!isExpired(entry.getValue(), now))
+                action.accept(entry.getKey(), entry.getValue().value);
+        }
+    }
+
+    /** Returns the keys from the least to the most recently used. */
+    public List<K> keys() {
+        List<K> keys = new ArrayList<>(map.size());
+        forEach((key, value) -> keys.add(key));
+        return keys;
+    }
+
+    public void clear() {
+        map.clear();
+        weight = 0;
+    }
+
+    /** Drops all expired entries. */
+    public void cleanUp() {
+        if (expireAfterWriteMillis == 0 && expireAfterAccessMillis == 0)
+            return;
+        long now = Utils.currentTimeMillis();
+        for (Iterator<Map.Entry<K, Node<V>>> it = map.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<K, Node<V>> entry = it.next();
+            Node<V> node = entry.getValue();
+            if (isExpired(node, now)) {
+                it.remove();
+                weight -= node.weight;
+                expirationCount++;
+                notifyEviction(entry.getKey(), node.value);
+            }
+        }
+    }
+
+    private boolean isExpired(Node<V> node, long now) {
+        if (expireAfterWriteMillis > 0 || expireAfterAccessMillis > 0) {
+            long ttl = expireAfterAccessMillis > 0 ? expireAfterAccessMillis : expireAfterWriteMillis;
+            return now - node.time >= ttl;
+        }
+        return false;
+    }
+
+    private void expire(K key, Node<V> node) {
+        map.remove(key);
+        weight -= node.weight;
+        expirationCount++;
+        notifyEviction(key, node.value);
+    }
+
+    private void evict(long now) {
+        Iterator<Map.Entry<K, Node<V>>> it = map.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Node<V>> entry = it.next();
+            Node<V> node = entry.getValue();
+            boolean expired = isExpired(node, now);
+            // entries are in the order they were used, so when they expire after access all expired entries are
+            // ahead of the live ones; entries that expire after write and were read since are left to cleanUp
+            if (!expired && weight <= maximumWeight && map.size() <= maximumSize)
+                break;
+            it.remove();
+            weight -= node.weight;
+            if (expired)
+                expirationCount++;
+            else
+                evictionCount++;
+            notifyEviction(entry.getKey(), node.value);
+        }
+    }
+
+    private void notifyEviction(K key, V value) {
+        if (evictionListener != null)
+            evictionListener.onEviction(key, value);
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    /** Returns the total weight of the entries. */
+    public long getWeight() {
+        return weight;
+    }
+
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /** Changes the weight limit, evicting entries if the cache is over the new limit. */
+    public void setMaximumWeight(long maximumWeight) {
+        checkArgument(maximumWeight >= 0);
+        this.maximumWeight = maximumWeight;
+        evict(Utils.currentTimeMillis());
+    }
+
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /** Changes the limit on the number of entries, evicting entries if the cache is over the new limit. */
+    public void setMaximumSize(long maximumSize) {
+        checkArgument(maximumSize >= 0);
+        this.maximumSize = maximumSize;
+        evict(Utils.currentTimeMillis());
+    }
+
+    /** Returns the number of lookups with {@link #get(Object)} that found a value. */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    /** Returns the number of lookups with {@link #get(Object)} that found no value. */
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /** Returns the number of entries that were evicted to stay within the limits. */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /** Returns the number of entries that were dropped because they expired. */
+    public long getExpirationCount() {
+        return expirationCount;
+    }
+
+    public void resetStats() {
+        hitCount = 0;
+        missCount = 0;
+        evictionCount = 0;
+        expirationCount = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WeightedCache(%d entries, weight %d of %d, %d hits, %d misses, %d evicted, %d expired)",
+                map.size(), weight, maximumWeight, hitCount, missCount, evictionCount, expirationCount);
+    }
+}
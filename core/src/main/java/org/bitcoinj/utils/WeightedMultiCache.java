@@ -0,0 +1,213 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+
+/**
+ * <p>A {@link WeightedCache} that holds several values per key, such as votes waiting for the object they are for.
+ * Every value is stored under at most one key; values are told apart with {@link Object#equals(Object)}. The limits,
+ * the eviction order and the expiry apply to single values, so a key goes away with its last value.</p>
+ *
+ * <p>Instances are not thread safe, callers must hold a lock of their own.</p>
+ */
+public class WeightedMultiCache<K, V> {
+    private final WeightedCache<V, K> entries;
+    private final HashMap<K, LinkedHashSet<V>> index = new HashMap<>();
+
+    private WeightedMultiCache(Builder<K, V> builder) {
+        WeightedCache.Builder<V, K> entriesBuilder = WeightedCache.builder();
+        entriesBuilder.maximumWeight(builder.maximumWeight).maximumSize(builder.maximumSize);
+        final WeightedCache.Weigher<? super K, ? super V> weigher = builder.weigher;
+        entriesBuilder.weigher((value, key) -> weigher.weigh(key, value));
+        if (builder.expireAfterWriteMillis > 0)
+            entriesBuilder.expireAfterWrite(builder.expireAfterWriteMillis, TimeUnit.MILLISECONDS);
+        entriesBuilder.evictionListener((value, key) -> unindex(key, value));
+        this.entries = entriesBuilder.build();
+    }
+
+    public static <K, V> Builder<K, V> builder() {
+        return new Builder<>();
+    }
+
+    public static class Builder<K, V> {
+        private WeightedCache.Weigher<? super K, ? super V> weigher = (key, value) -> 1;
+        private long maximumWeight = Long.MAX_VALUE;
+        private long maximumSize = Long.MAX_VALUE;
+        private long expireAfterWriteMillis;
+
+        private Builder() {
+        }
+
+        /** See {@link WeightedCache.Builder#maximumWeight(long)}. */
+        public Builder<K, V> maximumWeight(long maximumWeight) {
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        /** The number of values, regardless of their keys and weight. */
+        public Builder<K, V> maximumSize(long maximumSize) {
+            this.maximumSize = maximumSize;
+            return this;
+        }
+
+        public Builder<K, V> weigher(WeightedCache.Weigher<? super K, ? super V> weigher) {
+            this.weigher = weigher;
+            return this;
+        }
+
+        public Builder<K, V> expireAfterWrite(long duration, TimeUnit unit) {
+            this.expireAfterWriteMillis = unit.toMillis(duration);
+            return this;
+        }
+
+        public <K1 extends K, V1 extends V> WeightedMultiCache<K1, V1> build() {
+            @SuppressWarnings("unchecked")
+            Builder<K1, V1> self = (Builder<K1, V1>) this;
+            return new WeightedMultiCache<>(self);
+        }
+    }
+
+    /** Adds a value under the key. Returns false, changing nothing, if the cache already holds the value. */
+    public boolean put(K key, V value) {
+        if (entries.containsKey(value))
+            return false;
+        LinkedHashSet<V> values = index.get(key);
+        if (values == null) {
+            values = new LinkedHashSet<>();
+            index.put(key, values);
+        }
+        values.add(value);
+        // may evict other values, or this one if it is too heavy, which unindexes them
+        entries.put(value, key);
+        return entries.containsKey(value);
+    }
+
+    public boolean containsKey(K key) {
+        return index.containsKey(key);
+    }
+
+    /** Returns the values for the key in the order they were added, or an empty list. */
+    public List<V> get(K key) {
+        LinkedHashSet<V> values = index.get(key);
+        if (values == null)
+            return Collections.emptyList();
+        List<V> result = new ArrayList<>(values.size());
+        // looking up the values drops those that expired
+        for (V value : new ArrayList<>(values)) {
+            if (entries.get(value) != null)
+                result.add(value);
+        }
+        return result;
+    }
+
+    /** Returns the keys that have values. */
+    public List<K> keys() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    public boolean remove(K key, V value) {
+        LinkedHashSet<V> values = index.get(key);
+        if (values == null || !values.contains(value))
+            return false;
+        entries.remove(value);
+        unindex(key, value);
+        return true;
+    }
+
+    /** Removes all values for the key. */
+    public void removeAll(K key) {
+        LinkedHashSet<V> values = index.remove(key);
+        if (values != null) {
+            for (V value : values)
+                entries.remove(value);
+        }
+    }
+
+    /** Removes the values that match the predicate and returns how many were removed. */
+    public int removeIf(BiPredicate<? super K, ? super V> predicate) {
+        return entries.removeIf((value, key) -> {
+            if (!predicate.test(key, value))
+                return false;
+            unindex(key, value);
+            return true;
+        });
+    }
+
+    /** Visits the values from the least to the most recently used. */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        entries.forEach((value, key) -> action.accept(key, value));
+    }
+
+    private void unindex(K key, V value) {
+        LinkedHashSet<V> values = index.get(key);
+        if (values != null && values.remove(value) && values.isEmpty())
+            index.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+        index.clear();
+    }
+
+    /** Drops all expired values. */
+    public void cleanUp() {
+        entries.cleanUp();
+    }
+
+    /** Returns the number of values. */
+    public int size() {
+        return entries.size();
+    }
+
+    public long getWeight() {
+        return entries.getWeight();
+    }
+
+    public long getMaximumWeight() {
+        return entries.getMaximumWeight();
+    }
+
+    public long getHitCount() {
+        return entries.getHitCount();
+    }
+
+    public long getMissCount() {
+        return entries.getMissCount();
+    }
+
+    public long getEvictionCount() {
+        return entries.getEvictionCount();
+    }
+
+    public long getExpirationCount() {
+        return entries.getExpirationCount();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WeightedMultiCache(%d keys, %d values, weight %d of %d)", index.size(),
+                entries.size(), entries.getWeight(), entries.getMaximumWeight());
+    }
+}
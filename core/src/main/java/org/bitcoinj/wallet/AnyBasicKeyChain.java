@@ -60,8 +60,8 @@ public class AnyBasicKeyChain implements IEncryptableKeyChain {
     private final ReentrantLock lock = Threading.lock("AnyBasicKeyChain");
 
     // Maps used to let us quickly look up a key given data we find in transactions or the block chain.
-    private final LinkedHashMap<ByteString, IKey> hashToKeys;
-    private final LinkedHashMap<ByteString, IKey> pubkeyToKeys;
+    private final KeyIndex<IKey> hashToKeys;
+    private final KeyIndex<IKey> pubkeyToKeys;
     @Nullable private final KeyCrypter keyCrypter;
 
     private final KeyFactory keyFactory;
@@ -75,8 +75,8 @@ public class AnyBasicKeyChain implements IEncryptableKeyChain {
 
     public AnyBasicKeyChain(@Nullable KeyCrypter crypter, KeyFactory keyFactory) {
         this.keyCrypter = crypter;
-        hashToKeys = new LinkedHashMap<>();
-        pubkeyToKeys = new LinkedHashMap<>();
+        hashToKeys = new KeyIndex<>();
+        pubkeyToKeys = new KeyIndex<>();
         listeners = new CopyOnWriteArrayList<>();
         this.keyFactory = keyFactory;
     }
@@ -103,7 +103,7 @@ public class AnyBasicKeyChain implements IEncryptableKeyChain {
                 importKeyLocked(key);
                 queueOnKeysAdded(ImmutableList.of(key));
             }
-            return hashToKeys.values().iterator().next();
+            return hashToKeys.first();
         } finally {
             lock.unlock();
         }
@@ -129,8 +129,8 @@ public class AnyBasicKeyChain implements IEncryptableKeyChain {
 
             List<IKey> keysToReturn = new ArrayList<>();
             int count = 0;
-            while (hashToKeys.values().iterator().hasNext() && numberOfKeys != count) {
-                keysToReturn.add(hashToKeys.values().iterator().next());
+            while (!hashToKeys.isEmpty() && numberOfKeys != count) {
+                keysToReturn.add(hashToKeys.first());
                 count++;
             }
             return keysToReturn;
@@ -143,7 +143,7 @@ public class AnyBasicKeyChain implements IEncryptableKeyChain {
     public List<IKey> getKeys() {
         lock.lock();
         try {
-            return new ArrayList<>(hashToKeys.values());
+            return hashToKeys.values();
         } finally {
             lock.unlock();
         }
@@ -195,8 +195,8 @@ public class AnyBasicKeyChain implements IEncryptableKeyChain {
             if (!key.isWatching() && isWatching)
                 throw new IllegalArgumentException("Key is not watching but chain is");
         }
-        IKey previousKey = pubkeyToKeys.put(ByteString.copyFrom(key.getPubKey()), key);
-        hashToKeys.put(ByteString.copyFrom(key.getPubKeyHash()), key);
+        IKey previousKey = pubkeyToKeys.put(key.getPubKey(), key);
+        hashToKeys.put(key.getPubKeyHash(), key);
         checkState(previousKey == null);
     }
 
@@ -224,7 +224,7 @@ public class AnyBasicKeyChain implements IEncryptableKeyChain {
     public IKey findKeyFromPubHash(byte[] pubKeyHash) {
         lock.lock();
         try {
-            return hashToKeys.get(ByteString.copyFrom(pubKeyHash));
+            return hashToKeys.get(pubKeyHash);
         } finally {
             lock.unlock();
         }
@@ -233,7 +233,7 @@ public class AnyBasicKeyChain implements IEncryptableKeyChain {
     public IKey findKeyFromPubKey(byte[] pubKey) {
         lock.lock();
         try {
-            return pubkeyToKeys.get(ByteString.copyFrom(pubKey));
+            return pubkeyToKeys.get(pubKey);
         } finally {
             lock.unlock();
         }
@@ -272,8 +272,8 @@ public class AnyBasicKeyChain implements IEncryptableKeyChain {
     public boolean removeKey(IKey key) {
         lock.lock();
         try {
-            boolean a = hashToKeys.remove(ByteString.copyFrom(key.getPubKeyHash())) != null;
-            boolean b = pubkeyToKeys.remove(ByteString.copyFrom(key.getPubKey())) != null;
+            boolean a = hashToKeys.remove(key.getPubKeyHash()) != null;
+            boolean b = pubkeyToKeys.remove(key.getPubKey()) != null;
             checkState(a == b);   // Should be in both maps or neither.
             return a;
         } finally {
@@ -286,7 +286,7 @@ public class AnyBasicKeyChain implements IEncryptableKeyChain {
         lock.lock();
         try {
             long time = Long.MAX_VALUE;
-            for (IKey key : hashToKeys.values())
+            for (IKey key : hashToKeys)
                 time = Math.min(key.getCreationTimeSeconds(), time);
             return time;
         } finally {
@@ -306,7 +306,7 @@ public class AnyBasicKeyChain implements IEncryptableKeyChain {
 
     Map<IKey, Protos.Key.Builder> serializeToEditableProtobufs() {
         Map<IKey, Protos.Key.Builder> result = new LinkedHashMap<>();
-        for (IKey key : hashToKeys.values()) {
+        for (IKey key : hashToKeys) {
             Protos.Key.Builder protoKey = serializeEncryptableItem(key);
             protoKey.setPublicKey(ByteString.copyFrom(key.getSerializedPublicKey()));
             result.put(key, protoKey);
@@ -478,7 +478,7 @@ public class AnyBasicKeyChain implements IEncryptableKeyChain {
             checkNotNull(keyCrypter);
             checkState(this.keyCrypter == null, "Key chain is already encrypted");
             AnyBasicKeyChain encrypted = new AnyBasicKeyChain(keyCrypter, keyFactory);
-            for (IKey key : hashToKeys.values()) {
+            for (IKey key : hashToKeys) {
                 IKey encryptedKey = key.encrypt(keyCrypter, aesKey);
                 // Check that the encrypted key can be successfully decrypted.
                 // This is done as it is a critical failure if the private key cannot be decrypted successfully
@@ -514,7 +514,7 @@ public class AnyBasicKeyChain implements IEncryptableKeyChain {
             if (numKeys() > 0 && !checkAESKey(aesKey))
                 throw new KeyCrypterException("Password/key was incorrect.");
             AnyBasicKeyChain decrypted = new AnyBasicKeyChain(keyFactory);
-            for (IKey key : hashToKeys.values()) {
+            for (IKey key : hashToKeys) {
                 decrypted.importKeyLocked(key.decrypt(aesKey));
             }
             for (ListenerRegistration<KeyChainEventListener> listener : listeners) {
@@ -552,7 +552,7 @@ public class AnyBasicKeyChain implements IEncryptableKeyChain {
 
             // Find the first encrypted key in the wallet.
             IKey first = null;
-            for (IKey key : hashToKeys.values()) {
+            for (IKey key : hashToKeys) {
                 if (key.isEncrypted()) {
                     first = key;
                     break;
@@ -584,7 +584,7 @@ public class AnyBasicKeyChain implements IEncryptableKeyChain {
         lock.lock();
         try {
             BloomFilter filter = new BloomFilter(size, falsePositiveRate, tweak);
-            for (IKey key : hashToKeys.values())
+            for (IKey key : hashToKeys)
                 filter.insert(key);
             return filter;
         } finally {
@@ -610,7 +610,7 @@ public class AnyBasicKeyChain implements IEncryptableKeyChain {
         lock.lock();
         try {
             IKey oldest = null;
-            for (IKey key : hashToKeys.values()) {
+            for (IKey key : hashToKeys) {
                 final long keyTime = key.getCreationTimeSeconds();
                 if (keyTime > timeSecs) {
                     if (oldest == null || oldest.getCreationTimeSeconds() > keyTime)
@@ -628,7 +628,7 @@ public class AnyBasicKeyChain implements IEncryptableKeyChain {
         lock.lock();
         try {
             List<IKey> results = Lists.newLinkedList();
-            for (IKey key : hashToKeys.values()) {
+            for (IKey key : hashToKeys) {
                 final long keyTime = key.getCreationTimeSeconds();
                 if (keyTime < timeSecs) {
                     results.add(key);
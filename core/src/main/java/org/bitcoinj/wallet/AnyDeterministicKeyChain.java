@@ -60,6 +60,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.locks.ReentrantLock;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -196,6 +197,8 @@ public class AnyDeterministicKeyChain implements IEncryptableKeyChain {
     // regenerations, which are expensive and will (in future) trigger chain download stalls/retries. One third
     // is an efficiency tradeoff.
     protected int lookaheadThreshold = calcDefaultLookaheadThreshold();
+    // The pool the lookahead keys are derived on, null to derive them on the thread that needs them.
+    @Nullable private ForkJoinPool keyDerivationPool = ForkJoinPool.commonPool();
 
     private int calcDefaultLookaheadThreshold() {
         return lookaheadSize / 3;
@@ -507,6 +510,7 @@ public class AnyDeterministicKeyChain implements IEncryptableKeyChain {
 
         this.lookaheadSize = chain.lookaheadSize;
         this.lookaheadThreshold = chain.lookaheadThreshold;
+        this.keyDerivationPool = chain.keyDerivationPool;
 
         this.seed = chain.seed.encrypt(crypter, aesKey);
         this.keyFactory = chain.keyFactory;
@@ -1351,6 +1355,34 @@ public class AnyDeterministicKeyChain implements IEncryptableKeyChain {
         }
     }
 
+    /**
+     * Returns the pool that keys are pre-generated on, or null if they are generated on the thread that needs them.
+     * See {@link #setKeyDerivationPool(ForkJoinPool)}.
+     */
+    @Nullable
+    public ForkJoinPool getKeyDerivationPool() {
+        lock.lock();
+        try {
+            return keyDerivationPool;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sets the pool that keys are pre-generated on. Filling the lookahead zone takes a long time for BLS and Ed25519
+     * keys, so by default large batches of keys are derived in parallel on the common fork join pool. Setting null
+     * derives the keys on the thread that needs them.
+     */
+    public void setKeyDerivationPool(@Nullable ForkJoinPool keyDerivationPool) {
+        lock.lock();
+        try {
+            this.keyDerivationPool = keyDerivationPool;
+        } finally {
+            lock.unlock();
+        }
+    }
+
     /**
      * Sets the threshold for the key pre-generation. This is used to avoid adding new keys and thus
      * re-calculating Bloom filters every time a new key is calculated. Without a lookahead threshold, every time we
@@ -1426,16 +1458,9 @@ public class AnyDeterministicKeyChain implements IEncryptableKeyChain {
         log.info("{} keys needed for {} = {} issued + {} lookahead size + {} lookahead threshold - {} num children",
                 needed, parent.getPathAsString(), issued, lookaheadSize, lookaheadThreshold, numChildren);
 
-        List<IDeterministicKey> result  = new ArrayList<>(needed);
         final Stopwatch watch = Stopwatch.createStarted();
-        int nextChild = numChildren;
-        for (int i = 0; i < needed; i++) {
-            IDeterministicKey key = parent.deriveThisOrNextChildKey(nextChild | (hardenedKeysOnly ? ChildNumber.HARDENED_BIT : 0));
-            key = key.dropPrivateBytes();
-            hierarchy.putKey(key);
-            result.add(key);
-            nextChild = key.getChildNumber().num() + 1;
-        }
+        int hardenedBit = hardenedKeysOnly ? ChildNumber.HARDENED_BIT : 0;
+        List<IDeterministicKey> result = hierarchy.deriveChildren(parent, numChildren | hardenedBit, needed, true, getKeyDerivationPool());
         watch.stop();
         log.info("Took {}", watch);
         return result;
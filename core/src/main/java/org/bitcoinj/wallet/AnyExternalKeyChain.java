@@ -123,17 +123,9 @@ public class AnyExternalKeyChain extends AnyDeterministicKeyChain {
         log.info("{} keys needed for {} = {} issued + {} lookahead size + {} lookahead threshold - {} num children",
                 needed, parent.getPathAsString(), issued, lookaheadSize, lookaheadThreshold, numChildren);
 
-        List<IDeterministicKey> result  = new ArrayList<IDeterministicKey>(needed);
         final Stopwatch watch = Stopwatch.createStarted();
-        int nextChild = numChildren;
         int hardenedBit = hardenedKeysOnly ? ChildNumber.HARDENED_BIT : 0;
-        for (int i = 0; i < needed; i++) {
-            IDeterministicKey key = parent.deriveThisOrNextChildKey(nextChild | hardenedBit);
-            key = key.dropPrivateBytes();
-            hierarchy.putKey(key);
-            result.add(key);
-            nextChild = key.getChildNumber().num() + 1;
-        }
+        List<IDeterministicKey> result = hierarchy.deriveChildren(parent, numChildren | hardenedBit, needed, true, getKeyDerivationPool());
         watch.stop();
         log.info("Took {}", watch);
         return result;
@@ -148,17 +148,22 @@ public class CoinJoinExtension extends AbstractKeyChainGroupExtension {
         int cacheEntries = 0;
         if (wallet instanceof WalletEx) {
             WalletEx walletEx = (WalletEx) wallet;
-            if (!walletEx.mapOutpointRoundsCache.isEmpty()) {
-                Protos.OutpointRoundsCache.Builder cacheBuilder = Protos.OutpointRoundsCache.newBuilder();
-                for (Map.Entry<TransactionOutPoint, Integer> entry : walletEx.mapOutpointRoundsCache.entrySet()) {
-                    Protos.OutpointRoundsEntry.Builder entryBuilder = Protos.OutpointRoundsEntry.newBuilder();
-                    entryBuilder.setTransactionHash(ByteString.copyFrom(entry.getKey().getHash().getBytes()));
-                    entryBuilder.setOutputIndex(entry.getKey().getIndex());
-                    entryBuilder.setRounds(entry.getValue());
-                    cacheBuilder.addEntries(entryBuilder);
-                    cacheEntries++;
+            walletEx.roundsLock.lock();
+            try {
+                if (!walletEx.mapOutpointRoundsCache.isEmpty()) {
+                    Protos.OutpointRoundsCache.Builder cacheBuilder = Protos.OutpointRoundsCache.newBuilder();
+                    for (Map.Entry<TransactionOutPoint, Integer> entry : walletEx.mapOutpointRoundsCache.entrySet()) {
+                        Protos.OutpointRoundsEntry.Builder entryBuilder = Protos.OutpointRoundsEntry.newBuilder();
+                        entryBuilder.setTransactionHash(ByteString.copyFrom(entry.getKey().getHash().getBytes()));
+                        entryBuilder.setOutputIndex(entry.getKey().getIndex());
+                        entryBuilder.setRounds(entry.getValue());
+                        cacheBuilder.addEntries(entryBuilder);
+                        cacheEntries++;
+                    }
+                    builder.setOutpointRoundsCache(cacheBuilder);
                 }
-                builder.setOutpointRoundsCache(cacheBuilder);
+            } finally {
+                walletEx.roundsLock.unlock();
             }
         }
         long cacheEndTime = System.nanoTime();
@@ -231,13 +236,19 @@ public class CoinJoinExtension extends AbstractKeyChainGroupExtension {
             Protos.OutpointRoundsCache cacheProto = coinJoinProto.getOutpointRoundsCache();
             // Pre-size HashMap to avoid resizing during deserialization
             int entryCount = cacheProto.getEntriesCount();
-            walletEx.mapOutpointRoundsCache = new HashMap<>(entryCount * 4 / 3 + 1);
+            HashMap<TransactionOutPoint, Integer> roundsCache = new HashMap<>(entryCount * 4 / 3 + 1);
             for (Protos.OutpointRoundsEntry entryProto : cacheProto.getEntriesList()) {
                 Sha256Hash txHash = Sha256Hash.wrap(entryProto.getTransactionHash().toByteArray());
                 long outputIndex = entryProto.getOutputIndex();
                 int rounds = entryProto.getRounds();
                 TransactionOutPoint outPoint = new TransactionOutPoint(containingWallet.params, outputIndex, txHash);
-                walletEx.mapOutpointRoundsCache.put(outPoint, rounds);
+                roundsCache.put(outPoint, rounds);
+            }
+            walletEx.roundsLock.lock();
+            try {
+                walletEx.mapOutpointRoundsCache = roundsCache;
+            } finally {
+                walletEx.roundsLock.unlock();
             }
         }
 
@@ -0,0 +1,184 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.wallet;
+
+import org.bitcoinj.core.TransactionConfidence;
+import org.bitcoinj.core.TransactionConfidence.ConfidenceType;
+import org.bitcoinj.core.TxConfidenceTable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>The {@link TransactionConfidence.DepthTracker} of the transactions of a wallet. It knows the height of the best
+ * chain, from which the confidence objects derive their depth, and keeps the depths waited for ordered by the height
+ * of the best chain at which they will be reached. That way a new block only costs as much as the thresholds it
+ * reaches, not as much as the number of transactions in the wallet.</p>
+ *
+ * <p>The height is the one of the {@link TxConfidenceTable} of the context, so that all wallets of the context derive
+ * the same depth for the confidence objects they share. Until the table knows it, the last block height the wallet has
+ * seen is used.</p>
+ *
+ * <p>Thresholds of transactions that are not in the best chain don't have a height yet and are looked at on every
+ * block until they do. The index has its own lock, which is never held while calling into a confidence object, so
+ * it may be used by a confidence object that is locked.</p>
+ */
+class DepthThresholdIndex implements TransactionConfidence.DepthTracker {
+
+    /** A depth that a transaction is waited to reach. */
+    static final class Threshold {
+        final TransactionConfidence confidence;
+        final int depth;
+        // Whether reaching the depth means the seen peers can be forgotten, rather than listeners be informed
+        final boolean eventHorizon;
+
+        Threshold(TransactionConfidence confidence, int depth, boolean eventHorizon) {
+            this.confidence = checkNotNull(confidence);
+            this.depth = depth;
+            this.eventHorizon = eventHorizon;
+        }
+    }
+
+    private final TxConfidenceTable confidenceTable;
+    // The height must be readable without locks, see TransactionConfidence.DepthTracker#getBestChainHeight()
+    private volatile int lastSeenBlockHeight = -1;
+
+    private final Object lock = new Object();
+    // Thresholds by the best chain height at which they are expected to be reached
+    private final TreeMap<Integer, List<Threshold>> byHeight = new TreeMap<>();
+    // Thresholds of transactions that are not BUILDING
+    private final List<Threshold> notBuilding = new ArrayList<>();
+    private int size;
+
+    DepthThresholdIndex(TxConfidenceTable confidenceTable) {
+        this.confidenceTable = checkNotNull(confidenceTable);
+    }
+
+    @Override
+    public int getBestChainHeight() {
+        int bestChainHeight = confidenceTable.getBestChainHeight();
+        return bestChainHeight >= 0 ? bestChainHeight : lastSeenBlockHeight;
+    }
+
+    void setLastSeenBlockHeight(int lastSeenBlockHeight) {
+        this.lastSeenBlockHeight = lastSeenBlockHeight;
+    }
+
+    @Override
+    public void watchDepth(TransactionConfidence confidence, int depth) {
+        add(new Threshold(confidence, depth, false));
+    }
+
+    /**
+     * Waits for the transaction to get buried deeper than the event horizon, after which the peers that announced it
+     * can be forgotten.
+     */
+    void watchEventHorizon(TransactionConfidence confidence, int eventHorizon) {
+        add(new Threshold(confidence, eventHorizon + 1, true));
+    }
+
+    private void add(Threshold threshold) {
+        int targetHeight = targetHeight(threshold, getBestChainHeight());
+        synchronized (lock) {
+            place(threshold, targetHeight);
+        }
+    }
+
+    /**
+     * Removes and returns the thresholds that have been reached at the current height of the best chain. Thresholds
+     * that are due but not reached, because their transaction was reorganized or confirmed in a later block, are
+     * kept at their new height.
+     */
+    List<Threshold> poll() {
+        int height = getBestChainHeight();
+        List<Threshold> due = new ArrayList<>();
+        synchronized (lock) {
+            SortedMap<Integer, List<Threshold>> reachable = byHeight.headMap(height, true);
+            for (List<Threshold> thresholds : reachable.values())
+                due.addAll(thresholds);
+            reachable.clear();
+            due.addAll(notBuilding);
+            notBuilding.clear();
+            size -= due.size();
+        }
+        if (due.isEmpty())
+            return due;
+        List<Threshold> reached = new ArrayList<>();
+        List<Threshold> pending = new ArrayList<>();
+        List<Integer> pendingHeights = new ArrayList<>();
+        for (Threshold threshold : due) {
+            int targetHeight;
+            synchronized (threshold.confidence) {
+                ConfidenceType type = threshold.confidence.getConfidenceType();
+                if (threshold.eventHorizon && type == ConfidenceType.DEAD)
+                    continue;
+                targetHeight = targetHeight(threshold, height);
+            }
+            if (targetHeight != NOT_BUILDING && targetHeight <= height) {
+                reached.add(threshold);
+            } else {
+                pending.add(threshold);
+                pendingHeights.add(targetHeight);
+            }
+        }
+        synchronized (lock) {
+            for (int i = 0; i < pending.size(); i++)
+                place(pending.get(i), pendingHeights.get(i));
+        }
+        return reached;
+    }
+
+    /** Returns the number of thresholds that have not been reached yet. */
+    int size() {
+        synchronized (lock) {
+            return size;
+        }
+    }
+
+    void clear() {
+        synchronized (lock) {
+            byHeight.clear();
+            notBuilding.clear();
+            size = 0;
+        }
+    }
+
+    private static final int NOT_BUILDING = Integer.MIN_VALUE;
+
+    // Returns the best chain height at which the threshold is reached, or NOT_BUILDING if the transaction is not in
+    // the best chain
+    private static int targetHeight(Threshold threshold, int bestChainHeight) {
+        TransactionConfidence confidence = threshold.confidence;
+        synchronized (confidence) {
+            if (bestChainHeight < 0 || confidence.getConfidenceType() != ConfidenceType.BUILDING)
+                return NOT_BUILDING;
+            return bestChainHeight + threshold.depth - confidence.getDepthInBlocks();
+        }
+    }
+
+    private void place(Threshold threshold, int targetHeight) {
+        if (targetHeight == NOT_BUILDING)
+            notBuilding.add(threshold);
+        else
+            byHeight.computeIfAbsent(targetHeight, height -> new ArrayList<>(1)).add(threshold);
+        size++;
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.wallet;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * <p>A map from byte strings, like public keys and public key hashes, to the keys of a key chain. It is ordered by
+ * insertion, like a {@link java.util.LinkedHashMap}, which the key chains used before.</p>
+ *
+ * <p>The bytes of the entries are stored back to back in one array and found with an open addressing table of
+ * entry numbers, so unlike a map keyed by {@link com.google.protobuf.ByteString} a lookup doesn't copy or wrap the
+ * given bytes. Lookups happen for every output of every transaction that is matched against a wallet.</p>
+ *
+ * <p>Removed entries are only dropped when the index grows. Like the rest of a key chain, this class is guarded by
+ * the lock of the key chain.</p>
+ */
+class KeyIndex<K> implements Iterable<K> {
+    private static final int MIN_CAPACITY = 16;
+    // Table value of a slot whose entry has been removed
+    private static final int REMOVED = -1;
+
+    // The slots, holding the number of their entry plus one, 0 if free or REMOVED. At most half of them are used.
+    private int[] table;
+    // The entries in the order they were put, removed ones have a null key
+    private Object[] keys;
+    private int[] hashes;
+    private int[] offsets;
+    private int[] lengths;
+    private byte[] bytes;
+    private int bytesUsed;
+    // The number of entries, including removed ones, which is the number of slots that aren't free
+    private int entries;
+    private int size;
+
+    KeyIndex() {
+        reset(MIN_CAPACITY);
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Returns the key put for the given bytes, or null if there is none. */
+    @Nullable
+    K get(byte[] id) {
+        int slot = find(id, hash(id));
+        return slot < 0 ? null : key(table[slot] - 1);
+    }
+
+    /** Puts a key for the given bytes. Replacing a key keeps its position in the order. */
+    @Nullable
+    K put(byte[] id, K key) {
+        checkNotNull(key);
+        int hash = hash(id);
+        int slot = find(id, hash);
+        if (slot >= 0) {
+            int entry = table[slot] - 1;
+            K previous = key(entry);
+            keys[entry] = key;
+            return previous;
+        }
+        if (entries == keys.length)
+            rebuild(Math.max(MIN_CAPACITY, size * 2));
+        if (bytesUsed + id.length > bytes.length)
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, bytesUsed + id.length));
+        int entry = entries++;
+        keys[entry] = key;
+        hashes[entry] = hash;
+        offsets[entry] = bytesUsed;
+        lengths[entry] = id.length;
+        System.arraycopy(id, 0, bytes, bytesUsed, id.length);
+        bytesUsed += id.length;
+        insert(entry, hash);
+        size++;
+        return null;
+    }
+
+    /** Removes the key put for the given bytes, and returns it or null if there was none. */
+    @Nullable
+    K remove(byte[] id) {
+        int slot = find(id, hash(id));
+        if (slot < 0)
+            return null;
+        int entry = table[slot] - 1;
+        K key = key(entry);
+        keys[entry] = null;
+        table[slot] = REMOVED;
+        size--;
+        return key;
+    }
+
+    /** Returns the key that was put first and is still there. */
+    K first() {
+        for (int entry = 0; entry < entries; entry++)
+            if (keys[entry] != null)
+                return key(entry);
+        throw new NoSuchElementException();
+    }
+
+    /** Returns a copy of the keys, in order. */
+    List<K> values() {
+        List<K> values = new ArrayList<>(size);
+        for (K key : this)
+            values.add(key);
+        return values;
+    }
+
+    /** Iterates over the keys in order. The index must not be changed meanwhile. */
+    @Override
+    public Iterator<K> iterator() {
+        return new Iterator<K>() {
+            private int entry = skipRemoved(0);
+
+            @Override
+            public boolean hasNext() {
+                return entry < entries;
+            }
+
+            @Override
+            public K next() {
+                if (entry >= entries)
+                    throw new NoSuchElementException();
+                K key = key(entry);
+                entry = skipRemoved(entry + 1);
+                return key;
+            }
+        };
+    }
+
+    private int skipRemoved(int entry) {
+        while (entry < entries && keys[entry] == null)
+            entry++;
+        return entry;
+    }
+
+    @SuppressWarnings("unchecked")
+    private K key(int entry) {
+        return (K) keys[entry];
+    }
+
+    // Returns the slot of the entry with the given bytes, or -1
+    private int find(byte[] id, int hash) {
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int value = table[slot];
+            if (value == 0)
+                return -1;
+            if (value != REMOVED && hashes[value - 1] == hash && matches(value - 1, id))
+                return slot;
+        }
+    }
+
+    private boolean matches(int entry, byte[] id) {
+        if (lengths[entry] != id.length)
+            return false;
+        int offset = offsets[entry];
+        for (int i = 0; i < id.length; i++)
+            if (bytes[offset + i] != id[i])
+                return false;
+        return true;
+    }
+
+    private void insert(int entry, int hash) {
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        while (table[slot] != 0)
+            slot = (slot + 1) & mask;
+        table[slot] = entry + 1;
+    }
+
+    private void reset(int capacity) {
+        // a power of two, for masking the hashes
+        table = new int[Integer.highestOneBit(capacity * 4 - 1)];
+        keys = new Object[capacity];
+        hashes = new int[capacity];
+        offsets = new int[capacity];
+        lengths = new int[capacity];
+        bytes = new byte[capacity * 33];
+        bytesUsed = 0;
+        entries = 0;
+        size = 0;
+    }
+
+    // Drops the removed entries and resizes for the given number of entries
+    private void rebuild(int capacity) {
+        Object[] oldKeys = keys;
+        int[] oldHashes = hashes, oldOffsets = offsets, oldLengths = lengths;
+        byte[] oldBytes = bytes;
+        int oldEntries = entries;
+        reset(capacity);
+        bytes = new byte[Math.max(bytes.length, oldBytes.length)];
+        for (int old = 0; old < oldEntries; old++) {
+            if (oldKeys[old] == null)
+                continue;
+            int entry = entries++;
+            keys[entry] = oldKeys[old];
+            hashes[entry] = oldHashes[old];
+            offsets[entry] = bytesUsed;
+            lengths[entry] = oldLengths[old];
+            System.arraycopy(oldBytes, oldOffsets[old], bytes, bytesUsed, oldLengths[old]);
+            bytesUsed += oldLengths[old];
+            insert(entry, hashes[entry]);
+        }
+        size = entries;
+    }
+
+    private static int hash(byte[] id) {
+        int hash = 1;
+        for (byte b : id)
+            hash = 31 * hash + b;
+        // spread the bits, the table uses the lowest ones
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.wallet;
+
+import org.bitcoinj.coinjoin.CoinJoin;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.TransactionOutPoint;
+import org.bitcoinj.core.TransactionOutput;
+
+import javax.annotation.Nullable;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * <p>The set of unspent outputs of a wallet, indexed so that balances and coin selection don't have to look at every
+ * transaction of the wallet. Besides the outputs it keeps</p>
+ *
+ * <ul>
+ *     <li>a map from outpoints to the outputs,</li>
+ *     <li>the outputs grouped by {@link Kind}, the kinds of amounts that {@link CoinType} selects by, and</li>
+ *     <li>running totals of the value of all outputs and of the outputs of each kind.</li>
+ * </ul>
+ *
+ * <p>The outputs are compared with {@link TransactionOutput#equals(Object)} like in a {@link HashSet}, and must belong
+ * to a transaction. Like the rest of the wallet, this class is guarded by the wallet lock.</p>
+ */
+public class UnspentOutputIndex extends AbstractSet<TransactionOutput> {
+
+    /** The kinds of amounts the outputs are grouped by. */
+    public enum Kind {
+        /** A CoinJoin denomination, see {@link CoinJoin#isDenominatedAmount(Coin)}. */
+        DENOMINATED,
+        /** A CoinJoin collateral amount, see {@link CoinJoin#isCollateralAmount(Coin)}. */
+        COINJOIN_COLLATERAL,
+        /** The collateral of a masternode, 1000 DASH. */
+        MASTERNODE_COLLATERAL,
+        /** Any other amount. */
+        OTHER;
+
+        private static final Coin MASTERNODE_COLLATERAL_AMOUNT = Coin.valueOf(1000, 0);
+
+        public static Kind of(Coin value) {
+            if (CoinJoin.isDenominatedAmount(value))
+                return DENOMINATED;
+            if (CoinJoin.isCollateralAmount(value))
+                return COINJOIN_COLLATERAL;
+            if (value.equals(MASTERNODE_COLLATERAL_AMOUNT))
+                return MASTERNODE_COLLATERAL;
+            return OTHER;
+        }
+    }
+
+    private final HashSet<TransactionOutput> outputs = new HashSet<>();
+    private final HashMap<TransactionOutPoint, TransactionOutput> byOutPoint = new HashMap<>();
+    private final EnumMap<Kind, Set<TransactionOutput>> byKind = new EnumMap<>(Kind.class);
+    private final long[] kindValues = new long[Kind.values().length];
+    private long value;
+    private long version;
+
+    public UnspentOutputIndex() {
+        for (Kind kind : Kind.values())
+            byKind.put(kind, new LinkedHashSet<TransactionOutput>());
+    }
+
+    @Override
+    public boolean add(TransactionOutput output) {
+        checkNotNull(output.getParentTransaction());
+        if (!outputs.add(output))
+            return false;
+        byOutPoint.put(output.getOutPointFor(), output);
+        Kind kind = Kind.of(output.getValue());
+        byKind.get(kind).add(output);
+        kindValues[kind.ordinal()] += output.getValue().value;
+        value += output.getValue().value;
+        version++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!(o instanceof TransactionOutput) || !outputs.remove(o))
+            return false;
+        removeFromIndex((TransactionOutput) o);
+        return true;
+    }
+
+    // removes an output, that was already removed from the set of outputs, from the index
+    private void removeFromIndex(TransactionOutput output) {
+        byOutPoint.remove(output.getOutPointFor(), output);
+        Kind kind = Kind.of(output.getValue());
+        checkState(byKind.get(kind).remove(output));
+        kindValues[kind.ordinal()] -= output.getValue().value;
+        value -= output.getValue().value;
+        version++;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return outputs.contains(o);
+    }
+
+    @Override
+    public void clear() {
+        outputs.clear();
+        byOutPoint.clear();
+        for (Set<TransactionOutput> kindOutputs : byKind.values())
+            kindOutputs.clear();
+        Arrays.fill(kindValues, 0);
+        value = 0;
+        version++;
+    }
+
+    @Override
+    public int size() {
+        return outputs.size();
+    }
+
+    @Override
+    public Iterator<TransactionOutput> iterator() {
+        final Iterator<TransactionOutput> iterator = outputs.iterator();
+        return new Iterator<TransactionOutput>() {
+            @Nullable private TransactionOutput last;
+
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public TransactionOutput next() {
+                return last = iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                checkState(last != null);
+                iterator.remove();
+                removeFromIndex(last);
+                last = null;
+            }
+        };
+    }
+
+    /** Returns the unspent output at the given outpoint, or null if there is none. */
+    @Nullable
+    public TransactionOutput get(TransactionOutPoint outPoint) {
+        return byOutPoint.get(outPoint);
+    }
+
+    /** Returns the total value of the outputs. */
+    public Coin getValue() {
+        return Coin.valueOf(value);
+    }
+
+    /** Returns the total value of the outputs of the given kind. */
+    public Coin getValue(Kind kind) {
+        return Coin.valueOf(kindValues[kind.ordinal()]);
+    }
+
+    /** Returns an unmodifiable view of the outputs of the given kind, in the order they were added. */
+    public Set<TransactionOutput> getOutputs(Kind kind) {
+        return Collections.unmodifiableSet(byKind.get(kind));
+    }
+
+    /**
+     * Returns the outputs that may be of the given coin type, which are all outputs of the kinds of amounts the coin
+     * type selects from. Whether a denomination is fully mixed depends on its CoinJoin rounds and is left to the caller.
+     */
+    public Collection<TransactionOutput> getOutputs(CoinType coinType) {
+        switch (coinType) {
+            case ONLY_FULLY_MIXED:
+            case ONLY_READY_TO_MIX:
+                return getOutputs(Kind.DENOMINATED);
+            case ONLY_COINJOIN_COLLATERAL:
+                return getOutputs(Kind.COINJOIN_COLLATERAL);
+            case ONLY_MASTERNODE_COLLATERAL:
+                return getOutputs(Kind.MASTERNODE_COLLATERAL);
+            case ONLY_NONDENOMINATED:
+                List<TransactionOutput> nonDenominated = new ArrayList<>(byKind.get(Kind.OTHER).size()
+                        + byKind.get(Kind.MASTERNODE_COLLATERAL).size());
+                nonDenominated.addAll(byKind.get(Kind.OTHER));
+                nonDenominated.addAll(byKind.get(Kind.MASTERNODE_COLLATERAL));
+                return nonDenominated;
+            default:
+                return Collections.unmodifiableSet(outputs);
+        }
+    }
+
+    /** Returns a number that changes whenever an output is added or removed. */
+    public long getVersion() {
+        return version;
+    }
+}
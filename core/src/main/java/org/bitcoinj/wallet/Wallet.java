@@ -165,7 +165,12 @@ public class Wallet extends BaseTaggableObject
 
     // All the TransactionOutput objects that we could spend (ignoring whether we have the private key or not).
     // Used to speed up various calculations.
-    protected final HashSet<TransactionOutput> myUnspents = Sets.newHashSet();
+    protected final UnspentOutputIndex myUnspents = new UnspentOutputIndex();
+
+    // The balances calculated since the unspent outputs or anything else a balance depends on last changed.
+    private final ConcurrentHashMap<BalanceType, CachedBalance> balanceCache = new ConcurrentHashMap<>();
+    // Incremented whenever a balance may change other than by adding or removing unspent outputs.
+    private final AtomicLong balanceCacheVersion = new AtomicLong();
 
     // Index mapping outpoints to transaction hashes that spend them.
     // Used to make findDoubleSpendsAgainst() O(I) instead of O(W × I).
@@ -220,10 +225,13 @@ public class Wallet extends BaseTaggableObject
     // as a convenience to API users so they don't have to register on every transaction themselves.
     private TransactionConfidence.Listener txConfidenceListener;
 
-    // If a TX hash appears in this set then notifyNewBestBlock will ignore it, as its confidence was already set up
-    // in receive() via Transaction.setBlockAppearance(). As the BlockChain always calls notifyNewBestBlock even if
-    // it sent transactions to the wallet, without this we'd double count.
+    // If a TX hash appears in this set then notifyNewBestBlock will not notify it of the new block, as its confidence
+    // was already set up in receive() via Transaction.setBlockAppearance(). Only used if notifyTxOnNextBlock is set.
     private HashSet<Sha256Hash> ignoreNextNewBlock;
+    // Knows the best chain height for the confidence of our transactions, which derive their depth from it, and the
+    // depths that are waited for, so that notifyNewBestBlock doesn't need to touch every transaction. The height is the
+    // one of the confidence table of the context, the confidence objects are shared with the other wallets.
+    private final DepthThresholdIndex depthIndex;
     // Whether or not to ignore pending transactions that are considered risky by the configured risk analyzer.
     private boolean acceptRiskyTransactions;
     // Object that performs risk analysis of pending transactions. We might reject transactions that seem like
@@ -268,7 +276,8 @@ public class Wallet extends BaseTaggableObject
     @GuardedBy("lock") protected HashSet<TransactionOutPoint> lockedOutputs = Sets.newHashSet();
     // save now on blocks with transactions
     private boolean saveOnNextBlock = true;
-    private boolean notifyTxOnNextBlock = true;
+    // inform the confidence listeners of all BUILDING transactions on every block
+    private boolean notifyTxOnNextBlock = false;
 
     /**
      * Creates a new, empty wallet with a randomly chosen seed and no transactions. Make sure to provide for sufficient
@@ -491,6 +500,7 @@ public class Wallet extends BaseTaggableObject
         this.context = checkNotNull(context);
         this.params = checkNotNull(context.getParams());
         this.keyChainGroup = checkNotNull(keyChainGroup);
+        depthIndex = new DepthThresholdIndex(context.getConfidenceTable());
         watchedScripts = Sets.newHashSet();
         unspent = new HashMap<>();
         spent = new HashMap<>();
@@ -514,6 +524,8 @@ public class Wallet extends BaseTaggableObject
         txConfidenceListener = new TransactionConfidence.Listener() {
             @Override
             public void onConfidenceChanged(TransactionConfidence confidence, TransactionConfidence.Listener.ChangeReason reason) {
+                // whether an output is available depends on the confidence of its transaction
+                invalidateBalances();
                 // This will run on the user code thread so we shouldn't do anything too complicated here.
                 // We only want to queue a wallet changed event and auto-save if the number of peers announcing
                 // the transaction has changed, as that confidence change is made by the networking code which
@@ -849,7 +861,9 @@ public class Wallet extends BaseTaggableObject
     public boolean removeKey(ECKey key) {
         keyChainGroupLock.lock();
         try {
-            return keyChainGroup.removeImportedKey(key);
+            boolean removed = keyChainGroup.removeImportedKey(key);
+            invalidateBalances();
+            return removed;
         } finally {
             keyChainGroupLock.unlock();
         }
@@ -927,6 +941,8 @@ public class Wallet extends BaseTaggableObject
         keyChainGroupLock.lock();
         try {
             result = keyChainGroup.importKeys(keys);
+            // an imported key may make a watched output spendable
+            invalidateBalances();
         } finally {
             keyChainGroupLock.unlock();
         }
@@ -957,7 +973,9 @@ public class Wallet extends BaseTaggableObject
         keyChainGroupLock.lock();
         try {
             checkNoDeterministicKeys(keys);
-            return keyChainGroup.importKeysAndEncrypt(keys, aesKey);
+            int result = keyChainGroup.importKeysAndEncrypt(keys, aesKey);
+            invalidateBalances();
+            return result;
         } finally {
             keyChainGroupLock.unlock();
         }
@@ -978,6 +996,7 @@ public class Wallet extends BaseTaggableObject
         keyChainGroupLock.lock();
         try {
             keyChainGroup.addAndActivateHDChain(chain);
+            invalidateBalances();
         } finally {
             keyChainGroupLock.unlock();
         }
@@ -1866,6 +1885,14 @@ public class Wallet extends BaseTaggableObject
         return saveOnNextBlock;
     }
 
+    /**
+     * <p>Sets whether the confidence listeners of all BUILDING transactions are informed with
+     * {@link TransactionConfidence.Listener.ChangeReason#DEPTH} on every new block. The depth of the transactions
+     * follows the last seen block height either way, and futures from
+     * {@link TransactionConfidence#getDepthFuture(int)} as well as transactions added with
+     * {@link #addManualNotifyConfidenceChangeTransaction(Transaction)} are informed when needed, so this is off by
+     * default: it makes every block cost as much as the number of transactions in the wallet.</p>
+     */
     public void setNotifyTxOnNextBlock(boolean notifyTxOnNextBlock) {
         this.notifyTxOnNextBlock = notifyTxOnNextBlock;
     }
@@ -2319,6 +2346,16 @@ public class Wallet extends BaseTaggableObject
         return doubleSpendTxns;
     }
 
+    /**
+     * Returns the ids of the wallet transactions that spend the given outpoint, which may be more than one if they
+     * double spend it.
+     */
+    protected Set<Sha256Hash> getSpendingTransactionIds(TransactionOutPoint outPoint) {
+        checkState(lock.getReadHoldCount() > 0 || lock.writeLock().isHeldByCurrentThread());
+        Set<Sha256Hash> txHashes = spentOutpointsIndex.get(outPoint);
+        return txHashes != null ? Collections.unmodifiableSet(txHashes) : Collections.<Sha256Hash>emptySet();
+    }
+
     private void removeFromSpentOutpointsIndex(Transaction tx) {
         checkState(lock.writeLock().isHeldByCurrentThread());
         for (TransactionInput input : tx.getInputs()) {
@@ -2479,9 +2516,9 @@ public class Wallet extends BaseTaggableObject
             tx.setBlockAppearance(block, bestChain, relativityOffset);
             if (bestChain) {
                 // Don't notify this tx of work done in notifyNewBestBlock which will be called immediately after
-                // this method has been called by BlockChain for all relevant transactions. Otherwise we'd double
-                // count.
+                // this method has been called by BlockChain for all relevant transactions.
                 ignoreNextNewBlock.add(txHash);
+                watchEventHorizon(tx.getConfidence());
 
                 // When a tx is received from the best chain, if other txns that spend this tx are IN_CONFLICT,
                 // change its confidence to PENDING (Unless they are also spending other txns IN_CONFLICT).
@@ -2622,59 +2659,36 @@ public class Wallet extends BaseTaggableObject
             return;
         lock.writeLock().lock();
         try {
+            // coinbases may have matured
+            invalidateBalances();
             // Store the new block hash.
             setLastBlockSeenHash(newBlockHash);
             setLastBlockSeenHeight(block.getHeight());
             setLastBlockSeenTimeSecs(block.getHeader().getTimeSeconds());
-            // Notify all the BUILDING transactions of the new block.
-            // This is so that they can update their depth.
-            if (notifyTxOnNextBlock) {
-                Set<Transaction> transactions = getTransactions(true);
-                for (Transaction tx : transactions) {
-                    if (ignoreNextNewBlock.contains(tx.getTxId())) {
-                        // tx was already processed in receive() due to it appearing in this block, so we don't want to
-                        // increment the tx confidence depth twice, it'd result in miscounting.
-                        ignoreNextNewBlock.remove(tx.getTxId());
-                    } else {
-                        TransactionConfidence confidence = tx.getConfidence();
-                        if (confidence.getConfidenceType() == ConfidenceType.BUILDING) {
-                            // Erase the set of seen peers once the tx is so deep that it seems unlikely to ever go
-                            // pending again. We could clear this data the moment a tx is seen in the block chain, but
-                            // in cases where the chain re-orgs, this would mean that wallets would perceive a newly
-                            // pending tx has zero confidence at all, which would not be right: we expect it to be
-                            // included once again. We could have a separate was-in-chain-and-now-isn't confidence type
-                            // but this way is backwards compatible with existing software, and the new state probably
-                            // wouldn't mean anything different to just remembering peers anyway.
-                            if (confidence.incrementDepthInBlocks() > context.getEventHorizon())
-                                confidence.clearBroadcastBy();
-                            confidenceChanged.put(tx, TransactionConfidence.Listener.ChangeReason.DEPTH);
-                        }
-                    }
-                }
-            } else {
-                for (Transaction tx : manualConfidenceChangeTransactions.keySet()) {
-                    if (ignoreNextNewBlock.contains(tx.getTxId())) {
-                        // tx was already processed in receive() due to it appearing in this block, so we don't want to
-                        // increment the tx confidence depth twice, it'd result in miscounting.
-                        ignoreNextNewBlock.remove(tx.getTxId());
-                    } else {
-                        TransactionConfidence confidence = tx.getConfidence();
-                        if (confidence.getConfidenceType() == ConfidenceType.BUILDING) {
-                            // Erase the set of seen peers once the tx is so deep that it seems unlikely to ever go
-                            // pending again. We could clear this data the moment a tx is seen in the block chain, but
-                            // in cases where the chain re-orgs, this would mean that wallets would perceive a newly
-                            // pending tx has zero confidence at all, which would not be right: we expect it to be
-                            // included once again. We could have a separate was-in-chain-and-now-isn't confidence type
-                            // but this way is backwards compatible with existing software, and the new state probably
-                            // wouldn't mean anything different to just remembering peers anyway.
-                            confidence.setDepthInBlocks(lastBlockSeenHeight - confidence.getAppearedAtChainHeight() + 1);
-                            if (confidence.getDepthInBlocks() > context.getEventHorizon())
-                                confidence.clearBroadcastBy();
-                            confidenceChanged.put(tx, TransactionConfidence.Listener.ChangeReason.DEPTH);
-                        }
-                    }
+            context.getConfidenceTable().setBestChainHeight(block.getHeight());
+            // The BUILDING transactions derive their depth from the best chain height, so only the depths waited
+            // for that are reached by this block need to be looked at.
+            for (DepthThresholdIndex.Threshold threshold : depthIndex.poll()) {
+                TransactionConfidence confidence = threshold.confidence;
+                if (threshold.eventHorizon) {
+                    confidence.clearBroadcastBy();
+                    continue;
                 }
+                Transaction tx = transactions.get(confidence.getTransactionHash());
+                if (tx != null)
+                    confidenceChanged.put(tx, TransactionConfidence.Listener.ChangeReason.DEPTH);
+                else
+                    confidence.queueListeners(TransactionConfidence.Listener.ChangeReason.DEPTH);
+            }
+            Iterable<Transaction> notified = notifyTxOnNextBlock ? getTransactions(true)
+                    : manualConfidenceChangeTransactions.keySet();
+            for (Transaction tx : notified) {
+                // A tx that appeared in this block was already notified by receive().
+                if (!ignoreNextNewBlock.contains(tx.getTxId())
+                        && tx.getConfidence().getConfidenceType() == ConfidenceType.BUILDING)
+                    confidenceChanged.put(tx, TransactionConfidence.Listener.ChangeReason.DEPTH);
             }
+            ignoreNextNewBlock.clear();
             informConfidenceListenersIfNotReorganizing();
             maybeQueueOnWalletChanged();
 
@@ -2691,7 +2705,8 @@ public class Wallet extends BaseTaggableObject
     }
 
     /**
-     * update transaction depths and notify
+     * Notifies the confidence listeners of all BUILDING transactions of their depth. The depth itself follows the last
+     * seen block height without this.
      */
     public void updateTransactionDepth() {
         lock.writeLock().lock();
@@ -2700,14 +2715,6 @@ public class Wallet extends BaseTaggableObject
             for (Transaction tx : transactions) {
                 TransactionConfidence confidence = tx.getConfidence();
                 if (confidence.getConfidenceType() == ConfidenceType.BUILDING) {
-                    // Erase the set of seen peers once the tx is so deep that it seems unlikely to ever go
-                    // pending again. We could clear this data the moment a tx is seen in the block chain, but
-                    // in cases where the chain re-orgs, this would mean that wallets would perceive a newly
-                    // pending tx has zero confidence at all, which would not be right: we expect it to be
-                    // included once again. We could have a separate was-in-chain-and-now-isn't confidence type
-                    // but this way is backwards compatible with existing software, and the new state probably
-                    // wouldn't mean anything different to just remembering peers anyway.
-                    confidence.setDepthInBlocks(lastBlockSeenHeight - confidence.getAppearedAtChainHeight() + 1);
                     if (confidence.getDepthInBlocks() > context.getEventHorizon())
                         confidence.clearBroadcastBy();
                     confidenceChanged.put(tx, TransactionConfidence.Listener.ChangeReason.DEPTH);
@@ -3318,6 +3325,7 @@ public class Wallet extends BaseTaggableObject
 
     private void queueOnTransactionConfidenceChanged(final Transaction tx) {
         checkState(lock.writeLock().isHeldByCurrentThread());
+        invalidateBalances();
         for (final ListenerRegistration<TransactionConfidenceEventListener> registration : transactionConfidenceListeners) {
             if (registration.executor == Threading.SAME_THREAD) {
                 registration.listener.onTransactionConfidenceChanged(this, tx);
@@ -3336,6 +3344,8 @@ public class Wallet extends BaseTaggableObject
         // Don't invoke the callback in some circumstances, eg, whilst we are re-organizing or fiddling with
         // transactions due to a new block arriving. It will be called later instead.
         checkState(lock.writeLock().isHeldByCurrentThread());
+        // whatever changed may change the balances, even if the event is suppressed
+        invalidateBalances();
         checkState(onWalletChangedSuppressions >= 0);
         if (onWalletChangedSuppressions > 0) return;
         for (final ListenerRegistration<WalletChangeEventListener> registration : changeListeners) {
@@ -3505,11 +3515,35 @@ public class Wallet extends BaseTaggableObject
         }
     }
 
+    /**
+     * Adds transactions that have been associated with wallet pools, like {@link #addWalletTransaction(WalletTransaction)}
+     * does for one of them, but taking the wallet lock only once. All transactions are put into their pools before any
+     * of the indexes that are derived from the pools, such as the unspent outputs, are updated.
+     */
+    public void addWalletTransactions(Collection<WalletTransaction> wtxs) {
+        lock.writeLock().lock();
+        try {
+            invalidateBalances();
+            for (WalletTransaction wtx : wtxs)
+                addToPool(wtx.getPool(), wtx.getTransaction());
+            for (WalletTransaction wtx : wtxs)
+                indexWalletTransaction(wtx.getPool(), wtx.getTransaction());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
     /**
      * Adds the given transaction to the given pools and registers a confidence change listener on it.
      */
     protected void addWalletTransaction(Pool pool, Transaction tx) {
         checkState(lock.writeLock().isHeldByCurrentThread());
+        invalidateBalances();
+        addToPool(pool, tx);
+        indexWalletTransaction(pool, tx);
+    }
+
+    private void addToPool(Pool pool, Transaction tx) {
         transactions.put(tx.getTxId(), tx);
         switch (pool) {
         case UNSPENT:
@@ -3527,6 +3561,10 @@ public class Wallet extends BaseTaggableObject
         default:
             throw new RuntimeException("Unknown wallet transaction type " + pool);
         }
+    }
+
+    // updates the indexes derived from the pools for a transaction that was just added to the given pool
+    private void indexWalletTransaction(Pool pool, Transaction tx) {
         if (pool == Pool.UNSPENT || pool == Pool.PENDING) {
             for (TransactionOutput output : tx.getOutputs()) {
                 if (output.isAvailableForSpending() && output.isMineOrWatched(this))
@@ -3540,7 +3578,22 @@ public class Wallet extends BaseTaggableObject
         }
         // This is safe even if the listener has been added before, as TransactionConfidence ignores duplicate
         // registration requests. That makes the code in the wallet simpler.
-        tx.getConfidence().addEventListener(Threading.SAME_THREAD, txConfidenceListener);
+        TransactionConfidence confidence = tx.getConfidence();
+        confidence.addEventListener(Threading.SAME_THREAD, txConfidenceListener);
+        confidence.addDepthTracker(depthIndex);
+        if (confidence.getConfidenceType() == ConfidenceType.BUILDING)
+            watchEventHorizon(confidence);
+    }
+
+    // Erase the set of seen peers once the tx is so deep that it seems unlikely to ever go pending again. We could
+    // clear this data the moment a tx is seen in the block chain, but in cases where the chain re-orgs, this would
+    // mean that wallets would perceive a newly pending tx has zero confidence at all, which would not be right: we
+    // expect it to be included once again. We could have a separate was-in-chain-and-now-isn't confidence type but
+    // this way is backwards compatible with existing software, and the new state probably wouldn't mean anything
+    // different to just remembering peers anyway.
+    private void watchEventHorizon(TransactionConfidence confidence) {
+        if (confidence.numBroadcastPeers() > 0)
+            depthIndex.watchEventHorizon(confidence, context.getEventHorizon());
     }
 
     /**
@@ -3650,7 +3703,7 @@ public class Wallet extends BaseTaggableObject
             clearTransactions();
             spentOutpointsIndex.clear();
             lastBlockSeenHash = null;
-            lastBlockSeenHeight = -1; // Magic value for 'never'.
+            setLastBlockSeenHeight(-1); // Magic value for 'never'.
             lastBlockSeenTimeSecs = 0;
             saveLater();
             queueOnReset();
@@ -3686,6 +3739,7 @@ public class Wallet extends BaseTaggableObject
         dead.clear();
         transactions.clear();
         myUnspents.clear();
+        depthIndex.clear();
     }
 
     /**
@@ -4052,6 +4106,7 @@ public class Wallet extends BaseTaggableObject
         lock.writeLock().lock();
         try {
             this.lastBlockSeenHeight = lastBlockSeenHeight;
+            depthIndex.setLastSeenBlockHeight(lastBlockSeenHeight);
         } finally {
             lock.writeLock().unlock();
         }
@@ -4211,12 +4266,57 @@ public class Wallet extends BaseTaggableObject
      * Returns the balance of this wallet as calculated by the provided balanceType.
      */
     public Coin getBalance(BalanceType balanceType) {
+        lock.readLock().lock();
+        try {
+            // Whether a pending transaction can be spent depends on how many peers announced it, which changes
+            // without the wallet being told
+            if (vUTXOProvider != null || !pending.isEmpty())
+                return calculateBalance(balanceType);
+            // The version is read before the balance is calculated, so that a change while it is calculated makes
+            // the cached balance stale rather than wrong
+            long version = balanceCacheVersion.get();
+            long unspentsVersion = myUnspents.getVersion();
+            CachedBalance cached = balanceCache.get(balanceType);
+            if (cached != null && cached.version == version && cached.unspentsVersion == unspentsVersion)
+                return cached.value;
+            Coin value = calculateBalance(balanceType);
+            balanceCache.put(balanceType, new CachedBalance(version, unspentsVersion, value));
+            return value;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static class CachedBalance {
+        final long version;
+        final long unspentsVersion;
+        final Coin value;
+
+        CachedBalance(long version, long unspentsVersion, Coin value) {
+            this.version = version;
+            this.unspentsVersion = unspentsVersion;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Makes {@link #getBalance(BalanceType)} calculate the balances again. Adding and removing unspent outputs does
+     * this already, this is for changes to what the outputs count for, like the confidence of their transactions.
+     */
+    protected void invalidateBalances() {
+        balanceCacheVersion.incrementAndGet();
+    }
+
+    private Coin calculateBalance(BalanceType balanceType) {
         lock.readLock().lock();
         try {
             if (balanceType == BalanceType.AVAILABLE || balanceType == BalanceType.AVAILABLE_SPENDABLE) {
                 List<TransactionOutput> candidates = calculateAllSpendCandidates(true, balanceType == BalanceType.AVAILABLE_SPENDABLE);
                 CoinSelection selection = coinSelector.select(MAX_MONEY, candidates);
                 return selection.valueGathered;
+            } else if (balanceType == BalanceType.ESTIMATED && vUTXOProvider == null) {
+                // the running total of the unspent outputs
+                return myUnspents.getValue();
             } else if (balanceType == BalanceType.ESTIMATED || balanceType == BalanceType.ESTIMATED_SPENDABLE) {
                 List<TransactionOutput> all = calculateAllSpendCandidates(false, balanceType == BalanceType.ESTIMATED_SPENDABLE);
                 Coin value = Coin.ZERO;
@@ -5001,6 +5101,7 @@ public class Wallet extends BaseTaggableObject
         lock.writeLock().lock();
         try {
             this.coinSelector = checkNotNull(coinSelector);
+            invalidateBalances();
         } finally {
             lock.writeLock().unlock();
         }
@@ -5230,17 +5331,16 @@ public class Wallet extends BaseTaggableObject
             // mempool and so T1 is still seen as a losing double spend.
 
             // The old blocks have contributed to the depth for all the transactions in the
-            // wallet that are in blocks up to and including the chain split block.
-            // The total depth is calculated here and then subtracted from the appropriate transactions.
-            int depthToSubtract = oldBlocks.size();
-            log.info("depthToSubtract = " + depthToSubtract);
-            // Remove depthToSubtract from all transactions in the wallet except for pending.
-            subtractDepth(depthToSubtract, spent.values());
-            subtractDepth(depthToSubtract, unspent.values());
-            subtractDepth(depthToSubtract, dead.values());
-
+            // wallet that are in blocks up to and including the chain split block. Their depth follows the best chain
+            // height, so moving it back to the split point subtracts the depth of the old blocks.
+            log.info("depthToSubtract = " + oldBlocks.size());
             // The effective last seen block is now the split point so set the lastSeenBlockHash.
             setLastBlockSeenHash(splitPoint.getHeader().getHash());
+            setLastBlockSeenHeight(splitPoint.getHeight());
+            context.getConfidenceTable().setBestChainHeight(splitPoint.getHeight());
+            queueDepthChanged(spent.values());
+            queueDepthChanged(unspent.values());
+            queueDepthChanged(dead.values());
 
             // For each block in the new chain, work forwards calling receive() and notifyNewBestBlock().
             // This will pull them back out of the pending pool, or if the tx didn't appear in the old chain and
@@ -5275,14 +5375,12 @@ public class Wallet extends BaseTaggableObject
     }
 
     /**
-     * Subtract the supplied depth from the given transactions.
+     * Queues a depth change notification for the BUILDING transactions among the given ones.
      */
-    private void subtractDepth(int depthToSubtract, Collection<Transaction> transactions) {
+    private void queueDepthChanged(Collection<Transaction> transactions) {
         for (Transaction tx : transactions) {
-            if (tx.getConfidence().getConfidenceType() == ConfidenceType.BUILDING) {
-                tx.getConfidence().setDepthInBlocks(tx.getConfidence().getDepthInBlocks() - depthToSubtract);
+            if (tx.getConfidence().getConfidenceType() == ConfidenceType.BUILDING)
                 confidenceChanged.put(tx, TransactionConfidence.Listener.ChangeReason.DEPTH);
-            }
         }
     }
 
@@ -5300,6 +5398,59 @@ public class Wallet extends BaseTaggableObject
     // Used to track whether we must automatically begin/end a filter calculation and calc outpoints/take the locks.
     private final AtomicInteger bloomFilterGuard = new AtomicInteger(0);
 
+    // The filter elements of the keys that were added since the oldest snapshot, logged on the thread that added them.
+    @GuardedBy("bloomFilterLog") private final ArrayList<byte[]> bloomFilterLog = new ArrayList<>();
+    // The position of the first element of the log among all elements that were ever logged.
+    @GuardedBy("bloomFilterLog") private long bloomFilterLogStart;
+    private static final int MAX_BLOOM_FILTER_LOG_SIZE = 100000;
+
+    private final KeyChainEventListener bloomFilterKeyListener = new KeyChainEventListener() {
+        @Override
+        public void onKeysAdded(List<IKey> keys) {
+            // an added key may make a watched output spendable
+            invalidateBalances();
+            synchronized (bloomFilterLog) {
+                for (IKey key : keys) {
+                    bloomFilterLog.add(key.getPubKey());
+                    bloomFilterLog.add(key.getPubKeyHash());
+                }
+                if (bloomFilterLog.size() > MAX_BLOOM_FILTER_LOG_SIZE) {
+                    // nobody reads the log, the snapshots will have to be replaced
+                    bloomFilterLogStart += bloomFilterLog.size();
+                    bloomFilterLog.clear();
+                }
+            }
+        }
+    };
+
+    /** The filter elements of the wallet when a filter was calculated, see {@link #getBloomFilterSequence()}. */
+    private static class BloomFilterSnapshot {
+        final long sequence;
+        final long logPosition;
+        final int keyElementCount;
+        final Set<Script> watchedScripts;
+        final Set<TransactionOutPoint> outPoints;
+        final Set<Sha256Hash> specialTxHashes;
+        final Set<Script> specialTxScripts;
+
+        BloomFilterSnapshot(long sequence, long logPosition, int keyElementCount, Set<Script> watchedScripts,
+                            Set<TransactionOutPoint> outPoints, Set<Sha256Hash> specialTxHashes,
+                            Set<Script> specialTxScripts) {
+            this.sequence = sequence;
+            this.logPosition = logPosition;
+            this.keyElementCount = keyElementCount;
+            this.watchedScripts = watchedScripts;
+            this.outPoints = outPoints;
+            this.specialTxHashes = specialTxHashes;
+            this.specialTxScripts = specialTxScripts;
+        }
+    }
+
+    // The last two snapshots, so that the changes since the previous one can be listed after taking a new one.
+    @GuardedBy("keyChainGroupLock") private BloomFilterSnapshot bloomFilterSnapshot;
+    @GuardedBy("keyChainGroupLock") private BloomFilterSnapshot previousBloomFilterSnapshot;
+    @GuardedBy("keyChainGroupLock") private long bloomFilterSequence;
+
     @Override
     public void beginBloomFilterCalculation() {
         if (bloomFilterGuard.incrementAndGet() > 1)
@@ -5368,7 +5519,7 @@ public class Wallet extends BaseTaggableObject
         beginBloomFilterCalculation();
         try {
             int size = bloomOutPoints.size();
-            size += keyChainGroup.getBloomFilterElementCount();
+            size += getBloomFilterKeyElementCount();
             // Some scripts may have more than one bloom element.  That should normally be okay, because under-counting
             // just increases false-positive rate.
             size += watchedScripts.size();
@@ -5376,19 +5527,134 @@ public class Wallet extends BaseTaggableObject
             size += bloomSpecialTxHashes.size();
             size += bloomSpecialTxScripts.size();
             size += bloomSpecialTxOutpoints.size();
+            return size;
+        } finally {
+            endBloomFilterCalculation();
+        }
+    }
+
+    /** Returns the number of filter elements of the keys of the wallet, its friends and its extensions. */
+    @GuardedBy("keyChainGroupLock")
+    private int getBloomFilterKeyElementCount() {
+        int size = keyChainGroup.getBloomFilterElementCount();
+        if (receivingFromFriendsGroup != null)
+            size += receivingFromFriendsGroup.getBloomFilterElementCount();
+        for (KeyChainGroupExtension extension : keyChainExtensions.values()) {
+            if (extension.supportsBloomFilters()) {
+                size += extension.getBloomFilterElementCount();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Takes a snapshot of the elements of the filter, see {@link PeerFilterProvider#getBloomFilterSequence()}. The
+     * elements of the keys that are added later are logged by a listener on every key chain group; the outpoints,
+     * scripts and hashes are compared with the snapshot.
+     */
+    @Override
+    public long getBloomFilterSequence() {
+        beginBloomFilterCalculation();
+        try {
+            // the key chain groups of extensions and friends may have been created or replaced since the last time
+            registerBloomFilterKeyListener(keyChainGroup);
             if (receivingFromFriendsGroup != null)
-                size += receivingFromFriendsGroup.getBloomFilterElementCount();
+                registerBloomFilterKeyListener(receivingFromFriendsGroup);
             for (KeyChainGroupExtension extension : keyChainExtensions.values()) {
                 if (extension.supportsBloomFilters()) {
-                    size += extension.getBloomFilterElementCount();
+                    extension.removeEventListener(bloomFilterKeyListener);
+                    extension.addEventListener(bloomFilterKeyListener, Threading.SAME_THREAD);
                 }
             }
-            return size;
+            // counting the keys may derive lookahead keys, so count them before the log position is taken
+            int keyElementCount = getBloomFilterKeyElementCount();
+            Set<TransactionOutPoint> outPoints = new HashSet<>(bloomOutPoints);
+            outPoints.addAll(bloomSpecialTxOutpoints);
+            previousBloomFilterSnapshot = bloomFilterSnapshot;
+            synchronized (bloomFilterLog) {
+                bloomFilterSnapshot = new BloomFilterSnapshot(++bloomFilterSequence,
+                        bloomFilterLogStart + bloomFilterLog.size(), keyElementCount, new HashSet<>(watchedScripts),
+                        outPoints, new HashSet<>(bloomSpecialTxHashes), new HashSet<>(bloomSpecialTxScripts));
+                // only the elements since the previous snapshot are still needed
+                long oldest = previousBloomFilterSnapshot != null ?
+                        previousBloomFilterSnapshot.logPosition : bloomFilterSnapshot.logPosition;
+                int drop = (int) Math.max(0, Math.min(oldest - bloomFilterLogStart, bloomFilterLog.size()));
+                bloomFilterLog.subList(0, drop).clear();
+                bloomFilterLogStart += drop;
+            }
+            return bloomFilterSnapshot.sequence;
         } finally {
             endBloomFilterCalculation();
         }
     }
 
+    private void registerBloomFilterKeyListener(KeyChainGroup group) {
+        group.removeEventListener(bloomFilterKeyListener);
+        group.addEventListener(bloomFilterKeyListener, Threading.SAME_THREAD);
+    }
+
+    /**
+     * Returns the filter elements that were added since the given snapshot, or null if elements were removed, if keys
+     * were added that the listener did not see or if the snapshot is gone. Outpoints and special transaction elements
+     * that were removed are ignored, they only add to the false positive rate of the filter.
+     */
+    @Override
+    @Nullable
+    public List<byte[]> getBloomFilterElementsSince(long sequence) {
+        beginBloomFilterCalculation();
+        try {
+            BloomFilterSnapshot snapshot = null;
+            if (bloomFilterSnapshot != null && bloomFilterSnapshot.sequence == sequence)
+                snapshot = bloomFilterSnapshot;
+            else if (previousBloomFilterSnapshot != null && previousBloomFilterSnapshot.sequence == sequence)
+                snapshot = previousBloomFilterSnapshot;
+            if (snapshot == null || !watchedScripts.containsAll(snapshot.watchedScripts))
+                return null;
+            List<byte[]> elements = new ArrayList<>();
+            int keyElementCount = getBloomFilterKeyElementCount();
+            synchronized (bloomFilterLog) {
+                if (snapshot.logPosition < bloomFilterLogStart)
+                    return null;
+                int from = (int) (snapshot.logPosition - bloomFilterLogStart);
+                // every key adds two elements to the count and to the log, unless it was added without the listener
+                if (keyElementCount != snapshot.keyElementCount + bloomFilterLog.size() - from)
+                    return null;
+                elements.addAll(bloomFilterLog.subList(from, bloomFilterLog.size()));
+            }
+            for (Script script : watchedScripts) {
+                if (!snapshot.watchedScripts.contains(script))
+                    addBloomFilterScriptElements(script, elements);
+            }
+            for (TransactionOutPoint point : bloomOutPoints) {
+                if (!snapshot.outPoints.contains(point))
+                    elements.add(point.unsafeBitcoinSerialize());
+            }
+            for (TransactionOutPoint point : bloomSpecialTxOutpoints) {
+                if (!snapshot.outPoints.contains(point))
+                    elements.add(point.unsafeBitcoinSerialize());
+            }
+            for (Sha256Hash hash : bloomSpecialTxHashes) {
+                if (!snapshot.specialTxHashes.contains(hash))
+                    elements.add(hash.getReversedBytes());
+            }
+            for (Script script : bloomSpecialTxScripts) {
+                if (!snapshot.specialTxScripts.contains(script))
+                    addBloomFilterScriptElements(script, elements);
+            }
+            return elements;
+        } finally {
+            endBloomFilterCalculation();
+        }
+    }
+
+    private static void addBloomFilterScriptElements(Script script, List<byte[]> elements) {
+        for (ScriptChunk chunk : script.getChunks()) {
+            // Only add long (at least 64 bit) data to the bloom filter, as getBloomFilter does.
+            if (!chunk.isOpCode() && chunk.data.length >= MINIMUM_BLOOM_DATA_LENGTH)
+                elements.add(chunk.data);
+        }
+    }
+
     /**
      * If we are watching any scripts, the bloom filter must update on peers whenever an output is
      * identified.  This is because we don't necessarily have the associated pubkey, so we can't
@@ -5641,6 +5907,33 @@ public class Wallet extends BaseTaggableObject
         }
     }
      
+    /**
+     * Installs an extension that {@link WalletProtobufSerializer} deserialized without the wallet locks, while loading
+     * the wallet, or removes it if its deserialization failed, like {@link #deserializeExtension(WalletExtension, byte[])}
+     * does.
+     */
+    void installLoadedExtension(WalletExtension extension, boolean deserialized) {
+        lock.writeLock().lock();
+        keyChainGroupLock.lock();
+        try {
+            String id = extension.getWalletExtensionID();
+            if (extension instanceof KeyChainGroupExtension) {
+                if (deserialized)
+                    keyChainExtensions.put(id, (KeyChainGroupExtension) extension);
+                else
+                    keyChainExtensions.remove(id);
+            } else {
+                if (deserialized)
+                    extensions.put(id, extension);
+                else
+                    extensions.remove(id);
+            }
+        } finally {
+            keyChainGroupLock.unlock();
+            lock.writeLock().unlock();
+        }
+    }
+
     /**
      * Deserialize the wallet extension with the supplied data and then install it, replacing any existing extension
      * that may have existed with the same ID. If an exception is thrown then the extension is removed from the wallet,
@@ -6576,6 +6869,7 @@ public class Wallet extends BaseTaggableObject
         lock.writeLock().lock();
         try {
             log.info("lock output: {}:{}", outPoint.getHash(), outPoint.getIndex());
+            invalidateBalances();
             return lockedOutputs.add(outPoint);
         } finally {
             lock.writeLock().unlock();
@@ -6586,6 +6880,7 @@ public class Wallet extends BaseTaggableObject
         lock.writeLock().lock();
         try {
             log.info("unlock output: {}:{}", outPoint.getHash(), outPoint.getIndex());
+            invalidateBalances();
             lockedOutputs.remove(outPoint);
         } finally {
             lock.writeLock().unlock();
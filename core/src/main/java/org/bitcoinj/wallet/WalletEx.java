@@ -32,6 +32,7 @@ import org.bitcoinj.evolution.EvolutionContact;
 import org.bitcoinj.script.Script;
 import org.bitcoinj.script.ScriptPattern;
 import org.bitcoinj.utils.MonetaryFormat;
+import org.bitcoinj.utils.Threading;
 import org.bouncycastle.crypto.params.KeyParameter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -39,7 +40,9 @@ import org.slf4j.LoggerFactory;
 import javax.annotation.Nullable;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -47,6 +50,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 import static com.google.common.base.Preconditions.checkState;
 import static org.bitcoinj.coinjoin.CoinJoinConstants.COINJOIN_EXTRA;
@@ -203,17 +207,8 @@ public class WalletEx extends Wallet {
     public Coin getBalance(BalanceType balanceType) {
         lock.readLock().lock();
         try {
-            if (balanceType == BalanceType.AVAILABLE || balanceType == BalanceType.AVAILABLE_SPENDABLE) {
-                List<TransactionOutput> candidates = calculateAllSpendCandidates(true, balanceType == BalanceType.AVAILABLE_SPENDABLE);
-                CoinSelection selection = coinSelector.select(MAX_MONEY, candidates);
-                return selection.valueGathered;
-            } else if (balanceType == BalanceType.ESTIMATED || balanceType == BalanceType.ESTIMATED_SPENDABLE) {
-                List<TransactionOutput> all = calculateAllSpendCandidates(false, balanceType == BalanceType.ESTIMATED_SPENDABLE);
-                Coin value = Coin.ZERO;
-                for (TransactionOutput out : all) value = value.add(out.getValue());
-                return value;
-            } else if (balanceType == BalanceType.COINJOIN|| balanceType == BalanceType.COINJOIN_SPENDABLE) {
-                List<TransactionOutput> all = calculateAllSpendCandidates(true, balanceType == BalanceType.COINJOIN_SPENDABLE);
+            if (balanceType == BalanceType.COINJOIN|| balanceType == BalanceType.COINJOIN_SPENDABLE) {
+                List<TransactionOutput> all = calculateDenominatedSpendCandidates(true, balanceType == BalanceType.COINJOIN_SPENDABLE);
                 Coin value = Coin.ZERO;
                 for (TransactionOutput out : all) {
                     // coinjoin outputs must be denominated, using coinjoin keys and fully mixed
@@ -224,7 +219,7 @@ public class WalletEx extends Wallet {
                 }
                 return value;
             } else if (balanceType == BalanceType.DENOMINATED || balanceType == BalanceType.DENOMINATED_SPENDABLE) {
-                List<TransactionOutput> candidates = calculateAllSpendCandidates(false, balanceType == BalanceType.DENOMINATED_SPENDABLE);
+                List<TransactionOutput> candidates = calculateDenominatedSpendCandidates(false, balanceType == BalanceType.DENOMINATED_SPENDABLE);
                 CoinSelection selection = DenominatedCoinSelector.get().select(MAX_MONEY, candidates);
                 Coin value = Coin.ZERO;
                 for (TransactionOutput out : selection.gathered) {
@@ -233,13 +228,37 @@ public class WalletEx extends Wallet {
                 }
                 return value;
             } else {
-                throw new AssertionError("Unknown balance type");  // Unreachable.
+                return super.getBalance(balanceType);
             }
         } finally {
             lock.readLock().unlock();
         }
     }
 
+    /**
+     * Returns the denominated outputs among {@link #calculateAllSpendCandidates(boolean, boolean)}, which unless there
+     * is a UTXO provider come from the index of denominated unspent outputs.
+     */
+    private List<TransactionOutput> calculateDenominatedSpendCandidates(boolean excludeImmatureCoinbases,
+                                                                        boolean excludeUnsignable) {
+        List<TransactionOutput> candidates = new ArrayList<>();
+        if (vUTXOProvider != null) {
+            for (TransactionOutput output : calculateAllSpendCandidates(excludeImmatureCoinbases, excludeUnsignable)) {
+                if (output.isDenominated())
+                    candidates.add(output);
+            }
+            return candidates;
+        }
+        for (TransactionOutput output : myUnspents.getOutputs(UnspentOutputIndex.Kind.DENOMINATED)) {
+            if (excludeUnsignable && !canSignFor(output.getScriptPubKey()))
+                continue;
+            if (excludeImmatureCoinbases && !output.getParentTransaction().isMature())
+                continue;
+            candidates.add(output);
+        }
+        return candidates;
+    }
+
     public Balance getBalanceInfo() {
         return new Balance()
                 .setMyTrusted(getBalance(BalanceType.AVAILABLE_SPENDABLE))
@@ -298,17 +317,79 @@ public class WalletEx extends Wallet {
         }
     }
 
+    // The CoinJoin rounds of outpoints, which is saved with the CoinJoinExtension so that the mixing history doesn't
+    // have to be walked again on startup. Entries are removed when the transactions they were calculated from change,
+    // see invalidateCoinJoinRounds. Guarded by roundsLock, which is taken after the wallet lock.
     HashMap<TransactionOutPoint, Integer> mapOutpointRoundsCache = new HashMap<>();
+    final ReentrantLock roundsLock = Threading.lock("wallet-coinjoin-rounds");
+    // set while transactions are restored from a saved wallet, whose rounds were saved with them
+    private boolean restoringTransactions = false;
+
     // Recursively determine the rounds of a given input (How deep is the CoinJoin chain for a given input)
     public int getRealOutpointCoinJoinRounds(TransactionOutPoint outPoint) {
         lock.readLock().lock();
+        roundsLock.lock();
         try {
             return getRealOutpointCoinJoinRounds(outPoint, 0);
         } finally {
+            roundsLock.unlock();
             lock.readLock().unlock();
         }
     }
 
+    /**
+     * Removes the cached CoinJoin rounds that were calculated while the given transaction wasn't in the wallet yet: the
+     * "no such tx" rounds of its own outputs and the rounds of all wallet transactions that descend from it, which
+     * arrived before it. The rounds of all other outputs stay cached.
+     */
+    void invalidateCoinJoinRounds(Transaction tx) {
+        checkState(lock.writeLock().isHeldByCurrentThread());
+        roundsLock.lock();
+        try {
+            if (mapOutpointRoundsCache.isEmpty())
+                return;
+            HashSet<Sha256Hash> visited = new HashSet<>();
+            ArrayDeque<Transaction> work = new ArrayDeque<>();
+            work.add(tx);
+            int removed = 0;
+            while (!work.isEmpty()) {
+                Transaction next = work.poll();
+                if (!visited.add(next.getTxId()))
+                    continue;
+                for (int i = 0; i < next.getOutputs().size(); i++) {
+                    TransactionOutPoint outPoint = new TransactionOutPoint(params, i, next.getTxId());
+                    Integer rounds = mapOutpointRoundsCache.get(outPoint);
+                    if (rounds != null && (next != tx || rounds == -1)) {
+                        mapOutpointRoundsCache.remove(outPoint);
+                        removed++;
+                    }
+                    for (Sha256Hash spenderId : getSpendingTransactionIds(outPoint)) {
+                        Transaction spender = getTransaction(spenderId);
+                        if (spender != null)
+                            work.add(spender);
+                    }
+                }
+            }
+            if (removed > 0)
+                log.info(COINJOIN_EXTRA, "invalidated the rounds of {} outpoints descending from {}", removed, tx.getTxId());
+        } finally {
+            roundsLock.unlock();
+        }
+    }
+
+    // calculates the rounds of the new denominated outputs of a transaction, so that they are saved with the wallet
+    private void updateCoinJoinRounds(Transaction tx) {
+        roundsLock.lock();
+        try {
+            for (TransactionOutput output : tx.getOutputs()) {
+                if (output.isDenominated() && isMine(output))
+                    getRealOutpointCoinJoinRounds(output.getOutPointFor(), 0);
+            }
+        } finally {
+            roundsLock.unlock();
+        }
+    }
+
     private int getRealOutpointCoinJoinRoundsInternal(TransactionOutPoint outPoint) {
         return getRealOutpointCoinJoinRounds(outPoint, 0);
     }
@@ -345,7 +426,12 @@ public class WalletEx extends Wallet {
     public void markAsFullyMixed(TransactionOutPoint outPoint) {
         lock.writeLock().lock();
         try {
-            mapOutpointRoundsCache.put(outPoint, 19);
+            roundsLock.lock();
+            try {
+                mapOutpointRoundsCache.put(outPoint, 19);
+            } finally {
+                roundsLock.unlock();
+            }
         } finally {
             lock.writeLock().unlock();
         }
@@ -353,6 +439,7 @@ public class WalletEx extends Wallet {
 
     // only call from other getRealOutputCoinJoinRounds
     int getRealOutpointCoinJoinRounds(TransactionOutPoint outpoint, int rounds) {
+        checkState(roundsLock.isHeldByCurrentThread());
         final int roundsMax = CoinJoinConstants.MAX_COINJOIN_ROUNDS + CoinJoinClientOptions.getRandomRounds();
         if (rounds >= roundsMax) {
             // there can only be roundsMax rounds max
@@ -367,10 +454,10 @@ public class WalletEx extends Wallet {
             return roundsRef;
         }
 
-        // TODO wtx should refer to a CWalletTx object, not a pointer, based on surrounding code
-        WalletTransaction wtx = getWalletTransaction(outpoint.getHash());
+        // only the transaction is needed, not its pool, which getWalletTransaction would search every pool for
+        Transaction tx = getTransaction(outpoint.getHash());
 
-        if (wtx == null || wtx.getTransaction() == null) {
+        if (tx == null) {
             // no such tx in this wallet
             roundsRef = -1;
             mapOutpointRoundsCache.put(outpoint, roundsRef);
@@ -380,7 +467,7 @@ public class WalletEx extends Wallet {
         }
 
         // bounds check
-        if (outpoint.getIndex() >= wtx.getTransaction().getOutputs().size()) {
+        if (outpoint.getIndex() >= tx.getOutputs().size()) {
             // should never actually hit this
             roundsRef = -4;
             mapOutpointRoundsCache.put(outpoint, roundsRef);
@@ -388,7 +475,7 @@ public class WalletEx extends Wallet {
             return roundsRef;
         }
 
-        TransactionOutput txOut = wtx.getTransaction().getOutput(outpoint.getIndex());
+        TransactionOutput txOut = tx.getOutput(outpoint.getIndex());
 
         if (CoinJoin.isCollateralAmount (txOut.getValue())) {
             roundsRef = -3;
@@ -407,7 +494,7 @@ public class WalletEx extends Wallet {
             return roundsRef;
         }
 
-        for (TransactionOutput out :wtx.getTransaction().getOutputs()) {
+        for (TransactionOutput out : tx.getOutputs()) {
             if (!CoinJoin.isDenominatedAmount (out.getValue())){
                 // this one is denominated but there is another non-denominated output found in the same tx
                 roundsRef = 0;
@@ -421,7 +508,7 @@ public class WalletEx extends Wallet {
         int nShortest = -10; // an initial value, should be no way to get this by calculations
         boolean fDenomFound = false;
         // only denoms here so let's look up
-        for (TransactionInput txinNext :wtx.getTransaction().getInputs()) {
+        for (TransactionInput txinNext : tx.getInputs()) {
             if (isMine(txinNext)) {
                 int n = getRealOutpointCoinJoinRounds(txinNext.getOutpoint(), rounds + 1);
                 // denom found, find the shortest chain or initially assign nShortest with the first found value
@@ -481,7 +568,12 @@ public class WalletEx extends Wallet {
     @VisibleForTesting
     public void clearAllCaches() {
         clearAnonymizableCaches();
-        mapOutpointRoundsCache.clear();
+        roundsLock.lock();
+        try {
+            mapOutpointRoundsCache.clear();
+        } finally {
+            roundsLock.unlock();
+        }
     }
     ArrayList<CompactTallyItem> vecAnonymizableTallyCachedNonDenom = new ArrayList<>();
 
@@ -627,7 +719,8 @@ public class WalletEx extends Wallet {
         lock.readLock().lock();
         try {
             int count = 0;
-            for (TransactionOutput output : myUnspents) {
+            // only the outputs with the same kind of amount can have the value
+            for (TransactionOutput output : myUnspents.getOutputs(UnspentOutputIndex.Kind.of(inputValue))) {
                 TransactionConfidence confidence = output.getParentTransaction().getConfidence(context);
                 // confirmations must be 0 or higher, not conflicted or dead
                 if (confidence != null && (confidence.getConfidenceType() == TransactionConfidence.ConfidenceType.PENDING || confidence.getConfidenceType() == TransactionConfidence.ConfidenceType.BUILDING)) {
@@ -758,9 +851,15 @@ public class WalletEx extends Wallet {
             // a coin control object is provided, and has the avoid address reuse flag set to false, do we allow already used addresses
             boolean allowUsedAddresses = /*!IsWalletFlagSet(WALLET_FLAG_AVOID_REUSE) ||*/ (coinControl != null && !coinControl.shouldAvoidAddressReuse());
 
-            for (Transaction coin : unspent.values()) {
+            // Only the unspent outputs of the kinds of amounts of the coin type are looked at, rather than all outputs
+            // of all transactions in the unspent pool
+            for (TransactionOutput output : myUnspents.getOutputs(nCoinType)) {
+                Transaction coin = output.getParentTransaction();
                 final Sha256Hash wtxid = coin.getTxId();
 
+                if (!unspent.containsKey(wtxid))
+                    continue;
+
                 if (!coin.isFinal(getLastBlockSeenHeight(), getLastBlockSeenTimeSecs()))
                     continue;
 
@@ -777,68 +876,67 @@ public class WalletEx extends Wallet {
                 if (depth < minDepth || depth > maxDepth)
                     continue;
 
-                for (int i = 0; i < coin.getOutputs().size(); ++i) {
-                    boolean found = false;
-                    Coin value = coin.getOutput(i).getValue();
-                    if (nCoinType == CoinType.ONLY_FULLY_MIXED) {
-                        if (!CoinJoin.isDenominatedAmount (value))
-                            continue;
-                        found = isFullyMixed(new TransactionOutPoint(params, i, wtxid));
-                    } else if (nCoinType == CoinType.ONLY_READY_TO_MIX) {
-                        if (!CoinJoin.isDenominatedAmount (value))
-                            continue;
-                        found = !isFullyMixed(new TransactionOutPoint(params, i, wtxid));
-                    } else if (nCoinType == CoinType.ONLY_NONDENOMINATED) {
-                        if (CoinJoin.isCollateralAmount (value))
-                            continue; // do not use collateral amounts
-                        found = !CoinJoin.isDenominatedAmount (value);
-                    } else if (nCoinType == CoinType.ONLY_MASTERNODE_COLLATERAL) {
-                        found = value == Coin.valueOf(1000,0);
-                    } else if (nCoinType == CoinType.ONLY_COINJOIN_COLLATERAL) {
-                        found = CoinJoin.isCollateralAmount (value);
-                    } else {
-                        found = true;
-                    }
-                    if (!found) continue;
-
-                    if (value.isLessThan(nMinimumAmount) || value.isGreaterThan(nMaximumAmount))
+                int i = output.getIndex();
+                boolean found = false;
+                Coin value = coin.getOutput(i).getValue();
+                if (nCoinType == CoinType.ONLY_FULLY_MIXED) {
+                    if (!CoinJoin.isDenominatedAmount (value))
                         continue;
-
-                    if (coinControl != null && coinControl.hasSelected() && !coinControl.shouldAllowOtherInputs()
-                            && !coinControl.isSelected(new TransactionOutPoint(params, i, wtxid)))
+                    found = isFullyMixed(new TransactionOutPoint(params, i, wtxid));
+                } else if (nCoinType == CoinType.ONLY_READY_TO_MIX) {
+                    if (!CoinJoin.isDenominatedAmount (value))
                         continue;
+                    found = !isFullyMixed(new TransactionOutPoint(params, i, wtxid));
+                } else if (nCoinType == CoinType.ONLY_NONDENOMINATED) {
+                    if (CoinJoin.isCollateralAmount (value))
+                        continue; // do not use collateral amounts
+                    found = !CoinJoin.isDenominatedAmount (value);
+                } else if (nCoinType == CoinType.ONLY_MASTERNODE_COLLATERAL) {
+                    found = value == Coin.valueOf(1000,0);
+                } else if (nCoinType == CoinType.ONLY_COINJOIN_COLLATERAL) {
+                    found = CoinJoin.isCollateralAmount (value);
+                } else {
+                    found = true;
+                }
+                if (!found) continue;
 
-                    if (isLockedOutput(wtxid, i) && nCoinType != CoinType.ONLY_MASTERNODE_COLLATERAL)
-                        continue;
+                if (value.isLessThan(nMinimumAmount) || value.isGreaterThan(nMaximumAmount))
+                    continue;
 
-                    if (isSpent(wtxid, i))
-                        continue;
+                if (coinControl != null && coinControl.hasSelected() && !coinControl.shouldAllowOtherInputs()
+                        && !coinControl.isSelected(new TransactionOutPoint(params, i, wtxid)))
+                    continue;
 
-                    boolean mine = isMine(coin.getOutput(i));
+                if (isLockedOutput(wtxid, i) && nCoinType != CoinType.ONLY_MASTERNODE_COLLATERAL)
+                    continue;
 
-                    if (!mine) {
-                        continue;
-                    }
+                if (isSpent(wtxid, i))
+                    continue;
 
-                    if (!allowUsedAddresses && isUsedDestination(wtxid, i)) {
-                        continue;
-                    }
-                    vCoins.add(coin.getOutput(i));
+                boolean mine = isMine(coin.getOutput(i));
 
-                    // Checks the sum amount of all UTXO's.
-                    if (nMinimumSumAmount != MAX_MONEY) {
-                        total = total.add(value);
+                if (!mine) {
+                    continue;
+                }
 
-                        if (total.isGreaterThanOrEqualTo(nMinimumSumAmount)) {
-                            return;
-                        }
-                    }
+                if (!allowUsedAddresses && isUsedDestination(wtxid, i)) {
+                    continue;
+                }
+                vCoins.add(coin.getOutput(i));
+
+                // Checks the sum amount of all UTXO's.
+                if (nMinimumSumAmount != MAX_MONEY) {
+                    total = total.add(value);
 
-                    // Checks the maximum number of UTXO's.
-                    if (maximumCount > 0 && vCoins.size() >= maximumCount) {
+                    if (total.isGreaterThanOrEqualTo(nMinimumSumAmount)) {
                         return;
                     }
                 }
+
+                // Checks the maximum number of UTXO's.
+                if (maximumCount > 0 && vCoins.size() >= maximumCount) {
+                    return;
+                }
             }
         } finally {
             lock.readLock().unlock();
@@ -947,15 +1045,51 @@ public class WalletEx extends Wallet {
      */
     @Override
     protected void addWalletTransaction(WalletTransaction.Pool pool, Transaction tx) {
+        boolean isNew = getTransaction(tx.getTxId()) == null;
         super.addWalletTransaction(pool, tx);
         clearAnonymizableCaches();
+        // The rounds only depend on which transactions are in the wallet, not on their pools, so moving a transaction
+        // between pools, including to the dead pool, doesn't change them. Restored transactions come with their rounds.
+        if (isNew && !restoringTransactions) {
+            invalidateCoinJoinRounds(tx);
+            updateCoinJoinRounds(tx);
+        }
+    }
+
+    /**
+     * Adds a transaction restored from a saved wallet, keeping the CoinJoin rounds that were saved with it.
+     */
+    @Override
+    public void addWalletTransaction(WalletTransaction wtx) {
+        lock.writeLock().lock();
+        try {
+            restoringTransactions = true;
+            super.addWalletTransaction(wtx);
+        } finally {
+            restoringTransactions = false;
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds transactions restored from a saved wallet, keeping the CoinJoin rounds that were saved with them.
+     */
+    @Override
+    public void addWalletTransactions(Collection<WalletTransaction> wtxs) {
+        lock.writeLock().lock();
+        try {
+            super.addWalletTransactions(wtxs);
+            clearAnonymizableCaches();
+        } finally {
+            lock.writeLock().unlock();
+        }
     }
 
     @Override
     public void reorganize(StoredBlock splitPoint, List<StoredBlock> oldBlocks, List<StoredBlock> newBlocks) throws VerificationException {
         super.reorganize(splitPoint, oldBlocks, newBlocks);
+        // the transactions stay in the wallet, in other pools, so their rounds don't change
         clearAnonymizableCaches();
-        mapOutpointRoundsCache.clear();
     }
 
     public CoinJoinExtension getCoinJoin() {
@@ -39,6 +39,7 @@ import com.google.common.collect.Lists;
 import com.google.protobuf.ByteString;
 import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.InvalidProtocolBufferException;
 import com.google.protobuf.WireFormat;
 
 import org.slf4j.Logger;
@@ -56,8 +57,10 @@ import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -97,12 +100,15 @@ public class WalletProtobufSerializer {
     private static final int WALLET_SIZE_LIMIT = 512 * 1024 * 1024;
     // Used for de-serialization
     protected Map<ByteString, Transaction> txMap;
+    // Used for de-serialization, the last block height the wallet had seen, at which the depths were valid
+    private int lastSeenBlockHeight = -1;
 
     private boolean requireMandatoryExtensions = true;
     private boolean requireAllExtensionsKnown = false;
     private int walletWriteBufferSize = CodedOutputStream.DEFAULT_BUFFER_SIZE;
     private boolean useAdaptiveBufferSizing = true;
     private boolean parallelLoad = true;
+    private int parallelLoadThreshold = 10_000;
 
     public interface WalletFactory {
         Wallet create(NetworkParameters params, KeyChainGroup keyChainGroup);
@@ -183,6 +189,14 @@ public class WalletProtobufSerializer {
         return parallelLoad;
     }
 
+    /**
+     * Sets the complexity, roughly the number of keys and transactions, above which a wallet is loaded in parallel
+     * when parallel loading is enabled. Default is 10000.
+     */
+    public void setParallelLoadThreshold(int parallelLoadThreshold) {
+        this.parallelLoadThreshold = parallelLoadThreshold;
+    }
+
     /**
      * Calculate optimal buffer size based on wallet characteristics.
      * Small wallets: 8KB, Medium wallets: 16KB, Large wallets: 64KB+
@@ -219,7 +233,7 @@ public class WalletProtobufSerializer {
     }
 
     private static int getProtoComplexityScore(Protos.Wallet walletProto) {
-        int score = walletProto.getTransactionCount() + walletProto.getKeyCount()
+        int score = walletProto.getKeyCount()
                 + walletProto.getKeysForFriendsCount() + walletProto.getKeysFromFriendsCount();
 
         for (int i = 0; i < walletProto.getExtensionCount(); ++i) {
@@ -874,12 +888,13 @@ public class WalletProtobufSerializer {
      */
     public Wallet readWallet(InputStream input, boolean forceReset, @Nullable WalletExtension[] extensions) throws UnreadableWalletException {
         try {
-            Protos.Wallet walletProto = parseToProto(input);
+            List<ByteString> txSlices = new ArrayList<>();
+            Protos.Wallet walletProto = parseToProtoWithoutTransactions(input, txSlices);
             final String paramsID = walletProto.getNetworkIdentifier();
             NetworkParameters params = NetworkParameters.fromID(paramsID);
             if (params == null)
                 throw new UnreadableWalletException("Unknown network parameters ID " + paramsID);
-            return readWallet(params, extensions, walletProto, forceReset);
+            return readWallet(params, extensions, walletProto, TransactionProtos.ofSlices(txSlices), forceReset);
         } catch (IOException e) {
             throw new UnreadableWalletException("Could not parse input stream to protobuf", e);
         } catch (IllegalStateException e) {
@@ -923,6 +938,13 @@ public class WalletProtobufSerializer {
      */
     public Wallet readWallet(NetworkParameters params, @Nullable WalletExtension[] extensions,
                              Protos.Wallet walletProto, boolean forceReset) throws UnreadableWalletException {
+        return readWallet(params, extensions, walletProto, new TransactionProtos(walletProto.getTransactionList()),
+                forceReset);
+    }
+
+    private Wallet readWallet(NetworkParameters params, @Nullable WalletExtension[] extensions,
+                              Protos.Wallet walletProto, TransactionProtos txProtos,
+                              boolean forceReset) throws UnreadableWalletException {
         if (walletProto.getVersion() > CURRENT_WALLET_VERSION)
             throw new UnreadableWalletException.FutureVersion();
         if (!walletProto.getNetworkIdentifier().equals(params.getId()))
@@ -935,9 +957,10 @@ public class WalletProtobufSerializer {
             effectiveFactory = this.keyChainFactory;
         }
 
+        lastSeenBlockHeight = walletProto.hasLastSeenBlockHeight() ? walletProto.getLastSeenBlockHeight() : -1;
         long methodStart = System.currentTimeMillis();
-        int complexityScore = getProtoComplexityScore(walletProto);
-        boolean isLargeWallet = parallelLoad && complexityScore > 10_000;
+        int complexityScore = getProtoComplexityScore(walletProto) + txProtos.size();
+        boolean isLargeWallet = parallelLoad && complexityScore > parallelLoadThreshold;
 
         try {
             if (isLargeWallet) {
@@ -1010,19 +1033,19 @@ public class WalletProtobufSerializer {
                     List<CompletableFuture<Void>> txFutures = new ArrayList<>();
                     long txFuturesStart = System.currentTimeMillis();
                     if (!forceReset) {
-                        List<Protos.Transaction> allTxProtos = walletProto.getTransactionList();
                         // Use total pool size as batch count so freed key/friend threads can pick up tx work
                         int txBatchCount = numThreads + 3;
-                        int txBatchSize = Math.max(1, (allTxProtos.size() + txBatchCount - 1) / txBatchCount);
+                        int txBatchSize = Math.max(1, (txProtos.size() + txBatchCount - 1) / txBatchCount);
                         log.info("readWallet: tx threads starting ({} transactions, batchCount={}, batchSize={})",
-                                allTxProtos.size(), txBatchCount, txBatchSize);
-                        for (int i = 0; i < allTxProtos.size(); i += txBatchSize) {
+                                txProtos.size(), txBatchCount, txBatchSize);
+                        for (int i = 0; i < txProtos.size(); i += txBatchSize) {
                             final int from = i;
-                            final int to = Math.min(i + txBatchSize, allTxProtos.size());
+                            final int to = Math.min(i + txBatchSize, txProtos.size());
                             txFutures.add(CompletableFuture.runAsync(() -> {
                                 for (int j = from; j < to; j++) {
-                                    Protos.Transaction txProto = allTxProtos.get(j);
                                     try {
+                                        // decoding the slices of a streamed wallet happens here, spread over the threads
+                                        Protos.Transaction txProto = txProtos.get(j);
                                         Transaction tx = parseTransactionFromProto(txProto, params);
                                         if (parsedTxs.putIfAbsent(txProto.getHash(), tx) != null)
                                             throw new RuntimeException(new UnreadableWalletException(
@@ -1099,7 +1122,7 @@ public class WalletProtobufSerializer {
 
                     // load extensions before processing transactions
                     long extStart = System.currentTimeMillis();
-                    loadExtensions(wallet, extensions != null ? extensions : new WalletExtension[0], walletProto);
+                    loadExtensions(wallet, extensions != null ? extensions : new WalletExtension[0], walletProto, executor);
                     long extTime = System.currentTimeMillis() - extStart;
                     log.info("readWallet: loadExtensions done in {}ms", extTime);
 
@@ -1132,17 +1155,25 @@ public class WalletProtobufSerializer {
                         // Each call only touches its own tx's outputs and unique inputs of spending txs,
                         // so concurrent calls do not write to the same fields.
                         long connectStart = System.currentTimeMillis();
-                        List<Protos.Transaction> txProtoList = walletProto.getTransactionList();
-                        final WalletTransaction[] walletTxns = new WalletTransaction[txProtoList.size()];
-                        int connectBatchSize = Math.max(1, (txProtoList.size() + numThreads + 2) / (numThreads + 3));
+                        final WalletTransaction[] walletTxns = new WalletTransaction[txProtos.size()];
+                        int connectBatchSize = Math.max(1, (txProtos.size() + numThreads + 2) / (numThreads + 3));
                         List<CompletableFuture<Void>> connectFutures = new ArrayList<>(numThreads);
-                        for (int i = 0; i < txProtoList.size(); i += connectBatchSize) {
+                        for (int i = 0; i < txProtos.size(); i += connectBatchSize) {
                             final int from = i;
-                            final int to = Math.min(i + connectBatchSize, txProtoList.size());
+                            final int to = Math.min(i + connectBatchSize, txProtos.size());
                             connectFutures.add(CompletableFuture.runAsync(() -> {
                                 for (int j = from; j < to; j++) {
                                     try {
-                                        walletTxns[j] = connectTransactionOutputs(params, txProtoList.get(j));
+                                        walletTxns[j] = connectTransactionOutputs(params, txProtos.get(j));
+                                        // parse the output scripts here rather than when the wallet checks whether
+                                        // the outputs are its own, which happens on a single thread
+                                        for (TransactionOutput output : walletTxns[j].getTransaction().getOutputs()) {
+                                            try {
+                                                output.getScriptPubKey();
+                                            } catch (ScriptException x) {
+                                                // the wallet ignores such outputs
+                                            }
+                                        }
                                     } catch (UnreadableWalletException e) {
                                         throw new RuntimeException(e);
                                     }
@@ -1164,11 +1195,9 @@ public class WalletProtobufSerializer {
                         connectTime = System.currentTimeMillis() - connectStart;
                         log.info("readWallet: connectOutputs done in {}ms (parallel)", connectTime);
 
-                        // Add to wallet sequentially (addWalletTransaction acquires write lock per call)
+                        // Add to wallet in one go, under a single acquisition of the write lock
                         long addWalletStart = System.currentTimeMillis();
-                        for (WalletTransaction wtx : walletTxns) {
-                            wallet.addWalletTransaction(wtx);
-                        }
+                        wallet.addWalletTransactions(Arrays.asList(walletTxns));
                         addWalletTime[0] = System.currentTimeMillis() - addWalletStart;
                         log.info("readWallet: addWalletTransactions done in {}ms ({} txs)", addWalletTime[0], walletTxns.length);
 
@@ -1198,7 +1227,7 @@ public class WalletProtobufSerializer {
                     long totalTime = System.currentTimeMillis() - methodStart;
                     log.info("readWallet (parallel={}, threads={}) timing: {}ms total, keys={}ms, friendRecv={}ms, friendSend={}ms, tx={}ms[{}tx], ext={}ms, connect={}ms, addWallet={}ms",
                             parallelLoad, numThreads, totalTime, keysTime[0], friendRecvTime[0], friendSendTime[0],
-                            txTime[0], walletProto.getTransactionCount(), extTime, connectTime, addWalletTime[0]);
+                            txTime[0], txProtos.size(), extTime, connectTime, addWalletTime[0]);
                     return wallet;
                 } finally {
                     executor.shutdown();
@@ -1269,15 +1298,16 @@ public class WalletProtobufSerializer {
                     wallet.setLastBlockSeenTimeSecs(0);
                 } else {
                     // Read all transactions and insert into the txMap.
-                    for (Protos.Transaction txProto : walletProto.getTransactionList()) {
-                        readTransaction(txProto, wallet.getParams());
+                    for (int i = 0; i < txProtos.size(); i++) {
+                        readTransaction(txProtos.get(i), wallet.getParams());
                     }
 
                     // Update transaction outputs to point to inputs that spend them
-                    for (Protos.Transaction txProto : walletProto.getTransactionList()) {
-                        WalletTransaction wtx = connectTransactionOutputs(params, txProto);
-                        wallet.addWalletTransaction(wtx);
+                    List<WalletTransaction> walletTxns = new ArrayList<>(txProtos.size());
+                    for (int i = 0; i < txProtos.size(); i++) {
+                        walletTxns.add(connectTransactionOutputs(params, txProtos.get(i)));
                     }
+                    wallet.addWalletTransactions(walletTxns);
 
                     // Update the lastBlockSeenHash.
                     if (!walletProto.hasLastSeenBlockHash()) {
@@ -1316,6 +1346,16 @@ public class WalletProtobufSerializer {
     }
 
     private void loadExtensions(Wallet wallet, WalletExtension[] extensionsList, Protos.Wallet walletProto) throws UnreadableWalletException {
+        loadExtensions(wallet, extensionsList, walletProto, null);
+    }
+
+    /**
+     * Loads the extensions of the wallet. If an executor is given, the key chain extensions, whose key chains are the
+     * expensive part of loading extensions, are reconstructed in parallel on it before the other extensions are
+     * loaded. This is done without the wallet locks, which is only safe because the wallet isn't shared yet.
+     */
+    private void loadExtensions(Wallet wallet, WalletExtension[] extensionsList, Protos.Wallet walletProto,
+                                @Nullable Executor executor) throws UnreadableWalletException {
         final Map<String, WalletExtension> extensions = new HashMap<>();
         for (WalletExtension e : extensionsList)
             extensions.put(e.getWalletExtensionID(), e);
@@ -1323,7 +1363,52 @@ public class WalletProtobufSerializer {
         // expect them to be passed in, just fetch them here and don't re-add.
         extensions.putAll(wallet.getExtensions());
         extensions.putAll(wallet.getKeyChainExtensions());
+        List<Protos.Extension> keyChainExtensions = new ArrayList<>();
+        List<Protos.Extension> remaining = new ArrayList<>(walletProto.getExtensionCount());
         for (Protos.Extension extProto : walletProto.getExtensionList()) {
+            if (executor != null && extensions.get(extProto.getId()) instanceof KeyChainGroupExtension)
+                keyChainExtensions.add(extProto);
+            else
+                remaining.add(extProto);
+        }
+        // the last one is loaded by this thread, which would otherwise just wait
+        Map<Protos.Extension, CompletableFuture<Void>> keyChainFutures = new LinkedHashMap<>();
+        for (int i = 0; i < keyChainExtensions.size(); i++) {
+            Protos.Extension extProto = keyChainExtensions.get(i);
+            WalletExtension extension = extensions.get(extProto.getId());
+            log.info("Loading wallet extension {} in parallel", extProto.getId());
+            Runnable deserialize = () -> {
+                try {
+                    extension.deserializeWalletExtension(wallet, extProto.getData().toByteArray());
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            };
+            if (i < keyChainExtensions.size() - 1) {
+                keyChainFutures.put(extProto, CompletableFuture.runAsync(deserialize, checkNotNull(executor)));
+            } else {
+                CompletableFuture<Void> future = new CompletableFuture<>();
+                try {
+                    deserialize.run();
+                    future.complete(null);
+                } catch (CompletionException e) {
+                    future.completeExceptionally(e.getCause());
+                }
+                keyChainFutures.put(extProto, future);
+            }
+        }
+        for (Map.Entry<Protos.Extension, CompletableFuture<Void>> entry : keyChainFutures.entrySet()) {
+            WalletExtension extension = extensions.get(entry.getKey().getId());
+            try {
+                entry.getValue().join();
+                wallet.installLoadedExtension(extension, true);
+            } catch (CompletionException e) {
+                log.error("Error during extension deserialization", e.getCause());
+                wallet.installLoadedExtension(extension, false);
+                handleExtensionError(entry.getKey(), e.getCause());
+            }
+        }
+        for (Protos.Extension extProto : remaining) {
             String id = extProto.getId();
             WalletExtension extension = extensions.get(id);
             if (extension == null) {
@@ -1340,20 +1425,25 @@ public class WalletProtobufSerializer {
                 try {
                     wallet.deserializeExtension(extension, extProto.getData().toByteArray());
                 } catch (Exception e) {
-                    if (extProto.getMandatory() && requireMandatoryExtensions) {
-                        log.error("Error whilst reading mandatory extension {}, failing to read wallet", id);
-                        throw new UnreadableWalletException("Could not parse mandatory extension in wallet: " + id);
-                    } else if (requireAllExtensionsKnown) {
-                        log.error("Error whilst reading extension {}, failing to read wallet", id);
-                        throw new UnreadableWalletException("Could not parse extension in wallet: " + id);
-                    } else {
-                        log.warn("Error whilst reading extension {}, ignoring extension", id, e);
-                    }
+                    handleExtensionError(extProto, e);
                 }
             }
         }
     }
 
+    private void handleExtensionError(Protos.Extension extProto, Throwable e) throws UnreadableWalletException {
+        String id = extProto.getId();
+        if (extProto.getMandatory() && requireMandatoryExtensions) {
+            log.error("Error whilst reading mandatory extension {}, failing to read wallet", id);
+            throw new UnreadableWalletException("Could not parse mandatory extension in wallet: " + id);
+        } else if (requireAllExtensionsKnown) {
+            log.error("Error whilst reading extension {}, failing to read wallet", id);
+            throw new UnreadableWalletException("Could not parse extension in wallet: " + id);
+        } else {
+            log.warn("Error whilst reading extension {}, ignoring extension", id, e);
+        }
+    }
+
     /**
      * Returns the loaded protocol buffer from the given byte stream. You normally want
      * {@link Wallet#loadFromFile(File, WalletExtension...)} instead - this method is designed for low level
@@ -1365,6 +1455,75 @@ public class WalletProtobufSerializer {
         return Protos.Wallet.parseFrom(codedInput);
     }
 
+    private static final int TRANSACTION_TAG =
+            Protos.Wallet.TRANSACTION_FIELD_NUMBER << 3 | WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
+    /**
+     * Like {@link #parseToProto(InputStream)}, but leaves the transactions out of the returned protocol buffer.
+     * Instead, the encoded transactions are added to the given list, so that they can be decoded later and by several
+     * threads.
+     */
+    private static Protos.Wallet parseToProtoWithoutTransactions(InputStream input, List<ByteString> txSlices)
+            throws IOException {
+        CodedInputStream codedInput = CodedInputStream.newInstance(input);
+        codedInput.setSizeLimit(WALLET_SIZE_LIMIT);
+        ByteString.Output rest = ByteString.newOutput();
+        CodedOutputStream restOutput = CodedOutputStream.newInstance(rest);
+        while (true) {
+            int tag = codedInput.readTag();
+            if (tag == 0)
+                break;
+            if (tag == TRANSACTION_TAG)
+                txSlices.add(codedInput.readBytes());
+            else if (!codedInput.skipField(tag, restOutput))
+                break;
+        }
+        restOutput.flush();
+        return Protos.Wallet.parseFrom(rest.toByteString());
+    }
+
+    /**
+     * The transactions of a wallet that is being read. If the wallet is read from a stream, they are kept as they
+     * are encoded in the wallet file, and each is decoded when it is first needed, by the thread that builds its
+     * {@link Transaction}. The encoded transaction is dropped once it is decoded, so only one of the two is kept.
+     */
+    private static final class TransactionProtos {
+        @Nullable private final List<ByteString> slices;
+        private final Protos.Transaction[] decoded;
+
+        private TransactionProtos(List<Protos.Transaction> txProtos) {
+            this.slices = null;
+            this.decoded = txProtos.toArray(new Protos.Transaction[0]);
+        }
+
+        private TransactionProtos(List<ByteString> slices, int size) {
+            this.slices = slices;
+            this.decoded = new Protos.Transaction[size];
+        }
+
+        static TransactionProtos ofSlices(List<ByteString> slices) {
+            return new TransactionProtos(slices, slices.size());
+        }
+
+        int size() {
+            return decoded.length;
+        }
+
+        Protos.Transaction get(int index) throws UnreadableWalletException {
+            Protos.Transaction txProto = decoded[index];
+            if (txProto == null) {
+                try {
+                    txProto = Protos.Transaction.parseFrom(checkNotNull(slices).get(index));
+                } catch (InvalidProtocolBufferException e) {
+                    throw new UnreadableWalletException("Could not parse transaction " + index + " of the wallet", e);
+                }
+                decoded[index] = txProto;
+                slices.set(index, null);
+            }
+            return txProto;
+        }
+    }
+
     private Transaction parseTransactionFromProto(Protos.Transaction txProto, NetworkParameters params) throws UnreadableWalletException {
         Transaction tx = new Transaction(params);
 
@@ -1562,7 +1721,7 @@ public class WalletProtobufSerializer {
                 log.warn("Have depth but not BUILDING for tx {}", tx.getTxId());
                 return;
             }
-            confidence.setDepthInBlocks(confidenceProto.getDepth());
+            confidence.setDepthInBlocks(confidenceProto.getDepth(), lastSeenBlockHeight);
         }
         if (confidenceProto.hasOverridingTransaction()) {
             if (confidence.getConfidenceType() != ConfidenceType.DEAD) {
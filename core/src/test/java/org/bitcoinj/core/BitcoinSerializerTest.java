@@ -232,6 +232,40 @@ public class BitcoinSerializerTest {
         new BitcoinSerializer.BitcoinPacketHeader(ByteBuffer.wrap(wrongMessageLength));
     }
 
+    @Test
+    public void testCommandDispatch() throws Exception {
+        MessageSerializer serializer = MAINNET.getDefaultSerializer();
+        // a known command followed by garbage rather than zeros
+        byte[] paddedWithGarbage = Arrays.copyOf(ADDRESS_MESSAGE_BYTES, ADDRESS_MESSAGE_BYTES.length);
+        paddedWithGarbage[4 + 6] = 'x';
+        AddressMessage addressMessage = (AddressMessage) serializer.deserialize(ByteBuffer.wrap(paddedWithGarbage));
+        assertEquals(1, addressMessage.getAddresses().size());
+
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        serializer.serialize("qsendrecsigs", new byte[0], bos);
+        serializer.serialize("foo", new byte[] {1, 2, 3}, bos);
+        ByteBuffer buffer = ByteBuffer.wrap(bos.toByteArray());
+        assertTrue(serializer.deserialize(buffer) instanceof org.bitcoinj.quorums.QuorumSendRecoveredSignatures);
+        serializer.seekPastMagicBytes(buffer);
+        assertEquals("foo", serializer.deserializeHeader(buffer).command);
+    }
+
+    @Test
+    public void testDeserializePayloadWithoutCopy() throws Exception {
+        MessageSerializer serializer = MAINNET.getSerializer(true);
+        ByteBuffer buffer = ByteBuffer.wrap(TRANSACTION_MESSAGE_BYTES);
+        serializer.seekPastMagicBytes(buffer);
+        BitcoinSerializer.BitcoinPacketHeader header = serializer.deserializeHeader(buffer);
+        assertEquals("tx", header.command);
+        byte[] payload = Arrays.copyOfRange(TRANSACTION_MESSAGE_BYTES, buffer.position(), TRANSACTION_MESSAGE_BYTES.length);
+        ByteBuffer payloadBuffer = ByteBuffer.wrap(payload);
+        Transaction tx = (Transaction) serializer.deserializePayload(header, payloadBuffer);
+        assertFalse(payloadBuffer.hasRemaining());
+        // the retained payload is the array itself
+        assertSame(payload, tx.unsafeBitcoinSerialize());
+        assertEquals(tx, serializer.deserialize(ByteBuffer.wrap(TRANSACTION_MESSAGE_BYTES)));
+    }
+
     @Test(expected = BufferUnderflowException.class)
     public void testSeekPastMagicBytes() {
         // Fail in another way, there is data in the stream but no magic bytes.
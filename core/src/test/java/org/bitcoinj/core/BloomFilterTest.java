@@ -68,6 +68,28 @@ public class BloomFilterTest {
         assertArrayEquals(HEX.decode("03ce4299050000000100008002"), filter.unsafeBitcoinSerialize());
     }
 
+    @Test
+    public void hashesAllFunctionsInOnePass() {
+        BloomFilter filter = new BloomFilter(10, 0.000001, 2147483649L);
+        int hashFuncs = (int) filter.getHashFuncs();
+        int bits = filter.getData().length * 8;
+        int[] hashes = new int[BloomFilter.MAX_HASH_FUNCS];
+        byte[] object = HEX.decode("0099108ad8ed9bb6274d3980bab5a85c048f0950c8");
+        for (int length = 0; length < object.length; length++) {
+            byte[] part = Arrays.copyOfRange(object, 1, 1 + length);
+            BloomFilter.murmurHash3(filter.getTweak(), hashFuncs, bits, object, 1, length, hashes);
+            for (int i = 0; i < hashFuncs; i++)
+                assertEquals(BloomFilter.murmurHash3(filter.getData(), filter.getTweak(), i, part), hashes[i]);
+        }
+
+        TransactionOutPoint outpoint = new TransactionOutPoint(MAINNET, 0x12345678L,
+                Sha256Hash.wrap("4f1bfdb93ce3fa7bb0c3bf5e8e7fbd1d5a2c6f0a8e5e0d6d1d1f2a4ef4a3b1c2"));
+        BloomFilter.murmurHash3(filter.getTweak(), hashFuncs, bits, outpoint.getHash(), outpoint.getIndex(), hashes);
+        for (int i = 0; i < hashFuncs; i++)
+            assertEquals(BloomFilter.murmurHash3(filter.getData(), filter.getTweak(), i, outpoint.unsafeBitcoinSerialize()),
+                    hashes[i]);
+    }
+
     @Test
     public void walletTest() throws Exception {
         Context.propagate(new Context(MAINNET));
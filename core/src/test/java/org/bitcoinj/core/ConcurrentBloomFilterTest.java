@@ -0,0 +1,122 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.core;
+
+import org.bitcoinj.params.MainNetParams;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.bitcoinj.core.Utils.HEX;
+import static org.junit.Assert.*;
+
+public class ConcurrentBloomFilterTest {
+    private static final NetworkParameters MAINNET = MainNetParams.get();
+
+    @Before
+    public void setUp() {
+        Context.propagate(new Context(MAINNET));
+    }
+
+    @Test
+    public void sameContentsAsBloomFilter() {
+        BloomFilter filter = new BloomFilter(3, 0.01, 2147483649L);
+        ConcurrentBloomFilter concurrentFilter = new ConcurrentBloomFilter(3, 0.01, 2147483649L,
+                BloomFilter.BloomUpdate.UPDATE_P2PUBKEY_ONLY);
+        for (String hex : new String[] {"99108ad8ed9bb6274d3980bab5a85c048f0950c8",
+                "b5a2c786d9ef4658287ced5914b37a1b4aa32eee", "b9300670b4c5366e95b2699e8b18bc75e5f729c5"}) {
+            filter.insert(HEX.decode(hex));
+            concurrentFilter.insert(HEX.decode(hex));
+            assertTrue(concurrentFilter.contains(HEX.decode(hex)));
+        }
+        assertFalse(concurrentFilter.contains(HEX.decode("19108ad8ed9bb6274d3980bab5a85c048f0950c8")));
+        // Value generated by Dash Core
+        assertArrayEquals(HEX.decode("03ce4299050000000100008002"), concurrentFilter.toBloomFilter().unsafeBitcoinSerialize());
+        assertEquals(filter, concurrentFilter.toBloomFilter());
+        assertEquals(filter, new ConcurrentBloomFilter(filter).toBloomFilter());
+
+        byte[] object = HEX.decode("0000b5a2c786d9ef4658287ced5914b37a1b4aa32eee00");
+        assertTrue(concurrentFilter.contains(object, 2, 20));
+        assertFalse(concurrentFilter.contains(object, 1, 20));
+
+        assertFalse(concurrentFilter.matchesAll());
+        concurrentFilter.setMatchAll();
+        assertTrue(concurrentFilter.matchesAll());
+        assertTrue(concurrentFilter.contains(HEX.decode("19108ad8ed9bb6274d3980bab5a85c048f0950c8")));
+        filter.setMatchAll();
+        assertEquals(filter, concurrentFilter.toBloomFilter());
+    }
+
+    @Test
+    public void applyAndUpdate() {
+        Transaction tx = new Transaction(MAINNET, HEX.decode("01000000010000000000000000000000000000000000000000000000000000000000000000ffffffff0d038754030114062f503253482fffffffff01c05e559500000000232103cb219f69f1b49468bd563239a86667e74a06fcba69ac50a08a5cbc42a5808e99ac00000000"));
+        Transaction spend = new Transaction(MAINNET);
+        spend.addInput(tx.getOutput(0));
+        spend.addOutput(Coin.COIN, new ECKey());
+
+        ConcurrentBloomFilter filter = new ConcurrentBloomFilter(10, 0.0001, 0,
+                BloomFilter.BloomUpdate.UPDATE_P2PUBKEY_ONLY);
+        assertFalse(filter.applyAndUpdate(spend));
+        filter.insert(HEX.decode("03cb219f69f1b49468bd563239a86667e74a06fcba69ac50a08a5cbc42a5808e99"));
+        // the P2PK output matches, and its outpoint is added to the filter
+        assertTrue(filter.applyAndUpdate(tx));
+        assertTrue(filter.contains(new TransactionOutPoint(MAINNET, 0, tx)));
+        assertTrue(filter.applyAndUpdate(spend));
+
+        BloomFilter bloomFilter = new BloomFilter(10, 0.0001, 0, BloomFilter.BloomUpdate.UPDATE_P2PUBKEY_ONLY);
+        bloomFilter.insert(HEX.decode("03cb219f69f1b49468bd563239a86667e74a06fcba69ac50a08a5cbc42a5808e99"));
+        assertTrue(bloomFilter.applyAndUpdate(tx));
+        assertTrue(bloomFilter.applyAndUpdate(spend));
+        assertEquals(bloomFilter, filter.toBloomFilter());
+    }
+
+    @Test
+    public void concurrentInserts() throws Exception {
+        final ConcurrentBloomFilter filter = new ConcurrentBloomFilter(4000, 0.001, 42,
+                BloomFilter.BloomUpdate.UPDATE_NONE);
+        BloomFilter expected = new BloomFilter(4000, 0.001, 42, BloomFilter.BloomUpdate.UPDATE_NONE);
+        for (int i = 0; i < 4000; i++)
+            expected.insert(Sha256Hash.of(new byte[] {(byte) i, (byte) (i >> 8)}).getBytes());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                final int thread = t;
+                futures.add(executor.submit(() -> {
+                    boolean found = true;
+                    for (int i = thread; i < 4000; i += 4) {
+                        byte[] object = Sha256Hash.of(new byte[] {(byte) i, (byte) (i >> 8)}).getBytes();
+                        filter.insert(object);
+                        found &= filter.contains(object);
+                    }
+                    return found;
+                }));
+            }
+            for (Future<Boolean> future : futures)
+                assertTrue(future.get());
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(expected, filter.toBloomFilter());
+    }
+}
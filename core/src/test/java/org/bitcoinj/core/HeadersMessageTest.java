@@ -0,0 +1,73 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.core;
+
+import org.bitcoinj.params.UnitTestParams;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+
+public class HeadersMessageTest {
+    private static final NetworkParameters UNITTEST = UnitTestParams.get();
+
+    private static List<Block> buildHeaders(int count) {
+        List<Block> headers = new ArrayList<>(count);
+        Sha256Hash prev = UNITTEST.getGenesisBlock().getHash();
+        for (int i = 0; i < count; i++) {
+            Block header = new Block(UNITTEST, 1, prev, Sha256Hash.ZERO_HASH, 1000 + i, 0x207fffffL, i,
+                    Collections.<Transaction>emptyList());
+            prev = header.getHash();
+            headers.add(header);
+        }
+        return headers;
+    }
+
+    @Test
+    public void hashHeadersInParallel() throws Exception {
+        List<Block> headers = buildHeaders(HeadersMessage.MAX_HEADERS);
+        byte[] payload = new HeadersMessage(UNITTEST, headers).bitcoinSerialize();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            HeadersMessage message = new HeadersMessage(UNITTEST, payload);
+            message.hashHeaders(executor);
+            List<Block> received = message.getBlockHeaders();
+            assertEquals(headers.size(), received.size());
+            for (int i = 0; i < headers.size(); i++) {
+                assertEquals(headers.get(i).getHash(), received.get(i).getHash());
+                assertEquals(headers.get(i).getPrevBlockHash(), received.get(i).getPrevBlockHash());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void hashHeadersWithoutExecutor() throws Exception {
+        List<Block> headers = buildHeaders(10);
+        HeadersMessage message = new HeadersMessage(UNITTEST, new HeadersMessage(UNITTEST, headers).bitcoinSerialize());
+        message.hashHeaders(null);
+        for (int i = 0; i < headers.size(); i++)
+            assertEquals(headers.get(i).getHash(), message.getBlockHeaders().get(i).getHash());
+    }
+}
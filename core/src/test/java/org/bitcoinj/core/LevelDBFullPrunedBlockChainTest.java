@@ -19,10 +19,19 @@ package org.bitcoinj.core;
 import org.bitcoinj.store.BlockStoreException;
 import org.bitcoinj.store.FullPrunedBlockStore;
 import org.bitcoinj.store.LevelDBFullPrunedBlockStore;
+import org.bitcoinj.script.ScriptBuilder;
 import org.junit.After;
 import org.junit.Ignore;
+import org.junit.Test;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * An H2 implementation of the FullPrunedBlockStoreTest
@@ -51,6 +60,39 @@ public class LevelDBFullPrunedBlockChainTest extends
         }
     }
 
+    @Test
+    public void getOpenTransactionOutputsOfManyKeys() throws Exception {
+        LevelDBFullPrunedBlockStore store = (LevelDBFullPrunedBlockStore) createStore(PARAMS, 10);
+        this.store = store;
+        List<ECKey> keys = new ArrayList<>();
+        Set<Sha256Hash> expected = new HashSet<>();
+        for (int i = 0; i < 50; i++) {
+            ECKey key = new ECKey();
+            Address address = Address.fromKey(PARAMS, key);
+            // every other key has no outputs, the others have up to three
+            for (int j = 0; j < i % 2 * (i % 3 + 1); j++) {
+                Sha256Hash hash = Sha256Hash.of(new byte[] { (byte) i, (byte) j });
+                store.addUnspentTransactionOutput(new UTXO(hash, j, Coin.COIN, 1, false,
+                        ScriptBuilder.createOutputScript(address), address.toString()));
+                if (i < 40)
+                    expected.add(hash);
+            }
+            if (i < 40)
+                keys.add(key);
+        }
+        // the same key twice
+        keys.add(keys.get(1));
+
+        List<UTXO> outputs = store.getOpenTransactionOutputs(keys);
+        Set<Sha256Hash> found = new HashSet<>();
+        for (UTXO output : outputs) {
+            assertTrue(found.add(output.getHash()));
+            assertEquals(Coin.COIN, output.getValue());
+        }
+        assertEquals(expected, found);
+        store.close();
+    }
+
     @Override
     public void resetStore(FullPrunedBlockStore store)
             throws BlockStoreException {
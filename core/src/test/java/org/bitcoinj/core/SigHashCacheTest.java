@@ -0,0 +1,112 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.core;
+
+import org.bitcoinj.params.UnitTestParams;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.script.ScriptBuilder;
+import org.bitcoinj.script.ScriptOpCodes;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class SigHashCacheTest {
+    private static final NetworkParameters UNITTEST = UnitTestParams.get();
+
+    private Random random;
+
+    @Before
+    public void setUp() {
+        new Context(UNITTEST);
+        random = new Random(42);
+    }
+
+    private Transaction createTransaction(int numInputs, int numOutputs) {
+        Transaction tx = new Transaction(UNITTEST);
+        for (int i = 0; i < numInputs; i++) {
+            byte[] hash = new byte[32];
+            random.nextBytes(hash);
+            byte[] scriptSig = new byte[random.nextInt(110)];
+            random.nextBytes(scriptSig);
+            TransactionInput input = new TransactionInput(UNITTEST, tx, scriptSig,
+                    new TransactionOutPoint(UNITTEST, random.nextInt(4), Sha256Hash.wrap(hash)));
+            input.setSequenceNumber(random.nextInt());
+            tx.addInput(input);
+        }
+        for (int i = 0; i < numOutputs; i++)
+            tx.addOutput(Coin.valueOf(random.nextInt(Integer.MAX_VALUE)), new ECKey());
+        tx.setLockTime(random.nextInt(Integer.MAX_VALUE));
+        return tx;
+    }
+
+    private void assertSameHashes(Transaction tx, byte[] script) {
+        SigHashCache cache = new SigHashCache(tx);
+        for (Transaction.SigHash type : new Transaction.SigHash[] { Transaction.SigHash.ALL,
+                Transaction.SigHash.NONE, Transaction.SigHash.SINGLE }) {
+            for (boolean anyoneCanPay : new boolean[] { false, true }) {
+                for (int i = 0; i < tx.getInputs().size(); i++)
+                    assertEquals(tx.hashForSignature(i, script, type, anyoneCanPay),
+                            cache.hashForSignature(i, script, type, anyoneCanPay));
+            }
+        }
+    }
+
+    @Test
+    public void matchesTransactionHashes() {
+        byte[] script = ScriptBuilder.createOutputScript(Address.fromKey(UNITTEST, new ECKey())).getProgram();
+        assertSameHashes(createTransaction(1, 1), script);
+        assertSameHashes(createTransaction(3, 2), script);
+        // more than 252 inputs take a longer var int
+        assertSameHashes(createTransaction(300, 3), script);
+    }
+
+    @Test
+    public void matchesTransactionHashesWithCodeSeparator() {
+        Script script = new ScriptBuilder().op(ScriptOpCodes.OP_CODESEPARATOR)
+                .data(new ECKey().getPubKey()).op(ScriptOpCodes.OP_CHECKSIG).build();
+        assertSameHashes(createTransaction(5, 2), script.getProgram());
+    }
+
+    @Test
+    public void matchesTransactionHashesOfSpecialTransaction() {
+        Transaction tx = createTransaction(4, 2);
+        tx.setVersionAndType(Transaction.SPECIAL_VERSION, Transaction.Type.TRANSACTION_COINBASE);
+        // a version 1 coinbase payload: version, height and masternode list merkle root
+        byte[] payload = new byte[38];
+        random.nextBytes(payload);
+        payload[0] = 1;
+        payload[1] = 0;
+        tx.setExtraPayload(payload);
+        byte[] script = ScriptBuilder.createOutputScript(Address.fromKey(UNITTEST, new ECKey())).getProgram();
+        assertSameHashes(tx, script);
+    }
+
+    @Test
+    public void ignoresScriptsSetAfterCreation() {
+        Transaction tx = createTransaction(10, 2);
+        byte[] script = ScriptBuilder.createOutputScript(Address.fromKey(UNITTEST, new ECKey())).getProgram();
+        SigHashCache cache = new SigHashCache(tx);
+        for (int i = 0; i < 10; i++) {
+            tx.getInput(i).setScriptBytes(new byte[] { 1, 2, 3 });
+            assertEquals(tx.hashForSignature(i, script, Transaction.SigHash.ALL, false),
+                    cache.hashForSignature(i, script, Transaction.SigHash.ALL, false));
+        }
+    }
+}
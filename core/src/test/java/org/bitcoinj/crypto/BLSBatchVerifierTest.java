@@ -8,6 +8,7 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -49,9 +50,16 @@ public class BLSBatchVerifierTest {
         vec.add(m);
     }
 
-    static void verify(List<Message> vec, boolean secureVerification, boolean perMessageFallback)
+    static void verify(List<Message> vec, boolean secureVerification, boolean perMessageFallback) {
+        verify(vec, secureVerification, perMessageFallback, null);
+    }
+
+    static void verify(List<Message> vec, boolean secureVerification, boolean perMessageFallback, ForkJoinPool pool)
     {
         BLSBatchVerifier<Integer, Integer> batchVerifier = new BLSBatchVerifier<>(secureVerification, perMessageFallback);
+        if (pool != null) {
+            batchVerifier.setParallelVerification(pool, 2);
+        }
 
         HashSet<Integer> expectedBadMessages = new HashSet<>();
         HashSet<Integer> expectedBadSources = new HashSet<>();
@@ -80,6 +88,16 @@ public class BLSBatchVerifierTest {
         verify(vec, true, false);
         verify(vec, false, true);
         verify(vec, true, true);
+
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            verify(vec, false, false, pool);
+            verify(vec, true, false, pool);
+            verify(vec, false, true, pool);
+            verify(vec, true, true, pool);
+        } finally {
+            pool.shutdown();
+        }
     }
 
     public void batchVerifier(boolean legacy) {
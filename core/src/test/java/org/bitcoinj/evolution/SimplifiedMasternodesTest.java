@@ -34,6 +34,7 @@ import org.bitcoinj.store.FlatDB;
 import org.bitcoinj.store.MemoryBlockStore;
 
 import org.bitcoinj.utils.MerkleRoot;
+import org.bitcoinj.utils.Pair;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
@@ -41,6 +42,8 @@ import java.net.InetAddress;
 import java.net.URL;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -204,4 +207,23 @@ public class SimplifiedMasternodesTest {
         System.out.println(MerkleRoot.calculateMerkleRoot(hashes));
     }
 
+    @Test
+    public void scoresTopSelection() {
+        ArrayList<Pair<Sha256Hash, Masternode>> scores = new ArrayList<>();
+        for (int i = 0; i < 1000; ++i) {
+            scores.add(new Pair<>(Sha256Hash.of(new byte[]{(byte) i, (byte) (i >> 8)}), null));
+        }
+        ArrayList<Pair<Sha256Hash, Masternode>> expected = new ArrayList<>(scores);
+        expected.sort(Collections.reverseOrder(new SimplifiedMasternodeList.CompareScoreMN()));
+
+        SimplifiedMasternodeList.Scores sortedScores = new SimplifiedMasternodeList.Scores(scores);
+        // partial selection, then a larger partial selection, then a full sort
+        for (int count : new int[]{10, 5, 100, 1000, 2000, 50}) {
+            List<Pair<Sha256Hash, Masternode>> top = sortedScores.getTop(count);
+            assertEquals(Math.min(count, expected.size()), top.size());
+            for (int i = 0; i < top.size(); ++i) {
+                assertSame(expected.get(i), top.get(i));
+            }
+        }
+    }
 }
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.governance;
+
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.MasternodeSignature;
+import org.bitcoinj.core.MasternodeSync;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.TransactionOutPoint;
+import org.bitcoinj.core.UnsafeByteArrayOutputStream;
+import org.bitcoinj.core.Utils;
+import org.bitcoinj.evolution.MasternodeMetaDataManager;
+import org.bitcoinj.manager.ManagerJournal;
+import org.bitcoinj.params.UnitTestParams;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GovernanceManagerTest {
+    private static final Logger log = LoggerFactory.getLogger(GovernanceManagerTest.class);
+    private static final NetworkParameters UNITTEST = UnitTestParams.get();
+
+    private static final int OBJECT_COUNT = 100;
+    private static final int VOTE_COUNT = 100000;
+
+    private Context context;
+    private MasternodeSync masternodeSync;
+    private MasternodeMetaDataManager metaDataManager;
+
+    @Before
+    public void setUp() {
+        context = new Context(UNITTEST);
+        // without the masternode list votes are not checked against it
+        masternodeSync = new MasternodeSync(context, EnumSet.noneOf(MasternodeSync.SYNC_FLAGS.class));
+        metaDataManager = new AcceptingMetaDataManager(context);
+    }
+
+    static class AcceptingMetaDataManager extends MasternodeMetaDataManager {
+        AcceptingMetaDataManager(Context context) {
+            super(context);
+        }
+
+        @Override
+        public boolean addGovernanceVote(TransactionOutPoint outPoint, Sha256Hash hash) {
+            return true;
+        }
+    }
+
+    private GovernanceManager createManager(List<byte[]> objects) {
+        GovernanceManager manager = new GovernanceManager(context);
+        manager.setBlockChain(null, masternodeSync, null, metaDataManager, null, null);
+        for (byte[] object : objects)
+            manager.applyJournalRecord(GovernanceManager.JOURNAL_OBJECT, object);
+        return manager;
+    }
+
+    private static byte[] serializeProposal(int index) throws Exception {
+        UnsafeByteArrayOutputStream stream = new UnsafeByteArrayOutputStream();
+        stream.write(Sha256Hash.ZERO_HASH.getReversedBytes());
+        Utils.uint32ToByteStreamLE(1, stream);
+        Utils.int64ToByteStreamLE(Utils.currentTimeSeconds(), stream);
+        stream.write(Sha256Hash.of(new byte[] {(byte) index}).getReversedBytes());
+        Utils.bytesToByteStream(("{\"name\":\"proposal-" + index + "\"}").getBytes(), stream);
+        Utils.uint32ToByteStreamLE(GovernanceObject.GOVERNANCE_OBJECT_PROPOSAL, stream);
+        new TransactionOutPoint(UNITTEST, index, Sha256Hash.ZERO_HASH).bitcoinSerialize(stream);
+        Utils.bytesToByteStream(new byte[0], stream);
+        return stream.toByteArray();
+    }
+
+    private static List<byte[]> createProposals() throws Exception {
+        List<byte[]> objects = new ArrayList<>(OBJECT_COUNT);
+        for (int i = 0; i < OBJECT_COUNT; i++)
+            objects.add(serializeProposal(i));
+        return objects;
+    }
+
+    private static List<GovernanceVote> createVotes(List<byte[]> objects) {
+        List<Sha256Hash> parents = new ArrayList<>(objects.size());
+        for (byte[] object : objects)
+            parents.add(new GovernanceObject(UNITTEST, object).getHash());
+        List<GovernanceVote> votes = new ArrayList<>(VOTE_COUNT);
+        for (int i = 0; i < VOTE_COUNT; i++) {
+            // one vote of each masternode for each object
+            int index = i / objects.size();
+            TransactionOutPoint masternode = new TransactionOutPoint(UNITTEST, 0,
+                    Sha256Hash.of(new byte[] {(byte) (index >> 8), (byte) index}));
+            votes.add(new GovernanceVote(UNITTEST, masternode, parents.get(i % parents.size()),
+                    GovernanceVote.VoteSignal.VOTE_SIGNAL_FUNDING, GovernanceVote.VoteOutcome.VOTE_OUTCOME_YES));
+        }
+        return votes;
+    }
+
+    /** Processes the votes on the given number of threads, each standing in for a peer, and returns votes/sec. */
+    private double flood(GovernanceManager manager, List<GovernanceVote> votes, int peers) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(peers);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Integer>> results = new ArrayList<>(peers);
+            for (int peer = 0; peer < peers; peer++) {
+                final int first = peer;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int accepted = 0;
+                    for (int i = first; i < votes.size(); i += peers) {
+                        if (manager.processVote(null, votes.get(i), new GovernanceException()))
+                            accepted++;
+                    }
+                    return accepted;
+                }));
+            }
+            long startTime = System.nanoTime();
+            start.countDown();
+            int accepted = 0;
+            for (Future<Integer> result : results)
+                accepted += result.get();
+            long elapsed = System.nanoTime() - startTime;
+            assertEquals(votes.size(), accepted);
+            return votes.size() * (double) TimeUnit.SECONDS.toNanos(1) / elapsed;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void voteIsReplayedFromJournal() throws Exception {
+        List<byte[]> objects = Collections.singletonList(serializeProposal(0));
+        Sha256Hash parentHash = new GovernanceObject(UNITTEST, objects.get(0)).getHash();
+        TransactionOutPoint masternode = new TransactionOutPoint(UNITTEST, 0, Sha256Hash.ZERO_HASH);
+        // the values of the outcome and the signal differ, so that swapping them is noticed
+        GovernanceVote vote = new GovernanceVote(UNITTEST, masternode, parentHash,
+                GovernanceVote.VoteSignal.VOTE_SIGNAL_FUNDING, GovernanceVote.VoteOutcome.VOTE_OUTCOME_NO);
+        byte[] signature = new byte[97];
+        signature[0] = 96;
+        vote.setSignature(new MasternodeSignature(UNITTEST, signature, 0));
+        GovernanceManager manager = createManager(objects);
+        assertTrue(manager.processVote(null, vote, new GovernanceException()));
+        assertEquals(1, manager.findGovernanceObject(parentHash).countMatchingVotes(
+                GovernanceVote.VoteSignal.VOTE_SIGNAL_FUNDING, GovernanceVote.VoteOutcome.VOTE_OUTCOME_NO));
+
+        // an older vote of the masternode for the same signal is obsolete
+        GovernanceVote older = new GovernanceVote(UNITTEST, masternode, parentHash,
+                GovernanceVote.VoteSignal.VOTE_SIGNAL_FUNDING, GovernanceVote.VoteOutcome.VOTE_OUTCOME_YES);
+        older.setTime(vote.getTimestamp() - 1);
+        older.updateHash();
+        assertFalse(manager.processVote(null, older, new GovernanceException()));
+
+        // the snapshot was saved before the vote arrived, the vote is in the journal
+        GovernanceManager loaded = createManager(objects);
+        File snapshot = File.createTempFile("dashj-unit-test", null);
+        snapshot.deleteOnExit();
+        ManagerJournal.forSnapshot(snapshot).deleteOnExit();
+        loaded.saveToFile(snapshot);
+        ManagerJournal journal = new ManagerJournal(ManagerJournal.forSnapshot(snapshot));
+        journal.reset(snapshot);
+        journal.append(GovernanceManager.JOURNAL_VOTE, vote.bitcoinSerialize());
+        assertTrue(journal.flush(snapshot));
+
+        assertEquals(1, loaded.replayJournal(snapshot));
+        GovernanceObject govobj = loaded.findGovernanceObject(parentHash);
+        assertEquals(1, govobj.getVoteFile().getVoteCount());
+        GovernanceVote replayed = govobj.getVoteFile().getVotes().get(0);
+        assertEquals(GovernanceVote.VoteOutcome.VOTE_OUTCOME_NO, replayed.getOutcome());
+        assertEquals(GovernanceVote.VoteSignal.VOTE_SIGNAL_FUNDING, replayed.getSignal());
+        assertEquals(vote.getHash(), replayed.getHash());
+        // the replayed vote counts like the processed one
+        assertEquals(1, govobj.countMatchingVotes(GovernanceVote.VoteSignal.VOTE_SIGNAL_FUNDING,
+                GovernanceVote.VoteOutcome.VOTE_OUTCOME_NO));
+    }
+
+    @Test
+    public void voteFlood() throws Exception {
+        List<byte[]> objects = createProposals();
+        List<GovernanceVote> votes = createVotes(objects);
+
+        // so that the first of the measured runs isn't slowed down by compiling the vote path
+        flood(createManager(objects), votes, 8);
+        // before: the same votes, each processed under the manager lock
+        GovernanceManager serialized = createManager(objects);
+        serialized.setVotesUnderManagerLock(true);
+        double before = flood(serialized, votes, 8);
+        GovernanceManager manager = createManager(objects);
+        double after = flood(manager, votes, 8);
+        log.info("{} votes from 8 peers, under the manager lock: {} votes/sec, without it: {} votes/sec",
+                votes.size(), (long) before, (long) after);
+        log.info("{}", serialized.getManagerLockStats());
+        log.info("{}", manager.getObjectLockStats());
+        log.info("{}", manager.getVoteIndexLockStats());
+
+        assertEquals(votes.size(), serialized.getManagerLockStats().getAcquisitions());
+        assertEquals(0, manager.getManagerLockStats().getAcquisitions());
+        for (GovernanceVote vote : votes) {
+            assertTrue(manager.haveVoteForHash(vote.getHash()));
+            assertEquals(vote.getHash(), manager.getVoteForHash(vote.getHash()).getHash());
+        }
+        for (byte[] object : objects) {
+            Sha256Hash hash = new GovernanceObject(UNITTEST, object).getHash();
+            GovernanceObject govobj = manager.findGovernanceObject(hash);
+            assertEquals(VOTE_COUNT / OBJECT_COUNT, govobj.getVoteFile().getVoteCount());
+            assertEquals(VOTE_COUNT / OBJECT_COUNT,
+                    govobj.countMatchingVotes(GovernanceVote.VoteSignal.VOTE_SIGNAL_FUNDING,
+                            GovernanceVote.VoteOutcome.VOTE_OUTCOME_YES));
+        }
+
+        // a vote that is received again is not stored twice
+        manager.processVote(null, votes.get(0), new GovernanceException());
+        assertEquals(VOTE_COUNT / OBJECT_COUNT,
+                manager.findGovernanceObject(votes.get(0).getParentHash()).getVoteFile().getVoteCount());
+    }
+
+    @Test
+    public void orphanVote() throws Exception {
+        List<byte[]> objects = createProposals();
+        GovernanceVote vote = createVotes(objects).get(0);
+        GovernanceManager manager = createManager(new ArrayList<byte[]>());
+        assertFalse(manager.processVote(null, vote, new GovernanceException()));
+        assertFalse(manager.haveVoteForHash(vote.getHash()));
+        assertEquals(1, manager.getManagerLockStats().getAcquisitions());
+    }
+
+    @Test
+    public void voteCachesAreSaved() throws Exception {
+        List<byte[]> objects = createProposals();
+        List<GovernanceVote> votes = createVotes(objects).subList(0, 2);
+        byte[] signature = new byte[97];
+        signature[0] = 96;
+        for (GovernanceVote vote : votes)
+            vote.setSignature(new MasternodeSignature(UNITTEST, signature, 0));
+        GovernanceManager manager = createManager(new ArrayList<byte[]>());
+        manager.addInvalidVote(votes.get(0));
+        assertFalse(manager.processVote(null, votes.get(1), new GovernanceException()));
+
+        GovernanceManager loaded = createManager(new ArrayList<byte[]>());
+        loaded.load(manager.bitcoinSerialize(), 0);
+        assertTrue(loaded.isInvalidVote(votes.get(0).getHash()));
+        assertFalse(loaded.isInvalidVote(votes.get(1).getHash()));
+
+        // the orphan vote is applied once its object arrives
+        loaded.applyJournalRecord(GovernanceManager.JOURNAL_OBJECT, objects.get(1));
+        GovernanceObject govobj = loaded.findGovernanceObject(votes.get(1).getParentHash());
+        loaded.checkOrphanVotes(govobj, new GovernanceException());
+        assertEquals(1, govobj.getVoteFile().getVoteCount());
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.manager;
+
+import org.bitcoinj.core.AbstractManager;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.ProtocolException;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.VarInt;
+import org.bitcoinj.params.MainNetParams;
+import org.bitcoinj.store.FlatDB;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ManagerJournalTest {
+
+    Context context = new Context(MainNetParams.get());
+    private File file;
+    private final List<TestJournalManager> managers = new ArrayList<>();
+
+    static class TestJournalManager extends AbstractManager {
+        static final int JOURNAL_ADD = 1;
+
+        public LinkedHashSet<Sha256Hash> hashes = new LinkedHashSet<>();
+
+        TestJournalManager(Context context) {
+            super(context);
+        }
+
+        @Override
+        public int calculateMessageSizeInBytes() {
+            return 0;
+        }
+
+        @Override
+        public void checkAndRemove() {
+
+        }
+
+        @Override
+        public void clear() {
+            hashes.clear();
+        }
+
+        @Override
+        public AbstractManager createEmpty() {
+            return null;
+        }
+
+        @Override
+        protected void parse() throws ProtocolException {
+            int size = (int) readVarInt();
+            hashes = new LinkedHashSet<>(size);
+            for (int i = 0; i < size; i++)
+                hashes.add(readHash());
+        }
+
+        @Override
+        protected void bitcoinSerializeToStream(OutputStream stream) throws IOException {
+            stream.write(new VarInt(hashes.size()).encode());
+            for (Sha256Hash hash : hashes)
+                stream.write(hash.getReversedBytes());
+        }
+
+        @Override
+        public boolean isJournalEnabled() {
+            return true;
+        }
+
+        @Override
+        protected void applyJournalRecord(int type, byte[] data) {
+            assertEquals(JOURNAL_ADD, type);
+            hashes.add(Sha256Hash.wrapReversed(data));
+        }
+
+        public void addHash(Sha256Hash hash) {
+            hashes.add(hash);
+            appendToJournal(JOURNAL_ADD, hash.getReversedBytes());
+        }
+
+        public void addHashAndSave(Sha256Hash hash) {
+            hashes.add(hash);
+            saveNow();
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("dashj-unit-test", null);
+        file.deleteOnExit();
+        ManagerJournal.forSnapshot(file).deleteOnExit();
+    }
+
+    @After
+    public void tearDown() {
+        for (TestJournalManager manager : managers)
+            manager.close();
+    }
+
+    private TestJournalManager newManager() {
+        TestJournalManager manager = new TestJournalManager(context);
+        managers.add(manager);
+        return manager;
+    }
+
+    private TestJournalManager load() {
+        TestJournalManager manager = newManager();
+        FlatDB<TestJournalManager> db = new FlatDB<>(context, file.getAbsolutePath(), true);
+        assertTrue(db.load(manager));
+        return manager;
+    }
+
+    private static Sha256Hash hash(int i) {
+        return Sha256Hash.of(new byte[] {(byte) i, (byte) (i >> 8)});
+    }
+
+    @Test
+    public void changesAreJournaled() throws Exception {
+        TestJournalManager manager = newManager();
+        manager.autosaveToFile(file, 0, TimeUnit.SECONDS, null);
+        manager.addHashAndSave(hash(0));
+        Sha256Hash snapshotHash = Sha256Hash.of(file);
+
+        for (int i = 1; i <= 100; i++)
+            manager.addHash(hash(i));
+        manager.shutdownAutosaveAndWait();
+
+        // the snapshot was not rewritten, the changes are in the journal
+        assertEquals(snapshotHash, Sha256Hash.of(file));
+        assertTrue(ManagerJournal.forSnapshot(file).length() > 100 * 32);
+
+        TestJournalManager loaded = load();
+        assertEquals(manager.hashes, loaded.hashes);
+    }
+
+    @Test
+    public void compactsWhenJournalIsLarge() throws Exception {
+        TestJournalManager manager = newManager();
+        ManagerFiles files = manager.autosaveToFile(file, 0, TimeUnit.SECONDS, null);
+        manager.addHashAndSave(hash(0));
+        Sha256Hash snapshotHash = Sha256Hash.of(file);
+
+        files.setCompactionThreshold(0);
+        manager.addHash(hash(1));
+        manager.shutdownAutosaveAndWait();
+
+        assertNotEquals(snapshotHash, Sha256Hash.of(file));
+        ManagerJournal journal = new ManagerJournal(ManagerJournal.forSnapshot(file));
+        assertEquals(0, journal.replay(file, (type, data) -> {}));
+        assertEquals(manager.hashes, load().hashes);
+    }
+
+    @Test
+    public void tornRecordIsDropped() throws Exception {
+        TestJournalManager manager = newManager();
+        manager.saveToFile(file);
+        File journalFile = ManagerJournal.forSnapshot(file);
+        ManagerJournal journal = new ManagerJournal(journalFile);
+        journal.reset(file);
+        for (int i = 0; i < 3; i++)
+            journal.append(TestJournalManager.JOURNAL_ADD, hash(i).getReversedBytes());
+        assertTrue(journal.flush(file));
+        long length = journalFile.length();
+
+        // a record that was cut short when the process died
+        try (FileOutputStream stream = new FileOutputStream(journalFile, true)) {
+            stream.write(new byte[] {32, 0, 0, 0, TestJournalManager.JOURNAL_ADD, 1, 2, 3});
+        }
+        assertEquals(3, journal.replay(file, (type, data) -> {}));
+
+        // the next writer cuts off the incomplete record before appending
+        journal = new ManagerJournal(journalFile);
+        journal.append(TestJournalManager.JOURNAL_ADD, hash(3).getReversedBytes());
+        assertTrue(journal.flush(file));
+        assertEquals(length + 4 + 1 + 32 + 4, journalFile.length());
+
+        TestJournalManager loaded = load();
+        assertEquals(4, loaded.hashes.size());
+        for (int i = 0; i < 4; i++)
+            assertTrue(loaded.hashes.contains(hash(i)));
+    }
+
+    @Test
+    public void journalOfOldSnapshotIsIgnored() throws Exception {
+        TestJournalManager manager = newManager();
+        manager.saveToFile(file);
+        ManagerJournal journal = new ManagerJournal(ManagerJournal.forSnapshot(file));
+        journal.reset(file);
+        journal.append(TestJournalManager.JOURNAL_ADD, hash(1).getReversedBytes());
+        assertTrue(journal.flush(file));
+
+        // a new snapshot replaced the old one, but the journal was not reset
+        manager.hashes.add(hash(2));
+        manager.saveToFile(file);
+        assertEquals(-1, journal.replay(file, (type, data) -> {}));
+        assertFalse(new ManagerJournal(ManagerJournal.forSnapshot(file)).flush(file));
+
+        TestJournalManager loaded = load();
+        assertEquals(manager.hashes, loaded.hashes);
+    }
+}
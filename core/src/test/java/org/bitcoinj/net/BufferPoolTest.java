@@ -0,0 +1,83 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.net;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BufferPoolTest {
+
+    @Test
+    public void reusesBuffers() {
+        BufferPool pool = new BufferPool(1024, 1);
+        ByteBuffer first = pool.acquire();
+        assertTrue(first.isDirect());
+        assertEquals(1024, first.capacity());
+        first.put((byte) 1);
+        ByteBuffer second = pool.acquire();
+        assertEquals(2, pool.getAllocationCount());
+        assertEquals(2, pool.getInUseCount());
+
+        pool.release(first);
+        pool.release(second);
+        // only one idle buffer is kept
+        assertEquals(1, pool.getIdleCount());
+        assertEquals(1, pool.getDiscardCount());
+        assertEquals(0, pool.getInUseCount());
+
+        ByteBuffer third = pool.acquire();
+        assertSame(first, third);
+        assertEquals(0, third.position());
+        assertEquals(1024, third.limit());
+        assertEquals(3, pool.getAcquireCount());
+        assertEquals(2, pool.getAllocationCount());
+        assertEquals(2048, pool.getAllocatedBytes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsOtherBuffers() {
+        new BufferPool(1024, 1).release(ByteBuffer.allocateDirect(512));
+    }
+
+    @Test
+    public void pooledOutputStream() {
+        BufferPool pool = new BufferPool(100, 10);
+        byte[] bytes = new byte[1000];
+        new Random(1).nextBytes(bytes);
+        PooledOutputStream out = new PooledOutputStream(pool);
+        out.write(bytes[0]);
+        out.write(bytes, 1, 998);
+        out.write(bytes[999]);
+        assertEquals(1000, out.size());
+        assertEquals(10, out.getBuffers().length);
+        assertArrayEquals(bytes, out.toByteArray());
+        // reading the buffers doesn't use them up
+        assertArrayEquals(bytes, out.toByteArray());
+        assertEquals(10, pool.getInUseCount());
+        out.release();
+        out.release();
+        assertEquals(0, pool.getInUseCount());
+        assertEquals(10, pool.getIdleCount());
+    }
+}
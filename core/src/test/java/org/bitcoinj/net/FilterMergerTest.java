@@ -0,0 +1,108 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.net;
+
+import com.google.common.collect.ImmutableList;
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.PeerFilterProvider;
+import org.bitcoinj.params.UnitTestParams;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.script.ScriptBuilder;
+import org.bitcoinj.wallet.Wallet;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FilterMergerTest {
+    private static final NetworkParameters UNITTEST = UnitTestParams.get();
+
+    private Wallet wallet;
+    private FilterMerger merger;
+    private ImmutableList<PeerFilterProvider> providers;
+
+    @Before
+    public void setUp() {
+        Context.propagate(new Context(UNITTEST));
+        wallet = Wallet.createDeterministic(UNITTEST, Script.ScriptType.P2PKH);
+        merger = new FilterMerger(0.0001);
+        providers = ImmutableList.<PeerFilterProvider>of(wallet);
+    }
+
+    @Test
+    public void updatesFilterWithNewElements() {
+        // watched scripts need an UPDATE_ALL filter, so the first filter must have one already
+        wallet.addWatchedScripts(Collections.singletonList(ScriptBuilder.createP2PKHOutputScript(new ECKey())));
+        FilterMerger.Result first = merger.calculate(providers);
+        assertFalse(first.incremental);
+        assertEquals(1, merger.getRebuildCount());
+
+        ECKey key = new ECKey();
+        wallet.importKey(key);
+        Script script = ScriptBuilder.createP2PKHOutputScript(new ECKey());
+        wallet.addWatchedScripts(Collections.singletonList(script));
+
+        FilterMerger.Result second = merger.calculate(providers);
+        assertTrue(second.incremental);
+        assertTrue(second.changed);
+        assertEquals(1, merger.getIncrementalCount());
+        assertEquals(3, merger.getIncrementalElementCount());
+        assertTrue(second.filter.contains(key.getPubKey()));
+        assertTrue(second.filter.contains(key.getPubKeyHash()));
+        assertTrue(second.filter.contains(script.getChunks().get(2).data));
+
+        // nothing changed
+        FilterMerger.Result third = merger.calculate(providers);
+        assertTrue(third.incremental);
+        assertFalse(third.changed);
+
+        // a filter calculated from scratch holds the same elements
+        FilterMerger.Result rebuilt = merger.calculate(providers, true);
+        assertFalse(rebuilt.incremental);
+        assertEquals(rebuilt.filter, second.filter);
+    }
+
+    @Test
+    public void rebuildsAfterRemoval() {
+        Address address = Address.fromKey(UNITTEST, new ECKey());
+        wallet.addWatchedAddress(address);
+        merger.calculate(providers);
+        assertTrue(merger.getLastFilter().contains(address.getHash()));
+
+        wallet.removeWatchedAddress(address);
+        FilterMerger.Result result = merger.calculate(providers);
+        assertFalse(result.incremental);
+        assertFalse(result.filter.contains(address.getHash()));
+        assertEquals(2, merger.getRebuildCount());
+    }
+
+    @Test
+    public void rebuildsWhenProvidersChange() {
+        merger.calculate(providers);
+        Wallet other = Wallet.createDeterministic(UNITTEST, Script.ScriptType.P2PKH);
+        FilterMerger.Result result = merger.calculate(ImmutableList.<PeerFilterProvider>of(wallet, other));
+        assertFalse(result.incremental);
+        assertEquals(2, merger.getRebuildCount());
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.net;
+
+import com.google.common.util.concurrent.SettableFuture;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.params.UnitTestParams;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class VirtualThreadClientManagerTest {
+    private static final int CLIENTS = 20;
+    private static final int MESSAGE_SIZE = 100000;
+    private static final InetSocketAddress ADDRESS = new InetSocketAddress(InetAddress.getLoopbackAddress(), 4251);
+
+    private NioServer server;
+    private VirtualThreadClientManager manager;
+
+    /** Writes back everything it receives. */
+    private static class EchoConnection implements StreamConnection {
+        private MessageWriteTarget writeTarget;
+
+        @Override
+        public void connectionClosed() {
+        }
+
+        @Override
+        public void connectionOpened() {
+        }
+
+        @Override
+        public int receiveBytes(ByteBuffer buff) throws Exception {
+            byte[] bytes = new byte[buff.remaining()];
+            buff.get(bytes);
+            writeTarget.writeBytes(bytes);
+            return buff.position();
+        }
+
+        @Override
+        public void setWriteTarget(MessageWriteTarget writeTarget) {
+            this.writeTarget = writeTarget;
+        }
+
+        @Override
+        public int getMaxMessageSize() {
+            return 65536;
+        }
+    }
+
+    /** Counts the bytes it receives, until it has the expected number. */
+    private static class CountingConnection implements StreamConnection {
+        final SettableFuture<MessageWriteTarget> opened = SettableFuture.create();
+        final SettableFuture<Void> received = SettableFuture.create();
+        final SettableFuture<Void> closed = SettableFuture.create();
+        private final AtomicInteger count = new AtomicInteger();
+        private MessageWriteTarget writeTarget;
+
+        @Override
+        public void connectionClosed() {
+            closed.set(null);
+        }
+
+        @Override
+        public void connectionOpened() {
+            opened.set(writeTarget);
+        }
+
+        @Override
+        public int receiveBytes(ByteBuffer buff) {
+            if (count.addAndGet(buff.remaining()) == MESSAGE_SIZE)
+                received.set(null);
+            buff.position(buff.limit());
+            return buff.position();
+        }
+
+        @Override
+        public void setWriteTarget(MessageWriteTarget writeTarget) {
+            this.writeTarget = writeTarget;
+        }
+
+        @Override
+        public int getMaxMessageSize() {
+            return 65536;
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        Context.propagate(new Context(UnitTestParams.get()));
+        server = new NioServer((InetAddress inetAddress, int port) -> new EchoConnection(), ADDRESS);
+        server.startAsync().awaitRunning();
+        manager = new VirtualThreadClientManager();
+        manager.startAsync().awaitRunning();
+    }
+
+    @After
+    public void tearDown() {
+        manager.stopAsync().awaitTerminated();
+        server.stopAsync().awaitTerminated();
+    }
+
+    @Test
+    public void echoesOnManyConnections() throws Exception {
+        assertEquals(VirtualThreadClientManager.isVirtualThreadSupported(), manager.isUsingVirtualThreads());
+        List<CountingConnection> connections = new ArrayList<>();
+        for (int i = 0; i < CLIENTS; i++) {
+            CountingConnection connection = new CountingConnection();
+            manager.openConnection(ADDRESS, connection);
+            connections.add(connection);
+        }
+        byte[] message = new byte[MESSAGE_SIZE];
+        for (CountingConnection connection : connections)
+            connection.opened.get(10, TimeUnit.SECONDS).writeBytes(message);
+        for (CountingConnection connection : connections)
+            connection.received.get(10, TimeUnit.SECONDS);
+        assertEquals(CLIENTS, manager.getConnectedClientCount());
+
+        manager.closeConnections(CLIENTS / 2);
+        for (int i = 0; i < 100 && manager.getConnectedClientCount() > CLIENTS / 2; i++)
+            Thread.sleep(100);
+        assertEquals(CLIENTS / 2, manager.getConnectedClientCount());
+        int closed = 0;
+        for (CountingConnection connection : connections)
+            closed += connection.closed.isDone() ? 1 : 0;
+        assertEquals(CLIENTS / 2, closed);
+    }
+}
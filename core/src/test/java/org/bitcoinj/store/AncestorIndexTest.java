@@ -0,0 +1,229 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.store;
+
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.StoredBlock;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.Utils;
+import org.bitcoinj.params.UnitTestParams;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AncestorIndexTest {
+    private static NetworkParameters UNITTEST;
+
+    private MemoryBlockStore store;
+    private List<StoredBlock> chain;
+    private int reads;
+
+    /** Counts the blocks that are read from the memory store. */
+    private final BlockStore countingStore = new BlockStore() {
+        @Override
+        public void put(StoredBlock block) throws BlockStoreException {
+            store.put(block);
+        }
+
+        @Override
+        public StoredBlock get(Sha256Hash hash) throws BlockStoreException {
+            reads++;
+            return store.get(hash);
+        }
+
+        @Override
+        public StoredBlock getChainHead() throws BlockStoreException {
+            return store.getChainHead();
+        }
+
+        @Override
+        public void setChainHead(StoredBlock chainHead) throws BlockStoreException {
+            store.setChainHead(chainHead);
+        }
+
+        @Override
+        public void close() throws BlockStoreException {
+            store.close();
+        }
+
+        @Override
+        public NetworkParameters getParams() {
+            return store.getParams();
+        }
+
+        @Override
+        public StoredBlock get(int height) throws BlockStoreException {
+            return store.get(height);
+        }
+
+        @Override
+        public StoredBlock getChainHeadFromHash(Sha256Hash hash) throws BlockStoreException {
+            return store.getChainHeadFromHash(hash);
+        }
+    };
+
+    @BeforeClass
+    public static void setUpClass() {
+        Utils.resetMocking();
+        UNITTEST = UnitTestParams.get();
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        store = new MemoryBlockStore(UNITTEST);
+        chain = new ArrayList<>();
+        chain.add(store.getChainHead());
+        chain.addAll(buildChain(store.getChainHead(), 3000, 0));
+        for (StoredBlock block : chain)
+            store.put(block);
+    }
+
+    /** Builds a chain of headers on top of the given block, without solving them. */
+    private static List<StoredBlock> buildChain(StoredBlock start, int length, int nonce) {
+        List<StoredBlock> chain = new ArrayList<>(length);
+        StoredBlock prev = start;
+        for (int i = 0; i < length; i++) {
+            Block block = new Block(UNITTEST, 1, prev.getHeader().getHash(), Sha256Hash.ZERO_HASH, 0, 0,
+                    nonce + i, Collections.<Transaction>emptyList());
+            prev = new StoredBlock(block, prev.getChainWork().add(BigInteger.ONE), prev.getHeight() + 1);
+            chain.add(prev);
+        }
+        return chain;
+    }
+
+    @Test
+    public void skipHeights() {
+        assertEquals(0, AncestorIndex.getSkipHeight(0));
+        assertEquals(0, AncestorIndex.getSkipHeight(1));
+        assertEquals(1, AncestorIndex.getSkipHeight(3));
+        assertEquals(4, AncestorIndex.getSkipHeight(6));
+        assertEquals(1, AncestorIndex.getSkipHeight(7));
+        assertEquals(8, AncestorIndex.getSkipHeight(12));
+        for (int height = 2; height < 100000; height++)
+            assertTrue(AncestorIndex.getSkipHeight(height) < height);
+    }
+
+    @Test
+    public void findsAncestors() throws Exception {
+        AncestorIndex index = new AncestorIndex();
+        for (StoredBlock block : chain)
+            index.add(block);
+        StoredBlock tip = chain.get(chain.size() - 1);
+        for (int height = 0; height < chain.size(); height++) {
+            reads = 0;
+            assertEquals(chain.get(height), index.getAncestor(countingStore, tip, height));
+            // the walk happens in the index, only the ancestor is read
+            assertTrue(reads <= 1);
+        }
+        assertSame(tip, index.getAncestor(countingStore, tip, tip.getHeight()));
+        assertNull(index.getAncestor(countingStore, tip, tip.getHeight() + 1));
+        assertNull(index.getAncestor(countingStore, tip, -1));
+        assertEquals(chain.get(100), index.getAncestor(countingStore, chain.get(2000), 100));
+    }
+
+    @Test
+    public void indexesBlocksOnTheWay() throws Exception {
+        // the blocks were stored before the index was created
+        AncestorIndex index = new AncestorIndex();
+        StoredBlock tip = chain.get(chain.size() - 1);
+        reads = 0;
+        assertEquals(chain.get(500), index.getAncestor(countingStore, tip, 500));
+        assertTrue(reads >= tip.getHeight() - 500);
+        assertEquals(tip.getHeight() - 500 + 1, index.size());
+
+        reads = 0;
+        assertEquals(chain.get(1000), index.getAncestor(countingStore, tip, 1000));
+        assertEquals(1, reads);
+
+        // going further back only reads the blocks below the index
+        reads = 0;
+        assertEquals(chain.get(400), index.getAncestor(countingStore, tip, 400));
+        assertTrue(reads <= 101);
+        assertEquals(chain.get(10), index.getAncestor(countingStore, chain.get(20), 10));
+    }
+
+    @Test
+    public void forks() throws Exception {
+        AncestorIndex index = new AncestorIndex();
+        for (StoredBlock block : chain)
+            index.add(block);
+        List<StoredBlock> fork = buildChain(chain.get(2000), 500, 1000000);
+        for (StoredBlock block : fork) {
+            store.put(block);
+            index.add(block);
+        }
+        StoredBlock forkTip = fork.get(fork.size() - 1);
+        assertEquals(fork.get(100), index.getAncestor(countingStore, forkTip, 2101));
+        assertEquals(chain.get(2000), index.getAncestor(countingStore, forkTip, 2000));
+        assertEquals(chain.get(1234), index.getAncestor(countingStore, forkTip, 1234));
+        assertEquals(chain.get(2100), index.getAncestor(countingStore, chain.get(chain.size() - 1), 2100));
+    }
+
+    @Test
+    public void smallIndex() throws Exception {
+        AncestorIndex index = new AncestorIndex(100);
+        for (StoredBlock block : chain)
+            index.add(block);
+        assertEquals(100, index.size());
+        StoredBlock tip = chain.get(chain.size() - 1);
+        for (int height = 0; height < chain.size(); height += 97)
+            assertEquals(chain.get(height), index.getAncestor(countingStore, tip, height));
+    }
+
+    @Test
+    public void blockStores() throws Exception {
+        StoredBlock tip = chain.get(chain.size() - 1);
+        for (int height = 0; height < chain.size(); height += 13)
+            assertEquals(chain.get(height), tip.getAncestor(store, height));
+        assertNull(tip.getAncestor(store, tip.getHeight() + 1));
+
+        File file = File.createTempFile("ancestorindex", null);
+        file.delete();
+        file.deleteOnExit();
+        SPVSegmentedBlockStore segmentedStore = new SPVSegmentedBlockStore(UNITTEST, file);
+        try {
+            List<StoredBlock> fork = buildChain(chain.get(2000), 500, 1000000);
+            for (StoredBlock block : chain.subList(1, chain.size()))
+                segmentedStore.put(block);
+            segmentedStore.setChainHead(tip);
+            for (StoredBlock block : fork)
+                segmentedStore.put(block);
+            StoredBlock forkTip = fork.get(fork.size() - 1);
+            for (int height = 0; height < chain.size(); height += 13) {
+                assertEquals(chain.get(height), segmentedStore.getAncestor(tip, height));
+                if (height <= forkTip.getHeight())
+                    assertEquals(height > 2000 ? fork.get(height - 2001) : chain.get(height),
+                            segmentedStore.getAncestor(forkTip, height));
+            }
+        } finally {
+            segmentedStore.close();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.store;
+
+import org.bitcoinj.core.AbstractManager;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.ProtocolException;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.VarInt;
+import org.bitcoinj.params.MainNetParams;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FlatDBTest {
+    private final Context context = new Context(MainNetParams.get());
+    private File file;
+
+    static class HashListManager extends AbstractManager {
+        List<Sha256Hash> hashes = new ArrayList<>();
+
+        HashListManager(Context context) {
+            super(context);
+        }
+
+        @Override
+        public int calculateMessageSizeInBytes() {
+            return VarInt.sizeOf(hashes.size()) + hashes.size() * 32;
+        }
+
+        @Override
+        public void checkAndRemove() {
+        }
+
+        @Override
+        public void clear() {
+            hashes.clear();
+        }
+
+        @Override
+        public AbstractManager createEmpty() {
+            return new HashListManager(Context.get());
+        }
+
+        @Override
+        protected void parse() throws ProtocolException {
+            int size = (int) readVarInt();
+            hashes = new ArrayList<>(size);
+            for (int i = 0; i < size; i++)
+                hashes.add(readHash());
+        }
+
+        @Override
+        protected void bitcoinSerializeToStream(OutputStream stream) throws IOException {
+            stream.write(new VarInt(hashes.size()).encode());
+            for (Sha256Hash hash : hashes)
+                stream.write(hash.getReversedBytes());
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        file = File.createTempFile("dashj-unit-test", null);
+        file.deleteOnExit();
+    }
+
+    private HashListManager saveHashes(int count) {
+        HashListManager manager = new HashListManager(context);
+        for (int i = 0; i < count; i++)
+            manager.hashes.add(Sha256Hash.of(new byte[] {(byte) i, (byte) (i >> 8)}));
+        FlatDB<HashListManager> db = new FlatDB<>(context, file.getAbsolutePath(), true);
+        assertTrue(db.write(manager));
+        return manager;
+    }
+
+    private FlatDB<HashListManager> newFlatDB() {
+        FlatDB<HashListManager> db = new FlatDB<>(context, file.getAbsolutePath(), true);
+        // read the file in many small chunks
+        db.setUseAdaptiveBufferSizing(false);
+        db.setIOBufferSize(100);
+        return db;
+    }
+
+    @Test
+    public void roundTrip() {
+        HashListManager manager = saveHashes(1000);
+        HashListManager loaded = new HashListManager(context);
+        assertEquals(FlatDB.ReadResult.Ok, newFlatDB().read(loaded));
+        assertEquals(manager.hashes, loaded.hashes);
+    }
+
+    @Test
+    public void corruptDataIsDetected() throws Exception {
+        saveHashes(1000);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() / 2);
+            int b = raf.read();
+            raf.seek(raf.length() / 2);
+            raf.write(b ^ 1);
+        }
+        assertEquals(FlatDB.ReadResult.IncorrectHash, newFlatDB().read(new HashListManager(context)));
+    }
+
+    @Test
+    public void truncatedFileIsDetected() throws Exception {
+        saveHashes(1000);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 1);
+        }
+        assertEquals(FlatDB.ReadResult.IncorrectHash, newFlatDB().read(new HashListManager(context)));
+    }
+}
@@ -17,16 +17,28 @@
 package org.bitcoinj.store;
 
 import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Block;
 import org.bitcoinj.core.Context;
 import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
 import org.bitcoinj.core.StoredBlock;
+import org.bitcoinj.core.Transaction;
 import org.bitcoinj.core.Utils;
 import org.bitcoinj.params.*;
+import org.fusesource.leveldbjni.JniDBFactory;
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.Options;
 import org.junit.*;
 
 import java.io.*;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 
 @Ignore
 public class LevelDBBlockStoreTest {
@@ -72,4 +84,105 @@ public class LevelDBBlockStoreTest {
             store.destroy();
         }
     }
+
+    private static List<StoredBlock> buildChain(StoredBlock start, int length, int nonce) {
+        List<StoredBlock> chain = new ArrayList<>(length);
+        StoredBlock prev = start;
+        for (int i = 0; i < length; i++) {
+            Block block = new Block(UNITTEST, 1, prev.getHeader().getHash(), Sha256Hash.ZERO_HASH, 0, 0,
+                    nonce + i, Collections.<Transaction>emptyList());
+            prev = new StoredBlock(block, prev.getChainWork().add(BigInteger.ONE), prev.getHeight() + 1);
+            chain.add(prev);
+        }
+        return chain;
+    }
+
+    private static void putAll(BlockStore store, List<StoredBlock> chain) throws BlockStoreException {
+        for (StoredBlock block : chain) {
+            store.put(block);
+            store.setChainHead(block);
+        }
+    }
+
+    @Test
+    public void getByHeight() throws Exception {
+        File f = File.createTempFile("leveldbblockstore", null);
+        f.delete();
+
+        Context context = new Context(UNITTEST);
+        LevelDBBlockStore store = new LevelDBBlockStore(context, f);
+        try {
+            List<StoredBlock> common = buildChain(store.getChainHead(), 10, 0);
+            putAll(store, common);
+            StoredBlock forkPoint = common.get(common.size() - 1);
+            List<StoredBlock> first = buildChain(forkPoint, 20, 1000);
+            putAll(store, first);
+            List<StoredBlock> second = buildChain(forkPoint, 15, 2000);
+            for (StoredBlock block : second)
+                store.put(block);
+            assertEquals(first.get(19), store.get(30));
+
+            // move to the shorter branch, the heights above it are gone
+            store.setChainHead(second.get(14));
+            assertEquals(second.get(0), store.get(11));
+            assertEquals(second.get(14), store.get(25));
+            assertEquals(forkPoint, store.get(10));
+            assertNull(store.get(26));
+            store.close();
+
+            store = new LevelDBBlockStore(context, f);
+            assertEquals(second.get(14), store.get(25));
+            assertNull(store.get(26));
+            store.close();
+
+            // a store written before the height index is indexed when it is opened
+            DB db = JniDBFactory.factory.open(f, new Options());
+            try {
+                db.delete("heightindex".getBytes());
+                for (int height = 0; height <= 30; height++)
+                    db.delete(ByteBuffer.allocate(5).put((byte) 'h').putInt(height).array());
+            } finally {
+                db.close();
+            }
+            store = new LevelDBBlockStore(context, f);
+            assertEquals(second.get(14), store.get(25));
+            assertEquals(common.get(0), store.get(1));
+            assertEquals(UNITTEST.getGenesisBlock(), store.get(0).getHeader());
+        } finally {
+            store.close();
+            store.destroy();
+        }
+    }
+
+    @Test
+    public void interruptedHeightIndexMigration() throws Exception {
+        File f = File.createTempFile("leveldbblockstore", null);
+        f.delete();
+
+        Context context = new Context(UNITTEST);
+        LevelDBBlockStore store = new LevelDBBlockStore(context, f);
+        List<StoredBlock> chain = buildChain(store.getChainHead(), 30, 0);
+        putAll(store, chain);
+        store.close();
+
+        // an unindexed store where a migration was stopped after writing the entries at the top of the chain
+        DB db = JniDBFactory.factory.open(f, new Options());
+        try {
+            db.delete("heightindex".getBytes());
+            for (int height = 0; height <= 25; height++)
+                db.delete(ByteBuffer.allocate(5).put((byte) 'h').putInt(height).array());
+        } finally {
+            db.close();
+        }
+        store = new LevelDBBlockStore(context, f);
+        try {
+            assertEquals(chain.get(29), store.get(30));
+            assertEquals(chain.get(9), store.get(10));
+            assertEquals(chain.get(0), store.get(1));
+            assertEquals(UNITTEST.getGenesisBlock(), store.get(0).getHeader());
+        } finally {
+            store.close();
+            store.destroy();
+        }
+    }
 }
\ No newline at end of file
@@ -166,10 +166,15 @@ public class SPVBlockStoreTest {
         StoredBlock genesis = store.getChainHead();
         StoredBlock b1 = genesis.build(genesis.getHeader().createNextBlock(to).cloneAsHeader());
         store.put(b1);
-        store.setChainHead(b1);
-        assertEquals(b1.getHeader().getHash(), store.getChainHead().getHeader().getHash());
+        StoredBlock b2 = b1.build(b1.getHeader().createNextBlock(to).cloneAsHeader());
+        store.put(b2);
+        store.setChainHead(b2);
+        assertEquals(b2.getHeader().getHash(), store.getChainHead().getHeader().getHash());
+        assertEquals(b1, store.getAncestor(b2, 1));
         store.clear();
         assertNull(store.get(b1.getHeader().getHash()));
+        // nothing is found in the cleared store
+        assertNull(store.getAncestor(b2, 1));
         assertEquals(UNITTEST.getGenesisBlock().getHash(), store.getChainHead().getHeader().getHash());
         store.close();
     }
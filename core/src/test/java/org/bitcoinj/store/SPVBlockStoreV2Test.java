@@ -34,7 +34,9 @@ import org.junit.Test;
 
 import java.io.File;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
@@ -58,6 +60,25 @@ public class SPVBlockStoreV2Test {
         blockStoreFile.deleteOnExit();
     }
 
+    private static List<StoredBlock> buildChain(StoredBlock start, int length, int nonce) {
+        List<StoredBlock> chain = new ArrayList<>(length);
+        StoredBlock prev = start;
+        for (int i = 0; i < length; i++) {
+            Block block = new Block(UNITTEST, 1, prev.getHeader().getHash(), Sha256Hash.ZERO_HASH, 0, 0,
+                    nonce + i, Collections.<Transaction>emptyList());
+            prev = new StoredBlock(block, prev.getChainWork().add(BigInteger.ONE), prev.getHeight() + 1);
+            chain.add(prev);
+        }
+        return chain;
+    }
+
+    private static void putAll(BlockStore store, List<StoredBlock> chain) throws BlockStoreException {
+        for (StoredBlock block : chain) {
+            store.put(block);
+            store.setChainHead(block);
+        }
+    }
+
     @Test
     public void basics() throws Exception {
         SPVDirectIOBlockStore store = new SPVDirectIOBlockStore(UNITTEST, blockStoreFile);
@@ -84,6 +105,55 @@ public class SPVBlockStoreV2Test {
         store.close();
     }
 
+    @Test
+    public void getByHeight() throws Exception {
+        SPVDirectIOBlockStore store = new SPVDirectIOBlockStore(UNITTEST, blockStoreFile, 100, false);
+        List<StoredBlock> common = buildChain(store.getChainHead(), 10, 0);
+        putAll(store, common);
+        StoredBlock forkPoint = common.get(common.size() - 1);
+        List<StoredBlock> first = buildChain(forkPoint, 20, 1000);
+        putAll(store, first);
+        List<StoredBlock> second = buildChain(forkPoint, 15, 2000);
+        for (StoredBlock block : second)
+            store.put(block);
+        assertEquals(first.get(19), store.get(30));
+        assertEquals(common.get(4), store.get(5));
+
+        // move to the shorter branch, the heights above it are gone
+        store.setChainHead(second.get(14));
+        assertEquals(second.get(0), store.get(11));
+        assertEquals(second.get(14), store.get(25));
+        assertEquals(forkPoint, store.get(10));
+        assertNull(store.get(26));
+        assertNull(store.get(-1));
+        store.close();
+
+        // the index is loaded from the ring buffer
+        store = new SPVDirectIOBlockStore(UNITTEST, blockStoreFile, 100, false);
+        assertEquals(second.get(14), store.get(25));
+        assertEquals(second.get(0), store.get(11));
+        assertEquals(UNITTEST.getGenesisBlock(), store.get(0).getHeader());
+        assertNull(store.get(26));
+        store.close();
+    }
+
+    @Test
+    public void getByHeightAfterWrapping() throws Exception {
+        SPVDirectIOBlockStore store = new SPVDirectIOBlockStore(UNITTEST, blockStoreFile, 10, false);
+        List<StoredBlock> chain = buildChain(store.getChainHead(), 25, 0);
+        putAll(store, chain);
+        for (int height = 16; height <= 25; height++)
+            assertEquals(chain.get(height - 1), store.get(height));
+        store.close();
+
+        store = new SPVDirectIOBlockStore(UNITTEST, blockStoreFile, 10, false);
+        assertEquals(chain.get(24), store.get(25));
+        assertEquals(chain.get(15), store.get(16));
+        // overwritten in the ring buffer
+        assertNull(store.get(5));
+        store.close();
+    }
+
     @Test(expected = BlockStoreException.class)
     public void twoStores_onSameFile() throws Exception {
         new SPVDirectIOBlockStore(UNITTEST, blockStoreFile);
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.store;
+
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.StoredBlock;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.Utils;
+import org.bitcoinj.params.UnitTestParams;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SPVSegmentedBlockStoreTest {
+    private static NetworkParameters UNITTEST;
+    private File blockStoreFile;
+
+    @BeforeClass
+    public static void setUpClass() throws Exception {
+        Utils.resetMocking();
+        UNITTEST = UnitTestParams.get();
+    }
+
+    @Before
+    public void setup() throws Exception {
+        blockStoreFile = File.createTempFile("spvsegmentedblockstore", null);
+        blockStoreFile.delete();
+        blockStoreFile.deleteOnExit();
+    }
+
+    /** Builds a chain of headers on top of the given block, without solving them. */
+    private static List<StoredBlock> buildChain(StoredBlock start, int length, int nonce) {
+        List<StoredBlock> chain = new ArrayList<>(length);
+        StoredBlock prev = start;
+        for (int i = 0; i < length; i++) {
+            Block block = new Block(UNITTEST, 1, prev.getHeader().getHash(), Sha256Hash.ZERO_HASH, 0, 0,
+                    nonce + i, Collections.<Transaction>emptyList());
+            prev = new StoredBlock(block, prev.getChainWork().add(BigInteger.ONE), prev.getHeight() + 1);
+            chain.add(prev);
+        }
+        return chain;
+    }
+
+    private static void putAll(BlockStore store, List<StoredBlock> chain) throws BlockStoreException {
+        for (StoredBlock block : chain) {
+            store.put(block);
+            store.setChainHead(block);
+        }
+    }
+
+    @Test
+    public void basics() throws Exception {
+        SPVSegmentedBlockStore store = new SPVSegmentedBlockStore(UNITTEST, blockStoreFile);
+
+        Address to = Address.fromKey(UNITTEST, new ECKey());
+        // Check the first block in a new store is the genesis block.
+        StoredBlock genesis = store.getChainHead();
+        assertEquals(UNITTEST.getGenesisBlock(), genesis.getHeader());
+        assertEquals(0, genesis.getHeight());
+
+        // Build a new block.
+        StoredBlock b1 = genesis.build(genesis.getHeader().createNextBlock(to).cloneAsHeader());
+        store.put(b1);
+        store.setChainHead(b1);
+        store.close();
+
+        // Check we can get it back out again if we rebuild the store object.
+        store = new SPVSegmentedBlockStore(UNITTEST, blockStoreFile);
+        StoredBlock b2 = store.get(b1.getHeader().getHash());
+        assertEquals(b1, b2);
+        assertEquals(b1, store.get(1));
+        assertEquals(genesis, store.get(0));
+        assertNull(store.get(2));
+        assertNull(store.get(Sha256Hash.ZERO_HASH));
+        // Check the chain head was stored correctly also.
+        StoredBlock chainHead = store.getChainHead();
+        assertEquals(b1, chainHead);
+        store.close();
+    }
+
+    @Test(expected = BlockStoreException.class)
+    public void twoStores_onSameFile() throws Exception {
+        new SPVSegmentedBlockStore(UNITTEST, blockStoreFile);
+        new SPVSegmentedBlockStore(UNITTEST, blockStoreFile);
+    }
+
+    @Test
+    public void growsAcrossSegments() throws Exception {
+        SPVSegmentedBlockStore store = new SPVSegmentedBlockStore(UNITTEST, blockStoreFile, 16);
+        List<StoredBlock> chain = buildChain(store.getChainHead(), 5000, 0);
+        putAll(store, chain);
+        assertEquals(5001, store.size());
+        assertEquals(SPVSegmentedBlockStore.getFileSize(16, 313), blockStoreFile.length());
+        for (StoredBlock block : chain) {
+            assertEquals(block, store.get(block.getHeight()));
+            assertEquals(block, store.get(block.getHeader().getHash()));
+        }
+        store.close();
+
+        // the indexes are rebuilt from the file, which can be mapped with another segment capacity
+        store = new SPVSegmentedBlockStore(UNITTEST, blockStoreFile, 1000);
+        assertEquals(chain.get(chain.size() - 1), store.getChainHead());
+        for (StoredBlock block : chain) {
+            assertEquals(block, store.get(block.getHeight()));
+            assertEquals(block, store.get(block.getHeader().getHash()));
+        }
+        store.close();
+    }
+
+    @Test
+    public void reorganize() throws Exception {
+        SPVSegmentedBlockStore store = new SPVSegmentedBlockStore(UNITTEST, blockStoreFile, 8);
+        List<StoredBlock> common = buildChain(store.getChainHead(), 10, 0);
+        putAll(store, common);
+        StoredBlock forkPoint = common.get(common.size() - 1);
+        List<StoredBlock> first = buildChain(forkPoint, 20, 1000);
+        putAll(store, first);
+        List<StoredBlock> second = buildChain(forkPoint, 15, 2000);
+        for (StoredBlock block : second)
+            store.put(block);
+        assertEquals(first.get(19), store.get(30));
+
+        // move to the shorter branch, the heights above it are gone
+        store.setChainHead(second.get(14));
+        assertEquals(second.get(14), store.getChainHead());
+        assertEquals(second.get(0), store.get(11));
+        assertEquals(second.get(14), store.get(25));
+        assertEquals(forkPoint, store.get(10));
+        assertNull(store.get(26));
+        // blocks of the old branch can still be looked up by hash
+        assertEquals(first.get(19), store.get(first.get(19).getHeader().getHash()));
+        assertEquals(first.get(19), store.getChainHeadFromHash(first.get(0).getHeader().getHash()));
+        assertEquals(second.get(14), store.getChainHeadFromHash(common.get(0).getHeader().getHash()));
+        store.close();
+
+        store = new SPVSegmentedBlockStore(UNITTEST, blockStoreFile, 8);
+        assertEquals(second.get(14), store.get(25));
+        assertNull(store.get(26));
+        store.close();
+    }
+
+    @Test
+    public void startsAtCheckpoint() throws Exception {
+        SPVSegmentedBlockStore store = new SPVSegmentedBlockStore(UNITTEST, blockStoreFile);
+        Block block = new Block(UNITTEST, 1, Sha256Hash.ZERO_HASH, Sha256Hash.ZERO_HASH, 0, 0, 1,
+                Collections.<Transaction>emptyList());
+        StoredBlock checkpoint = new StoredBlock(block, BigInteger.TEN, 1000);
+        store.put(checkpoint);
+        store.setChainHead(checkpoint);
+        List<StoredBlock> chain = buildChain(checkpoint, 10, 0);
+        putAll(store, chain);
+        assertEquals(checkpoint, store.get(1000));
+        assertEquals(chain.get(9), store.get(1010));
+        assertNull(store.get(0));
+        assertNull(store.get(999));
+        store.close();
+    }
+
+    @Test
+    public void clear() throws Exception {
+        SPVSegmentedBlockStore store = new SPVSegmentedBlockStore(UNITTEST, blockStoreFile);
+
+        List<StoredBlock> chain = buildChain(store.getChainHead(), 3, 0);
+        putAll(store, chain);
+        assertEquals(chain.get(2).getHeader().getHash(), store.getChainHead().getHeader().getHash());
+        store.clear();
+        assertNull(store.get(chain.get(0).getHeader().getHash()));
+        assertNull(store.get(1));
+        assertEquals(UNITTEST.getGenesisBlock().getHash(), store.getChainHead().getHeader().getHash());
+        store.close();
+    }
+}
@@ -43,6 +43,8 @@ import org.bitcoinj.testing.FakeTxBuilder;
 import org.bitcoinj.testing.FooWalletExtension;
 import org.bitcoinj.utils.BriefLogFormatter;
 import org.bitcoinj.utils.Threading;
+import org.bitcoinj.wallet.AbstractKeyChainGroupExtension;
+import org.bitcoinj.wallet.AnyKeyChainGroup;
 import org.bitcoinj.wallet.DeterministicKeyChain;
 import org.bitcoinj.wallet.KeyChain;
 import org.bitcoinj.wallet.KeyChainGroup;
@@ -263,6 +265,137 @@ public class WalletProtobufSerializerTest {
         assertEquals(TransactionInput.NO_SEQUENCE - 1, tx2copy.getInput(0).getSequenceNumber());
     }
 
+    @Test
+    public void streamedWalletMatchesParsedProto() throws Exception {
+        // readWallet(InputStream) keeps the transactions encoded while it reads the rest of the wallet
+        Transaction tx1 = createFakeTx(UNITTEST, Coin.COIN, myAddress);
+        myWallet.receivePending(tx1, null);
+        Transaction tx2 = createFakeTx(UNITTEST, Coin.CENT, myAddress);
+        myWallet.receivePending(tx2, null);
+        myWallet.setTag("tag", ByteString.copyFromUtf8("value"));
+        myWallet.setLastBlockSeenHash(Sha256Hash.ZERO_HASH);
+        myWallet.setLastBlockSeenHeight(10);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new WalletProtobufSerializer().writeWallet(myWallet, output);
+
+        Wallet streamed = new WalletProtobufSerializer().readWallet(new ByteArrayInputStream(output.toByteArray()));
+        Wallet parsed = new WalletProtobufSerializer().readWallet(UNITTEST, null,
+                WalletProtobufSerializer.parseToProto(new ByteArrayInputStream(output.toByteArray())));
+        for (Wallet wallet : new Wallet[] { streamed, parsed }) {
+            assertEquals(2, wallet.getTransactions(true).size());
+            assertArrayEquals(tx1.unsafeBitcoinSerialize(),
+                    wallet.getTransaction(tx1.getTxId()).unsafeBitcoinSerialize());
+            assertArrayEquals(tx2.unsafeBitcoinSerialize(),
+                    wallet.getTransaction(tx2.getTxId()).unsafeBitcoinSerialize());
+            assertEquals(COIN.add(CENT), wallet.getBalance(Wallet.BalanceType.ESTIMATED));
+            assertEquals(ByteString.copyFromUtf8("value"), wallet.getTag("tag"));
+            assertEquals(10, wallet.getLastBlockSeenHeight());
+            assertEquals(WALLET_DESCRIPTION, wallet.getDescription());
+        }
+    }
+
+    // A key chain extension without keys, which remembers what it loaded and on which thread, or fails to load
+    private static class TestKeyChainExtension extends AbstractKeyChainGroupExtension {
+        private final String id;
+        private final boolean mandatory;
+        private final boolean failing;
+        private volatile byte[] loaded;
+        private volatile Thread loadedBy;
+
+        TestKeyChainExtension(String id, boolean mandatory, boolean failing) {
+            super(null);
+            this.id = id;
+            this.mandatory = mandatory;
+            this.failing = failing;
+        }
+
+        @Override
+        public AnyKeyChainGroup getKeyChainGroup() {
+            return null;
+        }
+
+        @Override
+        public boolean supportsBloomFilters() {
+            return false;
+        }
+
+        @Override
+        public boolean supportsEncryption() {
+            return false;
+        }
+
+        @Override
+        public boolean hasSpendableKeys() {
+            return false;
+        }
+
+        @Override
+        public boolean isTransactionRevelant(Transaction tx) {
+            return false;
+        }
+
+        @Override
+        public String getWalletExtensionID() {
+            return id;
+        }
+
+        @Override
+        public boolean isWalletExtensionMandatory() {
+            return mandatory;
+        }
+
+        @Override
+        public byte[] serializeWalletExtension() {
+            return id.getBytes();
+        }
+
+        @Override
+        public void deserializeWalletExtension(Wallet containingWallet, byte[] data) throws Exception {
+            if (failing)
+                throw new IllegalStateException("Cannot load " + id);
+            loaded = data;
+            loadedBy = Thread.currentThread();
+        }
+    }
+
+    @Test
+    public void parallelLoadOfKeyChainExtensions() throws Exception {
+        String optionalId = "org.dashj.test.optional";
+        String mandatoryId = "org.dashj.test.mandatory";
+        myWallet.addExtension(new TestKeyChainExtension(optionalId, false, false));
+        myWallet.addExtension(new TestKeyChainExtension(mandatoryId, true, false));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new WalletProtobufSerializer().writeWallet(myWallet, output);
+        WalletProtobufSerializer serializer = new WalletProtobufSerializer();
+        serializer.setParallelLoadThreshold(0);
+
+        // all but one key chain extension are loaded by the executor
+        TestKeyChainExtension optional = new TestKeyChainExtension(optionalId, false, false);
+        TestKeyChainExtension mandatory = new TestKeyChainExtension(mandatoryId, true, false);
+        Wallet wallet = serializer.readWallet(new ByteArrayInputStream(output.toByteArray()), false,
+                new WalletExtension[] { optional, mandatory });
+        assertArrayEquals(optionalId.getBytes(), optional.loaded);
+        assertArrayEquals(mandatoryId.getBytes(), mandatory.loaded);
+        assertTrue(optional.loadedBy != Thread.currentThread() || mandatory.loadedBy != Thread.currentThread());
+        assertSame(optional, wallet.getKeyChainExtensions().get(optionalId));
+        assertSame(mandatory, wallet.getKeyChainExtensions().get(mandatoryId));
+
+        // an optional extension that fails to load is left out
+        wallet = serializer.readWallet(new ByteArrayInputStream(output.toByteArray()), false, new WalletExtension[] {
+                new TestKeyChainExtension(optionalId, false, true), new TestKeyChainExtension(mandatoryId, true, false) });
+        assertFalse(wallet.getKeyChainExtensions().containsKey(optionalId));
+        assertTrue(wallet.getKeyChainExtensions().containsKey(mandatoryId));
+
+        // a mandatory extension that fails to load fails the wallet
+        try {
+            serializer.readWallet(new ByteArrayInputStream(output.toByteArray()), false, new WalletExtension[] {
+                    new TestKeyChainExtension(optionalId, false, false), new TestKeyChainExtension(mandatoryId, true, true) });
+            fail();
+        } catch (UnreadableWalletException e) {
+            assertTrue(e.getMessage().contains(mandatoryId));
+        }
+    }
+
     @Test
     public void testAppearedAtChainHeightDepthAndWorkDone() throws Exception {
         // Test the TransactionConfidence appearedAtChainHeight, depth and workDone field are stored.
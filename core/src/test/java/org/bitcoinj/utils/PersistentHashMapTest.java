@@ -0,0 +1,130 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.utils;
+
+import org.bitcoinj.core.Sha256Hash;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PersistentHashMapTest {
+
+    /** A key with a configurable hash code, to force collisions */
+    static class Key {
+        final int id;
+        final int hash;
+
+        Key(int id, int hash) {
+            this.id = id;
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key && ((Key) o).id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    @Test
+    public void plusAndMinus() {
+        PersistentHashMap<Sha256Hash, Integer> empty = PersistentHashMap.empty();
+        Sha256Hash a = Sha256Hash.of(new byte[] {1});
+        Sha256Hash b = Sha256Hash.of(new byte[] {2});
+
+        PersistentHashMap<Sha256Hash, Integer> one = empty.plus(a, 1);
+        PersistentHashMap<Sha256Hash, Integer> two = one.plus(b, 2);
+        assertEquals(0, empty.size());
+        assertEquals(1, one.size());
+        assertEquals(2, two.size());
+        assertEquals(Integer.valueOf(1), two.get(a));
+        assertEquals(Integer.valueOf(2), two.get(b));
+        assertNull(one.get(b));
+
+        PersistentHashMap<Sha256Hash, Integer> replaced = two.plus(a, 3);
+        assertEquals(2, replaced.size());
+        assertEquals(Integer.valueOf(3), replaced.get(a));
+        assertEquals(Integer.valueOf(1), two.get(a));
+
+        assertSame(two, two.minus(Sha256Hash.ZERO_HASH));
+        PersistentHashMap<Sha256Hash, Integer> removed = two.minus(a);
+        assertEquals(1, removed.size());
+        assertFalse(removed.containsKey(a));
+        assertTrue(two.containsKey(a));
+        assertTrue(removed.minus(b).isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutable() {
+        PersistentHashMap.<Sha256Hash, Integer>empty().plus(Sha256Hash.ZERO_HASH, 1).put(Sha256Hash.ZERO_HASH, 2);
+    }
+
+    @Test
+    public void randomOperationsMatchHashMap() {
+        Random random = new Random(42);
+        HashMap<Key, Integer> expected = new HashMap<>();
+        PersistentHashMap<Key, Integer> map = PersistentHashMap.empty();
+        for (int i = 0; i < 20000; i++) {
+            // only 64 distinct hash codes so that many keys collide or share trie paths
+            int id = random.nextInt(2000);
+            Key key = new Key(id, (id % 64) * 0x01010101);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.minus(key);
+            } else {
+                expected.put(key, i);
+                map = map.plus(key, i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+
+        for (Key key : expected.keySet()) {
+            map = map.minus(key);
+        }
+        assertTrue(map.isEmpty());
+        assertFalse(map.entrySet().iterator().hasNext());
+    }
+
+    @Test
+    public void versionsShareUnchangedEntries() {
+        PersistentHashMap<Sha256Hash, Integer> base = PersistentHashMap.empty();
+        for (int i = 0; i < 4000; i++) {
+            base = base.plus(Sha256Hash.of(new byte[] {(byte) i, (byte) (i >> 8)}), i);
+        }
+        PersistentHashMap<Sha256Hash, Integer> next = base.minus(Sha256Hash.of(new byte[] {0, 0}))
+                .plus(Sha256Hash.of(new byte[] {1, 1, 1}), -1);
+
+        assertEquals(4000, base.size());
+        assertEquals(4000, next.size());
+        assertEquals(Integer.valueOf(0), base.get(Sha256Hash.of(new byte[] {0, 0})));
+        assertNull(next.get(Sha256Hash.of(new byte[] {0, 0})));
+        assertEquals(Integer.valueOf(-1), next.get(Sha256Hash.of(new byte[] {1, 1, 1})));
+        for (int i = 1; i < 4000; i++) {
+            Sha256Hash key = Sha256Hash.of(new byte[] {(byte) i, (byte) (i >> 8)});
+            assertSame(base.get(key), next.get(key));
+        }
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.utils;
+
+import org.bitcoinj.core.Utils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class WeightedCacheTest {
+
+    @Before
+    public void setUp() {
+        Utils.setMockClock();
+    }
+
+    @After
+    public void tearDown() {
+        Utils.resetMocking();
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedByWeight() {
+        WeightedCache<String, String> cache = WeightedCache.<String, String>builder()
+                .maximumWeight(10)
+                .weigher((key, value) -> value.length())
+                .build();
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        assertEquals(8, cache.getWeight());
+
+        // reading a makes b the least recently used
+        assertEquals("aaaa", cache.get("a"));
+        cache.put("c", "cc");
+        assertEquals(10, cache.getWeight());
+        cache.put("d", "d");
+        assertNull(cache.peek("b"));
+        assertEquals(Arrays.asList("a", "c", "d"), cache.keys());
+        assertEquals(7, cache.getWeight());
+        assertEquals(1, cache.getEvictionCount());
+
+        // replacing a value changes the weight
+        assertEquals("cc", cache.put("c", "cccccc"));
+        assertEquals(Arrays.asList("d", "c"), cache.keys());
+        assertEquals(7, cache.getWeight());
+
+        // an entry heavier than the whole cache is not kept
+        assertNull(cache.put("e", "eeeeeeeeeee"));
+        assertFalse(cache.containsKey("e"));
+        assertTrue(cache.getWeight() <= cache.getMaximumWeight());
+    }
+
+    @Test
+    public void evictsBySize() {
+        WeightedCache<Integer, Integer> cache = WeightedCache.builder().maximumSize(3).build();
+        for (int i = 0; i < 5; i++)
+            cache.put(i, i);
+        assertEquals(Arrays.asList(2, 3, 4), cache.keys());
+        cache.setMaximumSize(1);
+        assertEquals(Arrays.asList(4), cache.keys());
+        assertEquals(4, cache.getEvictionCount());
+    }
+
+    @Test
+    public void peekDoesNotChangeOrder() {
+        WeightedCache<Integer, Integer> cache = WeightedCache.builder().maximumSize(2).build();
+        cache.put(1, 1);
+        cache.put(2, 2);
+        assertEquals(Integer.valueOf(1), cache.peek(1));
+        assertTrue(cache.containsKey(1));
+        cache.put(3, 3);
+        assertFalse(cache.containsKey(1));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void countsHitsAndMisses() {
+        WeightedCache<Integer, Integer> cache = WeightedCache.builder().build();
+        cache.put(1, 1);
+        assertNotNull(cache.get(1));
+        assertNotNull(cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        cache.resetStats();
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void expiresAfterWrite() {
+        List<Integer> evicted = new ArrayList<>();
+        WeightedCache<Integer, Integer> cache = WeightedCache.<Integer, Integer>builder()
+                .expireAfterWrite(10, TimeUnit.SECONDS)
+                .evictionListener((key, value) -> evicted.add(key))
+                .build();
+        cache.put(1, 1);
+        Utils.rollMockClock(5);
+        cache.put(2, 2);
+        // reading does not extend the life of the entry
+        assertNotNull(cache.get(1));
+        Utils.rollMockClock(5);
+        assertNull(cache.get(1));
+        assertEquals(1, cache.size());
+        Utils.rollMockClock(5);
+        cache.cleanUp();
+        assertTrue(cache.isEmpty());
+        assertEquals(0, cache.getWeight());
+        assertEquals(2, cache.getExpirationCount());
+        assertEquals(0, cache.getEvictionCount());
+        assertEquals(Arrays.asList(1, 2), evicted);
+    }
+
+    @Test
+    public void expiresAfterAccess() {
+        WeightedCache<Integer, Integer> cache = WeightedCache.builder()
+                .expireAfterAccess(10, TimeUnit.SECONDS)
+                .build();
+        cache.put(1, 1);
+        cache.put(2, 2);
+        Utils.rollMockClock(8);
+        assertNotNull(cache.get(1));
+        Utils.rollMockClock(8);
+        // adding an entry drops the expired ones
+        cache.put(3, 3);
+        assertEquals(Arrays.asList(1, 3), cache.keys());
+        assertEquals(1, cache.getExpirationCount());
+    }
+
+    @Test
+    public void removeIf() {
+        WeightedCache<Integer, Integer> cache = WeightedCache.builder().build();
+        for (int i = 0; i < 10; i++)
+            cache.put(i, i);
+        assertEquals(5, cache.removeIf((key, value) -> value % 2 == 0));
+        assertEquals(Arrays.asList(1, 3, 5, 7, 9), cache.keys());
+        assertEquals(5, cache.getWeight());
+        assertEquals(Integer.valueOf(3), cache.remove(3));
+        assertNull(cache.remove(3));
+        assertEquals(4, cache.getWeight());
+    }
+
+    @Test
+    public void multiCache() {
+        WeightedMultiCache<String, Integer> cache = WeightedMultiCache.builder().maximumSize(4).build();
+        assertTrue(cache.put("a", 1));
+        assertTrue(cache.put("a", 2));
+        assertTrue(cache.put("b", 3));
+        assertFalse(cache.put("a", 1));
+        assertEquals(Arrays.asList(1, 2), cache.get("a"));
+        assertEquals(3, cache.size());
+
+        // the least recently used values are evicted one at a time, the key goes away with its last value
+        cache.put("c", 4);
+        cache.put("c", 5);
+        cache.put("c", 6);
+        assertFalse(cache.containsKey("b"));
+        assertEquals(Arrays.asList(2), cache.get("a"));
+        assertEquals(Arrays.asList(4, 5, 6), cache.get("c"));
+        assertEquals(2, cache.getEvictionCount());
+
+        assertTrue(cache.remove("c", 5));
+        assertFalse(cache.remove("c", 5));
+        assertEquals(1, cache.removeIf((key, value) -> value == 4));
+        assertEquals(Arrays.asList(6), cache.get("c"));
+        cache.removeAll("c");
+        cache.removeAll("a");
+        assertEquals(0, cache.size());
+        assertTrue(cache.keys().isEmpty());
+    }
+
+    @Test
+    public void multiCacheExpiry() {
+        WeightedMultiCache<String, Integer> cache = WeightedMultiCache.builder()
+                .expireAfterWrite(10, TimeUnit.SECONDS)
+                .build();
+        cache.put("a", 1);
+        Utils.rollMockClock(5);
+        cache.put("a", 2);
+        Utils.rollMockClock(5);
+        assertEquals(Arrays.asList(2), cache.get("a"));
+        Utils.rollMockClock(5);
+        cache.cleanUp();
+        assertFalse(cache.containsKey("a"));
+        assertEquals(0, cache.getWeight());
+    }
+}
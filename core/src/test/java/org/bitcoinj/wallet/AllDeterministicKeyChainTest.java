@@ -61,6 +61,7 @@ import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -202,6 +203,28 @@ public class AllDeterministicKeyChainTest {
         assertEquals(hardenedOnly ? 28 : 2, chain.getKeys(false, false).size());
     }
 
+    @Test
+    public void lookaheadWithoutKeyDerivationPool() throws Exception {
+        AnyDeterministicKeyChain serialChain = AnyDeterministicKeyChain.builder().seed(chain.getSeed())
+                .accountPath(accountPath)
+                .outputScriptType(Script.ScriptType.P2PKH)
+                .keyFactory(keyFactory)
+                .hardenedKeysOnly(hardenedOnly)
+                .build();
+        serialChain.setKeyDerivationPool(null);
+        assertNotNull(chain.getKeyDerivationPool());
+        chain.setLookaheadSize(50);
+        serialChain.setLookaheadSize(50);
+        chain.maybeLookAhead();
+        serialChain.maybeLookAhead();
+
+        List<IDeterministicKey> keys = chain.getKeys(true, false);
+        List<IDeterministicKey> serialKeys = serialChain.getKeys(true, false);
+        assertEquals(serialKeys.size(), keys.size());
+        for (IDeterministicKey key : serialKeys)
+            assertEquals(key, chain.findKeyFromPubKey(key.getPubKey()));
+    }
+
     @Test
     public void signMessage() throws Exception {
         IKey key = chain.getKey(KeyChain.KeyPurpose.RECEIVE_FUNDS);
@@ -1,8 +1,12 @@
 package org.bitcoinj.wallet;
 
+import org.bitcoinj.coinjoin.CoinJoin;
 import org.bitcoinj.core.Coin;
 import org.bitcoinj.core.Context;
+import org.bitcoinj.core.ECKey;
 import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
 import org.bitcoinj.core.TransactionOutPoint;
 import org.bitcoinj.params.TestNet3Params;
 import org.junit.Test;
@@ -55,6 +59,53 @@ public class CoinJoinExtensionTest {
         assertEquals(Integer.valueOf(10), wallet2.mapOutpointRoundsCache.get(outPoint2));
     }
 
+    @Test
+    public void roundsOfDescendantsAreRecalculatedWhenParentArrives() {
+        new Context(UNITTEST);
+        WalletEx walletEx = new WalletEx(UNITTEST, KeyChainGroup.createBasic(UNITTEST));
+        ECKey key = new ECKey();
+        walletEx.importKey(key);
+        Coin denomination = CoinJoin.getStandardDenominations().get(0);
+
+        Transaction parent = new Transaction(UNITTEST);
+        parent.addInput(new TransactionInput(UNITTEST, parent, new byte[0],
+                new TransactionOutPoint(UNITTEST, 0, Sha256Hash.of("funding".getBytes()))));
+        parent.addOutput(denomination, key);
+        parent.addOutput(denomination, key);
+        Transaction child = new Transaction(UNITTEST);
+        child.addInput(parent.getOutput(0));
+        child.addOutput(denomination, key);
+
+        // the child arrives first, so its input doesn't look like ours yet
+        walletEx.receivePending(child, null);
+        TransactionOutPoint childOutPoint = child.getOutput(0).getOutPointFor();
+        assertEquals(Integer.valueOf(0), walletEx.mapOutpointRoundsCache.get(childOutPoint));
+
+        walletEx.receivePending(parent, null);
+        assertEquals(Integer.valueOf(0), walletEx.mapOutpointRoundsCache.get(parent.getOutput(1).getOutPointFor()));
+        assertEquals(1, walletEx.getRealOutpointCoinJoinRounds(childOutPoint));
+    }
+
+    @Test
+    public void restoredRoundsAreKept() throws Exception {
+        new Context(UNITTEST);
+        WalletEx walletEx = new WalletEx(UNITTEST, KeyChainGroup.createBasic(UNITTEST));
+        ECKey key = new ECKey();
+        walletEx.importKey(key);
+        Transaction tx = new Transaction(UNITTEST);
+        tx.addInput(new TransactionInput(UNITTEST, tx, new byte[0],
+                new TransactionOutPoint(UNITTEST, 0, Sha256Hash.of("funding".getBytes()))));
+        tx.addOutput(CoinJoin.getStandardDenominations().get(0), key);
+        walletEx.receivePending(tx, null);
+        TransactionOutPoint outPoint = tx.getOutput(0).getOutPointFor();
+        walletEx.markAsFullyMixed(outPoint);
+
+        // loading the transaction must not throw away the rounds that were saved with it
+        WalletEx wallet2 = (WalletEx) roundTrip(walletEx);
+        assertEquals(1, wallet2.getTransactions(false).size());
+        assertEquals(Integer.valueOf(19), wallet2.mapOutpointRoundsCache.get(outPoint));
+    }
+
     private static Wallet roundTrip(Wallet wallet) throws Exception {
         ByteArrayOutputStream output = new ByteArrayOutputStream();
         new WalletProtobufSerializer().writeWallet(wallet, output);
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.wallet;
+
+import org.bitcoinj.core.ECKey;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class KeyIndexTest {
+    private KeyIndex<ECKey> index;
+
+    @Before
+    public void setUp() {
+        index = new KeyIndex<>();
+    }
+
+    @Test
+    public void putGetAndRemove() {
+        ECKey key = new ECKey();
+        assertTrue(index.isEmpty());
+        assertNull(index.put(key.getPubKeyHash(), key));
+        assertEquals(1, index.size());
+        // the bytes are compared, not the array
+        assertSame(key, index.get(key.getPubKeyHash().clone()));
+        assertNull(index.get(new ECKey().getPubKeyHash()));
+        // a prefix of the bytes is another entry
+        byte[] prefix = new byte[19];
+        System.arraycopy(key.getPubKeyHash(), 0, prefix, 0, prefix.length);
+        assertNull(index.get(prefix));
+
+        ECKey replacement = ECKey.fromPublicOnly(key);
+        assertSame(key, index.put(key.getPubKeyHash(), replacement));
+        assertEquals(1, index.size());
+        assertSame(replacement, index.get(key.getPubKeyHash()));
+
+        assertSame(replacement, index.remove(key.getPubKeyHash()));
+        assertNull(index.remove(key.getPubKeyHash()));
+        assertNull(index.get(key.getPubKeyHash()));
+        assertTrue(index.isEmpty());
+    }
+
+    @Test
+    public void insertionOrder() {
+        List<ECKey> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ECKey key = new ECKey();
+            keys.add(key);
+            index.put(key.getPubKey(), key);
+        }
+        // removing keys leaves holes, which are dropped when the index grows
+        for (int i = 0; i < keys.size(); i += 3)
+            assertSame(keys.get(i), index.remove(keys.get(i).getPubKey()));
+        for (int i = 0; i < keys.size(); i += 3)
+            index.put(keys.get(i).getPubKey(), keys.get(i));
+        for (int i = 0; i < 1000; i++) {
+            ECKey key = new ECKey();
+            keys.add(key);
+            index.put(key.getPubKey(), key);
+        }
+
+        List<ECKey> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            if (i % 3 != 0)
+                expected.add(keys.get(i));
+        for (int i = 0; i < 1000; i += 3)
+            expected.add(keys.get(i));
+        expected.addAll(keys.subList(1000, 2000));
+        assertEquals(expected, index.values());
+        assertSame(expected.get(0), index.first());
+        assertEquals(2000, index.size());
+        for (ECKey key : keys)
+            assertSame(key, index.get(key.getPubKey()));
+    }
+
+    @Test
+    public void differentLengths() {
+        ECKey key = new ECKey();
+        ECKey uncompressed = key.decompress();
+        index.put(key.getPubKey(), key);
+        index.put(uncompressed.getPubKey(), uncompressed);
+        assertEquals(2, index.size());
+        assertSame(key, index.get(key.getPubKey()));
+        assertSame(uncompressed, index.get(uncompressed.getPubKey()));
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void firstOfEmpty() {
+        ECKey key = new ECKey();
+        index.put(key.getPubKey(), key);
+        index.remove(key.getPubKey());
+        index.first();
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.wallet;
+
+import org.bitcoinj.coinjoin.CoinJoin;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.params.UnitTestParams;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class UnspentOutputIndexTest {
+    private static final NetworkParameters UNITTEST = UnitTestParams.get();
+    private static final Coin DENOMINATION = CoinJoin.getStandardDenominations().get(0);
+    private static final Coin COLLATERAL = CoinJoin.getCollateralAmount();
+    private static final Coin MASTERNODE_COLLATERAL = Coin.valueOf(1000, 0);
+
+    private UnspentOutputIndex index;
+    private Transaction tx;
+
+    @Before
+    public void setUp() {
+        new Context(UNITTEST);
+        index = new UnspentOutputIndex();
+        tx = new Transaction(UNITTEST);
+        for (Coin value : new Coin[] { DENOMINATION, DENOMINATION, COLLATERAL, MASTERNODE_COLLATERAL, Coin.COIN })
+            tx.addOutput(value, new ECKey());
+    }
+
+    @Test
+    public void kinds() {
+        assertEquals(UnspentOutputIndex.Kind.DENOMINATED, UnspentOutputIndex.Kind.of(DENOMINATION));
+        assertEquals(UnspentOutputIndex.Kind.COINJOIN_COLLATERAL, UnspentOutputIndex.Kind.of(COLLATERAL));
+        assertEquals(UnspentOutputIndex.Kind.MASTERNODE_COLLATERAL, UnspentOutputIndex.Kind.of(MASTERNODE_COLLATERAL));
+        assertEquals(UnspentOutputIndex.Kind.OTHER, UnspentOutputIndex.Kind.of(Coin.COIN));
+    }
+
+    @Test
+    public void addAndRemove() {
+        for (TransactionOutput output : tx.getOutputs())
+            assertTrue(index.add(output));
+        assertFalse(index.add(tx.getOutput(0)));
+        assertEquals(5, index.size());
+        assertEquals(DENOMINATION.multiply(2).add(COLLATERAL).add(MASTERNODE_COLLATERAL).add(Coin.COIN),
+                index.getValue());
+        assertEquals(DENOMINATION.multiply(2), index.getValue(UnspentOutputIndex.Kind.DENOMINATED));
+        assertEquals(2, index.getOutputs(UnspentOutputIndex.Kind.DENOMINATED).size());
+        assertEquals(1, index.getOutputs(UnspentOutputIndex.Kind.COINJOIN_COLLATERAL).size());
+        assertSame(tx.getOutput(3), index.get(tx.getOutput(3).getOutPointFor()));
+
+        assertTrue(index.remove(tx.getOutput(0)));
+        assertFalse(index.remove(tx.getOutput(0)));
+        assertFalse(index.contains(tx.getOutput(0)));
+        assertNull(index.get(tx.getOutput(0).getOutPointFor()));
+        assertEquals(DENOMINATION, index.getValue(UnspentOutputIndex.Kind.DENOMINATED));
+        assertEquals(4, index.size());
+
+        index.clear();
+        assertTrue(index.isEmpty());
+        assertEquals(Coin.ZERO, index.getValue());
+        assertEquals(Coin.ZERO, index.getValue(UnspentOutputIndex.Kind.OTHER));
+        assertTrue(index.getOutputs(UnspentOutputIndex.Kind.DENOMINATED).isEmpty());
+    }
+
+    @Test
+    public void coinTypes() {
+        index.addAll(tx.getOutputs());
+        assertEquals(2, index.getOutputs(CoinType.ONLY_FULLY_MIXED).size());
+        assertEquals(2, index.getOutputs(CoinType.ONLY_READY_TO_MIX).size());
+        assertEquals(1, index.getOutputs(CoinType.ONLY_COINJOIN_COLLATERAL).size());
+        assertEquals(1, index.getOutputs(CoinType.ONLY_MASTERNODE_COLLATERAL).size());
+        // the masternode collateral is not denominated either
+        assertEquals(2, index.getOutputs(CoinType.ONLY_NONDENOMINATED).size());
+        assertEquals(5, index.getOutputs(CoinType.ALL_COINS).size());
+    }
+
+    @Test
+    public void iteratorRemoveUpdatesIndex() {
+        index.addAll(tx.getOutputs());
+        for (Iterator<TransactionOutput> it = index.iterator(); it.hasNext(); ) {
+            if (it.next().getValue().equals(DENOMINATION))
+                it.remove();
+        }
+        assertEquals(3, index.size());
+        assertEquals(Coin.ZERO, index.getValue(UnspentOutputIndex.Kind.DENOMINATED));
+        assertEquals(COLLATERAL.add(MASTERNODE_COLLATERAL).add(Coin.COIN), index.getValue());
+        assertNull(index.get(tx.getOutput(1).getOutPointFor()));
+    }
+
+    @Test
+    public void versionChangesOnModification() {
+        long version = index.getVersion();
+        index.add(tx.getOutput(0));
+        assertNotEquals(version, version = index.getVersion());
+        index.add(tx.getOutput(0));
+        assertEquals(version, index.getVersion());
+        index.remove(tx.getOutput(0));
+        assertNotEquals(version, index.getVersion());
+    }
+}
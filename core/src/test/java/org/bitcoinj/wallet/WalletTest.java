@@ -23,6 +23,7 @@ import org.bitcoinj.core.Address;
 import org.bitcoinj.core.Block;
 import org.bitcoinj.core.BlockChain;
 import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.Context;
 import org.bitcoinj.core.ECKey;
 import org.bitcoinj.core.InsufficientMoneyException;
 import org.bitcoinj.core.PeerAddress;
@@ -41,6 +42,7 @@ import org.bitcoinj.script.Script;
 import org.bitcoinj.script.ScriptBuilder;
 import org.bitcoinj.script.ScriptChunk;
 import org.bitcoinj.script.ScriptPattern;
+import org.bitcoinj.signers.LocalTransactionSigner;
 import org.bitcoinj.signers.TransactionSigner;
 import org.bitcoinj.store.BlockStoreException;
 import org.bitcoinj.store.MemoryBlockStore;
@@ -646,7 +648,8 @@ public class WalletTest extends TestWithWallet {
         Threading.waitForUserCode();
         assertEquals(Coin.valueOf(0, 90), wallet.getBalance());
         assertEquals(null, txn[0]);
-        assertEquals(2, confTxns.size());
+        // tx1 got buried deeper too, but nobody waits for it to reach a certain depth
+        assertEquals(1, confTxns.size());
         assertEquals(txn[1].getTxId(), send1.getTxId());
         assertEquals(Coin.COIN, bigints[2]);
         assertEquals(Coin.valueOf(0, 90), bigints[3]);
@@ -659,11 +662,108 @@ public class WalletTest extends TestWithWallet {
         Threading.waitForUserCode();
         FakeTxBuilder.BlockPair b4 = createFakeBlock(blockStore, Block.BLOCK_HEIGHT_GENESIS);
         confTxns.clear();
+        wallet.setNotifyTxOnNextBlock(true);
         wallet.notifyNewBestBlock(b4.storedBlock);
         Threading.waitForUserCode();
         assertEquals(3, confTxns.size());
     }
 
+    @Test
+    public void depthFollowsLastSeenBlockHeight() throws Exception {
+        Transaction tx1 = sendMoneyToWallet(AbstractBlockChain.NewBlockType.BEST_CHAIN, COIN);
+        Transaction tx2 = sendMoneyToWallet(AbstractBlockChain.NewBlockType.BEST_CHAIN, COIN);
+        final List<Transaction> confTxns = new ArrayList<>();
+        wallet.addTransactionConfidenceEventListener(Threading.SAME_THREAD, new TransactionConfidenceEventListener() {
+            @Override
+            public void onTransactionConfidenceChanged(Wallet wallet, Transaction tx) {
+                confTxns.add(tx);
+            }
+        });
+        assertEquals(2, tx1.getConfidence().getDepthInBlocks());
+        assertEquals(1, tx2.getConfidence().getDepthInBlocks());
+        ListenableFuture<TransactionConfidence> depthFuture = tx2.getConfidence().getDepthFuture(3, Threading.SAME_THREAD);
+
+        wallet.notifyNewBestBlock(createFakeBlock(blockStore, Block.BLOCK_HEIGHT_GENESIS).storedBlock);
+        assertEquals(3, tx1.getConfidence().getDepthInBlocks());
+        assertEquals(2, tx2.getConfidence().getDepthInBlocks());
+        assertFalse(depthFuture.isDone());
+        assertTrue(confTxns.isEmpty());
+
+        // Only the transaction that reaches the depth waited for is notified.
+        wallet.notifyNewBestBlock(createFakeBlock(blockStore, Block.BLOCK_HEIGHT_GENESIS).storedBlock);
+        assertEquals(4, tx1.getConfidence().getDepthInBlocks());
+        assertEquals(3, tx2.getConfidence().getDepthInBlocks());
+        assertTrue(depthFuture.isDone());
+        assertEquals(Collections.singletonList(tx2), confTxns);
+
+        // The depth survives a round trip of the wallet.
+        Wallet wallet2 = roundTrip(wallet);
+        assertEquals(4, wallet2.getTransaction(tx1.getTxId()).getConfidence().getDepthInBlocks());
+        assertEquals(3, wallet2.getTransaction(tx2.getTxId()).getConfidence().getDepthInBlocks());
+    }
+
+    @Test
+    public void incrementDepthInBlocksWithTracker() throws Exception {
+        Transaction tx = sendMoneyToWallet(AbstractBlockChain.NewBlockType.BEST_CHAIN, COIN);
+        // The wallet derives the depth from the blocks it has seen, a block is not counted twice.
+        assertEquals(1, tx.getConfidence().incrementDepthInBlocks());
+        wallet.notifyNewBestBlock(createFakeBlock(blockStore, Block.BLOCK_HEIGHT_GENESIS).storedBlock);
+        assertEquals(2, tx.getConfidence().getDepthInBlocks());
+
+        // Without a tracker the depth is only changed explicitly.
+        TransactionConfidence confidence = tx.getConfidence();
+        for (TransactionConfidence.DepthTracker tracker : confidence.getDepthTrackers())
+            confidence.removeDepthTracker(tracker);
+        assertEquals(3, confidence.incrementDepthInBlocks());
+        assertEquals(3, confidence.getDepthInBlocks());
+    }
+
+    @Test
+    public void depthFollowsBestChainWithTwoWallets() throws Exception {
+        Transaction tx = sendMoneyToWallet(AbstractBlockChain.NewBlockType.BEST_CHAIN, COIN);
+        // Another wallet of the context, which is loaded and then left alone, shares the confidence object.
+        Wallet other = roundTrip(wallet);
+        TransactionConfidence confidence = tx.getConfidence();
+        assertSame(confidence, other.getTransaction(tx.getTxId()).getConfidence());
+        final List<Transaction> confTxns = new ArrayList<>();
+        wallet.addTransactionConfidenceEventListener(Threading.SAME_THREAD, new TransactionConfidenceEventListener() {
+            @Override
+            public void onTransactionConfidenceChanged(Wallet wallet, Transaction tx) {
+                confTxns.add(tx);
+            }
+        });
+        ListenableFuture<TransactionConfidence> depthFuture = confidence.getDepthFuture(3, Threading.SAME_THREAD);
+
+        wallet.notifyNewBestBlock(createFakeBlock(blockStore, Block.BLOCK_HEIGHT_GENESIS).storedBlock);
+        assertEquals(2, confidence.getDepthInBlocks());
+        wallet.notifyNewBestBlock(createFakeBlock(blockStore, Block.BLOCK_HEIGHT_GENESIS).storedBlock);
+        assertEquals(3, confidence.getDepthInBlocks());
+        assertTrue(depthFuture.isDone());
+        assertEquals(Collections.singletonList(tx), confTxns);
+        assertEquals(other.getLastBlockSeenHeight() + 2, wallet.getLastBlockSeenHeight());
+    }
+
+    @Test
+    public void depthWithoutAppearedAtHeightFollowsBestChainAfterLoad() throws Exception {
+        Transaction tx = sendMoneyToWallet(AbstractBlockChain.NewBlockType.BEST_CHAIN, COIN);
+        wallet.notifyNewBestBlock(createFakeBlock(blockStore, Block.BLOCK_HEIGHT_GENESIS).storedBlock);
+        Protos.Wallet.Builder proto = new WalletProtobufSerializer().walletToProto(wallet).toBuilder();
+        for (int i = 0; i < proto.getTransactionCount(); i++) {
+            Protos.Transaction txProto = proto.getTransaction(i);
+            proto.setTransaction(i, txProto.toBuilder().setConfidence(txProto.getConfidence().toBuilder()
+                    .clearAppearedAtHeight()));
+        }
+
+        // The saved depth was valid at the last seen block height, in a context that has not seen a block yet.
+        new Context(UNITTEST);
+        Wallet loaded = new WalletProtobufSerializer().readWallet(UNITTEST, null, proto.build());
+        TransactionConfidence confidence = loaded.getTransaction(tx.getTxId()).getConfidence();
+        assertNotSame(tx.getConfidence(), confidence);
+        assertEquals(2, confidence.getDepthInBlocks());
+        loaded.notifyNewBestBlock(createFakeBlock(blockStore, Block.BLOCK_HEIGHT_GENESIS).storedBlock);
+        assertEquals(3, confidence.getDepthInBlocks());
+    }
+
     @Test
     public void balances() throws Exception {
         Coin nanos = COIN;
@@ -1700,6 +1800,21 @@ public class WalletTest extends TestWithWallet {
         wallet.createSend(OTHER_ADDRESS, CENT);
     }
 
+    @Test
+    public void watchedOutputIsSpendableAfterImportKey() throws Exception {
+        ECKey key = new ECKey();
+        Address watchedAddress = Address.fromKey(UNITTEST, key);
+        wallet.addWatchedAddress(watchedAddress);
+        sendMoneyToWallet(BlockChain.NewBlockType.BEST_CHAIN, CENT, watchedAddress);
+        assertEquals(ZERO, wallet.getBalance(BalanceType.AVAILABLE_SPENDABLE));
+        assertEquals(ZERO, wallet.getBalance(BalanceType.ESTIMATED_SPENDABLE));
+
+        // the cached balances are calculated again once the wallet can sign for the output
+        wallet.importKey(key);
+        assertEquals(CENT, wallet.getBalance(BalanceType.AVAILABLE_SPENDABLE));
+        assertEquals(CENT, wallet.getBalance(BalanceType.ESTIMATED_SPENDABLE));
+    }
+
     @Test
     public void watchingScriptsSentFrom() throws Exception {
         int baseElements = wallet.getBloomFilterElementCount();
@@ -3126,6 +3241,38 @@ public class WalletTest extends TestWithWallet {
         assertEquals(200, tx.getInputs().size());
     }
 
+    @Test
+    public void completeTxWithManyInputs() throws Exception {
+        // Enough inputs for the LocalTransactionSigner to sign them in parallel
+        for (int i = 0; i < 40; i++)
+            sendMoneyToWallet(AbstractBlockChain.NewBlockType.BEST_CHAIN, CENT);
+        SendRequest req = SendRequest.emptyWallet(OTHER_ADDRESS);
+        wallet.completeTx(req);
+        assertEquals(40, req.tx.getInputs().size());
+        for (TransactionInput input : req.tx.getInputs())
+            input.verify(input.getConnectedOutput());
+    }
+
+    @Test
+    public void signInputsOfEncryptedWalletWithoutAesKey() throws Exception {
+        // Enough inputs for the LocalTransactionSigner to sign them in parallel
+        for (int i = 0; i < 20; i++)
+            sendMoneyToWallet(AbstractBlockChain.NewBlockType.BEST_CHAIN, CENT);
+        SendRequest req = SendRequest.emptyWallet(OTHER_ADDRESS);
+        req.signInputs = false;
+        wallet.completeTx(req);
+        wallet.encrypt(PASSWORD1);
+        for (LocalTransactionSigner signer : new LocalTransactionSigner[] {
+                new LocalTransactionSigner(), new LocalTransactionSigner(null) }) {
+            try {
+                signer.signInputs(new TransactionSigner.ProposedTransaction(req.tx), wallet);
+                fail();
+            } catch (ECKey.KeyIsEncryptedException e) {
+                // Expected.
+            }
+        }
+    }
+
     private static final byte[] EMPTY_SIG = {};
 
     @Test
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.examples;
+
+import com.google.common.base.Stopwatch;
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.StoredBlock;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.params.UnitTestParams;
+import org.bitcoinj.store.AncestorIndex;
+import org.bitcoinj.store.BlockStore;
+import org.bitcoinj.store.BlockStoreException;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark program that compares {@link BlockStore#getAncestor(StoredBlock, int)} walking back one block at a time
+ * with the skip pointers of {@link AncestorIndex}.
+ *
+ * The lookups follow quorum rotation: for every tip the blocks 8 blocks before the last four rotation cycles of 576
+ * blocks are looked up, as the quorum snapshots at h-C, h-2C and h-3C are.  The chain is synthetic and kept in
+ * memory, so the numbers count the blocks read from the store rather than disk time.
+ *
+ * Usage: AncestorLookupBenchmark [chain length] [tips]
+ *
+ * Example:
+ *   AncestorLookupBenchmark 100000 1000
+ */
+public class AncestorLookupBenchmark {
+
+    private static final int CYCLE_LENGTH = 576;
+    private static final int CYCLES = 4;
+    private static final int WORK_DIFF = 8;
+    private static final int ROUNDS = 3;
+
+    /** A block store in a hash map that counts the blocks that are read. */
+    static class CountingBlockStore implements BlockStore {
+        private final NetworkParameters params;
+        private final HashMap<Sha256Hash, StoredBlock> blocks = new HashMap<>();
+        private StoredBlock chainHead;
+        long reads;
+
+        CountingBlockStore(NetworkParameters params) {
+            this.params = params;
+        }
+
+        @Override
+        public void put(StoredBlock block) {
+            blocks.put(block.getHeader().getHash(), block);
+        }
+
+        @Override
+        public StoredBlock get(Sha256Hash hash) {
+            reads++;
+            return blocks.get(hash);
+        }
+
+        @Override
+        public StoredBlock getChainHead() {
+            return chainHead;
+        }
+
+        @Override
+        public void setChainHead(StoredBlock chainHead) {
+            this.chainHead = chainHead;
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public NetworkParameters getParams() {
+            return params;
+        }
+
+        @Override
+        public StoredBlock get(int height) {
+            return null;
+        }
+
+        @Override
+        public StoredBlock getChainHeadFromHash(Sha256Hash hash) {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws BlockStoreException {
+        int length = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int tips = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        NetworkParameters params = UnitTestParams.get();
+        CountingBlockStore store = new CountingBlockStore(params);
+        ArrayList<StoredBlock> chain = createChain(params, length);
+        for (StoredBlock block : chain)
+            store.put(block);
+
+        AncestorIndex index = new AncestorIndex();
+        Stopwatch watch = Stopwatch.createStarted();
+        for (StoredBlock block : chain.subList(Math.max(0, length - AncestorIndex.DEFAULT_CAPACITY), length))
+            index.add(block);
+        System.out.println("===========================================");
+        System.out.println("chain length: " + length + ", tips: " + tips + ", lookups: " + tips * CYCLES);
+        System.out.println("index: " + index.size() + " blocks added in " + watch.elapsed(TimeUnit.MILLISECONDS) + " ms");
+
+        run("linear walk", store, chain, tips, null);
+        run("ancestor index", store, chain, tips, index);
+        System.out.println("===========================================");
+    }
+
+    private static ArrayList<StoredBlock> createChain(NetworkParameters params, int length) {
+        ArrayList<StoredBlock> chain = new ArrayList<>(length);
+        Block genesis = params.getGenesisBlock().cloneAsHeader();
+        StoredBlock prev = new StoredBlock(genesis, genesis.getWork(), 0);
+        chain.add(prev);
+        for (int i = 1; i < length; i++) {
+            Block block = new Block(params, 1, prev.getHeader().getHash(), Sha256Hash.ZERO_HASH, i, 0, i,
+                    Collections.<Transaction>emptyList());
+            prev = new StoredBlock(block, prev.getChainWork().add(BigInteger.ONE), i);
+            chain.add(prev);
+        }
+        return chain;
+    }
+
+    private static void run(String name, CountingBlockStore store, ArrayList<StoredBlock> chain, int tips,
+                            AncestorIndex index) throws BlockStoreException {
+        long best = Long.MAX_VALUE;
+        long reads = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            store.reads = 0;
+            Stopwatch watch = Stopwatch.createStarted();
+            for (int i = 0; i < tips; i++) {
+                StoredBlock tip = chain.get(chain.size() - 1 - i);
+                for (int cycle = 0; cycle < CYCLES; cycle++) {
+                    int height = tip.getHeight() - cycle * CYCLE_LENGTH - WORK_DIFF;
+                    StoredBlock ancestor = index != null ? index.getAncestor(store, tip, height)
+                            : store.getAncestor(tip, height);
+                    if (height >= 0 && (ancestor == null || ancestor.getHeight() != height))
+                        throw new IllegalStateException("wrong ancestor at " + height);
+                }
+            }
+            best = Math.min(best, watch.elapsed(TimeUnit.MICROSECONDS));
+            reads = store.reads;
+        }
+        System.out.printf("%-16s %10d us %12d blocks read %10.1f per lookup%n", name, best, reads,
+                (double) reads / (tips * CYCLES));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.examples;
+
+import com.google.common.base.Stopwatch;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.crypto.BLSBatchVerifier;
+import org.bitcoinj.crypto.BLSPublicKey;
+import org.bitcoinj.crypto.BLSScheme;
+import org.bitcoinj.crypto.BLSSecretKey;
+import org.bitcoinj.crypto.BLSSignature;
+import org.dashj.bls.BLSJniLibrary;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark program that measures islock style batch verification throughput of {@link BLSBatchVerifier}
+ * on the calling thread (sub-batches of 8, as InstantSendManager does) and in parallel on fork-join pools
+ * of different sizes.
+ *
+ * Each synthetic islock has a unique message hash and is signed by one of 32 quorum keys.  One in
+ * every 1000 signatures is invalid so that the failure path is exercised.
+ *
+ * Usage: BLSBatchVerifierBenchmark [islocks...]
+ *
+ * Example:
+ *   BLSBatchVerifierBenchmark 1000 10000
+ */
+public class BLSBatchVerifierBenchmark {
+
+    private static final int QUORUMS = 32;
+    private static final int SUB_BATCH_SIZE = 8;
+    private static final int ROUNDS = 3;
+
+    static class IsLock {
+        long source;
+        Sha256Hash hash;
+        Sha256Hash signHash;
+        BLSSignature signature;
+        BLSPublicKey quorumPublicKey;
+    }
+
+    public static void main(String[] args) {
+        BLSJniLibrary.init();
+        BLSScheme.setLegacyDefault(false);
+
+        int[] counts = args.length > 0 ? new int[args.length] : new int[] {1000, 10000};
+        for (int i = 0; i < args.length; i++) {
+            counts[i] = Integer.parseInt(args[i]);
+        }
+
+        for (int count : counts) {
+            ArrayList<IsLock> islocks = createIsLocks(count);
+            System.out.println("===========================================");
+            System.out.println("islocks: " + count);
+            report("sequential", islocks, run(islocks, null));
+            for (int threads = 2; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+                ForkJoinPool pool = new ForkJoinPool(threads);
+                try {
+                    report("parallel (" + threads + " threads)", islocks, run(islocks, pool));
+                } finally {
+                    pool.shutdown();
+                }
+            }
+        }
+        System.out.println("===========================================");
+    }
+
+    private static ArrayList<IsLock> createIsLocks(int count) {
+        Random random = new Random(count);
+        BLSSecretKey[] quorumKeys = new BLSSecretKey[QUORUMS];
+        for (int i = 0; i < QUORUMS; i++) {
+            quorumKeys[i] = BLSSecretKey.makeNewKey();
+        }
+        BLSSecretKey wrongKey = BLSSecretKey.makeNewKey();
+
+        ArrayList<IsLock> islocks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] bytes = new byte[32];
+            random.nextBytes(bytes);
+            BLSSecretKey quorumKey = quorumKeys[random.nextInt(QUORUMS)];
+            IsLock islock = new IsLock();
+            islock.source = random.nextInt(8);
+            islock.hash = Sha256Hash.of(bytes);
+            islock.signHash = Sha256Hash.twiceOf(bytes);
+            islock.signature = (i % 1000 == 999 ? wrongKey : quorumKey).sign(islock.signHash);
+            islock.quorumPublicKey = quorumKey.getPublicKey();
+            islocks.add(islock);
+        }
+        return islocks;
+    }
+
+    /** returns the best time in nanoseconds of several rounds */
+    private static long run(ArrayList<IsLock> islocks, ForkJoinPool pool) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            Stopwatch watch = Stopwatch.createStarted();
+            BLSBatchVerifier<Long, Sha256Hash> batchVerifier;
+            if (pool != null) {
+                batchVerifier = new BLSBatchVerifier<>(false, true);
+                batchVerifier.setParallelVerification(pool, SUB_BATCH_SIZE);
+            } else {
+                batchVerifier = new BLSBatchVerifier<>(false, true, SUB_BATCH_SIZE);
+            }
+            for (IsLock islock : islocks) {
+                batchVerifier.pushMessage(islock.source, islock.hash, islock.signHash, islock.signature, islock.quorumPublicKey);
+            }
+            batchVerifier.verify();
+            best = Math.min(best, watch.elapsed(TimeUnit.NANOSECONDS));
+            if (batchVerifier.getBadMessages().size() != islocks.size() / 1000) {
+                throw new IllegalStateException("unexpected bad messages: " + batchVerifier.getBadMessages().size());
+            }
+        }
+        return best;
+    }
+
+    private static void report(String mode, ArrayList<IsLock> islocks, long nanos) {
+        double seconds = nanos / 1e9;
+        System.out.printf("%-24s %8.1f ms %10.0f islocks/sec%n", mode, nanos / 1e6, islocks.size() / seconds);
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.examples;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.SettableFuture;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.net.BlockingClientManager;
+import org.bitcoinj.net.ClientConnectionManager;
+import org.bitcoinj.net.MessageWriteTarget;
+import org.bitcoinj.net.NioClientManager;
+import org.bitcoinj.net.NioServer;
+import org.bitcoinj.net.StreamConnection;
+import org.bitcoinj.net.VirtualThreadClientManager;
+import org.bitcoinj.params.UnitTestParams;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stress test that opens many simulated peers over the loopback interface with a {@link ClientConnectionManager} and
+ * reports the memory and threads they take and the throughput they reach.
+ *
+ * An {@link NioServer} echoes everything it receives.  Every peer sends a number of messages one after another and
+ * waits for each to come back, like a peer answering pings and getdata requests.  The managers compared are
+ * {@link NioClientManager}, {@link BlockingClientManager} with a platform thread per peer and
+ * {@link VirtualThreadClientManager}, which falls back to platform threads before Java 21.  Run one manager per JVM
+ * to compare their memory.
+ *
+ * Usage: ConnectionManagerBenchmark [nio|blocking|virtual|all] [peers] [messages per peer] [message size]
+ *
+ * Example:
+ *   ConnectionManagerBenchmark virtual 1000 100 1000
+ */
+public class ConnectionManagerBenchmark {
+
+    private static final int PORT = 4260;
+    // Peers are opened in waves that fit in the accept backlog of the echo server
+    private static final int CONNECT_WAVE = 50;
+
+    /** Writes back everything it receives. */
+    static class EchoConnection implements StreamConnection {
+        private MessageWriteTarget writeTarget;
+
+        @Override
+        public void connectionClosed() {
+        }
+
+        @Override
+        public void connectionOpened() {
+        }
+
+        @Override
+        public int receiveBytes(ByteBuffer buff) throws Exception {
+            byte[] bytes = new byte[buff.remaining()];
+            buff.get(bytes);
+            writeTarget.writeBytes(bytes);
+            return buff.position();
+        }
+
+        @Override
+        public void setWriteTarget(MessageWriteTarget writeTarget) {
+            this.writeTarget = writeTarget;
+        }
+
+        @Override
+        public int getMaxMessageSize() {
+            return 65536;
+        }
+    }
+
+    /** Sends a message each time the previous one came back, until it sent them all. */
+    static class SimulatedPeer implements StreamConnection {
+        final SettableFuture<Void> opened = SettableFuture.create();
+        final SettableFuture<Void> done = SettableFuture.create();
+        private final byte[] message;
+        private final int messages;
+        private final AtomicLong bytes;
+        private MessageWriteTarget writeTarget;
+        private int received;
+        private int sent;
+
+        SimulatedPeer(byte[] message, int messages, AtomicLong bytes) {
+            this.message = message;
+            this.messages = messages;
+            this.bytes = bytes;
+        }
+
+        void start() throws Exception {
+            sent = 1;
+            writeTarget.writeBytes(message);
+        }
+
+        @Override
+        public void connectionClosed() {
+            opened.setException(new IllegalStateException("closed"));
+            done.setException(new IllegalStateException("closed"));
+        }
+
+        @Override
+        public void connectionOpened() {
+            opened.set(null);
+        }
+
+        @Override
+        public int receiveBytes(ByteBuffer buff) throws Exception {
+            received += buff.remaining();
+            bytes.addAndGet(buff.remaining());
+            buff.position(buff.limit());
+            if (received == message.length) {
+                received = 0;
+                if (sent == messages) {
+                    done.set(null);
+                } else {
+                    sent++;
+                    writeTarget.writeBytes(message);
+                }
+            }
+            return buff.position();
+        }
+
+        @Override
+        public void setWriteTarget(MessageWriteTarget writeTarget) {
+            this.writeTarget = writeTarget;
+        }
+
+        @Override
+        public int getMaxMessageSize() {
+            return 65536;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0] : "all";
+        int peers = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int messages = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int size = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        Context.propagate(new Context(UnitTestParams.get()));
+
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), PORT);
+        NioServer server = new NioServer((inetAddress, port) -> new EchoConnection(), address);
+        server.startAsync().awaitRunning();
+        System.out.println("===========================================");
+        System.out.println("peers: " + peers + ", messages per peer: " + messages + ", message size: " + size
+                + ", virtual threads: " + VirtualThreadClientManager.isVirtualThreadSupported());
+        try {
+            if (mode.equals("nio") || mode.equals("all"))
+                run("nio", new NioClientManager(), address, peers, messages, size);
+            if (mode.equals("blocking") || mode.equals("all"))
+                run("blocking", new BlockingClientManager(), address, peers, messages, size);
+            if (mode.equals("virtual") || mode.equals("all"))
+                run("virtual", new VirtualThreadClientManager(), address, peers, messages, size);
+        } finally {
+            server.stopAsync().awaitTerminated();
+        }
+        System.out.println("===========================================");
+    }
+
+    private static void run(String name, ClientConnectionManager manager, InetSocketAddress address, int peers,
+                            int messages, int size) throws Exception {
+        long heapBefore = usedHeap();
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+        manager.startAsync().awaitRunning();
+        AtomicLong bytes = new AtomicLong();
+        byte[] message = new byte[size];
+        List<SimulatedPeer> connections = new ArrayList<>(peers);
+
+        Stopwatch watch = Stopwatch.createStarted();
+        for (int wave = 0; wave < peers; wave += CONNECT_WAVE) {
+            for (int i = wave; i < Math.min(peers, wave + CONNECT_WAVE); i++) {
+                SimulatedPeer peer = new SimulatedPeer(message, messages, bytes);
+                manager.openConnection(address, peer);
+                connections.add(peer);
+            }
+            for (SimulatedPeer peer : connections.subList(wave, connections.size()))
+                peer.opened.get(60, TimeUnit.SECONDS);
+        }
+        long connectMillis = watch.elapsed(TimeUnit.MILLISECONDS);
+        long heap = usedHeap() - heapBefore;
+        int threads = ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore;
+
+        watch.reset().start();
+        for (SimulatedPeer peer : connections)
+            peer.start();
+        for (SimulatedPeer peer : connections)
+            peer.done.get(300, TimeUnit.SECONDS);
+        long millis = Math.max(1, watch.elapsed(TimeUnit.MILLISECONDS));
+        manager.stopAsync().awaitTerminated();
+
+        System.out.printf("%-9s connect %6d ms  heap %7.1f MB  platform threads %5d  %8.0f messages/s  %7.1f MB/s%n",
+                name, connectMillis, heap / 1e6, threads, (double) peers * messages * 1000 / millis,
+                bytes.get() / 1e3 / millis);
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
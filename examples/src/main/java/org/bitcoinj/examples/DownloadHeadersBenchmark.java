@@ -30,16 +30,19 @@ import org.bitcoinj.utils.BriefLogFormatter;
 import org.bitcoinj.wallet.KeyChainGroup;
 import org.bitcoinj.wallet.Wallet;
 
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
  * Benchmark program to compare header download times between regular headers (v1)
  * and compressed headers (v2) as defined in DIP-0025.
  *
- * Usage: DownloadHeadersBenchmark <network> <version> [--debuglog]
+ * Usage: DownloadHeadersBenchmark <network> <version> [--debuglog] [--serial-hashing]
  *   network: mainnet or testnet
  *   version: 1 (regular headers) or 2 (compressed headers)
+ *   --serial-hashing: hash headers one at a time instead of in parallel
  *
  * Example:
  *   DownloadHeadersBenchmark testnet 1
@@ -49,9 +52,10 @@ public class DownloadHeadersBenchmark {
 
     public static void main(String[] args) throws Exception {
         if (args.length < 2) {
-            System.out.println("Usage: DownloadHeadersBenchmark <network> <version> [--debuglog]");
+            System.out.println("Usage: DownloadHeadersBenchmark <network> <version> [--debuglog] [--serial-hashing]");
             System.out.println("  network: mainnet or testnet");
             System.out.println("  version: 1 (regular headers) or 2 (compressed headers)");
+            System.out.println("  --serial-hashing: hash headers one at a time instead of in parallel");
             System.exit(1);
         }
 
@@ -64,8 +68,11 @@ public class DownloadHeadersBenchmark {
             System.exit(1);
         }
 
+        List<String> options = Arrays.asList(args).subList(2, args.length);
+        boolean parallelHashing = !options.contains("--serial-hashing");
+
         // Setup logging
-        if (args.length >= 3 && args[2].equals("--debuglog")) {
+        if (options.contains("--debuglog")) {
             BriefLogFormatter.initVerbose();
         } else {
             BriefLogFormatter.initWithSilentBitcoinJ();
@@ -91,6 +98,7 @@ public class DownloadHeadersBenchmark {
         System.out.println("Network: " + network);
         System.out.println("Header version: " + headerVersion + " (" +
                 (useCompressedHeaders ? "compressed" : "regular") + ")");
+        System.out.println("Header hashing: " + (parallelHashing ? "parallel" : "serial"));
         System.out.println("Start time: " + new Date());
         System.out.println("===========================================");
 
@@ -111,6 +119,7 @@ public class DownloadHeadersBenchmark {
 
         // Enable or disable compressed headers
         peerGroup.setUseCompressedHeaders(useCompressedHeaders);
+        peerGroup.setParallelHeaderHashing(parallelHashing);
 
         // Add wallet to chain and peer group
         chain.addWallet(wallet);
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.examples;
+
+import com.google.common.base.Stopwatch;
+import com.google.protobuf.ByteString;
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.params.UnitTestParams;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.wallet.WalletEx;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.LinkedHashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark program that measures how long it takes to find out whether public key hashes belong to a wallet, as is
+ * done for every output of every transaction that matches the Bloom filter of a wallet.
+ *
+ * The wallet is a {@link WalletEx} with the given number of receiving addresses on both the BIP44 and the CoinJoin key
+ * chain. A third of the looked up hashes belong to the BIP44 chain, a third to the CoinJoin chain and a third to
+ * neither, which are the slowest as every key chain is looked at.  For comparison the same hashes are also looked up
+ * in a map keyed by {@link ByteString}, as the key chains used to do.  Where the JVM supports it the bytes allocated
+ * per lookup are printed too.
+ *
+ * Usage: IsMineBenchmark [addresses]
+ *
+ * Example:
+ *   IsMineBenchmark
+ *   IsMineBenchmark 10000
+ */
+public class IsMineBenchmark {
+
+    private static final int ROUNDS = 5;
+    private static final int LOOKUPS = 1_000_000;
+
+    public static void main(String[] args) {
+        NetworkParameters params = UnitTestParams.get();
+        Context.propagate(new Context(params));
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+
+        WalletEx wallet = WalletEx.createDeterministic(params, Script.ScriptType.P2PKH);
+        wallet.initializeCoinJoin(0);
+        LinkedHashMap<ByteString, Address> map = new LinkedHashMap<>();
+        byte[][] hashes = new byte[size * 3][];
+        Random random = new Random(1);
+        for (int i = 0; i < size; i++) {
+            Address address = wallet.freshReceiveAddress();
+            Address coinJoinAddress = wallet.getCoinJoin().freshReceiveAddress();
+            map.put(ByteString.copyFrom(address.getHash()), address);
+            map.put(ByteString.copyFrom(coinJoinAddress.getHash()), coinJoinAddress);
+            hashes[i * 3] = address.getHash();
+            hashes[i * 3 + 1] = coinJoinAddress.getHash();
+            hashes[i * 3 + 2] = new byte[20];
+            random.nextBytes(hashes[i * 3 + 2]);
+        }
+
+        System.out.println("===========================================");
+        System.out.printf("%d addresses on each chain, %d lookups%n", size, LOOKUPS);
+        long best = Long.MAX_VALUE, bestMap = Long.MAX_VALUE;
+        long allocated = 0, allocatedMap = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = allocatedBytes();
+            Stopwatch watch = Stopwatch.createStarted();
+            int mine = 0;
+            for (int i = 0; i < LOOKUPS; i++)
+                if (wallet.isPubKeyHashMine(hashes[i % hashes.length], Script.ScriptType.P2PKH))
+                    mine++;
+            best = Math.min(best, watch.elapsed(TimeUnit.NANOSECONDS));
+            allocated = allocatedBytes() - before;
+            check(mine, hashes.length);
+
+            before = allocatedBytes();
+            watch = Stopwatch.createStarted();
+            mine = 0;
+            for (int i = 0; i < LOOKUPS; i++)
+                if (map.get(ByteString.copyFrom(hashes[i % hashes.length])) != null)
+                    mine++;
+            bestMap = Math.min(bestMap, watch.elapsed(TimeUnit.NANOSECONDS));
+            allocatedMap = allocatedBytes() - before;
+            check(mine, hashes.length);
+        }
+        System.out.printf("isPubKeyHashMine:  %6.1f ns, %5d bytes per lookup%n",
+                (double) best / LOOKUPS, allocated / LOOKUPS);
+        System.out.printf("ByteString map:    %6.1f ns, %5d bytes per lookup%n",
+                (double) bestMap / LOOKUPS, allocatedMap / LOOKUPS);
+        System.out.println("===========================================");
+    }
+
+    // Checks that two thirds of the lookups found a key, so that the JIT can't skip them
+    private static void check(int mine, int hashes) {
+        int expected = LOOKUPS / hashes * hashes / 3 * 2;
+        for (int i = LOOKUPS / hashes * hashes; i < LOOKUPS; i++)
+            if (i % 3 != 2)
+                expected++;
+        if (mine != expected)
+            throw new IllegalStateException(mine + " keys found, expected " + expected);
+    }
+
+    // Returns the bytes allocated by the current thread, or 0 if the JVM doesn't tell
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean)
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        return 0;
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.examples;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.collect.ImmutableList;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.crypto.ChildNumber;
+import org.bitcoinj.crypto.factory.BLSKeyFactory;
+import org.bitcoinj.crypto.factory.ECKeyFactory;
+import org.bitcoinj.crypto.factory.Ed25519KeyFactory;
+import org.bitcoinj.crypto.factory.KeyFactory;
+import org.bitcoinj.params.UnitTestParams;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.wallet.AnyDeterministicKeyChain;
+import org.bitcoinj.wallet.DerivationPathFactory;
+import org.dashj.bls.BLSJniLibrary;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark program that measures how long it takes to fill the lookahead zone of ECDSA, BLS and Ed25519 key chains
+ * with {@link AnyDeterministicKeyChain#maybeLookAhead()}, deriving the keys on the calling thread and on the common
+ * fork join pool. Both the external and the internal path are filled, so twice the lookahead size is derived.
+ *
+ * Usage: KeyDerivationBenchmark [lookahead sizes...]
+ *
+ * Example:
+ *   KeyDerivationBenchmark
+ *   KeyDerivationBenchmark 5000
+ */
+public class KeyDerivationBenchmark {
+
+    private static final int ROUNDS = 3;
+    private static final byte[] ENTROPY = Sha256Hash.hash("key derivation benchmark".getBytes());
+
+    public static void main(String[] args) {
+        NetworkParameters params = UnitTestParams.get();
+        Context.propagate(new Context(params));
+        int[] sizes = args.length > 0 ? new int[args.length] : new int[] { 100, 1000 };
+        for (int i = 0; i < args.length; i++)
+            sizes[i] = Integer.parseInt(args[i]);
+        DerivationPathFactory paths = DerivationPathFactory.get(params);
+
+        System.out.println("===========================================");
+        System.out.println("processors: " + Runtime.getRuntime().availableProcessors() + ", common pool parallelism: "
+                + ForkJoinPool.commonPool().getParallelism());
+        for (int size : sizes) {
+            benchmark("ECDSA", ECKeyFactory.get(), AnyDeterministicKeyChain.ACCOUNT_ZERO_PATH, false, size);
+            try {
+                BLSJniLibrary.init();
+                benchmark("BLS", BLSKeyFactory.get(), paths.masternodeOperatorDerivationPath(), false, size);
+            } catch (LinkageError x) {
+                System.out.println("BLS skipped, the native library is not available: " + x.getMessage());
+            }
+            benchmark("Ed25519", Ed25519KeyFactory.get(), paths.masternodeHoldingsDerivationPath(), true, size);
+        }
+        System.out.println("===========================================");
+    }
+
+    private static void benchmark(String name, KeyFactory keyFactory, ImmutableList<ChildNumber> accountPath,
+                                  boolean hardenedKeysOnly, int size) {
+        long sequential = Long.MAX_VALUE, parallel = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            sequential = Math.min(sequential, lookAhead(keyFactory, accountPath, hardenedKeysOnly, size, null));
+            parallel = Math.min(parallel, lookAhead(keyFactory, accountPath, hardenedKeysOnly, size,
+                    ForkJoinPool.commonPool()));
+        }
+        System.out.printf("%-7s lookahead %5d: %9.1f ms, in parallel %9.1f ms%n",
+                name, size, sequential / 1e6, parallel / 1e6);
+    }
+
+    private static long lookAhead(KeyFactory keyFactory, ImmutableList<ChildNumber> accountPath,
+                                  boolean hardenedKeysOnly, int size, @Nullable ForkJoinPool pool) {
+        AnyDeterministicKeyChain chain = AnyDeterministicKeyChain.builder().entropy(ENTROPY, 0)
+                .accountPath(accountPath)
+                .outputScriptType(Script.ScriptType.P2PKH)
+                .keyFactory(keyFactory)
+                .hardenedKeysOnly(hardenedKeysOnly)
+                .build();
+        chain.setKeyDerivationPool(pool);
+        chain.setLookaheadSize(size);
+        Stopwatch watch = Stopwatch.createStarted();
+        chain.maybeLookAhead();
+        return watch.elapsed(TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.examples;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.util.concurrent.SettableFuture;
+import org.bitcoinj.core.BlockChain;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.PeerGroup;
+import org.bitcoinj.evolution.SimplifiedMasternodeListManager;
+import org.bitcoinj.manager.DashSystem;
+import org.bitcoinj.params.MainNetParams;
+import org.bitcoinj.params.TestNet3Params;
+import org.bitcoinj.quorums.FinalCommitment;
+import org.bitcoinj.quorums.LLMQParameters;
+import org.bitcoinj.quorums.QuorumRotationInfo;
+import org.bitcoinj.store.SPVBlockStore;
+import org.bitcoinj.utils.BriefLogFormatter;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark program that replays the processing of a captured qrinfo message, such as the
+ * qrinfo-*.dat files used by the unit tests, and then computes the members of every quorum at the tip.
+ * This covers the masternode list diffs, masternode scoring and the quorum quarter construction of
+ * quorum rotation.
+ *
+ * Usage: QuorumRotationBenchmark <network> <qrinfo-file> <spvchain-file> <protocol-version> [rounds]
+ *   network: mainnet or testnet
+ *
+ * Example:
+ *   QuorumRotationBenchmark mainnet QRINFO_0_1739226.dat mainnet.spvchain 70220 10
+ */
+public class QuorumRotationBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 4) {
+            System.out.println("Usage: QuorumRotationBenchmark <network> <qrinfo-file> <spvchain-file> <protocol-version> [rounds]");
+            System.exit(1);
+        }
+        BriefLogFormatter.initWithSilentBitcoinJ();
+
+        NetworkParameters params = args[0].equalsIgnoreCase("testnet") ? TestNet3Params.get() : MainNetParams.get();
+        byte[] qrinfoBytes = Files.readAllBytes(new File(args[1]).toPath());
+        File blockchainFile = new File(args[2]);
+        int protocolVersion = Integer.parseInt(args[3]);
+        int rounds = args.length > 4 ? Integer.parseInt(args[4]) : 10;
+
+        Context context = new Context(params);
+        DashSystem system = new DashSystem(context);
+        BlockChain blockChain = new BlockChain(context, new SPVBlockStore(params, blockchainFile));
+        system.initDash(true, true);
+        PeerGroup peerGroup = new PeerGroup(params, blockChain, blockChain);
+        system.setPeerGroupAndBlockChain(peerGroup, blockChain, blockChain);
+        LLMQParameters.LLMQType llmqType = params.getLlmqDIP0024InstantSend();
+
+        long processTotal = 0;
+        long membersTotal = 0;
+        int quorums = 0;
+        for (int round = 0; round <= rounds; round++) {
+            SimplifiedMasternodeListManager manager = new SimplifiedMasternodeListManager(context);
+            system.setMasternodeListManager(manager);
+            QuorumRotationInfo qrinfo = new QuorumRotationInfo(params, qrinfoBytes, protocolVersion);
+
+            Stopwatch watch = Stopwatch.createStarted();
+            SettableFuture<Boolean> qrinfoComplete = SettableFuture.create();
+            manager.processDiffMessage(null, qrinfo, true, qrinfoComplete);
+            qrinfoComplete.get(120, TimeUnit.SECONDS);
+            long processTime = watch.elapsed(TimeUnit.MICROSECONDS);
+
+            ArrayList<FinalCommitment> commitments = new ArrayList<>();
+            manager.getQuorumListAtTip(llmqType).forEachQuorum(true, commitments::add);
+            watch.reset().start();
+            for (FinalCommitment commitment : commitments) {
+                manager.getAllQuorumMembers(llmqType, commitment.getQuorumHash());
+            }
+            long membersTime = watch.elapsed(TimeUnit.MICROSECONDS);
+
+            // the first round warms up the JVM
+            if (round > 0) {
+                processTotal += processTime;
+                membersTotal += membersTime;
+                quorums = commitments.size();
+            }
+        }
+
+        System.out.println("===========================================");
+        System.out.println("Quorum Rotation Benchmark");
+        System.out.println("===========================================");
+        System.out.println("qrinfo: " + args[1]);
+        System.out.println("rounds: " + rounds);
+        System.out.printf("process qrinfo: %.2f ms/round%n", processTotal / 1000.0 / rounds);
+        System.out.printf("quorum members (%d quorums): %.2f ms/round%n", quorums, membersTotal / 1000.0 / rounds);
+        System.out.println("===========================================");
+        system.close();
+        System.exit(0);
+    }
+}
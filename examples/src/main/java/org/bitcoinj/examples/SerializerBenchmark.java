@@ -0,0 +1,169 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.examples;
+
+import com.google.common.base.Stopwatch;
+import com.google.common.io.Files;
+import org.bitcoinj.core.BitcoinSerializer;
+import org.bitcoinj.core.Block;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.HeadersMessage;
+import org.bitcoinj.core.InventoryItem;
+import org.bitcoinj.core.InventoryMessage;
+import org.bitcoinj.core.Message;
+import org.bitcoinj.core.MessageSerializer;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Ping;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.params.MainNetParams;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.bitcoinj.core.Utils.HEX;
+
+/**
+ * Benchmark program that measures how many messages per second {@link BitcoinSerializer} deserializes and how many
+ * bytes it allocates per message.
+ *
+ * The messages are either read from a capture of the bytes received from a peer, as a file of wire messages one after
+ * another, or made up from a mix of inv, tx, ping, headers and block messages.  Each round deserializes all of them as
+ * PeerSocketHandler does: small messages from the read buffer, and large messages from an array that holds just the
+ * payload.  The allocated bytes are only reported on JVMs that count them per thread.
+ *
+ * Usage: SerializerBenchmark [capture file]
+ *
+ * Example:
+ *   SerializerBenchmark
+ *   SerializerBenchmark mainnet-peer.bin
+ */
+public class SerializerBenchmark {
+
+    private static final int ROUNDS = 5;
+    // messages larger than this are read into their own array, as PeerSocketHandler does with its read buffer
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final String TX_HEX = "01000000010000000000000000000000000000000000000000000000000000000000000000ffffffff0d038754030114062f503253482fffffffff01c05e559500000000232103cb219f69f1b49468bd563239a86667e74a06fcba69ac50a08a5cbc42a5808e99ac00000000";
+
+    public static void main(String[] args) throws IOException {
+        NetworkParameters params = MainNetParams.get();
+        Context.propagate(new Context(params));
+        MessageSerializer serializer = params.getDefaultSerializer();
+
+        byte[] traffic = args.length > 0 ? Files.toByteArray(new File(args[0])) : makeTraffic(params, serializer);
+        // split the traffic into messages, remembering where their payloads start
+        List<int[]> messages = new ArrayList<>();
+        ByteBuffer buffer = ByteBuffer.wrap(traffic);
+        try {
+            while (buffer.hasRemaining()) {
+                int start = buffer.position();
+                serializer.seekPastMagicBytes(buffer);
+                BitcoinSerializer.BitcoinPacketHeader header = serializer.deserializeHeader(buffer);
+                messages.add(new int[] {start, buffer.position(), header.size});
+                buffer.position(buffer.position() + header.size);
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException x) {
+            // a partial message at the end of a capture
+            messages.remove(messages.size() - 1);
+        }
+
+        System.out.println("===========================================");
+        System.out.println("messages: " + messages.size() + ", bytes: " + traffic.length);
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocations = threads instanceof com.sun.management.ThreadMXBean ?
+                (com.sun.management.ThreadMXBean) threads : null;
+        long best = Long.MAX_VALUE;
+        long allocated = -1;
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = allocations != null ? allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) : 0;
+            Stopwatch watch = Stopwatch.createStarted();
+            int count = 0;
+            for (int[] message : messages) {
+                Message m;
+                if (message[2] + message[1] - message[0] <= READ_BUFFER_SIZE) {
+                    m = serializer.deserialize(ByteBuffer.wrap(traffic, message[0], traffic.length - message[0]));
+                } else {
+                    ByteBuffer headerBuffer = ByteBuffer.wrap(traffic, message[0], message[1] - message[0]);
+                    serializer.seekPastMagicBytes(headerBuffer);
+                    BitcoinSerializer.BitcoinPacketHeader header = serializer.deserializeHeader(headerBuffer);
+                    byte[] payload = new byte[header.size];
+                    System.arraycopy(traffic, message[1], payload, 0, header.size);
+                    m = serializer.deserializePayload(header, ByteBuffer.wrap(payload));
+                }
+                if (m != null)
+                    count++;
+            }
+            long micros = watch.elapsed(TimeUnit.MICROSECONDS);
+            if (allocations != null)
+                allocated = allocations.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+            best = Math.min(best, micros);
+            if (count != messages.size())
+                throw new IllegalStateException("lost messages");
+        }
+        System.out.printf("best of %d rounds: %d us, %.0f messages/s, %.1f MB/s%n", ROUNDS, best,
+                messages.size() * 1e6 / best, traffic.length / (double) best);
+        if (allocated >= 0)
+            System.out.printf("allocated: %.1f MB per round, %d bytes per message%n", allocated / 1e6,
+                    allocated / messages.size());
+        System.out.println("===========================================");
+    }
+
+    /** Returns the bytes of a mix of messages like those a wallet receives from a peer. */
+    private static byte[] makeTraffic(NetworkParameters params, MessageSerializer serializer) throws IOException {
+        Transaction tx = new Transaction(params, HEX.decode(TX_HEX));
+        InventoryMessage inv = new InventoryMessage(params);
+        for (int i = 0; i < 10; i++)
+            inv.addItem(new InventoryItem(InventoryItem.Type.Transaction, Sha256Hash.of(new byte[] {(byte) i})));
+        List<Block> headers = new ArrayList<>();
+        for (int i = 0; i < 2000; i++)
+            headers.add(params.getGenesisBlock().cloneAsHeader());
+        HeadersMessage headersMessage = new HeadersMessage(params, headers);
+        // a block of about half a megabyte
+        Block block = params.getGenesisBlock().cloneAsHeader();
+        block.addTransaction(tx);
+        ECKey key = new ECKey();
+        for (int i = 0; i < 5000; i++) {
+            Transaction spend = new Transaction(params);
+            spend.addInput(tx.getOutput(0));
+            spend.addOutput(Coin.valueOf(i + 1), key);
+            block.addTransaction(spend);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int i = 0; i < 2000; i++) {
+            serializer.serialize(inv, out);
+            serializer.serialize(tx, out);
+            if (i % 10 == 0)
+                serializer.serialize(new Ping(i), out);
+            if (i % 200 == 0) {
+                serializer.serialize(headersMessage, out);
+                serializer.serialize(block, out);
+            }
+        }
+        return out.toByteArray();
+    }
+}
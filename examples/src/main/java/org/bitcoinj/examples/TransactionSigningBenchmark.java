@@ -0,0 +1,175 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.examples;
+
+import com.google.common.base.Stopwatch;
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.SigHashCache;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.crypto.TransactionSignature;
+import org.bitcoinj.params.UnitTestParams;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.signers.LocalTransactionSigner;
+import org.bitcoinj.signers.TransactionSigner;
+import org.bitcoinj.wallet.Wallet;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark program that measures how long it takes to sign transactions with 10, 100 and 1000 P2PKH inputs, like
+ * CoinJoin denomination and consolidation transactions.
+ *
+ * The signature hashes of all inputs are calculated with
+ * {@link Transaction#hashForSignature(int, byte[], Transaction.SigHash, boolean)} and with a {@link SigHashCache}.
+ * Then three ways of signing are compared: signing every input with
+ * {@link Transaction#calculateSignature(int, ECKey, Script, Transaction.SigHash, boolean)} as LocalTransactionSigner
+ * used to, {@link LocalTransactionSigner} on the calling thread, and LocalTransactionSigner on the common fork join
+ * pool.  Every input spends an output to its own key.
+ *
+ * Usage: TransactionSigningBenchmark [inputs...]
+ *
+ * Example:
+ *   TransactionSigningBenchmark
+ *   TransactionSigningBenchmark 5000
+ */
+public class TransactionSigningBenchmark {
+
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) {
+        NetworkParameters params = UnitTestParams.get();
+        Context.propagate(new Context(params));
+        int[] sizes = args.length > 0 ? new int[args.length] : new int[] { 10, 100, 1000 };
+        for (int i = 0; i < args.length; i++)
+            sizes[i] = Integer.parseInt(args[i]);
+
+        System.out.println("===========================================");
+        System.out.println("processors: " + Runtime.getRuntime().availableProcessors() + ", common pool parallelism: "
+                + ForkJoinPool.commonPool().getParallelism());
+        for (int size : sizes) {
+            Wallet wallet = Wallet.createBasic(params);
+            Transaction tx = makeTransaction(params, wallet, size);
+            long legacyHashes = Long.MAX_VALUE, cachedHashes = Long.MAX_VALUE;
+            long legacy = Long.MAX_VALUE, sequential = Long.MAX_VALUE, parallel = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                legacyHashes = Math.min(legacyHashes, hashLegacy(tx));
+                cachedHashes = Math.min(cachedHashes, hashCached(tx));
+                legacy = Math.min(legacy, signLegacy(tx, wallet));
+                sequential = Math.min(sequential, sign(tx, wallet, new LocalTransactionSigner(null)));
+                parallel = Math.min(parallel, sign(tx, wallet, new LocalTransactionSigner()));
+            }
+            System.out.printf("%5d inputs: signature hashes %8.1f ms, cached %6.1f ms%n",
+                    size, legacyHashes / 1e6, cachedHashes / 1e6);
+            System.out.printf("%5d inputs: signing %8.1f ms, LocalTransactionSigner %8.1f ms, in parallel %8.1f ms%n",
+                    size, legacy / 1e6, sequential / 1e6, parallel / 1e6);
+        }
+        System.out.println("===========================================");
+    }
+
+    // Creates a transaction that spends outputs to new keys of the wallet, with empty signatures in its input scripts
+    private static Transaction makeTransaction(NetworkParameters params, Wallet wallet, int size) {
+        Transaction funding = new Transaction(params);
+        List<ECKey> keys = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ECKey key = new ECKey();
+            keys.add(key);
+            funding.addOutput(Coin.CENT, Address.fromKey(params, key));
+        }
+        wallet.importKeys(keys);
+        Transaction tx = new Transaction(params);
+        for (int i = 0; i < size; i++)
+            tx.addInput(funding.getOutput(i));
+        tx.addOutput(Coin.CENT.multiply(size - 1), Address.fromKey(params, new ECKey()));
+        clearSignatures(tx, keys);
+        return tx;
+    }
+
+    private static void clearSignatures(Transaction tx, List<ECKey> keys) {
+        for (int i = 0; i < tx.getInputs().size(); i++) {
+            TransactionInput input = tx.getInput(i);
+            Script scriptPubKey = input.getConnectedOutput().getScriptPubKey();
+            input.setScriptSig(scriptPubKey.createEmptyInputScript(keys.get(i), null));
+        }
+    }
+
+    private static List<ECKey> keys(Transaction tx, Wallet wallet) {
+        List<ECKey> keys = new ArrayList<>();
+        for (TransactionInput input : tx.getInputs())
+            keys.add(input.getConnectedRedeemData(wallet).getFullKey());
+        return keys;
+    }
+
+    private static long hashLegacy(Transaction tx) {
+        Stopwatch watch = Stopwatch.createStarted();
+        for (int i = 0; i < tx.getInputs().size(); i++) {
+            byte[] script = tx.getInput(i).getConnectedOutput().getScriptBytes();
+            tx.hashForSignature(i, script, Transaction.SigHash.ALL, false);
+        }
+        return watch.elapsed(TimeUnit.NANOSECONDS);
+    }
+
+    private static long hashCached(Transaction tx) {
+        Stopwatch watch = Stopwatch.createStarted();
+        SigHashCache cache = new SigHashCache(tx);
+        for (int i = 0; i < tx.getInputs().size(); i++) {
+            byte[] script = tx.getInput(i).getConnectedOutput().getScriptBytes();
+            cache.hashForSignature(i, script, Transaction.SigHash.ALL, false);
+        }
+        return watch.elapsed(TimeUnit.NANOSECONDS);
+    }
+
+    private static long signLegacy(Transaction tx, Wallet wallet) {
+        List<ECKey> keys = keys(tx, wallet);
+        clearSignatures(tx, keys);
+        Stopwatch watch = Stopwatch.createStarted();
+        for (int i = 0; i < tx.getInputs().size(); i++) {
+            TransactionInput input = tx.getInput(i);
+            TransactionOutput output = input.getConnectedOutput();
+            Script scriptPubKey = output.getScriptPubKey();
+            TransactionSignature signature = tx.calculateSignature(i, keys.get(i), scriptPubKey,
+                    Transaction.SigHash.ALL, false);
+            input.setScriptSig(scriptPubKey.getScriptSigWithSignature(input.getScriptSig(),
+                    signature.encodeToBitcoin(), 0));
+        }
+        long nanos = watch.elapsed(TimeUnit.NANOSECONDS);
+        verify(tx);
+        return nanos;
+    }
+
+    private static long sign(Transaction tx, Wallet wallet, LocalTransactionSigner signer) {
+        clearSignatures(tx, keys(tx, wallet));
+        Stopwatch watch = Stopwatch.createStarted();
+        signer.signInputs(new TransactionSigner.ProposedTransaction(tx), wallet);
+        long nanos = watch.elapsed(TimeUnit.NANOSECONDS);
+        verify(tx);
+        return nanos;
+    }
+
+    private static void verify(Transaction tx) {
+        for (TransactionInput input : tx.getInputs())
+            input.verify(input.getConnectedOutput());
+    }
+}
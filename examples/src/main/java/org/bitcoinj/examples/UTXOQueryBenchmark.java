@@ -0,0 +1,119 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.examples;
+
+import com.google.common.base.Stopwatch;
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.ECKey;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.UTXO;
+import org.bitcoinj.params.UnitTestParams;
+import org.bitcoinj.script.ScriptBuilder;
+import org.bitcoinj.store.LevelDBFullPrunedBlockStore;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark program that measures how long it takes to find the unspent outputs of many addresses in a
+ * {@link LevelDBFullPrunedBlockStore}, as a wallet does when it uses the store as its UTXO provider. The store is
+ * filled with two outputs to each of the looked up addresses and as many outputs to other addresses. The addresses are
+ * looked up with a single call of {@link LevelDBFullPrunedBlockStore#getOpenTransactionOutputs(List)} and, for
+ * comparison, with one call per address, which reads a new snapshot and seeks for every address.
+ *
+ * Usage: UTXOQueryBenchmark [addresses]
+ *
+ * Example:
+ *   UTXOQueryBenchmark
+ *   UTXOQueryBenchmark 100000
+ */
+public class UTXOQueryBenchmark {
+
+    private static final int ROUNDS = 5;
+    private static final int OUTPUTS_PER_ADDRESS = 2;
+
+    public static void main(String[] args) throws Exception {
+        NetworkParameters params = UnitTestParams.get();
+        Context.propagate(new Context(params));
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+
+        File directory = Files.createTempDirectory("utxo-query-benchmark").toFile();
+        LevelDBFullPrunedBlockStore store = new LevelDBFullPrunedBlockStore(params, directory.getAbsolutePath(), 10);
+        try {
+            List<ECKey> keys = new ArrayList<>(size);
+            store.beginDatabaseBatchWrite();
+            for (int i = 0; i < size * 2; i++) {
+                ECKey key = new ECKey();
+                Address address = Address.fromKey(params, key);
+                for (int j = 0; j < OUTPUTS_PER_ADDRESS; j++) {
+                    Sha256Hash hash = Sha256Hash.of(key.getPubKeyHash());
+                    store.addUnspentTransactionOutput(new UTXO(hash, j, Coin.COIN, 1, false,
+                            ScriptBuilder.createOutputScript(address), address.toString()));
+                }
+                // every other address isn't looked up
+                if (i % 2 == 0)
+                    keys.add(key);
+            }
+            store.commitDatabaseBatchWrite();
+            // the keys of a wallet aren't in the order of their hashes
+            Collections.shuffle(keys);
+
+            System.out.println("===========================================");
+            System.out.printf("%d addresses, %d outputs in the store%n", size, size * 2 * OUTPUTS_PER_ADDRESS);
+            long batched = Long.MAX_VALUE, single = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                Stopwatch watch = Stopwatch.createStarted();
+                int found = store.getOpenTransactionOutputs(keys).size();
+                batched = Math.min(batched, watch.elapsed(TimeUnit.NANOSECONDS));
+                check(found, size);
+
+                watch = Stopwatch.createStarted();
+                found = 0;
+                for (ECKey key : keys)
+                    found += store.getOpenTransactionOutputs(Collections.singletonList(key)).size();
+                single = Math.min(single, watch.elapsed(TimeUnit.NANOSECONDS));
+                check(found, size);
+            }
+            System.out.printf("all addresses at once: %9.1f ms%n", batched / 1e6);
+            System.out.printf("one address at a time: %9.1f ms%n", single / 1e6);
+            System.out.println("===========================================");
+        } finally {
+            store.close();
+            deleteRecursively(directory);
+        }
+    }
+
+    private static void check(int found, int size) {
+        if (found != size * OUTPUTS_PER_ADDRESS)
+            throw new IllegalStateException(found + " outputs found, expected " + size * OUTPUTS_PER_ADDRESS);
+    }
+
+    private static void deleteRecursively(File file) {
+        File[] children = file.listFiles();
+        if (children != null)
+            for (File child : children)
+                deleteRecursively(child);
+        file.delete();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2026 Dash Core Group
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.bitcoinj.examples;
+
+import com.google.common.base.Stopwatch;
+import org.bitcoinj.coinjoin.CoinJoin;
+import org.bitcoinj.core.Address;
+import org.bitcoinj.core.Coin;
+import org.bitcoinj.core.Context;
+import org.bitcoinj.core.NetworkParameters;
+import org.bitcoinj.core.Sha256Hash;
+import org.bitcoinj.core.Transaction;
+import org.bitcoinj.core.TransactionConfidence;
+import org.bitcoinj.core.TransactionInput;
+import org.bitcoinj.core.TransactionOutPoint;
+import org.bitcoinj.core.TransactionOutput;
+import org.bitcoinj.params.UnitTestParams;
+import org.bitcoinj.script.Script;
+import org.bitcoinj.wallet.Wallet;
+import org.bitcoinj.wallet.WalletEx;
+import org.bitcoinj.wallet.WalletProtobufSerializer;
+import org.bitcoinj.wallet.WalletTransaction;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark program that measures how long it takes to load a large CoinJoin wallet with
+ * {@link WalletProtobufSerializer}.
+ *
+ * The wallet is made up: a {@link WalletEx} with CoinJoin keys and the given number of transactions, most of which
+ * look like mixing transactions that spend earlier denominations of the wallet and create new ones.  It is saved once
+ * and then loaded a few times, with and without parallel loading, after which the balance is read as a wallet app
+ * would do right after startup.
+ *
+ * Usage: WalletLoadBenchmark [transactions]
+ *
+ * Example:
+ *   WalletLoadBenchmark
+ *   WalletLoadBenchmark 100000
+ */
+public class WalletLoadBenchmark {
+
+    private static final int ROUNDS = 3;
+    private static final int ADDRESSES = 1000;
+
+    public static void main(String[] args) throws Exception {
+        NetworkParameters params = UnitTestParams.get();
+        Context.propagate(new Context(params));
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+
+        Stopwatch watch = Stopwatch.createStarted();
+        WalletEx wallet = makeWallet(params, size);
+        byte[] bytes = save(wallet);
+        System.out.println("===========================================");
+        System.out.printf("wallet with %d transactions, %d bytes, made in %s%n", size, bytes.length, watch);
+
+        for (boolean parallel : new boolean[] { false, true }) {
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                // each load adds its transactions to the confidence table of a new context
+                Context.propagate(new Context(params));
+                System.gc();
+                WalletProtobufSerializer serializer = new WalletProtobufSerializer();
+                serializer.setParallelLoad(parallel);
+                Stopwatch load = Stopwatch.createStarted();
+                Wallet loaded = serializer.readWallet(new ByteArrayInputStream(bytes));
+                loaded.getBalance(Wallet.BalanceType.ESTIMATED);
+                best = Math.min(best, load.elapsed(TimeUnit.NANOSECONDS));
+                if (loaded.getTransactionCount(true) != size)
+                    throw new IllegalStateException("loaded " + loaded.getTransactionCount(true) + " transactions");
+            }
+            System.out.printf("parallel load %-5s: %8.1f ms%n", parallel, best / 1e6);
+        }
+        System.out.println("===========================================");
+    }
+
+    private static byte[] save(Wallet wallet) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new WalletProtobufSerializer().writeWallet(wallet, output);
+        return output.toByteArray();
+    }
+
+    // Makes a wallet whose transactions each spend up to three unspent denominations of the wallet, or a foreign
+    // output if there are none, and create two or three new denominations
+    private static WalletEx makeWallet(NetworkParameters params, int size) {
+        Random random = new Random(42);
+        WalletEx wallet = WalletEx.createDeterministic(params, Script.ScriptType.P2PKH);
+        wallet.initializeCoinJoin(0);
+        List<Address> addresses = new ArrayList<>();
+        for (int i = 0; i < ADDRESSES; i++) {
+            addresses.add(wallet.freshReceiveAddress());
+            addresses.add(wallet.getCoinJoin().freshReceiveAddress());
+        }
+        List<Coin> denominations = CoinJoin.getStandardDenominations();
+
+        List<TransactionOutput> unspent = new ArrayList<>();
+        List<Transaction> transactions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            Transaction tx = new Transaction(params);
+            int inputs = Math.min(unspent.size(), 1 + random.nextInt(3));
+            if (inputs == 0 || random.nextInt(10) == 0) {
+                byte[] hash = new byte[32];
+                random.nextBytes(hash);
+                tx.addInput(new TransactionInput(params, tx, new byte[0],
+                        new TransactionOutPoint(params, 0, Sha256Hash.wrap(hash))));
+            }
+            for (int j = 0; j < inputs; j++) {
+                TransactionOutput output = unspent.remove(random.nextInt(unspent.size()));
+                tx.addInput(output);
+            }
+            int outputs = 2 + random.nextInt(2);
+            for (int j = 0; j < outputs; j++) {
+                Coin value = denominations.get(random.nextInt(denominations.size()));
+                tx.addOutput(value, addresses.get(random.nextInt(addresses.size())));
+            }
+            unspent.addAll(tx.getOutputs());
+            TransactionConfidence confidence = tx.getConfidence();
+            confidence.setConfidenceType(TransactionConfidence.ConfidenceType.BUILDING);
+            confidence.setAppearedAtChainHeight(1 + i / 10);
+            confidence.setDepthInBlocks(size / 10 - i / 10 + 1);
+            confidence.setSource(TransactionConfidence.Source.NETWORK);
+            transactions.add(tx);
+        }
+        for (Transaction tx : transactions) {
+            WalletTransaction.Pool pool = tx.isEveryOwnedOutputSpent(wallet) ? WalletTransaction.Pool.SPENT
+                    : WalletTransaction.Pool.UNSPENT;
+            wallet.addWalletTransaction(new WalletTransaction(pool, tx));
+        }
+        return wallet;
+    }
+}